@@ -2,67 +2,88 @@ package restapi.beerorder.apprunner;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
-import restapi.beerorder.pojos.beer.Beer;
-import restapi.beerorder.repositories.beer.BeerRepo;
-import restapi.beerorder.services.BeerService;
+import restapi.beerorder.services.catalog.CatalogSnapshot;
+import restapi.beerorder.services.catalog.CatalogSync;
+import restapi.beerorder.services.catalog.CatalogWarmup;
+import restapi.beerorder.services.catalog.SyncStats;
 
-import java.util.Arrays;
-import java.util.concurrent.CompletableFuture;
+import java.io.IOException;
+import java.util.concurrent.Executor;
 
 /**
- * This class responsible for sending http requests to PunkAPI and saving the data received  to our Mongo DB.
+ * This class responsible for warming up the beers catalog in the background once the application has started,
+ * so users and orders are served right away.
+ * The offline snapshot is loaded first so most of the catalog is available quickly, then our Mongo DB is synced
+ * with PunkAPI, only new or changed beers are written. A failed sync is retried with a growing backoff until one
+ * succeeds, later syncs are scheduled by {@link CatalogSync}.
+ * The progress is tracked by {@link CatalogWarmup}.
  */
 @Component
-public class AsyncBeerRunner implements CommandLineRunner {
-
-    private final BeerService beerService;
-    private final BeerRepo beerRepo;
+public class AsyncBeerRunner {
+
+    private final CatalogSnapshot catalogSnapshot;
+    private final CatalogSync catalogSync;
+    private final CatalogWarmup catalogWarmup;
+    private final Executor maintenanceExecutor;
+    private final long retryBackoffMillis;
+    private final long maxBackoffMillis;
     private static final Logger logger = LoggerFactory.getLogger(AsyncBeerRunner.class);
 
-    @Value("${per.page}")
-    private int beersPerPage;
-
-    public AsyncBeerRunner(BeerService beerService,BeerRepo beerRepo) {
-        this.beerService = beerService;
-        this.beerRepo=beerRepo;
+    public AsyncBeerRunner(CatalogSnapshot catalogSnapshot, CatalogSync catalogSync, CatalogWarmup catalogWarmup,
+                           @Qualifier("maintenanceExecutor") Executor maintenanceExecutor,
+                           @Value("${catalog.warmup.retry-backoff-ms:1000}") long retryBackoffMillis,
+                           @Value("${catalog.warmup.max-backoff-ms:60000}") long maxBackoffMillis) {
+        this.catalogSnapshot = catalogSnapshot;
+        this.catalogSync = catalogSync;
+        this.catalogWarmup = catalogWarmup;
+        this.maintenanceExecutor = maintenanceExecutor;
+        this.retryBackoffMillis = Math.max(1, retryBackoffMillis);
+        this.maxBackoffMillis = Math.max(this.retryBackoffMillis, maxBackoffMillis);
     }
 
-    @Override
-    public void run(String... args) throws Exception {
-        logger.info("Entered run method.");
-
-        CompletableFuture<Beer[]>[] beers = new CompletableFuture[beersPerPage];
-
-        for(int i = 0; i < beersPerPage; i++){
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        logger.info("Application ready, warming up the catalog in the background.");
 
-            beers[i] = beerService.beerDetails(i + 1);
+        maintenanceExecutor.execute(this::warmUp);
+    }
 
-            try{
-                Thread.sleep(3000);
-            }catch(InterruptedException ex){
-                logger.error("Something went wrong", ex.getCause());
+    void warmUp() {
+        try {
+            if (catalogSnapshot.load() > 0) {
+                catalogWarmup.markPartiallyLoaded();
             }
+        } catch (IOException | RuntimeException ex) {
+            logger.warn("Couldn't load the catalog snapshot, falling back to the PunkAPI sync", ex);
         }
 
-        CompletableFuture.allOf(beers).join();
-        /*
-        allOf - executes multiple CompletableFuture objects in parallel
-        join - return the result values when complete opr throw an unchecked exception
-         */
-        Beer[] beerTempRawArr;
-        Beer beerTemp;
+        long backoff = retryBackoffMillis;
 
-        for(CompletableFuture<Beer[]> beer : beers) {
-            logger.info("Beer = " + Arrays.toString(beer.get()));
+        // Until a sync succeeds the catalog isn't ready, so we keep trying rather than wait for the scheduled one.
+        while (!catalogWarmup.isReady()) {
+            try {
+                SyncStats stats = catalogSync.sync();
 
-            beerTempRawArr = beer.get();
+                logger.info("Catalog sync at startup finished: " + stats);
+                catalogWarmup.markReady();
+            } catch (RuntimeException ex) {
+                logger.error("Catalog warmup failed, retrying in " + backoff + " ms", ex);
+                catalogWarmup.markFailed(ex);
 
-            beerTemp = beerTempRawArr[0];
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
 
-            beerRepo.save(beerTemp);
-         }
+                backoff = Math.min(maxBackoffMillis, backoff * 2);
+            }
+        }
     }
 }
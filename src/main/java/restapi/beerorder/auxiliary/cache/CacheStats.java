@@ -0,0 +1,20 @@
+package restapi.beerorder.auxiliary.cache;
+
+import lombok.Value;
+
+/**
+ * This class is a point in time view of an {@link LruCache}.
+ */
+@Value
+public class CacheStats {
+    int size;
+    int maxSize;
+    long hits;
+    long misses;
+    long evictions;
+    long invalidations;
+
+    public double getHitRatio() {
+        return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+    }
+}
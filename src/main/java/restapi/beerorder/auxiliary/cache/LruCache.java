@@ -0,0 +1,158 @@
+package restapi.beerorder.auxiliary.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+/**
+ * This class is a bounded, thread safe cache that evicts the least recently used entry when full
+ * and drops entries older than the time to live.
+ * A value loaded while an invalidation happened is not cached, so a reader never puts back stale data.
+ */
+public class LruCache<K, V> {
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private long version;
+
+    public LruCache(int maxSize, long ttlSeconds) {
+        this.maxSize = Math.max(1, maxSize);
+        this.ttlNanos = ttlSeconds <= 0 ? Long.MAX_VALUE : TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > LruCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @return the cached value, or null if it's missing or expired.
+     */
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+
+        if (System.nanoTime() - entry.createdAt > ttlNanos) {
+            entries.remove(key);
+            evictions.increment();
+            misses.increment();
+            return null;
+        }
+
+        hits.increment();
+
+        return entry.value;
+    }
+
+    /**
+     * Looks a key up without counting a hit or a miss, for callers that only check what's cached
+     * and fall back to a lookup of their own.
+     * @return the cached value, or null if it's missing or expired.
+     */
+    public synchronized V peek(K key) {
+        Entry<V> entry = entries.get(key);
+
+        if (entry == null || System.nanoTime() - entry.createdAt > ttlNanos) {
+            return null;
+        }
+
+        return entry.value;
+    }
+
+    /**
+     * Returns the cached value, or loads and caches it. The loader runs outside the lock.
+     * @param loader - returns null when there's nothing to cache.
+     */
+    public V get(K key, Function<K, V> loader) {
+        long versionBeforeLoad;
+
+        synchronized (this) {
+            V cached = get(key);
+
+            if (cached != null) {
+                return cached;
+            }
+
+            versionBeforeLoad = version;
+        }
+
+        V loaded = loader.apply(key);
+
+        if (loaded != null) {
+            synchronized (this) {
+                if (version == versionBeforeLoad) {
+                    entries.put(key, new Entry<>(loaded, System.nanoTime()));
+                }
+            }
+        }
+
+        return loaded;
+    }
+
+    /**
+     * Caches a value that isn't loaded from anywhere, e.g. a response to replay.
+     */
+    public synchronized void put(K key, V value) {
+        entries.put(key, new Entry<>(value, System.nanoTime()));
+    }
+
+    public synchronized void invalidate(K key) {
+        version++;
+
+        if (entries.remove(key) != null) {
+            invalidations.increment();
+        }
+    }
+
+    public synchronized void invalidateIf(BiPredicate<K, V> predicate) {
+        version++;
+
+        for (Iterator<Map.Entry<K, Entry<V>>> it = entries.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<K, Entry<V>> entry = it.next();
+
+            if (predicate.test(entry.getKey(), entry.getValue().value)) {
+                it.remove();
+                invalidations.increment();
+            }
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        version++;
+        invalidations.add(entries.size());
+        entries.clear();
+    }
+
+    public synchronized CacheStats stats() {
+        return new CacheStats(entries.size(), maxSize, hits.sum(), misses.sum(), evictions.sum(), invalidations.sum());
+    }
+
+    private static class Entry<V> {
+        final V value;
+        final long createdAt;
+
+        Entry(V value, long createdAt) {
+            this.value = value;
+            this.createdAt = createdAt;
+        }
+    }
+}
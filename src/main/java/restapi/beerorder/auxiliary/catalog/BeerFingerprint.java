@@ -0,0 +1,92 @@
+package restapi.beerorder.auxiliary.catalog;
+
+import org.bson.Document;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * This class computes a stable content fingerprint of a beer document.
+ * The document is written in a canonical form - keys sorted, nulls dropped and every number as a double -
+ * so the same beer always gets the same SHA-256 fingerprint no matter how it was built or read.
+ * The fingerprint identifies a version of a beer, the content hash leaves the id out so two beers with
+ * the same content share it.
+ */
+public class BeerFingerprint {
+    public static final String FIELD = "fingerprint";
+    public static final String CONTENT_HASH_FIELD = "contentHash";
+
+    // Fields that aren't part of the beer's content. The content hash is derived from the content, keeping it
+    // in the fingerprint makes beers stored before it existed look changed, so the next sync adds it.
+    private static final Set<String> IGNORED = Set.of("_class", "usersThatLikeThisBeer", "likeCount", FIELD);
+    private static final Set<String> IGNORED_BY_CONTENT_HASH = Set.of("_id", "_class", "usersThatLikeThisBeer",
+            "likeCount", FIELD, CONTENT_HASH_FIELD);
+
+    public static String of(Document beerDocument) {
+        return hash(beerDocument, IGNORED);
+    }
+
+    public static String contentHash(Document beerDocument) {
+        return hash(beerDocument, IGNORED_BY_CONTENT_HASH);
+    }
+
+    private static String hash(Document beerDocument, Set<String> ignored) {
+        StringBuilder canonical = new StringBuilder();
+        appendDocument(canonical, beerDocument, ignored);
+
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(canonical.toString().getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+
+            return hex.toString();
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+
+    private static void appendDocument(StringBuilder canonical, Map<String, Object> document, Set<String> ignored) {
+        canonical.append('{');
+
+        for (Map.Entry<String, Object> entry : new TreeMap<>(document).entrySet()) {
+            if (entry.getValue() == null || ignored.contains(entry.getKey())) {
+                continue;
+            }
+
+            canonical.append(entry.getKey()).append(':');
+            appendValue(canonical, entry.getValue());
+            canonical.append(',');
+        }
+
+        canonical.append('}');
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void appendValue(StringBuilder canonical, Object value) {
+        if (value instanceof Map) {
+            appendDocument(canonical, (Map<String, Object>) value, Set.of());
+        } else if (value instanceof Collection) {
+            canonical.append('[');
+
+            for (Object element : (Collection<?>) value) {
+                appendValue(canonical, element);
+                canonical.append(',');
+            }
+
+            canonical.append(']');
+        } else if (value instanceof Number) {
+            canonical.append(((Number) value).doubleValue());
+        } else {
+            canonical.append('"').append(value.toString().replace("\"", "\\\"")).append('"');
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package restapi.beerorder.auxiliary.catalog;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.bson.Document;
+import restapi.beerorder.pojos.beer.Beer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * This class turns a PunkAPI-style JSON array of beers (or an NDJSON stream of them) into beer documents,
+ * one element at a time, using Jackson's token-level parser. Only the current element is ever held in memory.
+ * Each document has the same shape the mapping converter writes for a {@link Beer}, so fingerprints match.
+ */
+public class BeerJsonStream {
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    // Persistent beer fields we read, everything else (and any unknown field) is skipped.
+    private static final Set<String> FIELDS = Set.of("name", "first_brewed", "description", "brewers_tips",
+            "abv", "ibu", "ph", "volume", "boil_volume", "ingredients", "food_pairing");
+    private static final Set<String> DOUBLE_FIELDS = Set.of("abv", "ibu", "ph");
+
+    /**
+     * Parses the array and hands each beer document to the consumer as soon as it's read.
+     * @param in - the JSON body, it's closed when done.
+     * @param consumer - receives the beer documents.
+     * @return the number of beers read.
+     */
+    public static int parse(InputStream in, Consumer<Document> consumer) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new JsonParseException(parser, "Expected an array of beers");
+            }
+
+            int count = 0;
+
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                consumer.accept(readBeer(parser));
+                count++;
+            }
+
+            return count;
+        }
+    }
+
+    /**
+     * Parses a sequence of root-level beer objects, like an NDJSON body, and hands each beer document to the
+     * consumer as soon as it's read.
+     * @param in - the body, it's closed when done.
+     * @param consumer - receives the beer documents.
+     * @return the number of beers read.
+     */
+    public static int parseSequence(InputStream in, Consumer<Document> consumer) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+            int count = 0;
+            JsonToken token;
+
+            while ((token = parser.nextToken()) != null) {
+                if (token != JsonToken.START_OBJECT) {
+                    throw new JsonParseException(parser, "Expected one beer object per line");
+                }
+
+                consumer.accept(readBeer(parser));
+                count++;
+            }
+
+            return count;
+        }
+    }
+
+    private static Document readBeer(JsonParser parser) throws IOException {
+        Document beer = new Document();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+
+            if ("id".equals(field)) {
+                // An id that isn't a whole number is left out, so only this beer is rejected for having none.
+                if (parser.currentToken() == JsonToken.VALUE_NUMBER_INT
+                        && parser.getNumberType() != JsonParser.NumberType.BIG_INTEGER) {
+                    beer.put("_id", parser.getLongValue());
+                } else {
+                    parser.skipChildren();
+                }
+            } else if (FIELDS.contains(field)) {
+                Object value = readValue(parser, false);
+
+                if (value instanceof Number && DOUBLE_FIELDS.contains(field)) {
+                    value = ((Number) value).doubleValue();
+                }
+
+                if (value != null) {
+                    beer.put(field, value);
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        beer.put("_class", Beer.class.getName());
+
+        return beer;
+    }
+
+    /**
+     * Reads the value the parser points at, amounts are always doubles like {@link Beer.Amount#value}.
+     */
+    private static Object readValue(JsonParser parser, boolean inAmount) throws IOException {
+        switch (parser.currentToken()) {
+            case START_OBJECT:
+                Document document = new Document();
+
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.getCurrentName();
+                    parser.nextToken();
+                    Object value = readValue(parser, "amount".equals(field));
+
+                    if (value instanceof Number && inAmount && "value".equals(field)) {
+                        value = ((Number) value).doubleValue();
+                    }
+
+                    if (value != null) {
+                        document.put(field, value);
+                    }
+                }
+
+                return document;
+            case START_ARRAY:
+                List<Object> list = new ArrayList<>();
+
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    list.add(readValue(parser, false));
+                }
+
+                return list;
+            case VALUE_STRING:
+                return parser.getText();
+            case VALUE_NUMBER_INT:
+                return parser.getNumberType() == JsonParser.NumberType.INT ? parser.getIntValue() : parser.getLongValue();
+            case VALUE_NUMBER_FLOAT:
+                return parser.getDoubleValue();
+            case VALUE_TRUE:
+            case VALUE_FALSE:
+                return parser.getBooleanValue();
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package restapi.beerorder.auxiliary.catalog;
+
+import lombok.Value;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * This event is published whenever beers are written or deleted, so the in-memory views of the catalog
+ * can be updated. It names the changed beers, or the whole catalog when that's cheaper.
+ */
+@Value
+public class CatalogChangedEvent {
+    Set<Long> beerIds;
+    Set<String> names;
+    boolean wholeCatalog;
+
+    public static CatalogChangedEvent beers(Collection<Long> beerIds, Collection<String> names) {
+        return new CatalogChangedEvent(Set.copyOf(beerIds), Set.copyOf(names), false);
+    }
+
+    public static CatalogChangedEvent wholeCatalog() {
+        return new CatalogChangedEvent(Set.of(), Set.of(), true);
+    }
+}
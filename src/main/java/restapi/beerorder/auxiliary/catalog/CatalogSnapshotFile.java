@@ -0,0 +1,160 @@
+package restapi.beerorder.auxiliary.catalog;
+
+import org.bson.RawBsonDocument;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * This class reads and writes catalog snapshot files.
+ * A snapshot is a header ("BEERSNAP", version, flags) followed by length-prefixed BSON documents
+ * and a -1 end marker. When the compressed flag is set everything after the header is a single deflate stream.
+ * Files are written to a temporary file and moved into place, and read through a memory mapping.
+ */
+public class CatalogSnapshotFile {
+    private static final byte[] MAGIC = {'B', 'E', 'E', 'R', 'S', 'N', 'A', 'P'};
+    private static final int VERSION = 1;
+    private static final int COMPRESSED = 1;
+    private static final int END = -1;
+    private static final int HEADER_SIZE = MAGIC.length + Integer.BYTES + 1;
+
+    /**
+     * Writes the documents to the given path, replacing the previous snapshot atomically.
+     * @return the number of documents written.
+     */
+    public static int write(Path path, Iterable<RawBsonDocument> documents, boolean compress) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        int count = 0;
+
+        try (OutputStream file = Files.newOutputStream(temp)) {
+            DataOutputStream header = new DataOutputStream(file);
+            header.write(MAGIC);
+            header.writeInt(VERSION);
+            header.writeByte(compress ? COMPRESSED : 0);
+            header.flush();
+
+            OutputStream body = compress
+                    ? new DeflaterOutputStream(file, deflater, 1 << 16)
+                    : file;
+
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(body, 1 << 16));
+
+            for (RawBsonDocument document : documents) {
+                ByteBuffer bytes = document.getByteBuffer().asNIO();
+                out.writeInt(bytes.remaining());
+                out.write(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+                count++;
+            }
+
+            out.writeInt(END);
+            out.close();
+        } finally {
+            deflater.end();
+        }
+
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        return count;
+    }
+
+    /**
+     * Memory-maps the snapshot and hands every document to the consumer in a single pass.
+     * @return the number of documents read.
+     */
+    public static int read(Path path, Consumer<RawBsonDocument> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if (buffer.remaining() < HEADER_SIZE) {
+                throw new IOException(path + " is not a catalog snapshot");
+            }
+
+            byte[] magic = new byte[MAGIC.length];
+            buffer.get(magic);
+            int version = buffer.getInt();
+            int flags = buffer.get();
+
+            if (!Arrays.equals(magic, MAGIC) || version != VERSION) {
+                throw new IOException(path + " is not a version " + VERSION + " catalog snapshot");
+            }
+
+            if ((flags & COMPRESSED) != 0) {
+                Inflater inflater = new Inflater();
+
+                try {
+                    return readStream(new DataInputStream(new InflaterInputStream(new ByteBufferInputStream(buffer),
+                            inflater, 1 << 16)), consumer);
+                } finally {
+                    inflater.end();
+                }
+            }
+
+            int count = 0;
+
+            for (int length = buffer.getInt(); length != END; length = buffer.getInt()) {
+                byte[] bytes = new byte[length];
+                buffer.get(bytes);
+                consumer.accept(new RawBsonDocument(bytes));
+                count++;
+            }
+
+            return count;
+        }
+    }
+
+    private static int readStream(DataInputStream in, Consumer<RawBsonDocument> consumer) throws IOException {
+        int count = 0;
+
+        for (int length = in.readInt(); length != END; length = in.readInt()) {
+            byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            consumer.accept(new RawBsonDocument(bytes));
+            count++;
+        }
+
+        return count;
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+
+            int read = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, read);
+
+            return read;
+        }
+    }
+}
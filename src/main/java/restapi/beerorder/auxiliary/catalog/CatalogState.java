@@ -0,0 +1,10 @@
+package restapi.beerorder.auxiliary.catalog;
+
+/**
+ * This enum class represents the warmup states of the beers catalog.
+ */
+public enum CatalogState {
+    STARTING,
+    PARTIALLY_LOADED,
+    READY
+}
@@ -0,0 +1,65 @@
+package restapi.beerorder.auxiliary.catalog;
+
+import org.bson.Document;
+import restapi.beerorder.auxiliary.Category;
+
+import java.util.List;
+
+/**
+ * This class derives the total amount of each ingredient {@link Category} of a beer document, so amount
+ * filters can run as indexed range queries instead of summing the ingredients of every candidate.
+ * Yeast is a plain name in PunkAPI, without an amount, so it has no total.
+ */
+public class IngredientTotals {
+    public static final String TOTAL_MALT = "totalMalt";
+    public static final String TOTAL_HOPS = "totalHops";
+
+    /**
+     * Puts the derived totals in a beer document, a total is dropped when the beer has no such ingredients.
+     * @param beerDocument - a beer document as the mapping converter writes it.
+     * @return the same document.
+     */
+    public static Document apply(Document beerDocument) {
+        Object ingredients = beerDocument.get("ingredients");
+
+        put(beerDocument, TOTAL_MALT, ingredients instanceof Document ? total((Document) ingredients, Category.Malt) : null);
+        put(beerDocument, TOTAL_HOPS, ingredients instanceof Document ? total((Document) ingredients, Category.Hops) : null);
+
+        return beerDocument;
+    }
+
+    /**
+     * @param ingredients - the ingredients sub document.
+     * @param category - Malt or Hops.
+     * @return the sum of the amounts, or null if there are none.
+     */
+    public static Double total(Document ingredients, Category category) {
+        String field = category == Category.Malt ? "malt" : category == Category.Hops ? "hops" : null;
+        Object items = field == null ? null : ingredients.get(field);
+
+        if (!(items instanceof List) || ((List<?>) items).isEmpty()) {
+            return null;
+        }
+
+        double sum = 0;
+
+        for (Object item : (List<?>) items) {
+            Object amount = item instanceof Document ? ((Document) item).get("amount") : null;
+            Object value = amount instanceof Document ? ((Document) amount).get("value") : null;
+
+            if (value instanceof Number) {
+                sum += ((Number) value).doubleValue();
+            }
+        }
+
+        return sum;
+    }
+
+    private static void put(Document document, String field, Double total) {
+        if (total == null) {
+            document.remove(field);
+        } else {
+            document.put(field, total);
+        }
+    }
+}
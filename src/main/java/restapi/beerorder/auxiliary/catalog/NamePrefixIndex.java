@@ -0,0 +1,131 @@
+package restapi.beerorder.auxiliary.catalog;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This class is an immutable, case-insensitive prefix index over beer names.
+ * Names are kept lower-cased in a sorted array, a prefix lookup is a binary search for the first name
+ * not smaller than the prefix followed by a scan while names still start with it.
+ * Changes build a new index, so readers never lock.
+ */
+public class NamePrefixIndex {
+    private static final Comparator<Entry> ORDER = Comparator.comparing(Entry::getKey).thenComparing(Entry::getId);
+
+    private final String[] keys;
+    private final Entry[] entries;
+
+    private NamePrefixIndex(Entry[] sortedEntries) {
+        this.entries = sortedEntries;
+        this.keys = new String[sortedEntries.length];
+
+        for (int i = 0; i < sortedEntries.length; i++) {
+            keys[i] = sortedEntries[i].getKey();
+        }
+    }
+
+    public static NamePrefixIndex of(Collection<Entry> entries) {
+        Entry[] sorted = entries.toArray(new Entry[0]);
+        Arrays.sort(sorted, ORDER);
+
+        return new NamePrefixIndex(sorted);
+    }
+
+    public static NamePrefixIndex empty() {
+        return new NamePrefixIndex(new Entry[0]);
+    }
+
+    /**
+     * @param changed - the ids of the beers that changed, their entries are dropped.
+     * @param upserts - the current entries of the changed beers that still exist.
+     * @return a new index with the changes applied.
+     */
+    public NamePrefixIndex with(Set<Long> changed, Map<Long, Entry> upserts) {
+        List<Entry> merged = new ArrayList<>(entries.length + upserts.size());
+
+        for (Entry entry : entries) {
+            if (!changed.contains(entry.getId())) {
+                merged.add(entry);
+            }
+        }
+
+        merged.addAll(upserts.values());
+
+        return of(merged);
+    }
+
+    /**
+     * @param prefix - the name prefix, in any case.
+     * @param limit - the maximum number of entries, 0 for all of them.
+     * @return the entries whose name starts with the prefix, ordered by name.
+     */
+    public List<Entry> startingWith(String prefix, int limit) {
+        String key = normalize(prefix);
+        List<Entry> matches = new ArrayList<>(limit > 0 ? Math.min(limit, 16) : 16);
+
+        for (int i = lowerBound(key); i < keys.length && keys[i].startsWith(key); i++) {
+            if (limit > 0 && matches.size() == limit) {
+                break;
+            }
+
+            matches.add(entries[i]);
+        }
+
+        return matches;
+    }
+
+    public int size() {
+        return entries.length;
+    }
+
+    public static String normalize(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = keys.length;
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+
+            if (keys[middle].compareTo(key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * An indexed beer, with the fields prefix queries filter on.
+     */
+    @Getter
+    @EqualsAndHashCode(exclude = "key")
+    @ToString(exclude = "key")
+    public static class Entry {
+        private final Long id;
+        private final String name;
+        private final Double totalMalt;
+        private final String key;
+
+        public Entry(Long id, String name, Double totalMalt) {
+            this.id = id;
+            this.name = name;
+            this.totalMalt = totalMalt;
+            this.key = normalize(name);
+        }
+    }
+}
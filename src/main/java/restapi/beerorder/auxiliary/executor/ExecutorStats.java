@@ -0,0 +1,23 @@
+package restapi.beerorder.auxiliary.executor;
+
+import lombok.Value;
+import restapi.beerorder.auxiliary.metrics.LatencyHistogram;
+
+/**
+ * This class is a point in time view of an {@link InstrumentedExecutor}.
+ */
+@Value
+public class ExecutorStats {
+    String name;
+    String mode;
+    int poolSize;
+    int activeCount;
+    int queueDepth;
+    int queueCapacity;
+    long submitted;
+    long completed;
+    long failed;
+    long rejected;
+    LatencyHistogram.Snapshot queueWait;
+    LatencyHistogram.Snapshot runTime;
+}
@@ -0,0 +1,168 @@
+package restapi.beerorder.auxiliary.executor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import restapi.beerorder.auxiliary.metrics.LatencyHistogram;
+
+import java.lang.reflect.Method;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class is a named executor that keeps live metrics: active tasks, queue depth, rejections,
+ * and how long tasks wait in the queue and run.
+ * It's either a thread pool with a configurable queue and rejection policy, or - on a JDK with
+ * virtual threads - a virtual-thread-per-task executor.
+ */
+public class InstrumentedExecutor implements Executor {
+    private static final Logger logger = LoggerFactory.getLogger(InstrumentedExecutor.class);
+
+    private final String name;
+    private final String mode;
+    private final ExecutorService delegate;
+    private final int queueCapacity;
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LatencyHistogram queueWait = new LatencyHistogram();
+    private final LatencyHistogram runTime = new LatencyHistogram();
+
+    private InstrumentedExecutor(String name, String mode, ExecutorService delegate, int queueCapacity) {
+        this.name = name;
+        this.mode = mode;
+        this.delegate = delegate;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Creates a thread pool executor.
+     * @param queueType - array (bounded), linked (bounded) or synchronous (direct hand-off).
+     * @param rejectionPolicy - abort, caller-runs (backpressure), discard or discard-oldest.
+     */
+    public static InstrumentedExecutor threadPool(String name, int coreSize, int maxSize, int keepAliveSeconds,
+                                                  String queueType, int queueCapacity, String rejectionPolicy) {
+        BlockingQueue<Runnable> queue;
+
+        switch (queueType.toLowerCase()) {
+            case "synchronous":
+                queue = new SynchronousQueue<>();
+                queueCapacity = 0;
+                break;
+            case "linked":
+                queue = new LinkedBlockingQueue<>(Math.max(1, queueCapacity));
+                break;
+            default:
+                queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        }
+
+        int core = Math.max(1, coreSize);
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(core, Math.max(core, maxSize), keepAliveSeconds,
+                TimeUnit.SECONDS, queue, namedThreads(name));
+        InstrumentedExecutor executor = new InstrumentedExecutor(name, "platform", pool, queueCapacity);
+        pool.setRejectedExecutionHandler(executor.countingRejections(rejectionHandler(rejectionPolicy)));
+
+        return executor;
+    }
+
+    /**
+     * Creates a virtual-thread-per-task executor, we build for Java 11 so it's looked up reflectively.
+     * @return the executor, or empty when the JDK doesn't have virtual threads.
+     */
+    public static Optional<InstrumentedExecutor> virtualThreads(String name) {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+
+            return Optional.of(new InstrumentedExecutor(name, "virtual", (ExecutorService) factory.invoke(null), 0));
+        } catch (ReflectiveOperationException ex) {
+            logger.warn("Virtual threads need JDK 21+, the {} executor falls back to a thread pool", name);
+
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        long queuedAt = System.nanoTime();
+        submitted.increment();
+
+        delegate.execute(() -> {
+            long startedAt = System.nanoTime();
+            queueWait.record(startedAt - queuedAt);
+            active.incrementAndGet();
+
+            try {
+                task.run();
+                completed.increment();
+            } catch (RuntimeException | Error ex) {
+                failed.increment();
+                throw ex;
+            } finally {
+                active.decrementAndGet();
+                runTime.record(System.nanoTime() - startedAt);
+            }
+        });
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public ExecutorStats stats() {
+        ThreadPoolExecutor pool = delegate instanceof ThreadPoolExecutor ? (ThreadPoolExecutor) delegate : null;
+
+        return new ExecutorStats(name, mode,
+                pool == null ? active.get() : pool.getPoolSize(),
+                active.get(),
+                pool == null ? 0 : pool.getQueue().size(),
+                queueCapacity,
+                submitted.sum(), completed.sum(), failed.sum(), rejected.sum(),
+                queueWait.snapshot(), runTime.snapshot());
+    }
+
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+    private RejectedExecutionHandler countingRejections(RejectedExecutionHandler policy) {
+        return (task, pool) -> {
+            rejected.increment();
+            policy.rejectedExecution(task, pool);
+        };
+    }
+
+    private static RejectedExecutionHandler rejectionHandler(String policy) {
+        switch (policy.toLowerCase()) {
+            case "caller-runs":
+                return new ThreadPoolExecutor.CallerRunsPolicy();
+            case "discard":
+                return new ThreadPoolExecutor.DiscardPolicy();
+            case "discard-oldest":
+                return new ThreadPoolExecutor.DiscardOldestPolicy();
+            default:
+                return new ThreadPoolExecutor.AbortPolicy();
+        }
+    }
+
+    private static ThreadFactory namedThreads(String name) {
+        AtomicInteger counter = new AtomicInteger();
+
+        return task -> {
+            return new Thread(task, name + "-" + counter.incrementAndGet());
+        };
+    }
+}
@@ -0,0 +1,49 @@
+package restapi.beerorder.auxiliary.fields;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This class is the result of a {@code fields=} request parameter - the fields a DTO shows and the document
+ * fields a query has to read for them.
+ */
+public class FieldSelection {
+    private static final String ID = "id";
+
+    private final Set<String> names;
+    private final List<String> documentFields;
+    private final Map<String, String> nameByAlias;
+
+    FieldSelection(Set<String> names, List<String> documentFields, Map<String, String> nameByAlias) {
+        this.names = names == null ? null : Set.copyOf(names);
+        this.documentFields = documentFields;
+        this.nameByAlias = nameByAlias;
+    }
+
+    /**
+     * @return true if no fields were asked for, so the DTO is shown whole.
+     */
+    public boolean isAll() {
+        return names == null;
+    }
+
+    public boolean includes(String name) {
+        return names == null || names.contains(name);
+    }
+
+    /**
+     * @param property - the name the DTO shows a field under.
+     * @return true if the field is in the JSON, the id always is since the links are made of it.
+     */
+    public boolean shows(String property) {
+        return names == null || ID.equals(property) || names.contains(nameByAlias.getOrDefault(property, property));
+    }
+
+    /**
+     * @return the document fields to read, the id included.
+     */
+    public List<String> getDocumentFields() {
+        return documentFields;
+    }
+}
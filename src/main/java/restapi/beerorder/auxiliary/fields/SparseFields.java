@@ -0,0 +1,88 @@
+package restapi.beerorder.auxiliary.fields;
+
+import restapi.beerorder.exceptions.InvalidRequestParamException;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This class describes the fields a DTO can be trimmed to with a {@code fields=} request parameter
+ * (for example {@code fields=id,name,abv}), and the document fields each of them is read from.
+ * A field may be asked for by its document name or by the name the DTO shows it under.
+ */
+public class SparseFields {
+    private static final String ID = "_id";
+
+    private final Map<String, String> nameByAlias = new HashMap<>();
+    private final Map<String, List<String>> documentFieldsByName = new LinkedHashMap<>();
+
+    /**
+     * @param name - the field's name.
+     * @param documentFields - the document fields it's made of, none for constant fields.
+     * @param aliases - other names the field is asked for by.
+     */
+    public SparseFields field(String name, List<String> documentFields, String... aliases) {
+        documentFieldsByName.put(name, documentFields);
+        nameByAlias.put(name, name);
+        Arrays.stream(aliases).forEach(alias -> nameByAlias.put(alias, name));
+
+        return this;
+    }
+
+    /**
+     * A field read from the document field of the same name.
+     */
+    public SparseFields field(String name, String... aliases) {
+        return field(name, List.of(name), aliases);
+    }
+
+    public FieldSelection all() {
+        return selection(null, documentFieldsByName.keySet());
+    }
+
+    /**
+     * @param fields - comma separated field names, all of them if null or blank.
+     * @return the selected fields.
+     */
+    public FieldSelection select(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return all();
+        }
+
+        Set<String> names = new LinkedHashSet<>();
+
+        for (String field : fields.split(",")) {
+            String alias = field.trim();
+
+            if (alias.isEmpty()) {
+                continue;
+            }
+
+            String name = nameByAlias.get(alias);
+
+            if (name == null) {
+                throw new InvalidRequestParamException("Unknown field " + alias + ", the fields are " +
+                        documentFieldsByName.keySet());
+            }
+
+            names.add(name);
+        }
+
+        return names.isEmpty() ? all() : selection(names, names);
+    }
+
+    private FieldSelection selection(Set<String> names, Collection<String> fieldsToRead) {
+        // The id is always read, the links are made of it.
+        Set<String> documentFields = new LinkedHashSet<>();
+        documentFields.add(ID);
+        fieldsToRead.forEach(name -> documentFields.addAll(documentFieldsByName.get(name)));
+
+        return new FieldSelection(names, List.copyOf(documentFields), nameByAlias);
+    }
+}
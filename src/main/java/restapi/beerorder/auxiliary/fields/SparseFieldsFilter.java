@@ -0,0 +1,35 @@
+package restapi.beerorder.auxiliary.fields;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.fasterxml.jackson.databind.ser.PropertyWriter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+
+/**
+ * This filter leaves the fields a request didn't select out of a {@link Trimmable} DTO's JSON. Without a
+ * {@code fields=} parameter every field is written, nulls included, so the JSON keeps its usual shape.
+ * An omitted field's getter isn't called, so it may rely on document fields that weren't read.
+ */
+public class SparseFieldsFilter extends SimpleBeanPropertyFilter {
+    public static final String ID = "sparseFields";
+
+    /**
+     * @return the filters to configure an ObjectMapper with, DTOs annotated with {@code @JsonFilter(ID)}
+     * can't be written without them.
+     */
+    public static FilterProvider provider() {
+        return new SimpleFilterProvider().addFilter(ID, new SparseFieldsFilter());
+    }
+
+    @Override
+    public void serializeAsField(Object pojo, JsonGenerator generator, SerializerProvider provider,
+                                 PropertyWriter writer) throws Exception {
+        if (!(pojo instanceof Trimmable) || ((Trimmable) pojo).getFields().shows(writer.getName())) {
+            writer.serializeAsField(pojo, generator, provider);
+        } else if (!generator.canOmitFields()) {
+            writer.serializeAsOmittedField(pojo, generator, provider);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package restapi.beerorder.auxiliary.fields;
+
+/**
+ * A DTO that can be trimmed to the fields a request asked for with {@code fields=}.
+ */
+public interface Trimmable {
+    FieldSelection getFields();
+}
@@ -0,0 +1,47 @@
+package restapi.beerorder.auxiliary.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * This class measures the bytes allocated on the heap by all live threads between two points in time.
+ * It relies on the HotSpot thread allocation counters and reports -1 when they aren't available.
+ * Threads that die in between aren't counted, so the result is a lower bound.
+ */
+public class AllocationMeter {
+    private final com.sun.management.ThreadMXBean threads;
+    private final long start;
+
+    private AllocationMeter(com.sun.management.ThreadMXBean threads) {
+        this.threads = threads;
+        this.start = threads == null ? 0 : allocatedBytes(threads);
+    }
+
+    public static AllocationMeter start() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+        if (threads instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemoryEnabled()) {
+            return new AllocationMeter((com.sun.management.ThreadMXBean) threads);
+        }
+
+        return new AllocationMeter(null);
+    }
+
+    /**
+     * @return bytes allocated since {@link #start()}, or -1 if unknown.
+     */
+    public long allocatedBytes() {
+        return threads == null ? -1 : Math.max(0, allocatedBytes(threads) - start);
+    }
+
+    private static long allocatedBytes(com.sun.management.ThreadMXBean threads) {
+        long total = 0;
+
+        for (long allocated : threads.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+            total += Math.max(0, allocated);
+        }
+
+        return total;
+    }
+}
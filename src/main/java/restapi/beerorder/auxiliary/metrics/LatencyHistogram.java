@@ -0,0 +1,73 @@
+package restapi.beerorder.auxiliary.metrics;
+
+import lombok.Value;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class is a lock free latency histogram with power of two microsecond buckets (1us up to ~1 hour).
+ * Percentiles are reported as the upper bound of the bucket they fall in, so they're accurate up to a factor of 2.
+ */
+public class LatencyHistogram {
+    private static final int BUCKETS = 32;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalMicros = new LongAdder();
+    private final LongAccumulator maxMicros = new LongAccumulator(Math::max, 0);
+
+    public void record(long elapsedNanos) {
+        long micros = Math.max(0, TimeUnit.NANOSECONDS.toMicros(elapsedNanos));
+        int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+
+        buckets.incrementAndGet(bucket);
+        count.increment();
+        totalMicros.add(micros);
+        maxMicros.accumulate(micros);
+    }
+
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+
+        return new Snapshot(total,
+                total == 0 ? 0 : totalMicros.sum() / 1000.0 / total,
+                percentile(counts, total, 0.50),
+                percentile(counts, total, 0.90),
+                percentile(counts, total, 0.99),
+                maxMicros.get() / 1000.0);
+    }
+
+    private static double percentile(long[] counts, long total, double percentile) {
+        long threshold = (long) Math.ceil(total * percentile);
+        long cumulative = 0;
+
+        for (int i = 0; i < counts.length; i++) {
+            cumulative += counts[i];
+
+            if (cumulative >= threshold && cumulative > 0) {
+                return (1L << i) / 1000.0;
+            }
+        }
+
+        return 0;
+    }
+
+    @Value
+    public static class Snapshot {
+        long count;
+        double meanMillis;
+        double p50Millis;
+        double p90Millis;
+        double p99Millis;
+        double maxMillis;
+    }
+}
@@ -0,0 +1,41 @@
+package restapi.beerorder.auxiliary.metrics;
+
+import lombok.Value;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class measures the responses of one endpoint - how many bytes they carry and how long they take,
+ * from the request coming in to the last byte written.
+ */
+public class PayloadMeter {
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalBytes = new LongAdder();
+    private final LongAccumulator maxBytes = new LongAccumulator(Math::max, 0);
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    public void record(long bytes, long elapsedNanos) {
+        count.increment();
+        totalBytes.add(bytes);
+        maxBytes.accumulate(bytes);
+        latency.record(elapsedNanos);
+    }
+
+    public Stats stats() {
+        long responses = count.sum();
+        long bytes = totalBytes.sum();
+
+        return new Stats(responses, bytes, responses == 0 ? 0 : bytes / responses, maxBytes.get(),
+                latency.snapshot());
+    }
+
+    @Value
+    public static class Stats {
+        long count;
+        long totalBytes;
+        long meanBytes;
+        long maxBytes;
+        LatencyHistogram.Snapshot latency;
+    }
+}
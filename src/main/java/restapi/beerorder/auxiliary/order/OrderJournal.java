@@ -0,0 +1,234 @@
+package restapi.beerorder.auxiliary.order;
+
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * This class is a local append-only journal of accepted orders that aren't in the DB yet.
+ * A journal is a header ("ORDRJRNL", version) followed by records: payload length, record type, BSON payload
+ * and a CRC32 of type and payload. An ORDER record holds an order document, a COMMIT record the ids of orders
+ * that reached the DB. Replaying returns the orders without a commit, a torn or corrupt tail (a crash in the
+ * middle of an append) ends the replay.
+ * Appends don't wait for the disk. A caller that needs its order durable calls {@link #sync(long)}, and
+ * concurrent callers share one fsync: the first of them forces everything appended so far while the others wait
+ * for it (group commit). Commit records are never forced on their own, losing one only replays orders that are
+ * already in the DB.
+ */
+public class OrderJournal implements Closeable {
+    private static final byte[] MAGIC = {'O', 'R', 'D', 'R', 'J', 'R', 'N', 'L'};
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = MAGIC.length + Integer.BYTES;
+    private static final byte ORDER = 1;
+    private static final byte COMMIT = 2;
+    private static final DocumentCodec CODEC = new DocumentCodec();
+
+    private final FileChannel channel;
+    private final boolean fsync;
+
+    private long appended;//sequence of the last appended order.
+    private long synced;//sequence of the last order forced to the disk.
+    private boolean flushing;
+
+    private OrderJournal(FileChannel channel, boolean fsync) {
+        this.channel = channel;
+        this.fsync = fsync;
+    }
+
+    /**
+     * Opens a journal for appending, an existing one is emptied so it should be replayed first.
+     * @param path - the journal file.
+     * @param fsync - whether {@link #sync(long)} forces the appended orders to the disk.
+     */
+    public static OrderJournal open(Path path, boolean fsync) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        OrderJournal journal = new OrderJournal(channel, fsync);
+        journal.reset();
+
+        return journal;
+    }
+
+    /**
+     * Reads a journal, e.g. after a crash.
+     * @param path - the journal file, a missing one is empty.
+     * @return the orders without a commit record, in append order.
+     */
+    public static List<Document> replay(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return List.of();
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+
+        if (buffer.remaining() < HEADER_SIZE) {
+            return List.of();
+        }
+
+        byte[] magic = new byte[MAGIC.length];
+        buffer.get(magic);
+
+        if (!Arrays.equals(magic, MAGIC) || buffer.getInt() != VERSION) {
+            throw new IOException(path + " isn't an order journal");
+        }
+
+        Map<Object, Document> uncommitted = new LinkedHashMap<>();
+
+        while (buffer.remaining() >= Integer.BYTES + 1) {
+            int length = buffer.getInt();
+
+            if (length < 0 || buffer.remaining() < 1 + length + Integer.BYTES) {
+                break;//torn tail.
+            }
+
+            byte type = buffer.get();
+            byte[] payload = new byte[length];
+            buffer.get(payload);
+
+            if (buffer.getInt() != checksum(type, payload)) {
+                break;//corrupt tail.
+            }
+
+            Document document = new RawBsonDocument(payload).decode(CODEC);
+
+            if (type == ORDER) {
+                uncommitted.put(document.get("_id"), document);
+            } else if (type == COMMIT) {
+                document.getList("ids", Object.class).forEach(uncommitted::remove);
+            }
+        }
+
+        return new ArrayList<>(uncommitted.values());
+    }
+
+    /**
+     * Appends an accepted order, it must have its id.
+     * @return the sequence of the order, to {@link #sync(long)} it.
+     */
+    public synchronized long appendOrder(Document order) throws IOException {
+        append(ORDER, order);
+
+        return ++appended;
+    }
+
+    /**
+     * Waits until the order with this sequence is on the disk, forcing the journal unless another caller is
+     * already doing it. One force covers every order appended before it started.
+     * @param sequence - returned by {@link #appendOrder(Document)}.
+     */
+    public void sync(long sequence) throws IOException {
+        if (!fsync) {
+            return;
+        }
+
+        long target;
+
+        synchronized (this) {
+            while (synced < sequence && flushing) {
+                try {
+                    wait();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for the order journal");
+                }
+            }
+
+            if (synced >= sequence) {
+                return;
+            }
+
+            flushing = true;
+            target = appended;
+        }
+
+        boolean forced = false;
+
+        try {
+            channel.force(false);//appends go on meanwhile, they join the next force.
+            forced = true;
+        } finally {
+            synchronized (this) {
+                flushing = false;
+
+                if (forced) {
+                    synced = Math.max(synced, target);
+                }
+
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Appends a commit record for orders that are in the DB.
+     */
+    public synchronized void appendCommit(List<?> ids) throws IOException {
+        append(COMMIT, new Document("ids", ids));
+    }
+
+    /**
+     * Empties the journal, only call it when no appended order is still waiting for its commit.
+     */
+    public synchronized void reset() throws IOException {
+        channel.truncate(0);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).put(MAGIC).putInt(VERSION).flip();
+        channel.write(header, 0);
+        channel.position(HEADER_SIZE);
+
+        if (fsync) {
+            channel.force(false);
+        }
+
+        synced = appended;//nothing appended before is waiting for the disk anymore.
+    }
+
+    public synchronized long size() throws IOException {
+        return channel.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    private void append(byte type, Document document) throws IOException {
+        byte[] payload = toBytes(document);
+        ByteBuffer record = ByteBuffer.allocate(Integer.BYTES + 1 + payload.length + Integer.BYTES)
+                .putInt(payload.length).put(type).put(payload).putInt(checksum(type, payload)).flip();
+
+        while (record.hasRemaining()) {
+            channel.write(record);
+        }
+    }
+
+    private static byte[] toBytes(Document document) {
+        ByteBuffer bytes = new RawBsonDocument(document, CODEC).getByteBuffer().asNIO();
+        byte[] payload = new byte[bytes.remaining()];
+        bytes.get(payload);
+
+        return payload;
+    }
+
+    private static int checksum(byte type, byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(payload);
+
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,187 @@
+package restapi.beerorder.auxiliary.pricing;
+
+import restapi.beerorder.exceptions.InvalidRequestParamException;
+import restapi.beerorder.pojos.pricing.PriceList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class is an immutable lookup structure compiled from a {@link PriceList}, pricing a basket is a pure
+ * in-memory computation: a hash lookup and a scan of the beer's few promotions per line, then a binary search
+ * of the volume tiers. A price list change compiles a new table, tables are never modified.
+ */
+public final class PriceTable {
+    private static final Promotion[] NO_PROMOTIONS = new Promotion[0];
+
+    private final long version;
+    private final double defaultPrice;
+    private final Map<String, Double> unitPrices;
+    private final Map<String, Promotion[]> promotionsByBeer;
+    private final Promotion[] promotionsOfAllBeers;
+    private final int[] tierMinBottles;//ascending.
+    private final double[] tierPercentOff;
+
+    private PriceTable(long version, double defaultPrice, Map<String, Double> unitPrices,
+                       Map<String, Promotion[]> promotionsByBeer, Promotion[] promotionsOfAllBeers,
+                       int[] tierMinBottles, double[] tierPercentOff) {
+        this.version = version;
+        this.defaultPrice = defaultPrice;
+        this.unitPrices = unitPrices;
+        this.promotionsByBeer = promotionsByBeer;
+        this.promotionsOfAllBeers = promotionsOfAllBeers;
+        this.tierMinBottles = tierMinBottles;
+        this.tierPercentOff = tierPercentOff;
+    }
+
+    /**
+     * @param defaultPrice - the price of every beer.
+     * @return version 0, the table used before any price list is saved.
+     */
+    public static PriceTable flat(double defaultPrice) {
+        return new PriceTable(0, defaultPrice, Map.of(), Map.of(), NO_PROMOTIONS, new int[0], new double[0]);
+    }
+
+    /**
+     * Validates and compiles a price list.
+     * @param priceList - the price list, its version must be set.
+     * @param defaultPrice - the price of beers the list has no price for.
+     * @return the compiled table.
+     * @throws InvalidRequestParamException if a price, percent, tier or date range makes no sense.
+     */
+    public static PriceTable of(PriceList priceList, double defaultPrice) {
+        Map<String, Double> unitPrices = new HashMap<>();
+
+        for (PriceList.BeerPrice beerPrice : priceList.getBeerPrices()) {
+            if (beerPrice.getBeerName() == null || !(beerPrice.getPrice() > 0)) {
+                throw new InvalidRequestParamException("Every beer price needs a beer name and a positive price");
+            }
+
+            if (unitPrices.put(beerPrice.getBeerName(), beerPrice.getPrice()) != null) {
+                throw new InvalidRequestParamException("The beer " + beerPrice.getBeerName() + " is priced twice");
+            }
+        }
+
+        List<PriceList.VolumeTier> tiers = new ArrayList<>(priceList.getVolumeTiers());
+        tiers.sort(Comparator.comparingInt(PriceList.VolumeTier::getMinBottles));
+        int[] tierMinBottles = new int[tiers.size()];
+        double[] tierPercentOff = new double[tiers.size()];
+
+        for (int i = 0; i < tiers.size(); i++) {
+            tierMinBottles[i] = tiers.get(i).getMinBottles();
+            tierPercentOff[i] = percent(tiers.get(i).getPercentOff());
+
+            if (tierMinBottles[i] < 1 || (i > 0 && tierMinBottles[i] == tierMinBottles[i - 1])) {
+                throw new InvalidRequestParamException("Volume tiers need distinct, positive bottle counts");
+            }
+        }
+
+        Map<String, List<Promotion>> byBeer = new HashMap<>();
+        List<Promotion> ofAllBeers = new ArrayList<>();
+
+        for (PriceList.Promotion promotion : priceList.getPromotions()) {
+            if (promotion.getFrom() == null || promotion.getUntil() == null
+                    || !promotion.getFrom().before(promotion.getUntil())) {
+                throw new InvalidRequestParamException("Every promotion needs a from date before its until date");
+            }
+
+            Promotion compiled = new Promotion(promotion.getFrom().getTime(), promotion.getUntil().getTime(),
+                    percent(promotion.getPercentOff()));
+
+            if (promotion.getBeerName() == null) {
+                ofAllBeers.add(compiled);
+            } else {
+                byBeer.computeIfAbsent(promotion.getBeerName(), name -> new ArrayList<>()).add(compiled);
+            }
+        }
+
+        Map<String, Promotion[]> promotionsByBeer = new HashMap<>();
+        byBeer.forEach((name, promotions) -> promotionsByBeer.put(name, promotions.toArray(NO_PROMOTIONS)));
+
+        return new PriceTable(priceList.getVersion(), defaultPrice, Map.copyOf(unitPrices),
+                Map.copyOf(promotionsByBeer), ofAllBeers.toArray(NO_PROMOTIONS), tierMinBottles, tierPercentOff);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * This method prices a basket. Each beer gets its best running promotion, promotions don't stack,
+     * and the volume tier of the total bottle count is taken off the subtotal.
+     * @param basket - amount by beer name.
+     * @param nowMillis - the time promotions are checked against.
+     * @return the priced basket, amounts rounded to cents.
+     */
+    public Quote quote(Map<String, Integer> basket, long nowMillis) {
+        List<Quote.Line> lines = new ArrayList<>(basket.size());
+        int bottles = 0;
+        double subtotal = 0;
+
+        for (Map.Entry<String, Integer> entry : basket.entrySet()) {
+            String beerName = entry.getKey();
+            int quantity = entry.getValue();
+            double unitPrice = unitPrices.getOrDefault(beerName, defaultPrice);
+            double percentOff = Math.max(bestPromotion(promotionsByBeer.getOrDefault(beerName, NO_PROMOTIONS),
+                    nowMillis), bestPromotion(promotionsOfAllBeers, nowMillis));
+            double lineTotal = cents(quantity * unitPrice * (100 - percentOff) / 100);
+
+            lines.add(new Quote.Line(beerName, quantity, unitPrice, percentOff, lineTotal));
+            bottles += quantity;
+            subtotal += lineTotal;
+        }
+
+        double volumePercentOff = volumePercentOff(bottles);
+        subtotal = cents(subtotal);
+
+        return new Quote(version, lines, bottles, subtotal, volumePercentOff,
+                cents(subtotal * (100 - volumePercentOff) / 100));
+    }
+
+    private double volumePercentOff(int bottles) {
+        int index = Arrays.binarySearch(tierMinBottles, bottles);
+        int tier = index >= 0 ? index : -index - 2;//the last tier whose minimum is reached.
+
+        return tier >= 0 ? tierPercentOff[tier] : 0;
+    }
+
+    private static double bestPromotion(Promotion[] promotions, long nowMillis) {
+        double best = 0;
+
+        for (Promotion promotion : promotions) {
+            if (nowMillis >= promotion.fromMillis && nowMillis < promotion.untilMillis) {
+                best = Math.max(best, promotion.percentOff);
+            }
+        }
+
+        return best;
+    }
+
+    private static double percent(double percent) {
+        if (!(percent >= 0 && percent <= 100)) {
+            throw new InvalidRequestParamException("Percents must be between 0 and 100, got " + percent);
+        }
+
+        return percent;
+    }
+
+    private static double cents(double amount) {
+        return Math.round(amount * 100) / 100.0;
+    }
+
+    private static final class Promotion {
+        final long fromMillis;
+        final long untilMillis;
+        final double percentOff;
+
+        Promotion(long fromMillis, long untilMillis, double percentOff) {
+            this.fromMillis = fromMillis;
+            this.untilMillis = untilMillis;
+            this.percentOff = percentOff;
+        }
+    }
+}
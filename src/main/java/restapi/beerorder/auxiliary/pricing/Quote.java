@@ -0,0 +1,27 @@
+package restapi.beerorder.auxiliary.pricing;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * This class holds the price of a basket, line by line, and the price list version it was priced with.
+ */
+@Value
+public class Quote {
+    long priceListVersion;
+    List<Line> lines;
+    int bottles;
+    double subtotal;
+    double volumePercentOff;
+    double total;
+
+    @Value
+    public static class Line {
+        String beerName;
+        int quantity;
+        double unitPrice;
+        double percentOff;
+        double lineTotal;
+    }
+}
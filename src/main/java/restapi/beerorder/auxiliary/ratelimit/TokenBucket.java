@@ -0,0 +1,57 @@
+package restapi.beerorder.auxiliary.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class is a simple token-bucket rate limiter.
+ * The bucket holds up to capacity tokens and is refilled continuously at tokensPerSecond,
+ * every call to acquire takes one token and blocks until one is available.
+ * A non positive rate means the bucket never blocks.
+ */
+public class TokenBucket {
+    private final double capacity;
+    private final double tokensPerNano;
+    private double tokens;
+    private long lastRefill;
+
+    public TokenBucket(int capacity, double tokensPerSecond) {
+        this.capacity = Math.max(1, capacity);
+        this.tokensPerNano = tokensPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.tokens = this.capacity;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Takes a single token, waiting for the bucket to refill if it's empty.
+     * @throws InterruptedException if the waiting thread was interrupted.
+     */
+    public void acquire() throws InterruptedException {
+        if (tokensPerNano <= 0) {
+            return;
+        }
+
+        while (true) {
+            long waitNanos;
+
+            synchronized (this) {
+                refill();
+
+                if (tokens >= 1) {
+                    tokens -= 1;
+                    return;
+                }
+
+                waitNanos = (long) Math.ceil((1 - tokens) / tokensPerNano);
+            }
+
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+        lastRefill = now;
+    }
+}
@@ -0,0 +1,263 @@
+package restapi.beerorder.auxiliary.search;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * This class is an in-memory inverted index ranked with BM25.
+ * Every document keeps its term frequencies so it can be replaced or removed incrementally, and a content
+ * fingerprint so a snapshot read back from disk can be reconciled with the source.
+ * Searches share a read lock, changes take the write lock.
+ */
+public class InvertedIndex {
+    private static final String MAGIC = "BEERIDX";
+    private static final int VERSION = 1;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final Map<String, Map<Long, Integer>> postings = new HashMap<>();
+    private final Map<Long, IndexedDocument> documents = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private long totalLength;
+
+    /**
+     * Adds a document or replaces its previous version.
+     * @param id - document id.
+     * @param fingerprint - the content fingerprint of the source document, may be null.
+     * @param terms - the analyzed terms of the document.
+     */
+    public void put(long id, String fingerprint, List<String> terms) {
+        Map<String, Integer> frequencies = new HashMap<>();
+
+        for (String term : terms) {
+            frequencies.merge(term, 1, Integer::sum);
+        }
+
+        lock.writeLock().lock();
+
+        try {
+            removeUnlocked(id);
+            documents.put(id, new IndexedDocument(fingerprint, frequencies, terms.size()));
+            totalLength += terms.size();
+            frequencies.forEach((term, tf) -> postings.computeIfAbsent(term, key -> new HashMap<>()).put(id, tf));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+
+        try {
+            removeUnlocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * This method ranks the documents containing any of the query terms.
+     * @param queryTerms - analyzed query terms.
+     * @param offset - the number of top hits to skip.
+     * @param limit - the page size.
+     * @return the requested page of hits, best first, and the number of matching documents.
+     */
+    public SearchHits search(Collection<String> queryTerms, int offset, int limit) {
+        lock.readLock().lock();
+
+        try {
+            Map<Long, Double> scores = new HashMap<>();
+            int count = documents.size();
+            double averageLength = count == 0 ? 0 : (double) totalLength / count;
+
+            for (String term : new HashSet<>(queryTerms)) {
+                Map<Long, Integer> posting = postings.get(term);
+
+                if (posting == null) {
+                    continue;
+                }
+
+                double idf = Math.log(1 + (count - posting.size() + 0.5) / (posting.size() + 0.5));
+
+                posting.forEach((id, tf) -> {
+                    double norm = K1 * (1 - B + B * documents.get(id).length / averageLength);
+                    scores.merge(id, idf * tf * (K1 + 1) / (tf + norm), Double::sum);
+                });
+            }
+
+            return new SearchHits(scores.size(), top(scores, offset, limit));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the fingerprint of every indexed document, by id.
+     */
+    public Map<Long, String> fingerprints() {
+        lock.readLock().lock();
+
+        try {
+            Map<Long, String> fingerprints = new HashMap<>();
+            documents.forEach((id, document) -> fingerprints.put(id, document.fingerprint));
+
+            return fingerprints;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * This method writes the index to a compressed file, through a temporary file moved into place.
+     * Only the documents' term frequencies are written, the postings are rebuilt on read.
+     * @param path - the snapshot file.
+     */
+    public void writeTo(Path path) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+
+        lock.readLock().lock();
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new DeflaterOutputStream(Files.newOutputStream(temp))))) {
+            out.writeUTF(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(documents.size());
+
+            for (Map.Entry<Long, IndexedDocument> entry : documents.entrySet()) {
+                IndexedDocument document = entry.getValue();
+
+                out.writeLong(entry.getKey());
+                out.writeUTF(document.fingerprint == null ? "" : document.fingerprint);
+                out.writeInt(document.frequencies.size());
+
+                for (Map.Entry<String, Integer> frequency : document.frequencies.entrySet()) {
+                    out.writeUTF(frequency.getKey());
+                    out.writeInt(frequency.getValue());
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @param path - a file written by {@link #writeTo(Path)}.
+     * @return the index read from the file.
+     */
+    public static InvertedIndex readFrom(Path path) throws IOException {
+        InvertedIndex index = new InvertedIndex();
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new InflaterInputStream(Files.newInputStream(path))))) {
+            if (!MAGIC.equals(in.readUTF()) || in.readInt() != VERSION) {
+                throw new IOException(path + " is not a search index snapshot");
+            }
+
+            for (int documents = in.readInt(); documents > 0; documents--) {
+                long id = in.readLong();
+                String fingerprint = in.readUTF();
+                List<String> terms = new ArrayList<>();
+
+                for (int termCount = in.readInt(); termCount > 0; termCount--) {
+                    String term = in.readUTF();
+
+                    for (int tf = in.readInt(); tf > 0; tf--) {
+                        terms.add(term);
+                    }
+                }
+
+                index.put(id, fingerprint.isEmpty() ? null : fingerprint, terms);
+            }
+        }
+
+        return index;
+    }
+
+    private void removeUnlocked(long id) {
+        IndexedDocument previous = documents.remove(id);
+
+        if (previous == null) {
+            return;
+        }
+
+        totalLength -= previous.length;
+
+        for (String term : previous.frequencies.keySet()) {
+            Map<Long, Integer> posting = postings.get(term);
+            posting.remove(id);
+
+            if (posting.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    private static List<SearchHits.Hit> top(Map<Long, Double> scores, int offset, int limit) {
+        int wanted = offset + limit;
+        Comparator<Map.Entry<Long, Double>> byScore = Map.Entry.<Long, Double>comparingByValue()
+                .thenComparing(Map.Entry.<Long, Double>comparingByKey().reversed());
+        PriorityQueue<Map.Entry<Long, Double>> best = new PriorityQueue<>(Math.max(1, wanted), byScore);
+
+        for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+            best.offer(entry);
+
+            if (best.size() > wanted) {
+                best.poll();
+            }
+        }
+
+        List<SearchHits.Hit> hits = new ArrayList<>(best.size());
+
+        while (!best.isEmpty()) {
+            Map.Entry<Long, Double> entry = best.poll();
+            hits.add(new SearchHits.Hit(entry.getKey(), entry.getValue()));
+        }
+
+        Collections.reverse(hits);
+
+        return new ArrayList<>(hits.subList(Math.min(offset, hits.size()), hits.size()));
+    }
+
+    private static class IndexedDocument {
+        final String fingerprint;
+        final Map<String, Integer> frequencies;
+        final int length;
+
+        IndexedDocument(String fingerprint, Map<String, Integer> frequencies, int length) {
+            this.fingerprint = fingerprint;
+            this.frequencies = frequencies;
+            this.length = length;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package restapi.beerorder.auxiliary.search;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * This class is one page of ranked search results, with the number of documents that matched in total.
+ */
+@Value
+public class SearchHits {
+    int total;
+    List<Hit> hits;
+
+    @Value
+    public static class Hit {
+        long id;
+        double score;
+    }
+}
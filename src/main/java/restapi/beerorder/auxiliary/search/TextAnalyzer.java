@@ -0,0 +1,94 @@
+package restapi.beerorder.auxiliary.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * This class turns free text into index terms: lower-cased letter and digit runs, without stop words,
+ * reduced by a light suffix stemmer so "hops", "hopped" and "hopping" all become "hop".
+ */
+public class TextAnalyzer {
+    private static final int MIN_STEM = 3;
+
+    private static final Set<String> STOP_WORDS = Set.of("a", "an", "and", "are", "as", "at", "be", "but", "by",
+            "for", "from", "has", "have", "in", "is", "it", "its", "of", "on", "or", "so", "that", "the", "this",
+            "to", "was", "were", "will", "with", "you", "your");
+
+    public static List<String> terms(String text) {
+        List<String> terms = new ArrayList<>();
+
+        if (text == null) {
+            return terms;
+        }
+
+        int start = -1;
+
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                String token = text.substring(start, i).toLowerCase(Locale.ROOT);
+
+                if (!STOP_WORDS.contains(token)) {
+                    terms.add(stem(token));
+                }
+
+                start = -1;
+            }
+        }
+
+        return terms;
+    }
+
+    /**
+     * A small subset of the Porter rules, enough for plurals and the common verb forms.
+     */
+    static String stem(String word) {
+        if (word.length() <= MIN_STEM || Character.isDigit(word.charAt(0))) {
+            return word;
+        }
+
+        if (word.endsWith("ies") && word.length() > MIN_STEM + 2) {
+            return word.substring(0, word.length() - 3) + "y";
+        }
+
+        for (String suffix : new String[]{"ing", "ed"}) {
+            if (word.endsWith(suffix) && word.length() - suffix.length() >= MIN_STEM) {
+                return undouble(word.substring(0, word.length() - suffix.length()));
+            }
+        }
+
+        if (word.endsWith("ly") && word.length() - 2 >= MIN_STEM) {
+            return word.substring(0, word.length() - 2);
+        }
+
+        if (word.endsWith("es") && (word.endsWith("ches") || word.endsWith("shes") || word.endsWith("sses")
+                || word.endsWith("xes"))) {
+            return word.substring(0, word.length() - 2);
+        }
+
+        if (word.endsWith("s") && !word.endsWith("ss") && !word.endsWith("us") && !word.endsWith("is")) {
+            return word.substring(0, word.length() - 1);
+        }
+
+        return word;
+    }
+
+    /**
+     * "hopp" -> "hop", "chill" stays.
+     */
+    private static String undouble(String stem) {
+        int length = stem.length();
+
+        if (length > MIN_STEM && stem.charAt(length - 1) == stem.charAt(length - 2)
+                && "bdgmnprt".indexOf(stem.charAt(length - 1)) >= 0) {
+            return stem.substring(0, length - 1);
+        }
+
+        return stem;
+    }
+}
@@ -0,0 +1,111 @@
+package restapi.beerorder.auxiliary.similarity;
+
+import org.bson.Document;
+import restapi.beerorder.auxiliary.Category;
+import restapi.beerorder.auxiliary.catalog.IngredientTotals;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * This class turns a beer document into a fixed length feature vector for similarity search.
+ * The vector has four blocks - the numeric attributes (abv, ibu, ph and the malt and hops totals, each scaled
+ * to about 0..1), the malts and the hops hashed by name into buckets weighted by their share of the amount,
+ * and the yeast hashed by name. Each block is normalized on its own and then weighted, so a long malt list
+ * doesn't drown out the numbers.
+ */
+public class BeerFeatures {
+    public static final int DIMENSIONS = 64;
+    public static final List<String> DOCUMENT_FIELDS = List.of("abv", "ibu", "ph", "ingredients");
+
+    private static final int NUMERIC_FROM = 0;
+    private static final int MALT_FROM = 5;
+    private static final int HOPS_FROM = 32;
+    private static final int YEAST_FROM = 56;
+
+    private static final float NUMERIC_WEIGHT = 1f;
+    private static final float MALT_WEIGHT = 1f;
+    private static final float HOPS_WEIGHT = 1f;
+    private static final float YEAST_WEIGHT = 0.5f;
+
+    public static float[] vector(Document beer) {
+        float[] vector = new float[DIMENSIONS];
+        Document ingredients = beer.get("ingredients") instanceof Document ? (Document) beer.get("ingredients") : null;
+        Double totalMalt = ingredients == null ? null : IngredientTotals.total(ingredients, Category.Malt);
+        Double totalHops = ingredients == null ? null : IngredientTotals.total(ingredients, Category.Hops);
+
+        vector[NUMERIC_FROM] = scaled(beer.get("abv"), 10);
+        vector[NUMERIC_FROM + 1] = scaled(beer.get("ibu"), 100);
+        vector[NUMERIC_FROM + 2] = scaled(beer.get("ph"), 5);
+        vector[NUMERIC_FROM + 3] = scaled(totalMalt, 10);
+        vector[NUMERIC_FROM + 4] = scaled(totalHops, 100);
+        weigh(vector, NUMERIC_FROM, MALT_FROM, NUMERIC_WEIGHT);
+
+        if (ingredients != null) {
+            addIngredients(vector, ingredients.get("malt"), totalMalt, MALT_FROM, HOPS_FROM);
+            addIngredients(vector, ingredients.get("hops"), totalHops, HOPS_FROM, YEAST_FROM);
+
+            if (ingredients.get("yeast") instanceof String) {
+                vector[bucket((String) ingredients.get("yeast"), YEAST_FROM, DIMENSIONS)] = 1;
+            }
+        }
+
+        weigh(vector, MALT_FROM, HOPS_FROM, MALT_WEIGHT);
+        weigh(vector, HOPS_FROM, YEAST_FROM, HOPS_WEIGHT);
+        weigh(vector, YEAST_FROM, DIMENSIONS, YEAST_WEIGHT);
+
+        return vector;
+    }
+
+    private static void addIngredients(float[] vector, Object items, Double total, int from, int to) {
+        if (!(items instanceof List)) {
+            return;
+        }
+
+        List<?> list = (List<?>) items;
+
+        for (Object item : list) {
+            if (!(item instanceof Document) || !(((Document) item).get("name") instanceof String)) {
+                continue;
+            }
+
+            Document ingredient = (Document) item;
+            Object amount = ingredient.get("amount") instanceof Document
+                    ? ((Document) ingredient.get("amount")).get("value") : null;
+            // Without amounts every ingredient counts the same.
+            float share = total != null && total > 0 && amount instanceof Number
+                    ? (float) (((Number) amount).doubleValue() / total) : 1f / list.size();
+
+            vector[bucket(ingredient.getString("name"), from, to)] += share;
+        }
+    }
+
+    private static int bucket(String name, int from, int to) {
+        return from + Math.floorMod(name.trim().toLowerCase(Locale.ROOT).hashCode(), to - from);
+    }
+
+    private static float scaled(Object value, double scale) {
+        return value instanceof Number ? (float) (((Number) value).doubleValue() / scale) : 0f;
+    }
+
+    /**
+     * Scales a block to the given length, an empty block stays empty.
+     */
+    private static void weigh(float[] vector, int from, int to, float weight) {
+        double squares = 0;
+
+        for (int i = from; i < to; i++) {
+            squares += vector[i] * vector[i];
+        }
+
+        if (squares == 0) {
+            return;
+        }
+
+        float factor = (float) (weight / Math.sqrt(squares));
+
+        for (int i = from; i < to; i++) {
+            vector[i] *= factor;
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package restapi.beerorder.auxiliary.similarity;
+
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+/**
+ * This class is an in-memory cosine similarity index over fixed length vectors.
+ * The vectors are normalized and packed row after row in one {@code float[]}, so a query is a brute force scan
+ * of dot products over contiguous memory - a loop the JIT vectorizes - keeping the best k in a small heap.
+ * Large indexes are scanned in chunks on the common fork-join pool.
+ * Vectors are replaced and removed in place, queries share a read lock, changes take the write lock.
+ */
+public class VectorIndex {
+    private static final int CHUNK = 1 << 13;
+
+    private final int dimensions;
+    private final Map<Long, Integer> rowById = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private float[] vectors;
+    private long[] ids;
+    private int size;
+
+    public VectorIndex(int dimensions, int expectedSize) {
+        this.dimensions = dimensions;
+        this.ids = new long[Math.max(16, expectedSize)];
+        this.vectors = new float[ids.length * dimensions];
+    }
+
+    /**
+     * Adds a vector or replaces the previous one of the id.
+     */
+    public void put(long id, float[] vector) {
+        if (vector.length != dimensions) {
+            throw new IllegalArgumentException("Expected " + dimensions + " dimensions, got " + vector.length);
+        }
+
+        float[] normalized = normalize(vector);
+
+        lock.writeLock().lock();
+
+        try {
+            Integer row = rowById.get(id);
+
+            if (row == null) {
+                if (size == ids.length) {
+                    ids = Arrays.copyOf(ids, size * 2);
+                    vectors = Arrays.copyOf(vectors, size * 2 * dimensions);
+                }
+
+                row = size++;
+                ids[row] = id;
+                rowById.put(id, row);
+            }
+
+            System.arraycopy(normalized, 0, vectors, row * dimensions, dimensions);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the vector of the id, the last row takes its place.
+     */
+    public void remove(long id) {
+        lock.writeLock().lock();
+
+        try {
+            Integer row = rowById.remove(id);
+
+            if (row == null) {
+                return;
+            }
+
+            int last = --size;
+
+            if (row != last) {
+                ids[row] = ids[last];
+                System.arraycopy(vectors, last * dimensions, vectors, row * dimensions, dimensions);
+                rowById.put(ids[row], row);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param id - the id whose neighbours to find.
+     * @param k - the number of neighbours.
+     * @param parallel - whether to split the scan across the fork-join pool.
+     * @return the k most similar vectors, most similar first, without the id itself. Null if the id isn't indexed.
+     */
+    public List<Neighbor> nearest(long id, int k, boolean parallel) {
+        lock.readLock().lock();
+
+        try {
+            Integer row = rowById.get(id);
+
+            if (row == null) {
+                return null;
+            }
+
+            float[] query = Arrays.copyOfRange(vectors, row * dimensions, (row + 1) * dimensions);
+
+            return scan(query, k, id, parallel);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Neighbor> scan(float[] query, int k, long excluded, boolean parallel) {
+        TopK best;
+
+        if (!parallel || size <= CHUNK) {
+            best = scan(query, k, excluded, 0, size);
+        } else {
+            best = IntStream.range(0, (size + CHUNK - 1) / CHUNK)
+                    .parallel()
+                    .mapToObj(chunk -> scan(query, k, excluded, chunk * CHUNK, Math.min(size, (chunk + 1) * CHUNK)))
+                    .reduce(TopK::merge)
+                    .orElseGet(() -> new TopK(k));
+        }
+
+        return best.toList();
+    }
+
+    private TopK scan(float[] query, int k, long excluded, int from, int to) {
+        TopK best = new TopK(k);
+
+        for (int row = from; row < to; row++) {
+            int offset = row * dimensions;
+            float dot = 0;
+
+            for (int i = 0; i < dimensions; i++) {
+                dot += query[i] * vectors[offset + i];
+            }
+
+            if (ids[row] != excluded) {
+                best.offer(ids[row], dot);
+            }
+        }
+
+        return best;
+    }
+
+    private static float[] normalize(float[] vector) {
+        double squares = 0;
+
+        for (float value : vector) {
+            squares += value * value;
+        }
+
+        float[] normalized = vector.clone();
+
+        if (squares > 0) {
+            float factor = (float) (1 / Math.sqrt(squares));
+
+            for (int i = 0; i < normalized.length; i++) {
+                normalized[i] *= factor;
+            }
+        }
+
+        return normalized;
+    }
+
+    @Value
+    public static class Neighbor {
+        long id;
+        double score;
+    }
+
+    /**
+     * A bounded min-heap of the best scores seen, in two primitive arrays.
+     */
+    private static class TopK {
+        private final long[] ids;
+        private final float[] scores;
+        private int size;
+
+        TopK(int k) {
+            ids = new long[k];
+            scores = new float[k];
+        }
+
+        void offer(long id, float score) {
+            if (size < ids.length) {
+                ids[size] = id;
+                scores[size] = score;
+                siftUp(size++);
+            } else if (ids.length > 0 && better(score, id, scores[0], ids[0])) {
+                ids[0] = id;
+                scores[0] = score;
+                siftDown(0);
+            }
+        }
+
+        TopK merge(TopK other) {
+            for (int i = 0; i < other.size; i++) {
+                offer(other.ids[i], other.scores[i]);
+            }
+
+            return this;
+        }
+
+        List<Neighbor> toList() {
+            List<Neighbor> neighbors = new ArrayList<>(size);
+
+            for (int i = 0; i < size; i++) {
+                neighbors.add(new Neighbor(ids[i], scores[i]));
+            }
+
+            neighbors.sort((a, b) -> a.getScore() != b.getScore()
+                    ? Double.compare(b.getScore(), a.getScore()) : Long.compare(a.getId(), b.getId()));
+
+            return neighbors;
+        }
+
+        /**
+         * Ties go to the smaller id, so the result doesn't depend on the scan order.
+         */
+        private static boolean better(float score, long id, float otherScore, long otherId) {
+            return score > otherScore || (score == otherScore && id < otherId);
+        }
+
+        private void siftUp(int index) {
+            while (index > 0) {
+                int parent = (index - 1) / 2;
+
+                if (!better(scores[parent], ids[parent], scores[index], ids[index])) {
+                    break;
+                }
+
+                swap(index, parent);
+                index = parent;
+            }
+        }
+
+        private void siftDown(int index) {
+            while (true) {
+                int worst = index;
+
+                for (int child = 2 * index + 1; child <= 2 * index + 2 && child < size; child++) {
+                    if (better(scores[worst], ids[worst], scores[child], ids[child])) {
+                        worst = child;
+                    }
+                }
+
+                if (worst == index) {
+                    return;
+                }
+
+                swap(index, worst);
+                index = worst;
+            }
+        }
+
+        private void swap(int a, int b) {
+            long id = ids[a];
+            ids[a] = ids[b];
+            ids[b] = id;
+
+            float score = scores[a];
+            scores[a] = scores[b];
+            scores[b] = score;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package restapi.beerorder.auxiliary.stats;
+
+import restapi.beerorder.exceptions.InvalidRequestParamException;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * The numeric beer attributes kept as columns by {@link BeerColumns}, with the document field each is read from.
+ */
+public enum BeerAttribute {
+    ABV("abv"),
+    IBU("ibu"),
+    PH("ph"),
+    VOLUME("volume.value");
+
+    private final String documentField;
+
+    BeerAttribute(String documentField) {
+        this.documentField = documentField;
+    }
+
+    public String getDocumentField() {
+        return documentField;
+    }
+
+    /**
+     * @param name - the attribute's name in any case, e.g. "abv".
+     */
+    public static BeerAttribute of(String name) {
+        try {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidRequestParamException("attribute should be one of " +
+                    Arrays.toString(values()).toLowerCase(Locale.ROOT));
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package restapi.beerorder.auxiliary.stats;
+
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * This class is an immutable column store of the numeric beer attributes. Every attribute is a primitive
+ * {@code double[]} aligned with a sorted id column, a missing value is NaN. Filters and aggregates are plain
+ * loops over the arrays - no boxing, no branches in the filter loop, so the JIT can vectorize them - and large
+ * stores are split into chunks that run on the common fork-join pool.
+ * Changes build a new store, so readers never lock.
+ */
+public class BeerColumns {
+    private static final int CHUNK = 1 << 14;
+    private static final int ATTRIBUTES = BeerAttribute.values().length;
+
+    private final long[] ids;
+    private final double[][] columns;
+
+    private BeerColumns(long[] ids, double[][] columns) {
+        this.ids = ids;
+        this.columns = columns;
+    }
+
+    public static BeerColumns empty() {
+        return new Builder(0).build();
+    }
+
+    public static Builder builder(int expectedSize) {
+        return new Builder(expectedSize);
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * @param changed - the ids of the beers that changed, their rows are dropped.
+     * @param upserts - the current rows of the changed beers that still exist.
+     * @return a new store with the changes applied.
+     */
+    public BeerColumns with(Set<Long> changed, BeerColumns upserts) {
+        Builder builder = new Builder(ids.length + upserts.size());
+
+        for (int i = 0; i < ids.length; i++) {
+            if (!changed.contains(ids[i])) {
+                builder.add(ids[i], row(i));
+            }
+        }
+
+        for (int i = 0; i < upserts.size(); i++) {
+            builder.add(upserts.ids[i], upserts.row(i));
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * This method evaluates a conjunction of closed ranges, a beer missing a filtered attribute doesn't match.
+     * @param filters - the range of each filtered attribute.
+     * @param parallel - whether to split the scan across the fork-join pool.
+     * @return a mask of the matching rows.
+     */
+    public boolean[] matching(Map<BeerAttribute, Bounds> filters, boolean parallel) {
+        boolean[] mask = new boolean[ids.length];
+        Arrays.fill(mask, true);
+
+        forEachChunk(parallel, (from, to) -> {
+            for (Map.Entry<BeerAttribute, Bounds> filter : filters.entrySet()) {
+                double[] column = columns[filter.getKey().ordinal()];
+                double min = filter.getValue().getMin();
+                double max = filter.getValue().getMax();
+
+                for (int i = from; i < to; i++) {
+                    double value = column[i];
+                    mask[i] &= value >= min & value <= max;
+                }
+            }
+        });
+
+        return mask;
+    }
+
+    /**
+     * This method aggregates one attribute over the rows of a mask.
+     * @param attribute - the attribute to describe.
+     * @param mask - the rows to include, from {@link #matching}.
+     * @param percentiles - the percentiles to report, between 0 and 100.
+     * @param bins - the number of equal width histogram buckets between the min and the max, 0 for none.
+     * @param parallel - whether to split the work across the fork-join pool.
+     * @return the attribute's stats.
+     */
+    public ColumnStats stats(BeerAttribute attribute, boolean[] mask, double[] percentiles, int bins,
+                             boolean parallel) {
+        double[] column = columns[attribute.ordinal()];
+        int matched = 0;
+        int count = 0;
+
+        for (int i = 0; i < mask.length; i++) {
+            matched += mask[i] ? 1 : 0;
+            count += mask[i] & !Double.isNaN(column[i]) ? 1 : 0;
+        }
+
+        double[] values = new double[count];
+
+        for (int i = 0, next = 0; i < mask.length; i++) {
+            if (mask[i] && !Double.isNaN(column[i])) {
+                values[next++] = column[i];
+            }
+        }
+
+        String name = attribute.name().toLowerCase(Locale.ROOT);
+
+        if (count == 0) {
+            return new ColumnStats(name, matched, 0, null, null, null, Map.of(), List.of());
+        }
+
+        if (parallel) {
+            Arrays.parallelSort(values);
+        } else {
+            Arrays.sort(values);
+        }
+
+        double sum = 0;
+
+        for (double value : values) {
+            sum += value;
+        }
+
+        double min = values[0];
+        double max = values[count - 1];
+        Map<String, Double> percentileValues = new LinkedHashMap<>();
+
+        for (double percentile : percentiles) {
+            percentileValues.put("p" + format(percentile), percentile(values, percentile));
+        }
+
+        return new ColumnStats(name, matched, count, min, max, sum / count, percentileValues,
+                histogram(values, min, max, bins, parallel));
+    }
+
+    /**
+     * Nearest rank percentile of sorted values.
+     */
+    static double percentile(double[] sorted, double percentile) {
+        int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+
+        return sorted[Math.min(sorted.length - 1, Math.max(0, rank - 1))];
+    }
+
+    private static List<ColumnStats.Bucket> histogram(double[] values, double min, double max, int bins,
+                                                      boolean parallel) {
+        if (bins <= 0) {
+            return List.of();
+        }
+
+        double width = max > min ? (max - min) / bins : 1;
+        int chunks = parallel ? (values.length + CHUNK - 1) / CHUNK : 1;
+        long[][] partial = new long[chunks][bins];
+
+        IntStream range = IntStream.range(0, chunks);
+        (parallel ? range.parallel() : range).forEach(chunk -> {
+            long[] counts = partial[chunk];
+            int to = parallel ? Math.min(values.length, (chunk + 1) * CHUNK) : values.length;
+
+            for (int i = parallel ? chunk * CHUNK : 0; i < to; i++) {
+                counts[Math.min(bins - 1, (int) ((values[i] - min) / width))]++;
+            }
+        });
+
+        List<ColumnStats.Bucket> buckets = new ArrayList<>(bins);
+
+        for (int bin = 0; bin < bins; bin++) {
+            long count = 0;
+
+            for (long[] counts : partial) {
+                count += counts[bin];
+            }
+
+            buckets.add(new ColumnStats.Bucket(min + bin * width, min + (bin + 1) * width, count));
+        }
+
+        return buckets;
+    }
+
+    private void forEachChunk(boolean parallel, ChunkTask task) {
+        if (!parallel || ids.length <= CHUNK) {
+            task.run(0, ids.length);
+            return;
+        }
+
+        IntStream.range(0, (ids.length + CHUNK - 1) / CHUNK)
+                .parallel()
+                .forEach(chunk -> task.run(chunk * CHUNK, Math.min(ids.length, (chunk + 1) * CHUNK)));
+    }
+
+    private double[] row(int index) {
+        double[] row = new double[ATTRIBUTES];
+
+        for (int attribute = 0; attribute < ATTRIBUTES; attribute++) {
+            row[attribute] = columns[attribute][index];
+        }
+
+        return row;
+    }
+
+    private static String format(double percentile) {
+        return percentile == Math.rint(percentile) ? String.valueOf((long) percentile) : String.valueOf(percentile);
+    }
+
+    private interface ChunkTask {
+        void run(int from, int to);
+    }
+
+    /**
+     * A closed range, unbounded ends are infinite.
+     */
+    @Value
+    public static class Bounds {
+        double min;
+        double max;
+
+        public static Bounds of(Double min, Double max) {
+            return new Bounds(min == null ? Double.NEGATIVE_INFINITY : min,
+                    max == null ? Double.POSITIVE_INFINITY : max);
+        }
+    }
+
+    /**
+     * Collects rows in any order, the store is sorted by id when it's built.
+     */
+    public static class Builder {
+        private long[] ids;
+        private double[][] columns;
+        private int size;
+
+        private Builder(int expectedSize) {
+            ids = new long[Math.max(16, expectedSize)];
+            columns = new double[ATTRIBUTES][ids.length];
+        }
+
+        /**
+         * @param values - the row's values by {@link BeerAttribute} ordinal, NaN when missing.
+         */
+        public Builder add(long id, double[] values) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+
+                for (int attribute = 0; attribute < ATTRIBUTES; attribute++) {
+                    columns[attribute] = Arrays.copyOf(columns[attribute], size * 2);
+                }
+            }
+
+            ids[size] = id;
+
+            for (int attribute = 0; attribute < ATTRIBUTES; attribute++) {
+                columns[attribute][size] = values[attribute];
+            }
+
+            size++;
+
+            return this;
+        }
+
+        public BeerColumns build() {
+            Integer[] order = new Integer[size];
+
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+
+            Arrays.sort(order, (a, b) -> Long.compare(ids[a], ids[b]));
+
+            long[] sortedIds = new long[size];
+            double[][] sortedColumns = new double[ATTRIBUTES][size];
+
+            for (int i = 0; i < size; i++) {
+                sortedIds[i] = ids[order[i]];
+
+                for (int attribute = 0; attribute < ATTRIBUTES; attribute++) {
+                    sortedColumns[attribute][i] = columns[attribute][order[i]];
+                }
+            }
+
+            return new BeerColumns(sortedIds, sortedColumns);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package restapi.beerorder.auxiliary.stats;
+
+import lombok.Value;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class describes the values of one attribute over the beers a filter matched.
+ * Beers missing the attribute count as matched but not in the other numbers.
+ */
+@Value
+public class ColumnStats {
+    String attribute;
+    int matched;
+    int count;
+    Double min;
+    Double max;
+    Double mean;
+    Map<String, Double> percentiles;
+    List<Bucket> histogram;
+
+    @Value
+    public static class Bucket {
+        double from;
+        double to;
+        long count;
+    }
+}
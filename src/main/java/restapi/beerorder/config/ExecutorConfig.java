@@ -0,0 +1,68 @@
+package restapi.beerorder.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import restapi.beerorder.auxiliary.executor.InstrumentedExecutor;
+
+/**
+ * This class defines the executor pools of the application, each one is sized and shaped by
+ * executor.[name].* properties:
+ * mode (platform/virtual), core-size, max-size, keep-alive-seconds,
+ * queue-type (array/linked/synchronous), queue-capacity and
+ * rejection-policy (abort/caller-runs/discard/discard-oldest).
+ */
+@Configuration
+public class ExecutorConfig {
+    private final Environment environment;
+
+    public ExecutorConfig(Environment environment) {
+        this.environment = environment;
+    }
+
+    /**
+     * Fetching and parsing the catalog, a full pool makes the caller do the work instead of failing.
+     */
+    @Bean
+    public InstrumentedExecutor ingestExecutor() {
+        return executor("ingest", 4, 8, "array", 200, "caller-runs");
+    }
+
+    /**
+     * Background work such as the catalog warmup, which must never be dropped.
+     */
+    @Bean
+    public InstrumentedExecutor maintenanceExecutor() {
+        return executor("maintenance", 1, 2, "linked", 50, "caller-runs");
+    }
+
+    /**
+     * The writers of streamed catalog imports, each one holds a thread until its import ends.
+     * A writer's producer waits on it, so a full pool fails the import instead of running the writer on the caller.
+     */
+    @Bean
+    public InstrumentedExecutor batchWriterExecutor() {
+        return executor("batch-writer", 1, 2, "synchronous", 0, "abort");
+    }
+
+    private InstrumentedExecutor executor(String name, int coreSize, int maxSize, String queueType,
+                                          int queueCapacity, String rejectionPolicy) {
+        String prefix = "executor." + name + ".";
+
+        if ("virtual".equalsIgnoreCase(environment.getProperty(prefix + "mode", "platform"))) {
+            InstrumentedExecutor virtual = InstrumentedExecutor.virtualThreads(name).orElse(null);
+
+            if (virtual != null) {
+                return virtual;
+            }
+        }
+
+        return InstrumentedExecutor.threadPool(name,
+                environment.getProperty(prefix + "core-size", Integer.class, coreSize),
+                environment.getProperty(prefix + "max-size", Integer.class, maxSize),
+                environment.getProperty(prefix + "keep-alive-seconds", Integer.class, 1),
+                environment.getProperty(prefix + "queue-type", queueType),
+                environment.getProperty(prefix + "queue-capacity", Integer.class, queueCapacity),
+                environment.getProperty(prefix + "rejection-policy", rejectionPolicy));
+    }
+}
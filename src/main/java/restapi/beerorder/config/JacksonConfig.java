@@ -0,0 +1,19 @@
+package restapi.beerorder.config;
+
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import restapi.beerorder.auxiliary.fields.SparseFieldsFilter;
+
+/**
+ * This class configures the application's ObjectMapper, the DTOs are written through {@link SparseFieldsFilter}.
+ * The HAL message converters copy that ObjectMapper, so they get the filter too.
+ */
+@Configuration
+public class JacksonConfig {
+
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer sparseFieldsFilter() {
+        return builder -> builder.filters(SparseFieldsFilter.provider());
+    }
+}
@@ -0,0 +1,20 @@
+package restapi.beerorder.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import restapi.beerorder.controllers.catalog.CatalogCompletenessInterceptor;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+    private final CatalogCompletenessInterceptor catalogCompletenessInterceptor;
+
+    public WebConfig(CatalogCompletenessInterceptor catalogCompletenessInterceptor) {
+        this.catalogCompletenessInterceptor = catalogCompletenessInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(catalogCompletenessInterceptor).addPathPatterns("/beers", "/beers/**");
+    }
+}
@@ -3,54 +3,118 @@ package restapi.beerorder.controllers.beer;
 import lombok.NonNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Range;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.hateoas.IanaLinkRelations;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import restapi.beerorder.auxiliary.sorter.SortingMethod;
+import restapi.beerorder.auxiliary.catalog.NamePrefixIndex;
+import restapi.beerorder.auxiliary.fields.FieldSelection;
+import restapi.beerorder.auxiliary.search.SearchHits;
 import restapi.beerorder.dtos.BeerDTO;
+import restapi.beerorder.dtos.BeerNameDTO;
 import restapi.beerorder.exceptions.beer.BeerAlreadyExistsException;
 import restapi.beerorder.exceptions.beer.BeerNameNotFoundException;
 import restapi.beerorder.exceptions.beer.BeerNotFoundException;
 import restapi.beerorder.exceptions.InvalidArgumentException;
+import restapi.beerorder.exceptions.InvalidRequestParamException;
 import restapi.beerorder.factories.BeerDTOFactory;
 import restapi.beerorder.factories.BeerFactory;
 import restapi.beerorder.pojos.beer.Beer;
+import restapi.beerorder.repositories.beer.BeerRangeQuery;
 import restapi.beerorder.repositories.beer.BeerRepo;
+import restapi.beerorder.services.catalog.BeerCatalogCache;
+import restapi.beerorder.services.catalog.BeerNameIndex;
+import restapi.beerorder.services.likes.BeerLikes;
+import restapi.beerorder.services.paging.KeysetPage;
+import restapi.beerorder.services.paging.KeysetPager;
+import restapi.beerorder.services.search.BeerSearchIndex;
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.HashMap;
 import java.util.List;
-import java.util.function.Predicate;
+import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
 @RestController
 public class BeerController {
     private final BeerRepo beerRepo;
+    private final BeerCatalogCache beerCatalogCache;
+    private final KeysetPager keysetPager;
+    private final BeerNameIndex beerNameIndex;
+    private final BeerSearchIndex beerSearchIndex;
+    private final BeerLikes beerLikes;
     private final BeerFactory beerFactory;
     private final BeerDTOFactory beerDTOFactory;
     private final static Logger LOG = LoggerFactory.getLogger(BeerController.class);
+    private final static List<String> RANGE_FIELDS = List.of("abv", "ibu", "ph");
+    private final static int MAX_SUGGESTIONS = 100;
 
-    public BeerController(BeerRepo beerRepo, BeerFactory beerFactory, BeerDTOFactory beerDTOFactory) {
+    public BeerController(BeerRepo beerRepo, BeerCatalogCache beerCatalogCache, KeysetPager keysetPager,
+                          BeerNameIndex beerNameIndex, BeerSearchIndex beerSearchIndex, BeerFactory beerFactory,
+                          BeerDTOFactory beerDTOFactory, BeerLikes beerLikes) {
         this.beerRepo = beerRepo;
+        this.beerCatalogCache = beerCatalogCache;
+        this.keysetPager = keysetPager;
+        this.beerNameIndex = beerNameIndex;
+        this.beerSearchIndex = beerSearchIndex;
         this.beerFactory = beerFactory;
         this.beerDTOFactory = beerDTOFactory;
+        this.beerLikes = beerLikes;
 
     }
 
+    /**
+     * This method returns a page of beers in id order, with a next link while there are more.
+     * @param after - the id the page starts after, the first page if missing.
+     * @param limit - the page size.
+     * @return a page of beers.
+     */
     @GetMapping("/beers")
-    public ResponseEntity<CollectionModel<EntityModel<Beer>>> getAllBeers() {
-        return ResponseEntity.ok(beerFactory.toCollectionModel(beerRepo.findAll()));
+    public ResponseEntity<CollectionModel<EntityModel<Beer>>> getAllBeers(@RequestParam(required = false) Long after,
+                                                                          @RequestParam(required = false) Integer limit) {
+        KeysetPage<Beer> page = beerPage(after, limit);
+        CollectionModel<EntityModel<Beer>> beers = beerFactory.toCollectionModel(page.getContent());
+
+        if (page.hasNext()) {
+            beers.add(linkTo(methodOn(BeerController.class).getAllBeers((Long) page.getNextAfter(), limit))
+                    .withRel(IanaLinkRelations.NEXT));
+        }
+
+        return ResponseEntity.ok(beers);
+    }
+
+    /**
+     * This method streams every beer as NDJSON, read from a DB cursor as it's written.
+     * @param after - the id to start after, the first beer if missing.
+     * @return all the beers, one per line.
+     */
+    @GetMapping(value = "/beers", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamAllBeers(@RequestParam(required = false) Long after) {
+        return keysetPager.stream(new Criteria(), Beer.class, after, beer -> beer);
     }
 
     /**
      * This method returns information about a specific Beer based on received id.
      * @param id - the beer's id.
+     * @param fields - the fields to show, all of them if missing.
      * @return  information about a specific Beer based on received id.
      */
     @GetMapping("/beers/{id}/info")
-    public ResponseEntity<EntityModel<BeerDTO>> beerInfo(@PathVariable Object id) {
+    public ResponseEntity<EntityModel<BeerDTO>> beerInfo(@PathVariable Object id,
+                                                         @RequestParam(required = false) String fields) {
 
         if (!validIDInput(id)) {
             throw new InvalidArgumentException(id);
@@ -58,42 +122,83 @@ public class BeerController {
 
         Long parsedId = Long.parseLong(String.valueOf(id));
 
-        return beerRepo.findById(parsedId)
-                .map(BeerDTO::new)
+        FieldSelection selection = BeerDTO.FIELDS.select(fields);
+
+        return beerCatalogCache.findById(parsedId)
+                .map(beer -> new BeerDTO(beer, selection))
                 .map(beerDTOFactory::toModel)
                 .map(ResponseEntity::ok)
                 .orElseThrow(() -> new BeerNotFoundException(parsedId));
     }
 
     /**
-     * This function returns information about all the beers found in our DB.
-     * @return information about all the beers found in our DB.
+     * This function returns information about the beers found in our DB, a page at a time.
+     * @param after - the id the page starts after, the first page if missing.
+     * @param limit - the page size.
+     * @param fields - the fields to show, all of them if missing. Only these are read from the DB.
+     * @return information about a page of beers, with a next link while there are more.
      */
     @GetMapping("/beers/info")
-    public ResponseEntity<CollectionModel<EntityModel<BeerDTO>>> allBeersInfo() {
-        return ResponseEntity.ok(
-                beerDTOFactory.toCollectionModel(
-                        beerRepo.findAll()
-                                .stream()
-                                .map(BeerDTO::new)
-                                .collect(Collectors.toList())));
+    public ResponseEntity<CollectionModel<EntityModel<BeerDTO>>> allBeersInfo(@RequestParam(required = false) Long after,
+                                                                              @RequestParam(required = false) Integer limit,
+                                                                              @RequestParam(required = false) String fields) {
+        FieldSelection selection = BeerDTO.FIELDS.select(fields);
+        // The cache keeps whole pages, a trimmed page is cheaper to read than to cut out of one.
+        KeysetPage<Beer> page = selection.isAll() ? beerPage(after, limit) : keysetPager.page(new Criteria(),
+                Beer.class, selection.getDocumentFields(), after, keysetPager.limit(limit), Beer::getId);
+        CollectionModel<EntityModel<BeerDTO>> beers = beerDTOFactory.toCollectionModel(
+                page.getContent()
+                        .stream()
+                        .map(beer -> new BeerDTO(beer, selection))
+                        .collect(Collectors.toList()));
+
+        if (page.hasNext()) {
+            beers.add(linkTo(methodOn(BeerController.class).allBeersInfo((Long) page.getNextAfter(), limit, fields))
+                    .withRel(IanaLinkRelations.NEXT));
+        }
+
+        return ResponseEntity.ok(beers);
+    }
+
+    /**
+     * This method streams information about every beer as NDJSON, read from a DB cursor as it's written.
+     * @param after - the id to start after, the first beer if missing.
+     * @param fields - the fields to show, all of them if missing. Only these are read from the DB.
+     * @return information about all the beers, one per line.
+     */
+    @GetMapping(value = "/beers/info", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamAllBeersInfo(@RequestParam(required = false) Long after,
+                                                                    @RequestParam(required = false) String fields) {
+        FieldSelection selection = BeerDTO.FIELDS.select(fields);
+
+        return keysetPager.stream(new Criteria(), Beer.class, selection.getDocumentFields(), after,
+                beer -> new BeerDTO(beer, selection));
+    }
+
+    private KeysetPage<Beer> beerPage(Long after, Integer requestedLimit) {
+        int limit = keysetPager.limit(requestedLimit);
+
+        return beerCatalogCache.findPage(after, limit,
+                () -> keysetPager.page(new Criteria(), Beer.class, after, limit, Beer::getId));
     }
 
     /**
      * This method returns information about a specific beer based on the beer's name.
      * @param name - the beer's name.
+     * @param fields - the fields to show, all of them if missing.
      * @return information about a specific beer based on the beer's name.
      */
     @GetMapping("/beers/{name}")
-    public ResponseEntity<CollectionModel<EntityModel<BeerDTO>>> getBeersByName(@PathVariable String name) {
-
-        List<Beer> matchingBeersByName = beerRepo.findBeersByName(name);
+    public ResponseEntity<CollectionModel<EntityModel<BeerDTO>>> getBeersByName(@PathVariable String name,
+                                                                                @RequestParam(required = false) String fields) {
+        FieldSelection selection = BeerDTO.FIELDS.select(fields);
+        List<Beer> matchingBeersByName = beerCatalogCache.findByName(name);
 
         if (matchingBeersByName.size() > 0) {
             return ResponseEntity.ok(
                     beerDTOFactory.toCollectionModel(matchingBeersByName
                             .stream()
-                            .map(BeerDTO::new)
+                            .map(beer -> new BeerDTO(beer, selection))
                             .collect(Collectors.toList())));
         } else {
             throw new BeerNotFoundException(name);
@@ -103,106 +208,199 @@ public class BeerController {
     /**
      * This method returns beers which have abv amount higher than specified,
      * and bitternessValue than what we got from the user.
+     * Upper bounds, a ph range, a sort and a limit are optional, the whole filter runs as one indexed query.
      * @param alcoholByVolume - alcohol parentage by volume.
      * @param bitternessValue - alcohol bitterns value.
+     * @param maxAlcoholByVolume - highest abv, inclusive.
+     * @param maxBitternessValue - highest ibu, inclusive.
+     * @param minPh - lowest ph, inclusive.
+     * @param maxPh - highest ph, inclusive.
+     * @param sortBy - abv, ibu or ph.
+     * @param sortMethod - ASC/DESC.
+     * @param limit - maximum number of beers, 0 for all of them.
+     * @param fields - the fields to show, all of them if missing. Only these are read from the DB.
      * @return beers that stand by specified params.
      */
     @GetMapping("beers/abvandibu")
     public CollectionModel<EntityModel<BeerDTO>> getBeersByAbvAndIbu(@RequestParam(defaultValue = "3.0") Double alcoholByVolume,
-                                                                     @RequestParam(defaultValue = "30") Double bitternessValue) {
+                                                                     @RequestParam(defaultValue = "30") Double bitternessValue,
+                                                                     @RequestParam(required = false) Double maxAlcoholByVolume,
+                                                                     @RequestParam(required = false) Double maxBitternessValue,
+                                                                     @RequestParam(required = false) Double minPh,
+                                                                     @RequestParam(required = false) Double maxPh,
+                                                                     @RequestParam(required = false) String sortBy,
+                                                                     @RequestParam(defaultValue = "ASC") SortingMethod sortMethod,
+                                                                     @RequestParam(defaultValue = "0") int limit,
+                                                                     @RequestParam(required = false) String fields) {
+        FieldSelection selection = BeerDTO.FIELDS.select(fields);
+
+        if (sortBy != null && !RANGE_FIELDS.contains(sortBy)) {
+            throw new InvalidRequestParamException("sortBy should be one of " + RANGE_FIELDS);
+        }
+
+        if (limit < 0) {
+            throw new InvalidRequestParamException("limit can't be negative");
+        }
+
+        BeerRangeQuery query = new BeerRangeQuery()
+                .range("abv", Range.of(Range.Bound.exclusive(alcoholByVolume), upperBound(maxAlcoholByVolume)))
+                .range("ibu", Range.of(Range.Bound.exclusive(bitternessValue), upperBound(maxBitternessValue)))
+                .range("ph", Range.of(minPh == null ? Range.Bound.unbounded() : Range.Bound.inclusive(minPh),
+                        upperBound(maxPh)))
+                .limit(limit)
+                .include(selection.getDocumentFields().toArray(new String[0]));
+
+        if (sortBy != null) {
+            query.sort(Sort.by(sortMethod == SortingMethod.DESC ? Sort.Direction.DESC : Sort.Direction.ASC, sortBy));
+        }
+
         return beerDTOFactory.toCollectionModel(
-                beerRepo.findBeerByIbuGreaterThan(bitternessValue)
+                beerRepo.findInRanges(query)
                         .stream()
-                        .filter(beer -> beer.getAbv() > alcoholByVolume)
-                        .map(BeerDTO::new)
+                        .map(beer -> new BeerDTO(beer, selection))
                         .collect(Collectors.toList()));
     }
 
+    private static Range.Bound<Double> upperBound(Double max) {
+        return max == null ? Range.Bound.unbounded() : Range.Bound.inclusive(max);
+    }
+
     /**
     * This method returns beers that their name start with a certain
     * string and the sum of all content in Malt category must be higher than what the user has passed.
+    * The candidates come from the in-memory name index, only the matching beers are read from the DB.
     * @param beerStartsWith - beer prefix name.
     * @param minMaltAmount - minimum malt(category) value.
+    * @param fields - the fields to show, all of them if missing.
     * @return beers that pass the two tests.
     */
     @GetMapping("beers/beerstartswithandmaltamount")
     public ResponseEntity<CollectionModel<EntityModel<BeerDTO>>> getBeersByNameAndMaltAmount(@RequestParam String beerStartsWith,
-                                                                                             @RequestParam Double minMaltAmount) {
-        List<Beer> beers = beerRepo.findBeerByNameStartsWith(beerStartsWith);
-
+                                                                                             @RequestParam Double minMaltAmount,
+                                                                                             @RequestParam(required = false) String fields) {
+        FieldSelection selection = BeerDTO.FIELDS.select(fields);
+
+        // The index ignores case, the prefix here doesn't.
+        List<NamePrefixIndex.Entry> beers = beerNameIndex.startingWith(beerStartsWith, 0)
+                .stream()
+                .filter(entry -> entry.getName().startsWith(beerStartsWith))
+                .collect(Collectors.toList());
 
         if (beers.size() == 0) {
             throw new BeerNameNotFoundException("There are no beers with prefix " + beerStartsWith);
         }
 
-        List<Beer> beersMatchingByMalt = beers.stream()
-                .filter(testMalt(minMaltAmount))
+        List<Long> matchingIds = beers.stream()
+                .filter(entry -> entry.getTotalMalt() != null && entry.getTotalMalt() > minMaltAmount)
+                .map(NamePrefixIndex.Entry::getId)
                 .collect(Collectors.toList());
 
-        if (beersMatchingByMalt.size() == 0) {
+        if (matchingIds.size() == 0) {
             throw new BeerNameNotFoundException("There are no beers with at least  " + minMaltAmount + "  kilograms of " +
                     "malt amount");
         }
 
         return ResponseEntity.ok(
-                beerDTOFactory.toCollectionModel(beersMatchingByMalt
+                beerDTOFactory.toCollectionModel(beerRepo.findBeersByIdInOrderByName(matchingIds)
                         .stream()
-                        .map(BeerDTO::new)
+                        .map(beer -> new BeerDTO(beer, selection))
                         .collect(Collectors.toList())));
 
     }
 
     /**
-     * Predicate has a test method that recieves T and return Boolean.
-     * @param minMaltAmount - the minimum amount of malt.
-     * @return predicate of Beer.
+     * This method suggests beers by the beginning of their name, ignoring case, for type-ahead.
+     * @param prefix - what the user typed so far.
+     * @param limit - maximum number of suggestions.
+     * @return the ids and names of the matching beers, ordered by name.
      */
-    private Predicate<Beer> testMalt(Double minMaltAmount) {
+    @GetMapping("/beers/autocomplete")
+    public List<BeerNameDTO> autocomplete(@RequestParam String prefix, @RequestParam(defaultValue = "10") int limit) {
+        if (limit < 1 || limit > MAX_SUGGESTIONS) {
+            throw new InvalidRequestParamException("limit should be between 1 and " + MAX_SUGGESTIONS);
+        }
 
-        return beer -> {
+        return beerNameIndex.startingWith(prefix, limit)
+                .stream()
+                .map(entry -> new BeerNameDTO(entry.getId(), entry.getName()))
+                .collect(Collectors.toList());
+    }
 
-            double sum = 0;
-            Beer.Ingredients ingredient = beer.getIngredients();
-            List<Beer.Malt> maltList = ingredient.getMalt();
+    /**
+     * This method searches the beers' name, description, brewers tips and food pairings, best match first.
+     * @param q - free text, such as "citrus IPA for spicy food".
+     * @param page - the page number, starting from 0.
+     * @param limit - the page size.
+     * @param fields - the fields to show, all of them if missing.
+     * @return a page of matching beers, with a next link while there are more.
+     */
+    @GetMapping("/beers/search")
+    public ResponseEntity<CollectionModel<EntityModel<BeerDTO>>> searchBeers(@RequestParam String q,
+                                                                             @RequestParam(defaultValue = "0") int page,
+                                                                             @RequestParam(required = false) Integer limit,
+                                                                             @RequestParam(required = false) String fields) {
+        FieldSelection selection = BeerDTO.FIELDS.select(fields);
+
+        if (page < 0) {
+            throw new InvalidRequestParamException("page can't be negative");
+        }
 
-            for (Beer.Malt malt : maltList) {
-                sum += malt.getAmount().getValue();
-            }
+        int pageSize = keysetPager.limit(limit);
+        long offset = (long) page * pageSize;
+
+        if (offset > Integer.MAX_VALUE) {
+            throw new InvalidRequestParamException("page is out of range");
+        }
 
-            return sum > minMaltAmount;
-        };
+        SearchHits hits = beerSearchIndex.search(q, (int) offset, pageSize);
+        List<Long> ids = hits.getHits().stream().map(SearchHits.Hit::getId).collect(Collectors.toList());
+        Map<Long, Beer> beers = new HashMap<>();
+        beerRepo.findAllById(ids).forEach(beer -> beers.put(beer.getId(), beer));
+
+        CollectionModel<EntityModel<BeerDTO>> results = beerDTOFactory.toCollectionModel(ids.stream()
+                .map(beers::get)
+                .filter(Objects::nonNull)
+                .map(beer -> new BeerDTO(beer, selection))
+                .collect(Collectors.toList()));
+
+        if (offset + pageSize < hits.getTotal()) {
+            results.add(linkTo(methodOn(BeerController.class).searchBeers(q, page + 1, limit, fields))
+                    .withRel(IanaLinkRelations.NEXT));
+        }
+
+        return ResponseEntity.ok(results);
     }
 
     /**
      * This method responsible for creating a new beer.
+     * The id and the content hash are unique indexes, so a taken id or a duplicate beer is a duplicate key
+     * error of the insert itself.
      * @param newBeer - the new beer.
      * @return ResponseEntity.
      */
     @PostMapping("/beers/newbeer")
     public ResponseEntity<?> createNewBeer(@RequestBody Beer newBeer) {
+        Beer beer;
 
-        // Check if the id already taken, tell the user that this id already in use.
-        if (beerRepo.findById(newBeer.getId()).isPresent()) {
+        try {
+            beer = beerRepo.insert(newBeer);
+        } catch (DuplicateKeyException ex) {
+            // The insert only collides with the id or the content hash, if the id is free it's the content.
+            if (newBeer.getId() == null || !beerRepo.existsById(newBeer.getId())) {
+                return ResponseEntity.status(HttpStatus.IM_USED).body("This beer already exists just with another id.");
+            }
 
+            // The id is already taken, tell the user that this id already in use.
             return ResponseEntity
                     .status(HttpStatus.IM_USED)
                     .body("This id " + newBeer.getId() + " already in use, try another one");
         }
 
-        List<Beer> matchingBeersByName = beerRepo.findBeersByName(newBeer.getName());
-
-        for (Beer beer : matchingBeersByName) {
-            if (beer.equals(newBeer)) {
-                return ResponseEntity.status(HttpStatus.IM_USED).body("This beer already exists just with another id.");
-            }
-        }
-
         try {
-            Beer beer = beerRepo.save(newBeer);
             EntityModel<BeerDTO> beerDTOEntityModel = beerDTOFactory.toModel(new BeerDTO(beer));
 
             return ResponseEntity.created(new URI(beerDTOEntityModel.getRequiredLink(IanaLinkRelations.SELF)
-                    .getHref())).body(beerDTOEntityModel);
+                    .expand().getHref())).body(beerDTOEntityModel);
         } catch (URISyntaxException ex) {
 
             return ResponseEntity.badRequest().body("Couldn't create the beer corresponding to " + newBeer);
@@ -223,8 +421,9 @@ public class BeerController {
 
         Long parsedId = Long.parseLong(String.valueOf(id));
 
-        if (beerRepo.findById(parsedId).isPresent()) {
+        if (beerCatalogCache.findById(parsedId).isPresent()) {
             beerRepo.deleteById(parsedId);
+            beerLikes.removeBeer(parsedId);
 
             return ResponseEntity.ok("The beer was successfully deleted.");
         }
@@ -251,18 +450,16 @@ public class BeerController {
             throw new InvalidArgumentException("The id in the path don't match to beer id, please try again");
         }
 
-        List<Beer> matchingBeersByName = beerRepo.findBeersByName(newBeer.getName());
+        // The likes aren't part of the request, keep the counter in line with the beer's like edges.
+        newBeer.setLikeCount(beerLikes.countLikes(parsedId));
 
-        for (Beer beer : matchingBeersByName) {
-            if (beer.equals(newBeer)) { //equals check by all params except id and name.
-                // Malka Id 1  - 60% (existing in db)
-                // Malka Id 2 - 50% -> NewBeer Malka Id 2 60%)
-                throw new BeerAlreadyExistsException("Error! you're trying to update an existing beer into another " +
-                        "which already exists. ");
-            }
+        try {
+            beerRepo.save(newBeer);
+        } catch (DuplicateKeyException ex) {
+            // Another beer has exactly the same content.
+            throw new BeerAlreadyExistsException("Error! you're trying to update an existing beer into another " +
+                    "which already exists. ");
         }
-
-        beerRepo.save(newBeer);
     }
 
     /**
@@ -0,0 +1,30 @@
+package restapi.beerorder.controllers.catalog;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import restapi.beerorder.services.catalog.CatalogWarmup;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * This interceptor tells the clients of the catalog endpoints how complete the catalog they see is,
+ * for example "PARTIALLY_LOADED;loaded=120" while it's warming up.
+ */
+@Component
+public class CatalogCompletenessInterceptor implements HandlerInterceptor {
+    public static final String HEADER = "X-Catalog-Completeness";
+
+    private final CatalogWarmup catalogWarmup;
+
+    public CatalogCompletenessInterceptor(CatalogWarmup catalogWarmup) {
+        this.catalogWarmup = catalogWarmup;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        response.setHeader(HEADER, catalogWarmup.getState() + ";loaded=" + catalogWarmup.getLoadedBeers());
+
+        return true;
+    }
+}
@@ -0,0 +1,116 @@
+package restapi.beerorder.controllers.catalog;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import restapi.beerorder.auxiliary.cache.CacheStats;
+import restapi.beerorder.auxiliary.metrics.LatencyHistogram;
+import restapi.beerorder.exceptions.InvalidRequestParamException;
+import restapi.beerorder.services.PunkApiClient;
+import restapi.beerorder.services.catalog.BeerBulkUpload;
+import restapi.beerorder.services.catalog.BeerCatalogCache;
+import restapi.beerorder.services.catalog.BulkUploadReport;
+import restapi.beerorder.services.catalog.CatalogImporter;
+import restapi.beerorder.services.catalog.CatalogSync;
+import restapi.beerorder.services.catalog.ImportReport;
+import restapi.beerorder.services.catalog.SyncStats;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * This controller exposes operational information about the beers catalog, and takes bulk beer uploads.
+ */
+@RestController
+public class CatalogController {
+    private final CatalogImporter catalogImporter;
+    private final CatalogSync catalogSync;
+    private final PunkApiClient punkApiClient;
+    private final BeerCatalogCache beerCatalogCache;
+    private final BeerBulkUpload beerBulkUpload;
+
+    public CatalogController(CatalogImporter catalogImporter, CatalogSync catalogSync, PunkApiClient punkApiClient,
+                             BeerCatalogCache beerCatalogCache, BeerBulkUpload beerBulkUpload) {
+        this.catalogImporter = catalogImporter;
+        this.catalogSync = catalogSync;
+        this.punkApiClient = punkApiClient;
+        this.beerCatalogCache = beerCatalogCache;
+        this.beerBulkUpload = beerBulkUpload;
+    }
+
+    /**
+     * This method creates or upserts many beers at once, the body is read as a stream.
+     * @param body - a JSON array of beers, or one beer per line with an application/x-ndjson content type.
+     * @param contentType - the content type of the body.
+     * @param mode - "create" (the default) rejects taken ids, "upsert" overwrites them.
+     * @return a status per beer, in request order, plus the counts by status.
+     */
+    @PostMapping(value = "/beers/bulk",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public BulkUploadReport bulkUpload(InputStream body, @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                       @RequestParam(defaultValue = "create") String mode) throws IOException {
+        BeerBulkUpload.Mode uploadMode;
+
+        try {
+            uploadMode = BeerBulkUpload.Mode.valueOf(mode.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidRequestParamException("Unknown bulk mode: " + mode);
+        }
+
+        boolean ndjson = MediaType.APPLICATION_NDJSON.isCompatibleWith(MediaType.parseMediaType(contentType));
+
+        try {
+            return beerBulkUpload.upload(body, ndjson, uploadMode);
+        } catch (JsonProcessingException ex) {
+            throw new InvalidRequestParamException("Malformed beers body: " + ex.getOriginalMessage());
+        }
+    }
+
+    /**
+     * This method returns the throughput and allocation report of the last catalog import or sync.
+     * @return the last import report, or 204 if no import or sync has finished yet.
+     */
+    @GetMapping("/catalog/import/stats")
+    public ResponseEntity<ImportReport> importStats() {
+        ImportReport report = catalogImporter.getLastReport();
+
+        return report == null ? ResponseEntity.noContent().build() : ResponseEntity.ok(report);
+    }
+
+    /**
+     * This method returns the scanned, changed and skipped counts of the last catalog sync and how long it took.
+     * @return the last sync stats, or 204 if no sync has finished yet.
+     */
+    @GetMapping("/catalog/sync/stats")
+    public ResponseEntity<SyncStats> syncStats() {
+        SyncStats stats = catalogSync.getLastStats();
+
+        return stats == null ? ResponseEntity.noContent().build() : ResponseEntity.ok(stats);
+    }
+
+    /**
+     * This method returns the latency percentiles of the PunkAPI client, by host.
+     * @return latency snapshot per host.
+     */
+    @GetMapping("/catalog/client/latency")
+    public Map<String, LatencyHistogram.Snapshot> clientLatency() {
+        return punkApiClient.latencySnapshots();
+    }
+
+    /**
+     * This method returns the size, hit, miss and eviction counts of the beers cache, by region.
+     * @return cache stats per region.
+     */
+    @GetMapping("/catalog/cache/stats")
+    public Map<String, CacheStats> cacheStats() {
+        return beerCatalogCache.stats();
+    }
+}
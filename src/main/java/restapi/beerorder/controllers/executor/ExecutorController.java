@@ -0,0 +1,32 @@
+package restapi.beerorder.controllers.executor;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import restapi.beerorder.auxiliary.executor.ExecutorStats;
+import restapi.beerorder.auxiliary.executor.InstrumentedExecutor;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * This controller exposes live metrics of the executor pools.
+ */
+@RestController
+public class ExecutorController {
+    private final List<InstrumentedExecutor> executors;
+
+    public ExecutorController(List<InstrumentedExecutor> executors) {
+        this.executors = executors;
+    }
+
+    /**
+     * This method returns the active count, queue depth, rejections and task latencies of every pool.
+     * @return stats of every executor pool.
+     */
+    @GetMapping("/executors/stats")
+    public List<ExecutorStats> executorStats() {
+        return executors.stream()
+                .map(InstrumentedExecutor::stats)
+                .collect(Collectors.toList());
+    }
+}
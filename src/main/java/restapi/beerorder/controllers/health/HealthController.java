@@ -0,0 +1,41 @@
+package restapi.beerorder.controllers.health;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import restapi.beerorder.services.catalog.CatalogStatus;
+import restapi.beerorder.services.catalog.CatalogWarmup;
+
+/**
+ * This controller exposes the liveness and readiness of the application.
+ */
+@RestController
+public class HealthController {
+    private final CatalogWarmup catalogWarmup;
+
+    public HealthController(CatalogWarmup catalogWarmup) {
+        this.catalogWarmup = catalogWarmup;
+    }
+
+    /**
+     * The application is alive as soon as it serves requests, whatever the catalog state.
+     * @return 200 with the catalog status.
+     */
+    @GetMapping("/health/liveness")
+    public ResponseEntity<CatalogStatus> liveness() {
+        return ResponseEntity.ok(catalogWarmup.status());
+    }
+
+    /**
+     * The application is ready once the whole catalog is loaded.
+     * @return 200 when the catalog is ready, 503 while it's still warming up.
+     */
+    @GetMapping("/health/readiness")
+    public ResponseEntity<CatalogStatus> readiness() {
+        CatalogStatus status = catalogWarmup.status();
+
+        return ResponseEntity.status(catalogWarmup.isReady() ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE)
+                .body(status);
+    }
+}
@@ -0,0 +1,125 @@
+package restapi.beerorder.controllers.like;
+
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import restapi.beerorder.auxiliary.fields.FieldSelection;
+import restapi.beerorder.dtos.BeerDTO;
+import restapi.beerorder.dtos.UserDTO;
+import restapi.beerorder.exceptions.beer.BeerNotFoundException;
+import restapi.beerorder.exceptions.user.UserNotFoundException;
+import restapi.beerorder.factories.BeerDTOFactory;
+import restapi.beerorder.factories.UserDTOFactory;
+import restapi.beerorder.pojos.beer.Beer;
+import restapi.beerorder.pojos.like.BeerLike;
+import restapi.beerorder.pojos.user.User;
+import restapi.beerorder.repositories.user.UserRepo;
+import restapi.beerorder.services.catalog.BeerCatalogCache;
+import restapi.beerorder.services.likes.BeerLikes;
+import restapi.beerorder.services.paging.KeysetPage;
+import restapi.beerorder.services.paging.KeysetPager;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+/**
+ * This controller pages through the likes in both directions - the users that like a beer and the beers
+ * a user likes. A page is read from the likes collection by index and its other ends are fetched with one query.
+ */
+@RestController
+public class LikeController {
+    private final BeerLikes beerLikes;
+    private final KeysetPager keysetPager;
+    private final BeerCatalogCache beerCatalogCache;
+    private final UserRepo userRepo;
+    private final BeerDTOFactory beerDTOFactory;
+    private final UserDTOFactory userDTOFactory;
+
+    public LikeController(BeerLikes beerLikes, KeysetPager keysetPager, BeerCatalogCache beerCatalogCache,
+                          UserRepo userRepo, BeerDTOFactory beerDTOFactory, UserDTOFactory userDTOFactory) {
+        this.beerLikes = beerLikes;
+        this.keysetPager = keysetPager;
+        this.beerCatalogCache = beerCatalogCache;
+        this.userRepo = userRepo;
+        this.beerDTOFactory = beerDTOFactory;
+        this.userDTOFactory = userDTOFactory;
+    }
+
+    /**
+     * This method returns the users that like a beer, a page at a time.
+     * @param id - the beer's id.
+     * @param after - the like the page starts after, the first page if missing.
+     * @param limit - the page size.
+     * @param fields - the user fields to show, all of them if missing. Only these are read from the DB.
+     * @return information about a page of users, with a next link while there are more.
+     */
+    @GetMapping("/beers/{id}/likers")
+    public ResponseEntity<CollectionModel<EntityModel<UserDTO>>> beerLikers(@PathVariable Long id,
+                                                                            @RequestParam(required = false) String after,
+                                                                            @RequestParam(required = false) Integer limit,
+                                                                            @RequestParam(required = false) String fields) {
+        FieldSelection selection = UserDTO.FIELDS.select(fields);
+
+        if (beerCatalogCache.findById(id).isEmpty()) {
+            throw new BeerNotFoundException(id);
+        }
+
+        KeysetPage<BeerLike> page = beerLikes.likesOfBeer(id, after, keysetPager.limit(limit));
+        List<String> userIds = page.getContent().stream().map(BeerLike::getUserId).collect(Collectors.toList());
+        CollectionModel<EntityModel<UserDTO>> users = userDTOFactory.toCollectionModel(
+                beerLikes.resolve(userIds, User.class, selection.getDocumentFields(), User::getId)
+                        .stream()
+                        .map(user -> new UserDTO(user, selection))
+                        .collect(Collectors.toList()));
+
+        if (page.hasNext()) {
+            users.add(linkTo(methodOn(LikeController.class).beerLikers(id, (String) page.getNextAfter(), limit, fields))
+                    .withRel(IanaLinkRelations.NEXT));
+        }
+
+        return ResponseEntity.ok(users);
+    }
+
+    /**
+     * This method returns the beers a user likes, a page at a time.
+     * @param id - the user's id.
+     * @param after - the like the page starts after, the first page if missing.
+     * @param limit - the page size.
+     * @param fields - the beer fields to show, all of them if missing. Only these are read from the DB.
+     * @return information about a page of beers, with a next link while there are more.
+     */
+    @GetMapping("/users/{id}/likes")
+    public ResponseEntity<CollectionModel<EntityModel<BeerDTO>>> userLikes(@PathVariable String id,
+                                                                           @RequestParam(required = false) String after,
+                                                                           @RequestParam(required = false) Integer limit,
+                                                                           @RequestParam(required = false) String fields) {
+        FieldSelection selection = BeerDTO.FIELDS.select(fields);
+
+        if (!userRepo.existsById(id)) {
+            throw new UserNotFoundException(id);
+        }
+
+        KeysetPage<BeerLike> page = beerLikes.likesOfUser(id, after, keysetPager.limit(limit));
+        List<Long> beerIds = page.getContent().stream().map(BeerLike::getBeerId).collect(Collectors.toList());
+        CollectionModel<EntityModel<BeerDTO>> beers = beerDTOFactory.toCollectionModel(
+                beerLikes.resolve(beerIds, Beer.class, selection.getDocumentFields(), Beer::getId)
+                        .stream()
+                        .map(beer -> new BeerDTO(beer, selection))
+                        .collect(Collectors.toList()));
+
+        if (page.hasNext()) {
+            beers.add(linkTo(methodOn(LikeController.class).userLikes(id, (String) page.getNextAfter(), limit, fields))
+                    .withRel(IanaLinkRelations.NEXT));
+        }
+
+        return ResponseEntity.ok(beers);
+    }
+}
@@ -0,0 +1,28 @@
+package restapi.beerorder.controllers.metrics;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import restapi.beerorder.auxiliary.metrics.PayloadMeter;
+
+import java.util.Map;
+
+/**
+ * This controller exposes the payload size and latency of the read endpoints.
+ */
+@RestController
+public class PayloadMetricsController {
+    private final PayloadMetricsFilter payloadMetricsFilter;
+
+    public PayloadMetricsController(PayloadMetricsFilter payloadMetricsFilter) {
+        this.payloadMetricsFilter = payloadMetricsFilter;
+    }
+
+    /**
+     * This method returns the response count, bytes and latency percentiles of every GET route.
+     * @return payload stats by route, e.g. "/beers/info fields".
+     */
+    @GetMapping("/payloads/stats")
+    public Map<String, PayloadMeter.Stats> payloadStats() {
+        return payloadMetricsFilter.stats();
+    }
+}
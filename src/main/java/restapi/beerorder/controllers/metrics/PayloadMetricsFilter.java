@@ -0,0 +1,183 @@
+package restapi.beerorder.controllers.metrics;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import restapi.beerorder.auxiliary.metrics.PayloadMeter;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This filter measures the payload size and latency of every GET endpoint, by route. Trimmed
+ * ({@code fields=}) and streamed ({@code stream=true}) reads are counted apart from the whole ones, so the
+ * saving of a sparse fieldset shows side by side with the full response. Streamed responses are measured
+ * when the async request completes, after the last line is written.
+ */
+@Component
+public class PayloadMetricsFilter extends OncePerRequestFilter {
+    private final Map<String, PayloadMeter> meters = new ConcurrentHashMap<>();
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!"GET".equals(request.getMethod())) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        long start = System.nanoTime();
+        CountingResponse countingResponse = new CountingResponse(response);
+
+        try {
+            chain.doFilter(request, countingResponse);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        record(request, countingResponse, start);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                record(request, countingResponse, start);
+            }
+        }
+    }
+
+    public Map<String, PayloadMeter.Stats> stats() {
+        Map<String, PayloadMeter.Stats> stats = new TreeMap<>();
+        meters.forEach((route, meter) -> stats.put(route, meter.stats()));
+
+        return stats;
+    }
+
+    private void record(HttpServletRequest request, CountingResponse response, long start) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+
+        // Requests no handler matched would make a route per URL.
+        if (pattern == null) {
+            return;
+        }
+
+        String route = pattern.toString();
+
+        if (request.getParameter("fields") != null) {
+            route += " fields";
+        }
+
+        if ("true".equals(request.getParameter("stream"))) {
+            route += " stream";
+        }
+
+        meters.computeIfAbsent(route, key -> new PayloadMeter()).record(response.bytes, System.nanoTime() - start);
+    }
+
+    /**
+     * Counts the bytes written to the response, and the chars for a writer.
+     */
+    private static class CountingResponse extends HttpServletResponseWrapper {
+        private volatile long bytes;
+        private ServletOutputStream outputStream;
+        private PrintWriter writer;
+
+        CountingResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null) {
+                ServletOutputStream delegate = super.getOutputStream();
+
+                outputStream = new ServletOutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        delegate.write(b);
+                        bytes++;
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        delegate.write(b, off, len);
+                        bytes += len;
+                    }
+
+                    @Override
+                    public void flush() throws IOException {
+                        delegate.flush();
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        delegate.close();
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return delegate.isReady();
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener writeListener) {
+                        delegate.setWriteListener(writeListener);
+                    }
+                };
+            }
+
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                PrintWriter delegate = super.getWriter();
+
+                writer = new PrintWriter(new Writer() {
+                    @Override
+                    public void write(char[] cbuf, int off, int len) {
+                        delegate.write(cbuf, off, len);
+                        bytes += len;
+                    }
+
+                    @Override
+                    public void flush() {
+                        delegate.flush();
+                    }
+
+                    @Override
+                    public void close() {
+                        delegate.close();
+                    }
+                });
+            }
+
+            return writer;
+        }
+    }
+}
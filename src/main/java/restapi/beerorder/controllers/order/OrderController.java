@@ -1,56 +1,87 @@
 package restapi.beerorder.controllers.order;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import restapi.beerorder.auxiliary.order.BeerQuantity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import restapi.beerorder.auxiliary.sorter.SortingMethod;
+import restapi.beerorder.auxiliary.fields.FieldSelection;
 import restapi.beerorder.dtos.OrderDTO;
 import restapi.beerorder.exceptions.InvalidRequestParamException;
-import restapi.beerorder.exceptions.beer.BeerNotFoundException;
 import restapi.beerorder.exceptions.InvalidArgumentException;
 import restapi.beerorder.exceptions.user.UserNotFoundException;
 import restapi.beerorder.exceptions.order.OrderNotFoundException;
 import restapi.beerorder.factories.OrderDTOFactory;
 import restapi.beerorder.factories.OrderFactory;
+import restapi.beerorder.pojos.order.IdempotencyKey;
 import restapi.beerorder.pojos.order.Order;
 import restapi.beerorder.pojos.user.User;
 import restapi.beerorder.repositories.user.UserRepo;
-import restapi.beerorder.repositories.beer.BeerRepo;
+import restapi.beerorder.repositories.order.DailyOrderTotals;
 import restapi.beerorder.repositories.order.OrderRepo;
+import restapi.beerorder.services.order.IngestStatus;
+import restapi.beerorder.services.order.OrderBatchReport;
+import restapi.beerorder.services.order.OrderBatchSubmitter;
+import restapi.beerorder.services.order.OrderBeerValidator;
+import restapi.beerorder.services.order.OrderIdempotency;
+import restapi.beerorder.services.order.OrderIngestion;
+import restapi.beerorder.services.paging.KeysetKey;
+import restapi.beerorder.services.paging.KeysetPage;
+import restapi.beerorder.services.paging.KeysetPager;
+import restapi.beerorder.services.pricing.PricingEngine;
 
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
 import java.util.*;
 import java.util.stream.Collectors;
 
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
 @RestController
 public class OrderController {
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
+    private static final String DATE_OF_ORDER = "dateOfOrder";
+    private static final ZoneId ORDER_DAYS_ZONE = ZoneId.systemDefault();//where a day of orders starts.
+
     private final OrderRepo orderRepo;
     private final OrderFactory orderFactory;
     private final OrderDTOFactory orderDTOFactory;
     private final UserRepo userRepo;
-    private final BeerRepo beerRepo;
+    private final OrderBeerValidator orderBeerValidator;
+    private final KeysetPager keysetPager;
+    private final OrderBatchSubmitter orderBatchSubmitter;
+    private final PricingEngine pricingEngine;
+    private final OrderIngestion orderIngestion;
+    private final OrderIdempotency orderIdempotency;
 
     @Value("${min.order.amount}")
     private int minimumOrderAmount;
 
-    @Value("${beer.price}")
-    private double beerPrice;
-
     public OrderController(OrderRepo orderRepo, OrderFactory orderFactory,
-                           OrderDTOFactory orderDTOFactory, UserRepo userRepo, BeerRepo beerRepo) {
+                           OrderDTOFactory orderDTOFactory, UserRepo userRepo, OrderBeerValidator orderBeerValidator,
+                           KeysetPager keysetPager, OrderBatchSubmitter orderBatchSubmitter,
+                           PricingEngine pricingEngine, OrderIngestion orderIngestion,
+                           OrderIdempotency orderIdempotency) {
         this.orderRepo = orderRepo;
         this.orderFactory = orderFactory;
         this.orderDTOFactory = orderDTOFactory;
         this.userRepo = userRepo;
-        this.beerRepo = beerRepo;
-
+        this.orderBeerValidator = orderBeerValidator;
+        this.keysetPager = keysetPager;
+        this.orderBatchSubmitter = orderBatchSubmitter;
+        this.pricingEngine = pricingEngine;
+        this.orderIngestion = orderIngestion;
+        this.orderIdempotency = orderIdempotency;
     }
 
   /*  @GetMapping("/orders/")
@@ -60,11 +91,33 @@ public class OrderController {
 
     /**
      * This method create a new order.
+     * When the write-behind ingestion runs the validated order is queued and 202 is returned with a status link,
+     * the order is written to the DB shortly after.
+     * A request with an Idempotency-Key header is placed once, a retry with the same key gets the first response.
      * @param newOrder - the new order to create.
+     * @param idempotencyKey - optional, a unique key per order the client places.
      * @return ResponseEntity.
      */
     @PostMapping("/order/neworder")
-    public ResponseEntity<?> createNewOrder(@RequestBody Order newOrder) {
+    public ResponseEntity<?> createNewOrder(@RequestBody Order newOrder,
+                                            @RequestHeader(value = IDEMPOTENCY_KEY, required = false)
+                                            String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return placeOrder(newOrder);
+        }
+
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            throw new InvalidRequestParamException("The " + IDEMPOTENCY_KEY + " header must have 1 to "
+                    + MAX_IDEMPOTENCY_KEY_LENGTH + " characters");
+        }
+
+        return orderIdempotency.execute(idempotencyKey, newOrder, () -> placeOrder(newOrder), this::replayOrder);
+    }
+
+    /**
+     * Validates, prices and places a new order.
+     */
+    private ResponseEntity<?> placeOrder(Order newOrder) {
 
         //In order to place a new order in our WebApp the user must already exist
         if (!userRepo.findUserByUserName(newOrder.getUserName()).isPresent()) {
@@ -81,6 +134,14 @@ public class OrderController {
                     + minimumOrderAmount + "! please add a few more items.");
         }
 
+        if (orderIngestion.isRunning()) {
+            EntityModel<IngestStatus> status = OrderIngestionController.toModel(
+                    new IngestStatus(orderIngestion.submit(newOrder), IngestStatus.State.QUEUED, null));
+
+            return ResponseEntity.accepted().location(status.getRequiredLink(IanaLinkRelations.SELF).toUri())
+                    .body(status);
+        }
+
         Order order = orderRepo.save(newOrder);
         EntityModel<OrderDTO> orderDTOEntityModel = orderDTOFactory.toModel(new OrderDTO(order));
 
@@ -88,7 +149,7 @@ public class OrderController {
 
             //this throws exception!!
             return ResponseEntity.created(new URI(orderDTOEntityModel.getRequiredLink(IanaLinkRelations.SELF)
-                    .getHref())).body(orderDTOEntityModel);
+                    .expand().getHref())).body(orderDTOEntityModel);
 
         } catch (URISyntaxException ex) {
 
@@ -96,6 +157,44 @@ public class OrderController {
         }
     }
 
+    /**
+     * Rebuilds the response of an order placed with an idempotency key, from the stored outcome.
+     */
+    private ResponseEntity<?> replayOrder(IdempotencyKey outcome) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(outcome.getStatus());
+
+        if (outcome.getLocation() != null) {
+            response.location(URI.create(outcome.getLocation()));
+        }
+
+        if (outcome.getStatus() == HttpStatus.ACCEPTED.value()) {
+            // The order may have been written since the first response, report where it is now.
+            IngestStatus status = orderIngestion.status(outcome.getOrderId());
+
+            return response.body(OrderIngestionController.toModel(status != null ? status
+                    : new IngestStatus(outcome.getOrderId(), IngestStatus.State.QUEUED, null)));
+        }
+
+        if (outcome.getOrderId() != null) {
+            return response.body(orderRepo.findById(outcome.getOrderId())
+                    .map(order -> orderDTOFactory.toModel(new OrderDTO(order)))
+                    .orElse(null));
+        }
+
+        return response.body(outcome.getMessage());
+    }
+
+    /**
+     * This method creates many orders at once, with the same rules as a single new order.
+     * Users and beers are looked up once for the whole batch and the valid orders are inserted together.
+     * @param newOrders - the new orders to create.
+     * @return a result per order, in request order, with the new order id for the created ones.
+     */
+    @PostMapping("/orders/batch")
+    public ResponseEntity<OrderBatchReport> createOrders(@RequestBody List<Order> newOrders) {
+        return ResponseEntity.ok(orderBatchSubmitter.submit(newOrders));
+    }
+
     /**
      * This method responsible for updating a specific order.
      * @param id - the order's id.
@@ -140,97 +239,207 @@ public class OrderController {
     }
 
     /**
-     * This methods returns all orders made between two dates.
-     * @param startDate
-     * @param endDate
-     * @return matching orders.
-     * @throws ParseException
+     * This methods returns the orders made between two dates, a page at a time, by date of order.
+     * @param startDate - yyyy-MM-dd, exclusive.
+     * @param endDate - yyyy-MM-dd, exclusive.
+     * @param after - the cursor of the next link the page starts after, the first page if missing.
+     * @param limit - the page size.
+     * @param fields - the fields to show, all of them if missing. Only these are read from the DB.
+     * @return a page of matching orders, with a next link while there are more.
      */
     @GetMapping("orders/date")
     public CollectionModel<EntityModel<OrderDTO>> getOrdersInRange(@RequestParam(defaultValue = "2020-01-01") String startDate,
-                                                                   @RequestParam(defaultValue = "2022-06-30") String endDate) throws ParseException {
-        Date startDateParsed = new SimpleDateFormat("yyyy-MM-dd").parse(startDate);
-        Date endDateParsed = new SimpleDateFormat("yyyy-MM-dd").parse(endDate);
-
-
-        return orderDTOFactory.toCollectionModel(
-                orderRepo.findByDateOfOrderBetween(startDateParsed, endDateParsed)
+                                                                   @RequestParam(defaultValue = "2022-06-30") String endDate,
+                                                                   @RequestParam(required = false) String after,
+                                                                   @RequestParam(required = false) Integer limit,
+                                                                   @RequestParam(required = false) String fields) {
+        FieldSelection selection = OrderDTO.FIELDS.select(fields);
+        KeysetPage<Order> page = keysetPager.page(dateRange(startDate, endDate), Order.class,
+                selection.getDocumentFields(), DATE_OF_ORDER, parseCursor(after), keysetPager.limit(limit),
+                order -> new KeysetKey(order.getDateOfOrder(), order.getId()));
+        CollectionModel<EntityModel<OrderDTO>> orders = orderDTOFactory.toCollectionModel(
+                page.getContent()
                         .stream()
-                        .map(OrderDTO::new)
+                        .map(order -> new OrderDTO(order, selection))
                         .collect(Collectors.toList()));
+
+        if (page.hasNext()) {
+            orders.add(linkTo(methodOn(OrderController.class).getOrdersInRange(startDate, endDate,
+                    toCursor((KeysetKey) page.getNextAfter()), limit, fields)).withRel(IanaLinkRelations.NEXT));
+        }
+
+        return orders;
     }
 
     /**
-     * This method checks if the beers in the order exist.
-     * @param newOrder
+     * This method streams the orders made between two dates as NDJSON, read from a DB cursor as it's written.
+     * @return the matching orders by date of order, one per line.
      */
-    private void beerExistanceValidation(Order newOrder) {
+    @GetMapping(value = "orders/date", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamOrdersInRange(@RequestParam(defaultValue = "2020-01-01") String startDate,
+                                                                     @RequestParam(defaultValue = "2022-06-30") String endDate,
+                                                                     @RequestParam(required = false) String after,
+                                                                     @RequestParam(required = false) String fields) {
+        FieldSelection selection = OrderDTO.FIELDS.select(fields);
+
+        return keysetPager.stream(dateRange(startDate, endDate), Order.class, selection.getDocumentFields(),
+                DATE_OF_ORDER, parseCursor(after), order -> new OrderDTO(order, selection));
+    }
 
-        for (Map.Entry<String, Integer> entry : newOrder.getBeersOrdered().entrySet()) {
+    /**
+     * This method returns how many orders were made on every day between two dates and their total sum.
+     * The days are added up in the DB, no order is read.
+     * @param startDate - yyyy-MM-dd, exclusive.
+     * @param endDate - yyyy-MM-dd, exclusive.
+     * @return the totals of the days with orders, by day.
+     */
+    @GetMapping(value = "orders/date", params = "aggregate=daily")
+    public ResponseEntity<List<DailyOrderTotals>> getDailyTotalsInRange(@RequestParam(defaultValue = "2020-01-01") String startDate,
+                                                                         @RequestParam(defaultValue = "2022-06-30") String endDate) {
+        return ResponseEntity.ok(orderRepo.dailyTotals(parseDay(startDate), parseDay(endDate), ORDER_DAYS_ZONE));
+    }
+
+    /**
+     * Same bounds as findByDateOfOrderBetween, both exclusive.
+     */
+    private static Criteria dateRange(String startDate, String endDate) {
+        return Criteria.where(DATE_OF_ORDER).gt(parseDay(startDate)).lt(parseDay(endDate));
+    }
+
+    /**
+     * @param day - yyyy-MM-dd.
+     * @return the start of the day.
+     */
+    private static Date parseDay(String day) {
+        try {
+            return Date.from(LocalDate.parse(day).atStartOfDay(ORDER_DAYS_ZONE).toInstant());
+        } catch (DateTimeParseException ex) {
+            throw new InvalidRequestParamException("The date " + day + " should be yyyy-MM-dd");
+        }
+    }
+
+    /**
+     * A cursor is the date of order in epoch millis and the order id of the last order of a page.
+     */
+    private static String toCursor(KeysetKey key) {
+        return ((Date) key.getValue()).getTime() + "_" + key.getId();
+    }
 
-            //Here we check that the desired beers that user tried to order exist in our beer  collection
-            if (beerRepo.findBeersByName(entry.getKey()).size() == 0) {
+    private static KeysetKey parseCursor(String cursor) {
+        if (cursor == null) {
+            return null;
+        }
 
-                throw new BeerNotFoundException(entry.getKey());
+        int separator = cursor.indexOf('_');
+
+        try {
+            if (separator > 0 && separator < cursor.length() - 1) {
+                return new KeysetKey(new Date(Long.parseLong(cursor.substring(0, separator))),
+                        cursor.substring(separator + 1));
             }
+        } catch (NumberFormatException ignored) {
+            // Reported below.
         }
+
+        throw new InvalidRequestParamException("after should be the cursor of a next link");
+    }
+
+    /**
+     * This method checks if the beers in the order exist, all of them are looked up together.
+     * @param newOrder
+     */
+    private void beerExistanceValidation(Order newOrder) {
+        orderBeerValidator.validate(newOrder);
     }
 
     /**
-     * Calculate the total sum of the order.
+     * Calculate the total sum of the order, from the current price list.
      * @param newOrder - the order that it sum is going to be calculated.
      * @return -> total sum of the order.
      */
     private Double calculateOrderSum(Order newOrder) {
-
-        //in order to know how many bottles the user has ordered and calculate the total sum
-
-        int counter = BeerQuantity.getBottleQuantity(newOrder);
-
-        return counter * beerPrice;
+        return pricingEngine.quote(newOrder.getBeersOrdered()).getTotal();
     }
 
     @GetMapping("/orders/info/{id}")
-    public ResponseEntity<EntityModel<OrderDTO>> orderInfo(@PathVariable String id) {
+    public ResponseEntity<EntityModel<OrderDTO>> orderInfo(@PathVariable String id,
+                                                           @RequestParam(required = false) String fields) {
+        FieldSelection selection = OrderDTO.FIELDS.select(fields);
 
         return orderRepo.findById(id)
-                .map(OrderDTO::new)
+                .map(order -> new OrderDTO(order, selection))
                 .map(orderDTOFactory::toModel)
                 .map(ResponseEntity::ok)
                 .orElseThrow(() -> new OrderNotFoundException(id));
     }
 
     /**
-     * This method returns information about all the orders a user has placed based on his userName.
+     * This method returns information about the orders a user has placed based on his userName, a page at a time.
      * @param userName - user name
-     * @return orders made by the userName given
+     * @param after - the order id the page starts after, the first page if missing.
+     * @param limit - the page size.
+     * @param fields - the fields to show, all of them if missing. Only these are read from the DB.
+     * @return orders made by the userName given, with a next link while there are more.
      */
 
     @GetMapping("/orders/{userName}/info")
-    public ResponseEntity<CollectionModel<EntityModel<OrderDTO>>> allOrdersInfo(@PathVariable String userName) {
-        List<Order> matchingOrdersByUserName = orderRepo.findOrdersByUserName(userName);
+    public ResponseEntity<CollectionModel<EntityModel<OrderDTO>>> allOrdersInfo(@PathVariable String userName,
+                                                                                @RequestParam(required = false) String after,
+                                                                                @RequestParam(required = false) Integer limit,
+                                                                                @RequestParam(required = false) String fields) {
+        FieldSelection selection = OrderDTO.FIELDS.select(fields);
+        KeysetPage<Order> page = keysetPager.page(Criteria.where("userName").is(userName), Order.class,
+                selection.getDocumentFields(), after, keysetPager.limit(limit), Order::getId);
+
+        if (page.getContent().size() > 0) {
+            CollectionModel<EntityModel<OrderDTO>> orders = orderDTOFactory.toCollectionModel(page.getContent()
+                    .stream()
+                    .map(order -> new OrderDTO(order, selection))
+                    .collect(Collectors.toList()));
+
+            if (page.hasNext()) {
+                orders.add(linkTo(methodOn(OrderController.class).allOrdersInfo(userName,
+                        (String) page.getNextAfter(), limit, fields)).withRel(IanaLinkRelations.NEXT));
+            }
 
-        if (matchingOrdersByUserName.size() > 0) {
-            return ResponseEntity.ok(
-                    orderDTOFactory.toCollectionModel(matchingOrdersByUserName
-                            .stream()
-                            .map(OrderDTO::new)
-                            .collect(Collectors.toList())));
+            return ResponseEntity.ok(orders);
+        } else if (after != null) {
+            return ResponseEntity.ok(CollectionModel.empty());
         } else {
             throw new OrderNotFoundException("There's no orders exising for this UserName");
         }
     }
 
+    /**
+     * This method streams the orders a user has placed as NDJSON, read from a DB cursor as it's written.
+     * @param userName - user name
+     * @param after - the order id to start after, the first order if missing.
+     * @param fields - the fields to show, all of them if missing. Only these are read from the DB.
+     * @return orders made by the userName given, one per line.
+     */
+    @GetMapping(value = "/orders/{userName}/info", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamAllOrdersInfo(@PathVariable String userName,
+                                                                     @RequestParam(required = false) String after,
+                                                                     @RequestParam(required = false) String fields) {
+        FieldSelection selection = OrderDTO.FIELDS.select(fields);
+
+        return keysetPager.stream(Criteria.where("userName").is(userName), Order.class, selection.getDocumentFields(),
+                after, order -> new OrderDTO(order, selection));
+    }
+
     /**
      * Get HttpRequest to return users orders by orderSum, in a desired sorted way.
      * @param userName   - user name.
      * @param sortMethod - ASC/DESC
+     * @param fields - the fields to show, all of them if missing.
      * @return
      */
     @GetMapping("orders/sort/{userName}")
     public ResponseEntity<CollectionModel<EntityModel<OrderDTO>>> getOrdersByOrderSumSorted(
                                    @PathVariable String userName,
-                                   @RequestParam(defaultValue = "ASC") SortingMethod sortMethod) {
+                                   @RequestParam(defaultValue = "ASC") SortingMethod sortMethod,
+                                   @RequestParam(required = false) String fields) {
+        FieldSelection selection = OrderDTO.FIELDS.select(fields);
 
         if (sortMethod != SortingMethod.ASC && sortMethod != SortingMethod.DESC) {
             throw new InvalidRequestParamException("The request is invalid, it should be " + SortingMethod.ASC +
@@ -255,7 +464,7 @@ public class OrderController {
             return ResponseEntity.ok(
                     orderDTOFactory.toCollectionModel(orders
                             .stream()
-                            .map(OrderDTO::new)
+                            .map(order -> new OrderDTO(order, selection))
                             .collect(Collectors.toList())));
         }
         throw new OrderNotFoundException("This user has no orders");
@@ -0,0 +1,61 @@
+package restapi.beerorder.controllers.order;
+
+import org.springframework.hateoas.EntityModel;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import restapi.beerorder.exceptions.order.OrderNotFoundException;
+import restapi.beerorder.services.order.IngestStats;
+import restapi.beerorder.services.order.IngestStatus;
+import restapi.beerorder.services.order.OrderIngestion;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+/**
+ * This controller tells where orders accepted for a later write are, and how the write-behind ingestion is doing.
+ */
+@RestController
+public class OrderIngestionController {
+    private final OrderIngestion orderIngestion;
+
+    public OrderIngestionController(OrderIngestion orderIngestion) {
+        this.orderIngestion = orderIngestion;
+    }
+
+    /**
+     * This method returns the state of an accepted order, with a link to the order once it's written.
+     * @param id - the order id returned with 202 Accepted.
+     * @return QUEUED, COMMITTED or FAILED.
+     */
+    @GetMapping("/orders/ingest/{id}")
+    public EntityModel<IngestStatus> ingestStatus(@PathVariable String id) {
+        IngestStatus status = orderIngestion.status(id);
+
+        if (status == null) {
+            throw new OrderNotFoundException(id);
+        }
+
+        return toModel(status);
+    }
+
+    /**
+     * This method returns the queue depth, batch sizes, journal size and commit latency of the ingestion.
+     * @return the ingestion stats.
+     */
+    @GetMapping("/orders/ingest/stats")
+    public IngestStats ingestStats() {
+        return orderIngestion.stats();
+    }
+
+    static EntityModel<IngestStatus> toModel(IngestStatus status) {
+        EntityModel<IngestStatus> model = EntityModel.of(status,
+                linkTo(methodOn(OrderIngestionController.class).ingestStatus(status.getOrderId())).withSelfRel());
+
+        if (status.getState() == IngestStatus.State.COMMITTED) {
+            model.add(linkTo(methodOn(OrderController.class).orderInfo(status.getOrderId(), null)).withRel("order"));
+        }
+
+        return model;
+    }
+}
@@ -0,0 +1,64 @@
+package restapi.beerorder.controllers.pricing;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+import restapi.beerorder.auxiliary.pricing.Quote;
+import restapi.beerorder.exceptions.InvalidRequestParamException;
+import restapi.beerorder.pojos.order.Order;
+import restapi.beerorder.pojos.pricing.PriceList;
+import restapi.beerorder.services.pricing.PricingEngine;
+
+/**
+ * This controller exposes the price list and prices baskets.
+ */
+@RestController
+public class PricingController {
+    private final PricingEngine pricingEngine;
+
+    public PricingController(PricingEngine pricingEngine) {
+        this.pricingEngine = pricingEngine;
+    }
+
+    /**
+     * This method returns the current price list.
+     * @return the current price list, version 0 means every beer costs the default price.
+     */
+    @GetMapping("/prices")
+    public PriceList priceList() {
+        return pricingEngine.currentPriceList();
+    }
+
+    /**
+     * This method replaces the price list, it's saved as the next version and used right away.
+     * @param priceList - the new beer prices, volume tiers and promotions.
+     * @return the saved price list.
+     */
+    @PutMapping("/prices")
+    public PriceList updatePriceList(@RequestBody PriceList priceList) {
+        pricingEngine.publish(priceList);
+
+        return priceList;
+    }
+
+    /**
+     * This method prices a basket the way a new order would be priced now, without touching the DB.
+     * Beers aren't checked for existence, that's left to placing the order.
+     * @param basket - an order, only its beers are used.
+     * @return the price of every line and of the whole basket.
+     */
+    @PostMapping("/orders/quote")
+    public Quote quote(@RequestBody Order basket) {
+        if (basket.getBeersOrdered() == null || basket.getBeersOrdered().isEmpty()) {
+            throw new InvalidRequestParamException("The basket is empty");
+        }
+
+        if (basket.getBeersOrdered().values().stream().anyMatch(amount -> amount == null || amount < 1)) {
+            throw new InvalidRequestParamException("Every beer amount must be positive");
+        }
+
+        return pricingEngine.quote(basket.getBeersOrdered());
+    }
+}
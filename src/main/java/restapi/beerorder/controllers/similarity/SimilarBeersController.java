@@ -0,0 +1,76 @@
+package restapi.beerorder.controllers.similarity;
+
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import restapi.beerorder.auxiliary.fields.FieldSelection;
+import restapi.beerorder.auxiliary.similarity.VectorIndex;
+import restapi.beerorder.dtos.BeerDTO;
+import restapi.beerorder.exceptions.InvalidRequestParamException;
+import restapi.beerorder.exceptions.beer.BeerNotFoundException;
+import restapi.beerorder.factories.BeerDTOFactory;
+import restapi.beerorder.pojos.beer.Beer;
+import restapi.beerorder.repositories.beer.BeerRepo;
+import restapi.beerorder.services.similarity.BeerSimilarityIndex;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * This controller recommends beers similar to a given one, by their ingredients, abv and ibu.
+ */
+@RestController
+public class SimilarBeersController {
+    private final static int MAX_K = 100;
+
+    private final BeerSimilarityIndex beerSimilarityIndex;
+    private final BeerRepo beerRepo;
+    private final BeerDTOFactory beerDTOFactory;
+
+    public SimilarBeersController(BeerSimilarityIndex beerSimilarityIndex, BeerRepo beerRepo,
+                                  BeerDTOFactory beerDTOFactory) {
+        this.beerSimilarityIndex = beerSimilarityIndex;
+        this.beerRepo = beerRepo;
+        this.beerDTOFactory = beerDTOFactory;
+    }
+
+    /**
+     * This method returns the beers most like the given one, most similar first.
+     * @param id - the beer's id.
+     * @param k - the number of beers.
+     * @param fields - the fields to show, all of them if missing.
+     * @return the k most similar beers.
+     */
+    @GetMapping("/beers/{id}/similar")
+    public ResponseEntity<CollectionModel<EntityModel<BeerDTO>>> similarBeers(@PathVariable Long id,
+                                                                              @RequestParam(defaultValue = "10") int k,
+                                                                              @RequestParam(required = false) String fields) {
+        if (k < 1 || k > MAX_K) {
+            throw new InvalidRequestParamException("k should be between 1 and " + MAX_K);
+        }
+
+        FieldSelection selection = BeerDTO.FIELDS.select(fields);
+        List<VectorIndex.Neighbor> neighbors = beerSimilarityIndex.similarTo(id, k);
+
+        if (neighbors == null) {
+            throw new BeerNotFoundException(id);
+        }
+
+        List<Long> ids = neighbors.stream().map(VectorIndex.Neighbor::getId).collect(Collectors.toList());
+        Map<Long, Beer> beers = new HashMap<>();
+        beerRepo.findAllById(ids).forEach(beer -> beers.put(beer.getId(), beer));
+
+        return ResponseEntity.ok(beerDTOFactory.toCollectionModel(ids.stream()
+                .map(beers::get)
+                .filter(Objects::nonNull)
+                .map(beer -> new BeerDTO(beer, selection))
+                .collect(Collectors.toList())));
+    }
+}
@@ -0,0 +1,74 @@
+package restapi.beerorder.controllers.stats;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import restapi.beerorder.auxiliary.stats.BeerAttribute;
+import restapi.beerorder.auxiliary.stats.BeerColumns;
+import restapi.beerorder.auxiliary.stats.ColumnStats;
+import restapi.beerorder.exceptions.InvalidRequestParamException;
+import restapi.beerorder.services.stats.BeerStatsIndex;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * This controller answers ad-hoc analytics over the numeric beer attributes from the in-memory column store,
+ * without reading the DB.
+ */
+@RestController
+public class BeerStatsController {
+    private final static int MAX_BINS = 1000;
+
+    private final BeerStatsIndex beerStatsIndex;
+
+    public BeerStatsController(BeerStatsIndex beerStatsIndex) {
+        this.beerStatsIndex = beerStatsIndex;
+    }
+
+    /**
+     * This method describes one attribute over the beers within the given ranges, every bound is inclusive
+     * and optional.
+     * @param attribute - abv, ibu, ph or volume.
+     * @param percentiles - comma separated percentiles, between 0 and 100.
+     * @param bins - the number of equal width histogram buckets, 0 for none.
+     * @return the count, min, max, mean, percentiles and histogram of the attribute.
+     */
+    @GetMapping("/beers/stats")
+    public ColumnStats beerStats(@RequestParam(defaultValue = "abv") String attribute,
+                                 @RequestParam(required = false) Double minAbv,
+                                 @RequestParam(required = false) Double maxAbv,
+                                 @RequestParam(required = false) Double minIbu,
+                                 @RequestParam(required = false) Double maxIbu,
+                                 @RequestParam(required = false) Double minPh,
+                                 @RequestParam(required = false) Double maxPh,
+                                 @RequestParam(required = false) Double minVolume,
+                                 @RequestParam(required = false) Double maxVolume,
+                                 @RequestParam(defaultValue = "50,90,99") double[] percentiles,
+                                 @RequestParam(defaultValue = "10") int bins) {
+        if (bins < 0 || bins > MAX_BINS) {
+            throw new InvalidRequestParamException("bins should be between 0 and " + MAX_BINS);
+        }
+
+        for (double percentile : percentiles) {
+            if (!(percentile >= 0 && percentile <= 100)) {
+                throw new InvalidRequestParamException("percentiles should be between 0 and 100");
+            }
+        }
+
+        Map<BeerAttribute, BeerColumns.Bounds> filters = new EnumMap<>(BeerAttribute.class);
+        filter(filters, BeerAttribute.ABV, minAbv, maxAbv);
+        filter(filters, BeerAttribute.IBU, minIbu, maxIbu);
+        filter(filters, BeerAttribute.PH, minPh, maxPh);
+        filter(filters, BeerAttribute.VOLUME, minVolume, maxVolume);
+
+        return beerStatsIndex.stats(BeerAttribute.of(attribute), filters, percentiles, bins);
+    }
+
+    private static void filter(Map<BeerAttribute, BeerColumns.Bounds> filters, BeerAttribute attribute,
+                               Double min, Double max) {
+        if (min != null || max != null) {
+            filters.put(attribute, BeerColumns.Bounds.of(min, max));
+        }
+    }
+}
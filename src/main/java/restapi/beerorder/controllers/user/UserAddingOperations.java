@@ -4,5 +4,5 @@ import restapi.beerorder.pojos.beer.Beer;
 import restapi.beerorder.pojos.user.User;
 
 public interface UserAddingOperations {
-    void addUsersThatLikeSpecificBeer(User user, Beer beer);
+    boolean addUsersThatLikeSpecificBeer(User user, Beer beer);
 }
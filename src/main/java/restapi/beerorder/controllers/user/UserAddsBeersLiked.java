@@ -1,41 +1,31 @@
 package restapi.beerorder.controllers.user;
 
-import com.mongodb.client.result.UpdateResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.mongodb.core.MongoTemplate;
-import org.springframework.data.mongodb.core.query.Criteria;
-import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Component;
 import restapi.beerorder.pojos.beer.Beer;
 import restapi.beerorder.pojos.user.User;
+import restapi.beerorder.services.likes.BeerLikes;
 
 /**
- * This class adds a user to the beers list  of usersThatLikeThisBeer and updates it in the DB using MongoTemplate.
+ * This class adds a like edge between a user and a beer and increments the beer's like counter.
  */
 @Component
 public class UserAddsBeersLiked implements UserAddingOperations {
 
     @Autowired
-    private MongoTemplate mongoTemplate;
+    private BeerLikes beerLikes;
 
     private Logger LOG = LoggerFactory.getLogger(UserAddsBeersLiked.class);
 
+    /**
+     * @return false if the user already likes the beer.
+     */
     @Override
-    public void addUsersThatLikeSpecificBeer(User user, Beer beer) {
+    public boolean addUsersThatLikeSpecificBeer(User user, Beer beer) {
         LOG.info("Entered addUsersThatLikeSpecificBeer");
 
-        beer.getUsersThatLikeThisBeer().add(user);
-
-        LOG.info(beer.getUsersThatLikeThisBeer().toString());
-
-        UpdateResult updateResult = mongoTemplate
-                .update(Beer.class)
-                .matching(Criteria.where("_id")
-                .is(beer.getId()))
-                .apply(new Update().set("usersThatLikeThisBeer", beer.getUsersThatLikeThisBeer())).first();
-
-        LOG.info(updateResult.toString());
+        return beerLikes.like(user.getId(), beer.getId());
     }
 }
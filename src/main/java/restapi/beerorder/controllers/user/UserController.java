@@ -1,12 +1,15 @@
 package restapi.beerorder.controllers.user;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.hateoas.IanaLinkRelations;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import restapi.beerorder.auxiliary.fields.FieldSelection;
 import restapi.beerorder.dtos.UserDTO;
 import restapi.beerorder.exceptions.InvalidArgumentException;
 import restapi.beerorder.exceptions.beer.BeerAlreadyExistsException;
@@ -18,6 +21,9 @@ import restapi.beerorder.pojos.beer.Beer;
 import restapi.beerorder.pojos.user.User;
 import restapi.beerorder.repositories.beer.BeerRepo;
 import restapi.beerorder.repositories.user.UserRepo;
+import restapi.beerorder.services.likes.BeerLikes;
+import restapi.beerorder.services.paging.KeysetPage;
+import restapi.beerorder.services.paging.KeysetPager;
 
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -25,6 +31,9 @@ import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
 @RestController
 public class UserController {
     private final UserRepo userRepo;
@@ -33,18 +42,23 @@ public class UserController {
     private final BeerRepo beerRepo;
     private final UserAddsBeersLiked userBeerLike;
     private final UserRemovesBeerLiked userRemoveBeerLike;
+    private final KeysetPager keysetPager;
+    private final BeerLikes beerLikes;
 
     @Value("${min.age}")
     private int legalAgeByLaw;
 
     public UserController(UserRepo userRepo, UserFactory userFactory, UserDTOFactory userDTOFactory,
-                          BeerRepo beerRepo, UserAddsBeersLiked userBeerLike, UserRemovesBeerLiked userRemoveBeerLike){
+                          BeerRepo beerRepo, UserAddsBeersLiked userBeerLike, UserRemovesBeerLiked userRemoveBeerLike,
+                          KeysetPager keysetPager, BeerLikes beerLikes){
         this.userRepo = userRepo;
         this.userFactory = userFactory;
         this.userDTOFactory = userDTOFactory;
         this.beerRepo = beerRepo;
         this.userBeerLike = userBeerLike;
         this.userRemoveBeerLike = userRemoveBeerLike;
+        this.keysetPager = keysetPager;
+        this.beerLikes = beerLikes;
     }
 
     /*@GetMapping("/users/")
@@ -55,46 +69,81 @@ public class UserController {
     /**
      * This method returns information about a specific user by id.
      * @param id - the user's id.
+     * @param fields - the fields to show, all of them if missing.
      * @return information about a specific user by id.
      */
     @GetMapping("/users/{id}/info")
-    public ResponseEntity<EntityModel<UserDTO>> userInfo(@PathVariable String id) {
+    public ResponseEntity<EntityModel<UserDTO>> userInfo(@PathVariable String id,
+                                                         @RequestParam(required = false) String fields) {
+        FieldSelection selection = UserDTO.FIELDS.select(fields);
 
         return userRepo.findById(id)
-                .map(UserDTO::new)
+                .map(user -> new UserDTO(user, selection))
                 .map(userDTOFactory::toModel)
                 .map(ResponseEntity::ok)
                 .orElseThrow(() -> new UserNotFoundException(id));
     }
 
     /**
-    * This method returns information about all users.
-    * @return information about all users.
+    * This method returns information about all users, a page at a time.
+    * @param after - the id the page starts after, the first page if missing.
+    * @param limit - the page size.
+    * @param fields - the fields to show, all of them if missing. Only these are read from the DB.
+    * @return information about a page of users, with a next link while there are more.
     */
     @GetMapping("/users/info")
-    public ResponseEntity<CollectionModel<EntityModel<UserDTO>>> allUsersInfo() {
-        return ResponseEntity.ok(
-                userDTOFactory.toCollectionModel(
-                        userRepo.findAll()
-                                .stream()
-                                .map(UserDTO::new)
-                                .collect(Collectors.toList())));
+    public ResponseEntity<CollectionModel<EntityModel<UserDTO>>> allUsersInfo(@RequestParam(required = false) String after,
+                                                                              @RequestParam(required = false) Integer limit,
+                                                                              @RequestParam(required = false) String fields) {
+        FieldSelection selection = UserDTO.FIELDS.select(fields);
+        KeysetPage<User> page = keysetPager.page(new Criteria(), User.class, selection.getDocumentFields(), after,
+                keysetPager.limit(limit), User::getId);
+        CollectionModel<EntityModel<UserDTO>> users = userDTOFactory.toCollectionModel(
+                page.getContent()
+                        .stream()
+                        .map(user -> new UserDTO(user, selection))
+                        .collect(Collectors.toList()));
+
+        if (page.hasNext()) {
+            users.add(linkTo(methodOn(UserController.class).allUsersInfo((String) page.getNextAfter(), limit, fields))
+                    .withRel(IanaLinkRelations.NEXT));
+        }
+
+        return ResponseEntity.ok(users);
+    }
+
+    /**
+     * This method streams information about all users as NDJSON, read from a DB cursor as it's written.
+     * @param after - the id to start after, the first user if missing.
+     * @param fields - the fields to show, all of them if missing. Only these are read from the DB.
+     * @return information about all users, one per line.
+     */
+    @GetMapping(value = "/users/info", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamAllUsersInfo(@RequestParam(required = false) String after,
+                                                                    @RequestParam(required = false) String fields) {
+        FieldSelection selection = UserDTO.FIELDS.select(fields);
+
+        return keysetPager.stream(new Criteria(), User.class, selection.getDocumentFields(), after,
+                user -> new UserDTO(user, selection));
     }
 
     /**
      * This method returns information about all users that have the received given name.
      * @param givenName - the name that user want to show information about.
+     * @param fields - the fields to show, all of them if missing.
      * @return information about all users that have the received given name.
      */
     @GetMapping("/users/{givenName}")
-    public ResponseEntity<CollectionModel<EntityModel<UserDTO>>> getUsersByGivenName(@PathVariable String givenName) {
+    public ResponseEntity<CollectionModel<EntityModel<UserDTO>>> getUsersByGivenName(@PathVariable String givenName,
+                                                                                     @RequestParam(required = false) String fields) {
+        FieldSelection selection = UserDTO.FIELDS.select(fields);
         List<User> matchingUsersByGivenName = userRepo.findUserByGivenName(givenName);
 
         if (matchingUsersByGivenName.size() > 0) {
             return ResponseEntity.ok(
                     userDTOFactory.toCollectionModel(matchingUsersByGivenName
                             .stream()
-                            .map(UserDTO::new)
+                            .map(user -> new UserDTO(user, selection))
                             .collect(Collectors.toList())));
         } else {
             throw new UserNotFoundException(givenName);
@@ -105,16 +154,20 @@ public class UserController {
      * This method returns information about all users that have the received first name and last name.
      * @param firstName - the first name of the desired user.
      * @param lastName - the last name of the desired user.
+     * @param fields - the fields to show, all of them if missing.
      * @return information about all users that have the received first name and last name.
      */
     @GetMapping("users/fullname")
     CollectionModel<EntityModel<UserDTO>> getUsersByFullName(@RequestParam(defaultValue = "israel") String firstName,
-                                                              @RequestParam(defaultValue = "israeli") String lastName) {
+                                                              @RequestParam(defaultValue = "israeli") String lastName,
+                                                              @RequestParam(required = false) String fields) {
+        FieldSelection selection = UserDTO.FIELDS.select(fields);
+
         return userDTOFactory.toCollectionModel(
                 userRepo.findUserByGivenName(firstName)
                         .stream()
                         .filter(user -> lastName.equals(user.getLastName()))
-                        .map(UserDTO::new)
+                        .map(user -> new UserDTO(user, selection))
                         .collect(Collectors.toList()));
     }
 
@@ -146,7 +199,7 @@ public class UserController {
 
             //this throws exception!!
             return ResponseEntity.created(new URI(userDTOEntityModel.getRequiredLink(IanaLinkRelations.SELF)
-                    .getHref())).body(userDTOEntityModel);
+                    .expand().getHref())).body(userDTOEntityModel);
 
         } catch (URISyntaxException ex) {
 
@@ -165,6 +218,7 @@ public class UserController {
 
         if (userRepo.findById(id).isPresent()) {
             userRepo.deleteById(id);
+            beerLikes.removeUser(id);
 
             return ResponseEntity.ok("The user was successfully deleted.");
         }
@@ -230,19 +284,12 @@ public class UserController {
             // if we found matched beer in our db, we will add the favorite beer to the user's favorite list.
             if(beer.equalsWithName(favBeerToAdd)) {
 
-                //Suppose to check if the beer isn't already inside the set of the liked beers of the user.
-                for(Beer favoriteBeer : user.getFavoriteBeers()) {
-                    if(favoriteBeer.equalsWithName(favBeerToAdd)) {
-                        throw new BeerAlreadyExistsException("The beer you wanted to add to your favorite beer list," +
-                                "already exist");
-                    }
+                // The like's id is made of both ends, so liking twice fails on the insert.
+                if (!userBeerLike.addUsersThatLikeSpecificBeer(user, beer)) {
+                    throw new BeerAlreadyExistsException("The beer you wanted to add to your favorite beer list," +
+                            "already exist");
                 }
 
-                user.getFavoriteBeers().add(beer);
-
-                userBeerLike.addUsersThatLikeSpecificBeer(user, favBeerToAdd);
-                userRepo.save(user);
-
                 beerExist = true;
 
                 break;
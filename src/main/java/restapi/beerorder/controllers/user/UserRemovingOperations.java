@@ -4,5 +4,5 @@ import restapi.beerorder.pojos.beer.Beer;
 import restapi.beerorder.pojos.user.User;
 
 public interface UserRemovingOperations {
-    void removeUsersThatLikeSpecificBeer(User user, Beer beer);
+    boolean removeUsersThatLikeSpecificBeer(User user, Beer beer);
 }
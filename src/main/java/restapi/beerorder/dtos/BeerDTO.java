@@ -1,25 +1,53 @@
 package restapi.beerorder.dtos;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonFilter;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import lombok.AllArgsConstructor;
 import lombok.Value;
+import restapi.beerorder.auxiliary.fields.FieldSelection;
+import restapi.beerorder.auxiliary.fields.SparseFields;
+import restapi.beerorder.auxiliary.fields.SparseFieldsFilter;
+import restapi.beerorder.auxiliary.fields.Trimmable;
 import restapi.beerorder.pojos.beer.Beer;
-import restapi.beerorder.pojos.user.User;
 
 import java.util.List;
-import java.util.Set;
 
 /**
- * This class represents the BeerDTO - the object that we will return to the user in the Http Response
+ * This class represents the BeerDTO - the object that we will return to the user in the Http Response.
+ * Only the selected fields are shown, the others are left out of the JSON by {@link SparseFieldsFilter}.
  */
 @Value
+@AllArgsConstructor
+@JsonFilter(SparseFieldsFilter.ID)
 @JsonPropertyOrder({"id","name","description", "first_brewed",
                     "abv", "ibu", "ingredients", "food_pairing",
-                    "brewers_tips","note", "usersThatLikeThisBeer"})
-public class BeerDTO {
+                    "brewers_tips","note", "likeCount"})
+public class BeerDTO implements Trimmable {
+    // The fields this DTO can be trimmed to, and the beer fields they're read from.
+    public static final SparseFields FIELDS = new SparseFields()
+            .field("id", List.of("_id"))
+            .field("name")
+            .field("description")
+            .field("first_brewed", "firstlyBrewed")
+            .field("abv", "alcoholPercentage")
+            .field("ibu", "bitterness")
+            .field("ingredients")
+            .field("food_pairing", "matchingFood")
+            .field("brewers_tips", "brewersTips")
+            .field("note", List.of())
+            .field("likeCount");
+
     @JsonIgnore
     Beer beer; // it's private final by default because of @Value property
 
+    @JsonIgnore
+    FieldSelection fields;
+
+    public BeerDTO(Beer beer) {
+        this(beer, FIELDS.all());
+    }
+
     public Long getId() {
         return this.beer.getId();
     }
@@ -60,7 +88,7 @@ public class BeerDTO {
         return "Warning! legal drinking age is 18 and above!";
     }
 
-    public Set<User> getUsersThatLikeThisBeer(){
-        return this.beer.getUsersThatLikeThisBeer();
+    public Long getLikeCount(){
+        return this.beer.getLikeCount() == null ? 0 : this.beer.getLikeCount();
     }
 }
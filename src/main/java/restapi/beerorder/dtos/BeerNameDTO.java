@@ -0,0 +1,12 @@
+package restapi.beerorder.dtos;
+
+import lombok.Value;
+
+/**
+ * This class represents a beer name suggestion - the id and name of a beer matching a typed prefix.
+ */
+@Value
+public class BeerNameDTO {
+    Long id;
+    String name;
+}
@@ -1,25 +1,53 @@
 package restapi.beerorder.dtos;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonFilter;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import lombok.AllArgsConstructor;
 import lombok.Value;
+import restapi.beerorder.auxiliary.fields.FieldSelection;
+import restapi.beerorder.auxiliary.fields.SparseFields;
+import restapi.beerorder.auxiliary.fields.SparseFieldsFilter;
+import restapi.beerorder.auxiliary.fields.Trimmable;
 import restapi.beerorder.auxiliary.order.BeerQuantity;
 import restapi.beerorder.pojos.order.Order;
 
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
 
 /**
- * This class represents the OrderDTO - the object that we will return to the user in the Http Response
+ * This class represents the OrderDTO - the object that we will return to the user in the Http Response.
+ * Only the selected fields are shown, the others are left out of the JSON by {@link SparseFieldsFilter}.
  */
 @Value
+@AllArgsConstructor
+@JsonFilter(SparseFieldsFilter.ID)
 @JsonPropertyOrder({"orderId", "userName", "phoneNumber",
         "dateOfOrder", "orderSum", "quantityOfBottles",
         "beersOrdered", "deliveryMessage"})
-public class OrderDTO {
+public class OrderDTO implements Trimmable {
+    // The fields this DTO can be trimmed to, and the order fields they're read from.
+    public static final SparseFields FIELDS = new SparseFields()
+            .field("id", List.of("_id"), "orderId")
+            .field("userName")
+            .field("phoneNumber")
+            .field("dateOfOrder")
+            .field("orderSum")
+            .field("quantityOfBottles", List.of("beersOrdered"))
+            .field("beersOrdered")
+            .field("deliveryMessage", List.of());
+
     @JsonIgnore
     private final Order order;
 
+    @JsonIgnore
+    private final FieldSelection fields;
+
+    public OrderDTO(Order order) {
+        this(order, FIELDS.all());
+    }
+
     public String getId(){
         return this.order.getId();
     }
@@ -53,4 +81,4 @@ public class OrderDTO {
         return "Thank you for purchasing! You will receive your delivery in 10 business days.";
     }
 
-}
\ No newline at end of file
+}
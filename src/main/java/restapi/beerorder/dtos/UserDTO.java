@@ -1,25 +1,47 @@
 package restapi.beerorder.dtos;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonFilter;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import lombok.AllArgsConstructor;
 import lombok.Value;
+import restapi.beerorder.auxiliary.fields.FieldSelection;
+import restapi.beerorder.auxiliary.fields.SparseFields;
+import restapi.beerorder.auxiliary.fields.SparseFieldsFilter;
+import restapi.beerorder.auxiliary.fields.Trimmable;
 import restapi.beerorder.pojos.user.User;
 
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
 
 /**
- * This class represents the UserDTO - the object that we will return to the user in the Http Response
+ * This class represents the UserDTO - the object that we will return to the user in the Http Response.
+ * Only the selected fields are shown, the others are left out of the JSON by {@link SparseFieldsFilter}.
  */
 @Value
+@AllArgsConstructor
+@JsonFilter(SparseFieldsFilter.ID)
 @JsonPropertyOrder({"id", "userName" ,"givenName",
-        "lastName", "gender", "age", "favoriteBeers"})
-public class UserDTO {
+        "lastName", "gender", "age"})
+public class UserDTO implements Trimmable {
+    // The fields this DTO can be trimmed to, and the user fields they're read from.
+    public static final SparseFields FIELDS = new SparseFields()
+            .field("id", List.of("_id"))
+            .field("userName")
+            .field("givenName")
+            .field("lastName")
+            .field("gender")
+            .field("age");
+
     @JsonIgnore
     User user;
 
+    @JsonIgnore
+    FieldSelection fields;
+
+    public UserDTO(User user) {
+        this(user, FIELDS.all());
+    }
+
     public String getId(){
         return this.user.getId();
     }
@@ -28,10 +50,6 @@ public class UserDTO {
         return this.user.getUserName();
     }
 
-//    public List<Beer> getListBeer(){
-//        return this.user.getFavoriteBeers();
-//    }
-
     public String getGivenName(){
         return this.user.getGivenName();
     }
@@ -47,14 +65,4 @@ public class UserDTO {
     public Integer getAge(){
         return this.user.getAge();
     }
-
-    public Set<BeerDTO> getFavoriteBeers(){
-        List<BeerDTO> beers = this.user.getFavoriteBeers()
-                .stream()
-                .map(BeerDTO::new)
-                .collect(Collectors.toList());
-
-        return new HashSet<>(beers);
-    }
-
-}
\ No newline at end of file
+}
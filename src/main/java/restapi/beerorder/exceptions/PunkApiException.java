@@ -0,0 +1,24 @@
+package restapi.beerorder.exceptions;
+
+/**
+ * PunkApiException - PunkAPI answered with an error status.
+ */
+public class PunkApiException extends RuntimeException {
+    private final int statusCode;
+
+    public PunkApiException(String url, int statusCode) {
+        super("PunkAPI answered " + statusCode + " for " + url);
+        this.statusCode = statusCode;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * Server errors and throttling are worth retrying, other client errors aren't.
+     */
+    public boolean isRetryable() {
+        return statusCode >= 500 || statusCode == 429;
+    }
+}
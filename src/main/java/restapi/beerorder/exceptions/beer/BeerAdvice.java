@@ -28,4 +28,11 @@ public class BeerAdvice {
     String BeerNameNotFoundHandler(BeerNameNotFoundException beerNameNotFoundException) {
         return beerNameNotFoundException.getMessage();
     }
+
+    @ResponseBody
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    @ExceptionHandler(BeersNotFoundException.class)
+    String BeersNotFoundHandler(BeersNotFoundException beersNotFoundException) {
+        return beersNotFoundException.getMessage();
+    }
 }
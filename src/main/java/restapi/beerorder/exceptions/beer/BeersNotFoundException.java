@@ -0,0 +1,12 @@
+package restapi.beerorder.exceptions.beer;
+
+import java.util.Collection;
+
+/**
+ * BeersNotFoundException - thrown when several requested beers don't exist, naming all of them.
+ */
+public class BeersNotFoundException extends RuntimeException {
+    public BeersNotFoundException(Collection<String> names) {
+        super("The beers: " + String.join(", ", names) + " don't exist");
+    }
+}
@@ -0,0 +1,7 @@
+package restapi.beerorder.exceptions.order;
+
+public class IdempotencyKeyInUseException extends RuntimeException {
+    public IdempotencyKeyInUseException(String key) {
+        super("A request with the Idempotency-Key " + key + " is still being processed, please retry shortly.");
+    }
+}
@@ -0,0 +1,7 @@
+package restapi.beerorder.exceptions.order;
+
+public class IdempotencyKeyMismatchException extends RuntimeException {
+    public IdempotencyKeyMismatchException(String key) {
+        super("The Idempotency-Key " + key + " was already used for a different order.");
+    }
+}
@@ -1,10 +1,12 @@
 package restapi.beerorder.exceptions.order;
 
 import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
+@ControllerAdvice
 public class OrderAdvice {
     @ResponseBody
     @ResponseStatus(HttpStatus.NOT_FOUND)
@@ -13,4 +15,25 @@ public class OrderAdvice {
 
         return orderNotFoundException.getMessage();
     }
+
+    @ResponseBody
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    @ExceptionHandler(OrderQueueFullException.class)
+    String OrderQueueFullHandler(OrderQueueFullException orderQueueFullException) {
+        return orderQueueFullException.getMessage();
+    }
+
+    @ResponseBody
+    @ResponseStatus(HttpStatus.CONFLICT)
+    @ExceptionHandler(IdempotencyKeyInUseException.class)
+    String IdempotencyKeyInUseHandler(IdempotencyKeyInUseException idempotencyKeyInUseException) {
+        return idempotencyKeyInUseException.getMessage();
+    }
+
+    @ResponseBody
+    @ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+    @ExceptionHandler(IdempotencyKeyMismatchException.class)
+    String IdempotencyKeyMismatchHandler(IdempotencyKeyMismatchException idempotencyKeyMismatchException) {
+        return idempotencyKeyMismatchException.getMessage();
+    }
 }
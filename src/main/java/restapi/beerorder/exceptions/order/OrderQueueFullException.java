@@ -0,0 +1,7 @@
+package restapi.beerorder.exceptions.order;
+
+public class OrderQueueFullException extends RuntimeException {
+    public OrderQueueFullException(int capacity) {
+        super("We are taking too many orders right now (" + capacity + " waiting), please try again shortly.");
+    }
+}
@@ -0,0 +1,7 @@
+package restapi.beerorder.exceptions.pricing;
+
+public class PriceListConflictException extends RuntimeException {
+    public PriceListConflictException(long version) {
+        super("The price list was changed meanwhile, version " + version + " is already taken. Please try again.");
+    }
+}
@@ -0,0 +1,17 @@
+package restapi.beerorder.exceptions.pricing;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ControllerAdvice
+public class PricingAdvice {
+    @ResponseBody
+    @ResponseStatus(HttpStatus.CONFLICT)
+    @ExceptionHandler(PriceListConflictException.class)
+    String PriceListConflictHandler(PriceListConflictException priceListConflictException) {
+        return priceListConflictException.getMessage();
+    }
+}
@@ -10,6 +10,8 @@ import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 
 import restapi.beerorder.controllers.beer.BeerController;
+import restapi.beerorder.controllers.like.LikeController;
+import restapi.beerorder.controllers.similarity.SimilarBeersController;
 import restapi.beerorder.dtos.BeerDTO;
 
 @Component
@@ -22,15 +24,21 @@ public class BeerDTOFactory implements SimpleRepresentationModelAssembler<BeerDT
     @Override
     public void addLinks(EntityModel<BeerDTO> resource) {
         resource.add(linkTo(methodOn(BeerController.class)
-                        .beerInfo(resource.getContent().getId()))
+                        .beerInfo(resource.getContent().getId(), null))
                         .withSelfRel());
 
-        resource.add(linkTo(methodOn(BeerController.class).allBeersInfo())
+        resource.add(linkTo(methodOn(BeerController.class).allBeersInfo(null, null, null))
                 .withRel("beers information"));
+
+        resource.add(linkTo(methodOn(LikeController.class).beerLikers(resource.getContent().getId(), null, null, null))
+                .withRel("likers"));
+
+        resource.add(linkTo(methodOn(SimilarBeersController.class).similarBeers(resource.getContent().getId(), 10, null))
+                .withRel("similar beers"));
     }
 
     @Override
     public void addLinks(CollectionModel<EntityModel<BeerDTO>> resources) {
-        resources.add(linkTo(methodOn(BeerController.class).allBeersInfo()).withSelfRel());
+        resources.add(linkTo(methodOn(BeerController.class).allBeersInfo(null, null, null)).withSelfRel());
     }
 }
@@ -24,7 +24,7 @@ public class OrderDTOFactory implements SimpleRepresentationModelAssembler<Order
     @Override
     public void addLinks(EntityModel<OrderDTO> resource) {
         resource.add(linkTo(methodOn(OrderController.class)
-                .orderInfo(resource.getContent().getId()))
+                .orderInfo(resource.getContent().getId(), null))
                 .withSelfRel());
     }
 
@@ -32,9 +32,14 @@ public class OrderDTOFactory implements SimpleRepresentationModelAssembler<Order
     public void addLinks(CollectionModel<EntityModel<OrderDTO>> resources) {
 
         for (EntityModel<OrderDTO> resource : resources) {
-            resource.add(linkTo(methodOn(OrderController.class)
-                    .allOrdersInfo(resource.getContent().getUserName()))
-                    .withRel("link to all " +  resource.getContent().getUserName() + "'s orders"));
+            // Orders trimmed to other fields don't know their user.
+            String userName = resource.getContent().getOrder().getUserName();
+
+            if (userName != null) {
+                resource.add(linkTo(methodOn(OrderController.class)
+                        .allOrdersInfo(userName, null, null, null))
+                        .withRel("link to all " + userName + "'s orders"));
+            }
         }
     }
 }
@@ -4,6 +4,7 @@ import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.hateoas.server.SimpleRepresentationModelAssembler;
 import org.springframework.stereotype.Component;
+import restapi.beerorder.controllers.like.LikeController;
 import restapi.beerorder.controllers.user.UserController;
 import restapi.beerorder.dtos.UserDTO;
 
@@ -16,17 +17,21 @@ public class UserDTOFactory implements SimpleRepresentationModelAssembler<UserDT
     @Override
     public void addLinks(EntityModel<UserDTO> resource) {
         resource.add(linkTo(methodOn(UserController.class)
-                .userInfo(resource.getContent().getId()))
+                .userInfo(resource.getContent().getId(), null))
                 .withSelfRel());
 
 
         resource.add(linkTo(methodOn(UserController.class)
-                .allUsersInfo())
+                .allUsersInfo(null, null, null))
                 .withRel("users information"));
+
+        resource.add(linkTo(methodOn(LikeController.class)
+                .userLikes(resource.getContent().getId(), null, null, null))
+                .withRel("liked beers"));
     }
 
     @Override
     public void addLinks(CollectionModel<EntityModel<UserDTO>> resources) {
-        resources.add(linkTo(methodOn(UserController.class).allUsersInfo()).withSelfRel());
+        resources.add(linkTo(methodOn(UserController.class).allUsersInfo(null, null, null)).withSelfRel());
     }
 }
\ No newline at end of file
@@ -5,10 +5,9 @@ import com.fasterxml.jackson.annotation.JsonRootName;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
-import org.springframework.data.mongodb.core.mapping.DBRef;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
-import org.springframework.data.mongodb.core.mapping.DocumentReference;
-import restapi.beerorder.pojos.user.User;
 
 import java.util.*;
 
@@ -22,9 +21,11 @@ import java.util.*;
 @JsonRootName("Root")
 @JsonIgnoreProperties(ignoreUnknown = true)
 @Document(collection = "beers")
+@CompoundIndex(name = "abv_ibu_ph", def = "{'abv': 1, 'ibu': 1, 'ph': 1}")
 public class Beer {
     @Id
     private Long id;
+    @Indexed
     private String name;
     private String first_brewed;
     private String description;
@@ -36,9 +37,12 @@ public class Beer {
     private BoilVolume boil_volume;
     private Ingredients ingredients;
     private List<String> food_pairing;
-    @DBRef(lazy = true)
-    @DocumentReference
-    private Set<User> usersThatLikeThisBeer = new HashSet<>();
+    private Long likeCount;//number of users that like this beer, kept by the likes service with $inc.
+    private String fingerprint;//version hash, maintained by the catalog writers.
+    @Indexed(unique = true, sparse = true)
+    private String contentHash;//hash of everything but the id and likes, two beers can't share it.
+    private Double totalMalt;//sum of the malt amounts, maintained by the catalog writers.
+    private Double totalHops;//sum of the hops amounts, maintained by the catalog writers.
 
     @Data
     public static class Amount {
@@ -139,7 +143,7 @@ public class Beer {
                 id, name, first_brewed,
                 description, brewers_tips, abv, ibu,
                 ph, volume, boil_volume, ingredients,
-                food_pairing, usersThatLikeThisBeer);
+                food_pairing);
     }
 }
 
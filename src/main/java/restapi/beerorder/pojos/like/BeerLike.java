@@ -0,0 +1,37 @@
+package restapi.beerorder.pojos.like;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+/**
+ * This class defines the BeerLike POJO - an edge between a user and a beer they like.
+ * The id is made of both ends, so a user can like a beer only once and an edge is found without an index.
+ */
+@Data
+@NoArgsConstructor
+@Document(collection = "likes")
+@CompoundIndex(name = "beerId_id", def = "{'beerId': 1, '_id': 1}")
+@CompoundIndex(name = "userId_id", def = "{'userId': 1, '_id': 1}")
+public class BeerLike {
+    @Id
+    private String id;
+    private String userId;
+    private Long beerId;
+    private Date likedAt;
+
+    public BeerLike(String userId, Long beerId) {
+        this.id = idOf(userId, beerId);
+        this.userId = userId;
+        this.beerId = beerId;
+        this.likedAt = new Date();
+    }
+
+    public static String idOf(String userId, Long beerId) {
+        return userId + ":" + beerId;
+    }
+}
@@ -0,0 +1,36 @@
+package restapi.beerorder.pojos.order;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+/**
+ * This class defines the IdempotencyKey POJO - the outcome of a new order request sent with an Idempotency-Key
+ * header. The key is the id, so only one request can claim it, and keys expire a day after they're claimed.
+ * An incomplete claim older than the lease can be claimed again.
+ */
+@Data
+@NoArgsConstructor
+@Document(collection = "idempotencyKeys")
+public class IdempotencyKey {
+    @Id
+    private String key;
+    private String requestHash;//SHA-256 of the request, tells a retry from a different order sent with the same key.
+    private boolean completed;
+    private Integer status;
+    private String location;
+    private String orderId;
+    private String message;//the body of responses without an order.
+    @Indexed(expireAfter = "1d")
+    private Date createdAt;
+
+    public IdempotencyKey(String key, String requestHash) {
+        this.key = key;
+        this.requestHash = requestHash;
+        this.createdAt = new Date();
+    }
+}
@@ -5,6 +5,8 @@ import com.fasterxml.jackson.annotation.JsonRootName;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 import restapi.beerorder.auxiliary.order.OrderMethod;
 
@@ -18,6 +20,10 @@ import java.util.*;
 @JsonIgnoreProperties(ignoreUnknown = true)
 @NoArgsConstructor
 @Document(collection = "orders")
+@CompoundIndexes({
+        @CompoundIndex(name = "userName_id", def = "{'userName': 1, '_id': 1}"),
+        @CompoundIndex(name = "dateOfOrder_id", def = "{'dateOfOrder': 1, '_id': 1}")
+})
 public class Order implements Comparable<Order>, Comparator<Order> {
 
     @Id private String id; //Mongo Will generate this id.
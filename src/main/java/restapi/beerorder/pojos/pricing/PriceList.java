@@ -0,0 +1,57 @@
+package restapi.beerorder.pojos.pricing;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * This class defines the PriceList POJO - one version of our beer prices.
+ * Versions are never updated, a change is saved as the next version so the latest one is the current price list.
+ * Beers without a price of their own cost the default beer price.
+ */
+@Data
+@NoArgsConstructor
+@Document(collection = "priceLists")
+public class PriceList {
+    @Id
+    private Long version;
+    private Date createdAt;
+    private List<BeerPrice> beerPrices = new ArrayList<>();
+    private List<VolumeTier> volumeTiers = new ArrayList<>();//percent off the whole order from a bottle count.
+    private List<Promotion> promotions = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class BeerPrice {
+        private String beerName;
+        private double price;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class VolumeTier {
+        private int minBottles;
+        private double percentOff;
+    }
+
+    /**
+     * A percent off a beer, or off every beer when the beer name is missing, between two dates.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Promotion {
+        private String beerName;
+        private double percentOff;
+        private Date from;
+        private Date until;//exclusive.
+    }
+}
@@ -4,14 +4,9 @@ import com.fasterxml.jackson.annotation.JsonRootName;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
-import org.springframework.data.mongodb.core.mapping.DBRef;
 import org.springframework.data.mongodb.core.mapping.Document;
-import org.springframework.data.mongodb.core.mapping.DocumentReference;
-import restapi.beerorder.pojos.beer.Beer;
 
-import java.util.HashSet;
 import java.util.Objects;
-import java.util.Set;
 
 /**
  * This class defines the User POJO
@@ -25,9 +20,6 @@ public class User {
     @Id
     private String id;
     private String userName;
-    @DBRef(lazy = true)
-    @DocumentReference
-    private Set<Beer> favoriteBeers = new HashSet<>();
     private String givenName;
     private String lastName;
     private String gender;
@@ -42,7 +34,6 @@ public class User {
 
         return Objects.equals(id, user.id)
                 && Objects.equals(userName, user.userName)
-                && Objects.equals(favoriteBeers, user.favoriteBeers)
                 && Objects.equals(givenName, user.givenName)
                 && Objects.equals(lastName, user.lastName)
                 && Objects.equals(gender, user.gender)
@@ -51,6 +42,6 @@ public class User {
 
     @Override
     public int hashCode() {
-        return Objects.hash(id, userName, favoriteBeers, givenName, lastName, gender, age);
+        return Objects.hash(id, userName, givenName, lastName, gender, age);
     }
 }
\ No newline at end of file
@@ -0,0 +1,57 @@
+package restapi.beerorder.repositories;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.stereotype.Component;
+import restapi.beerorder.pojos.beer.Beer;
+import restapi.beerorder.pojos.like.BeerLike;
+import restapi.beerorder.pojos.order.IdempotencyKey;
+import restapi.beerorder.pojos.order.Order;
+import restapi.beerorder.pojos.user.User;
+
+import java.util.List;
+
+/**
+ * This class creates the indexes declared on our documents with {@code @Indexed} and {@code @CompoundIndex}.
+ * Spring Boot doesn't create them automatically, so we ensure them once at startup, before the catalog warmup
+ * starts writing. Creating an existing index is a no-op, and every index is ensured on its own so one that can't
+ * be built doesn't keep the others from being created. The beers' maintained fields are backfilled first.
+ */
+@Component
+public class MongoIndexInitializer {
+    private static final Logger logger = LoggerFactory.getLogger(MongoIndexInitializer.class);
+    private static final List<Class<?>> DOCUMENTS = List.of(Beer.class, Order.class, User.class,
+            BeerLike.class, IdempotencyKey.class);
+
+    private final MongoTemplate mongoTemplate;
+
+    public MongoIndexInitializer(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @org.springframework.core.annotation.Order(Ordered.HIGHEST_PRECEDENCE + 1)//after BeerBackfill.
+    public void ensureIndexes() {
+        IndexResolver resolver = new MongoPersistentEntityIndexResolver(
+                (MongoMappingContext) mongoTemplate.getConverter().getMappingContext());
+
+        for (Class<?> type : DOCUMENTS) {
+            for (IndexDefinition index : resolver.resolveIndexFor(type)) {
+                try {
+                    mongoTemplate.indexOps(type).ensureIndex(index);
+                } catch (RuntimeException ex) {
+                    logger.warn("Couldn't ensure the index " + index.getIndexKeys() + " of "
+                            + mongoTemplate.getCollectionName(type), ex);
+                }
+            }
+        }
+    }
+}
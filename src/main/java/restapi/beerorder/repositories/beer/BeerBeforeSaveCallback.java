@@ -0,0 +1,34 @@
+package restapi.beerorder.repositories.beer;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.core.mapping.event.BeforeSaveCallback;
+import org.springframework.stereotype.Component;
+import restapi.beerorder.auxiliary.catalog.BeerFingerprint;
+import restapi.beerorder.auxiliary.catalog.IngredientTotals;
+import restapi.beerorder.pojos.beer.Beer;
+
+/**
+ * This callback keeps the ingredient totals, the content hash and the fingerprint of a beer up to date whenever a beer is saved through the repository.
+ */
+@Component
+public class BeerBeforeSaveCallback implements BeforeSaveCallback<Beer> {
+
+    @Override
+    public Beer onBeforeSave(Beer beer, Document document, String collection) {
+        IngredientTotals.apply(document);
+        beer.setTotalMalt(document.get(IngredientTotals.TOTAL_MALT, Double.class));
+        beer.setTotalHops(document.get(IngredientTotals.TOTAL_HOPS, Double.class));
+
+        String contentHash = BeerFingerprint.contentHash(document);
+
+        document.put(BeerFingerprint.CONTENT_HASH_FIELD, contentHash);
+        beer.setContentHash(contentHash);
+
+        String fingerprint = BeerFingerprint.of(document);
+
+        document.put(BeerFingerprint.FIELD, fingerprint);
+        beer.setFingerprint(fingerprint);
+
+        return beer;
+    }
+}
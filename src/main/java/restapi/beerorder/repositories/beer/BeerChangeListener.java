@@ -0,0 +1,40 @@
+package restapi.beerorder.repositories.beer;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Component;
+import restapi.beerorder.auxiliary.catalog.CatalogChangedEvent;
+import restapi.beerorder.pojos.beer.Beer;
+
+import java.util.List;
+
+/**
+ * This listener announces every beer saved or deleted through the repository as a {@link CatalogChangedEvent}.
+ */
+@Component
+public class BeerChangeListener extends AbstractMongoEventListener<Beer> {
+    private final ApplicationEventPublisher eventPublisher;
+
+    public BeerChangeListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<Beer> event) {
+        Beer beer = event.getSource();
+
+        eventPublisher.publishEvent(CatalogChangedEvent.beers(List.of(beer.getId()),
+                beer.getName() == null ? List.of() : List.of(beer.getName())));
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<Beer> event) {
+        Object id = event.getSource().get("_id");
+
+        eventPublisher.publishEvent(id instanceof Long
+                ? CatalogChangedEvent.beers(List.of((Long) id), List.of())
+                : CatalogChangedEvent.wholeCatalog());
+    }
+}
@@ -0,0 +1,69 @@
+package restapi.beerorder.repositories.beer;
+
+import org.springframework.data.domain.Range;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class describes a multi-attribute range query over the numeric beer fields (abv, ibu, ph, totalMalt...),
+ * with an optional sort, limit and projection. Each bound may be inclusive, exclusive or unbounded.
+ */
+public class BeerRangeQuery {
+    private final Map<String, Range<Double>> ranges = new LinkedHashMap<>();
+    private final List<String> fields = new ArrayList<>();
+    private Sort sort = Sort.unsorted();
+    private int limit;
+
+    public BeerRangeQuery range(String field, Range<Double> range) {
+        if (range != null && !range.equals(Range.unbounded())) {
+            ranges.put(field, range);
+        }
+
+        return this;
+    }
+
+    public BeerRangeQuery sort(Sort sort) {
+        this.sort = sort;
+
+        return this;
+    }
+
+    /**
+     * @param limit - the maximum number of beers to return, 0 for no limit.
+     */
+    public BeerRangeQuery limit(int limit) {
+        this.limit = limit;
+
+        return this;
+    }
+
+    /**
+     * Restricts the returned documents to these fields (and the id), every field is returned if none is given.
+     */
+    public BeerRangeQuery include(String... fields) {
+        Collections.addAll(this.fields, fields);
+
+        return this;
+    }
+
+    public Map<String, Range<Double>> getRanges() {
+        return Collections.unmodifiableMap(ranges);
+    }
+
+    public List<String> getFields() {
+        return Collections.unmodifiableList(fields);
+    }
+
+    public Sort getSort() {
+        return sort;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+}
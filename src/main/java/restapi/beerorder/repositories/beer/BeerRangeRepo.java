@@ -0,0 +1,14 @@
+package restapi.beerorder.repositories.beer;
+
+import restapi.beerorder.pojos.beer.Beer;
+
+import java.util.List;
+
+/**
+ * Range queries over numeric beer fields, as a fragment of {@link BeerRepo}.
+ */
+public interface BeerRangeRepo {
+    List<Beer> findInRanges(BeerRangeQuery query);
+
+    long countInRanges(BeerRangeQuery query);
+}
@@ -0,0 +1,68 @@
+package restapi.beerorder.repositories.beer;
+
+import org.springframework.data.domain.Range;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import restapi.beerorder.pojos.beer.Beer;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class runs a {@link BeerRangeQuery} as a single Mongo query, every range becomes a bound of the same
+ * criteria so the (abv, ibu, ph) index can serve it, and only the requested fields are read.
+ */
+public class BeerRangeRepoImpl implements BeerRangeRepo {
+    private final MongoTemplate mongoTemplate;
+
+    public BeerRangeRepoImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public List<Beer> findInRanges(BeerRangeQuery rangeQuery) {
+        Query query = toQuery(rangeQuery).with(rangeQuery.getSort());
+
+        if (rangeQuery.getLimit() > 0) {
+            query.limit(rangeQuery.getLimit());
+        }
+
+        rangeQuery.getFields().forEach(query.fields()::include);
+
+        return mongoTemplate.find(query, Beer.class);
+    }
+
+    @Override
+    public long countInRanges(BeerRangeQuery rangeQuery) {
+        return mongoTemplate.count(toQuery(rangeQuery), Beer.class);
+    }
+
+    static Query toQuery(BeerRangeQuery rangeQuery) {
+        Criteria criteria = new Criteria();
+
+        for (Map.Entry<String, Range<Double>> entry : rangeQuery.getRanges().entrySet()) {
+            Criteria field = criteria.and(entry.getKey());
+            Range.Bound<Double> lower = entry.getValue().getLowerBound();
+            Range.Bound<Double> upper = entry.getValue().getUpperBound();
+
+            lower.getValue().ifPresent(value -> {
+                if (lower.isInclusive()) {
+                    field.gte(value);
+                } else {
+                    field.gt(value);
+                }
+            });
+
+            upper.getValue().ifPresent(value -> {
+                if (upper.isInclusive()) {
+                    field.lte(value);
+                } else {
+                    field.lt(value);
+                }
+            });
+        }
+
+        return Query.query(criteria);
+    }
+}
@@ -0,0 +1,13 @@
+package restapi.beerorder.repositories.order;
+
+import lombok.Value;
+
+/**
+ * This class holds how many orders were placed on one day and what they add up to.
+ */
+@Value
+public class DailyOrderTotals {
+    String day;//yyyy-MM-dd
+    long orders;
+    double total;
+}
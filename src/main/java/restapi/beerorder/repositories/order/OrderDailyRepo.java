@@ -0,0 +1,18 @@
+package restapi.beerorder.repositories.order;
+
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Per day totals of orders, as a fragment of {@link OrderRepo}.
+ */
+public interface OrderDailyRepo {
+    /**
+     * @param startDate - exclusive, like findByDateOfOrderBetween.
+     * @param endDate - exclusive.
+     * @param zone - where the days start and end.
+     * @return the totals of every day with orders, by day.
+     */
+    List<DailyOrderTotals> dailyTotals(Date startDate, Date endDate, ZoneId zone);
+}
@@ -0,0 +1,45 @@
+package restapi.beerorder.repositories.order;
+
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.DateOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import restapi.beerorder.pojos.order.Order;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * This class adds up the orders per day inside Mongo: the range is matched on the (dateOfOrder, _id) index,
+ * and only a count and a sum per day come back, no order is read into the app.
+ */
+public class OrderDailyRepoImpl implements OrderDailyRepo {
+    private final MongoTemplate mongoTemplate;
+
+    public OrderDailyRepoImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public List<DailyOrderTotals> dailyTotals(Date startDate, Date endDate, ZoneId zone) {
+        Aggregation perDay = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("dateOfOrder").gt(startDate).lt(endDate)),
+                Aggregation.project("orderSum").and(DateOperators.dateOf("dateOfOrder")
+                        .withTimezone(DateOperators.Timezone.valueOf(zone.getId()))
+                        .toString("%Y-%m-%d")).as("day"),
+                Aggregation.group("day").count().as("orders").sum("orderSum").as("total"),
+                Aggregation.sort(Sort.by("_id")));
+        List<DailyOrderTotals> totals = new ArrayList<>();
+
+        for (Document day : mongoTemplate.aggregate(perDay, Order.class, Document.class)) {
+            totals.add(new DailyOrderTotals(day.getString("_id"), ((Number) day.get("orders")).longValue(),
+                    Math.round(((Number) day.get("total")).doubleValue() * 100) / 100.0));
+        }
+
+        return totals;
+    }
+}
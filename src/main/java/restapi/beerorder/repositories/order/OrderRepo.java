@@ -6,7 +6,7 @@ import restapi.beerorder.pojos.order.Order;
 import java.util.Date;
 import java.util.List;
 
-public interface OrderRepo extends MongoRepository<Order, String> {
+public interface OrderRepo extends MongoRepository<Order, String>, OrderDailyRepo {
     List<Order> findOrdersByUserName(String userName);
     List<Order> findByDateOfOrderBetween(Date startDate, Date endDate);
 }
@@ -1,44 +1,59 @@
 package restapi.beerorder.services;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 import restapi.beerorder.pojos.beer.Beer;
 
+import java.io.InputStream;
+import java.time.Duration;
 import java.util.concurrent.CompletableFuture;
 
 @Service
 public class BeerService {
     // RestTemplate is used to invoke an external REST point by another service
     private RestTemplate template;
+    private final PunkApiClient punkApiClient;
+    private final String punkApiUrl;
 
     /*
      RestTemplateBuilder is used by Spring to supply default configuration to the
      RestTemplate instance, specifically MessageConvertors
      */
-    public BeerService(RestTemplateBuilder restTemplateBuilder) {
-        this.template = restTemplateBuilder.build();
+    public BeerService(RestTemplateBuilder restTemplateBuilder, PunkApiClient punkApiClient,
+                       @Value("${punk.api.url:https://api.punkapi.com/v2}") String punkApiUrl,
+                       @Value("${punk.client.connect-timeout-ms:2000}") long connectTimeoutMillis,
+                       @Value("${punk.client.attempt-timeout-ms:4000}") long readTimeoutMillis) {
+        this.template = restTemplateBuilder
+                .setConnectTimeout(Duration.ofMillis(connectTimeoutMillis))
+                .setReadTimeout(Duration.ofMillis(readTimeoutMillis))
+                .build();
+        this.punkApiClient = punkApiClient;
+        this.punkApiUrl = punkApiUrl;
     }
 
     /**
-     * This method should run asynchronously in order to get
-     * information about a specific user - using @Async annotation and CompletableFuture
-     * Our program needs to send an HTTP GET request to a remote REST endpoint
-     * we ought to get a JSON representing the user.
-     * @param beerId
-     * @return
+     * This method fetches a single page of the beers listing, blocking the calling thread.
+     * Concurrency and rate limiting are left to the caller.
+     * @param page - page number, starting from 1.
+     * @param perPage - amount of beers in a page.
+     * @return the beers in the page, an empty array once we went past the last page.
      */
-    @Async
-    public CompletableFuture<Beer[]> beerDetails(int beerId){
-        String urlTemplate = String.format("https://api.punkapi.com/v2/beers/%d", beerId);
-        Beer[] aBeer = this.template.getForObject(urlTemplate, Beer[].class);
-        //https://api.punkapi.com/v2/beers?beer_name=Pilsen_Lager
+    public Beer[] beerPage(int page, int perPage) {
+        Beer[] beers = this.template.getForObject(punkApiUrl + "/beers?page={page}&per_page={perPage}",
+                Beer[].class, page, perPage);
 
-        /*
-         return a CompletableFuture<Beer> when the computation is done
-         this goes hand-with-hand with the join() method
-         */
-        return CompletableFuture.completedFuture(aBeer);
+        return beers == null ? new Beer[0] : beers;
+    }
+
+    /**
+     * This method requests a single page of the beers listing without reading it.
+     * @param page - page number, starting from 1.
+     * @param perPage - amount of beers in a page.
+     * @return a future of the raw JSON body, which the caller must close.
+     */
+    public CompletableFuture<InputStream> beerPageStream(int page, int perPage) {
+        return punkApiClient.getStream(punkApiUrl + "/beers?page=" + page + "&per_page=" + perPage);
     }
 }
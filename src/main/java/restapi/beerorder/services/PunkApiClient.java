@@ -0,0 +1,205 @@
+package restapi.beerorder.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import restapi.beerorder.auxiliary.metrics.LatencyHistogram;
+import restapi.beerorder.exceptions.PunkApiException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * This class is a non-blocking HTTP client for PunkAPI built on the JDK HttpClient.
+ * Connections are kept alive and pooled by the HttpClient, no thread waits for a response.
+ * Every call has a deadline that covers all of its attempts, transient failures are retried a bounded
+ * number of times and slow attempts can be hedged by a second identical request - the first answer wins.
+ */
+@Component
+public class PunkApiClient {
+    private static final Logger logger = LoggerFactory.getLogger(PunkApiClient.class);
+
+    private final HttpClient httpClient;
+    private final Map<String, LatencyHistogram> latencyByHost = new ConcurrentHashMap<>();
+    private final LongAdder hedgedRequests = new LongAdder();
+
+    private final long deadlineMillis;
+    private final long attemptTimeoutMillis;
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long hedgeAfterMillis;
+
+    public PunkApiClient(@Value("${punk.client.connect-timeout-ms:2000}") long connectTimeoutMillis,
+                         @Value("${punk.client.deadline-ms:10000}") long deadlineMillis,
+                         @Value("${punk.client.attempt-timeout-ms:4000}") long attemptTimeoutMillis,
+                         @Value("${punk.client.max-attempts:3}") int maxAttempts,
+                         @Value("${punk.client.initial-backoff-ms:200}") long initialBackoffMillis,
+                         @Value("${punk.client.hedge-after-ms:2000}") long hedgeAfterMillis) {
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        this.deadlineMillis = deadlineMillis;
+        this.attemptTimeoutMillis = attemptTimeoutMillis;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.hedgeAfterMillis = hedgeAfterMillis;
+    }
+
+    /**
+     * This method sends a GET request and returns the body as a stream, once the status line and headers arrived.
+     * The body is read by the caller, so the deadline covers only getting the response. A slow response is hedged
+     * by a second request and the stream that loses the race is closed unread.
+     * @param url - full url of the resource.
+     * @return a future of the response body stream, which the caller must close.
+     */
+    public CompletableFuture<InputStream> getStream(String url) {
+        URI uri = URI.create(url);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMillis);
+
+        return attempt(uri, HttpResponse.BodyHandlers.ofInputStream(), hedgeAfterMillis, 1, deadline)
+                .orTimeout(deadlineMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return latency percentiles of every attempt sent so far, by host.
+     */
+    public Map<String, LatencyHistogram.Snapshot> latencySnapshots() {
+        Map<String, LatencyHistogram.Snapshot> snapshots = new TreeMap<>();
+        latencyByHost.forEach((host, histogram) -> snapshots.put(host, histogram.snapshot()));
+
+        return snapshots;
+    }
+
+    public long getHedgedRequests() {
+        return hedgedRequests.sum();
+    }
+
+    private <B> CompletableFuture<B> attempt(URI uri, HttpResponse.BodyHandler<B> bodyHandler, long hedgeAfterMillis,
+                                             int attempt, long deadline) {
+        return hedged(uri, bodyHandler, hedgeAfterMillis, deadline)
+                .handle((body, error) -> {
+                    if (error == null) {
+                        return CompletableFuture.completedFuture(body);
+                    }
+
+                    Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                    long backoff = initialBackoffMillis * (1L << (attempt - 1));
+                    backoff += ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+
+                    if (attempt >= maxAttempts || !isRetryable(cause)
+                            || remainingMillis(deadline) <= backoff) {
+                        return CompletableFuture.<B>failedFuture(cause);
+                    }
+
+                    logger.warn("GET {} failed (attempt {}/{}): {}, retrying in {} ms", uri, attempt, maxAttempts,
+                            cause.toString(), backoff);
+
+                    return CompletableFuture.runAsync(() -> { },
+                                    CompletableFuture.delayedExecutor(backoff, TimeUnit.MILLISECONDS))
+                            .thenCompose(ignored -> attempt(uri, bodyHandler, hedgeAfterMillis, attempt + 1, deadline));
+                })
+                .thenCompose(Function.identity());
+    }
+
+    /**
+     * Sends the request and, if hedging is on and no answer arrived in time, a second one.
+     * The result fails only when every request that was sent has failed.
+     */
+    private <B> CompletableFuture<B> hedged(URI uri, HttpResponse.BodyHandler<B> bodyHandler, long hedgeAfterMillis,
+                                            long deadline) {
+        CompletableFuture<B> primary = send(uri, bodyHandler, deadline);
+
+        if (hedgeAfterMillis <= 0) {
+            return primary;
+        }
+
+        CompletableFuture<B> result = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger(1);
+
+        primary.whenComplete((body, error) -> complete(result, pending, body, error));
+
+        CompletableFuture.delayedExecutor(hedgeAfterMillis, TimeUnit.MILLISECONDS).execute(() -> {
+            if (!result.isDone() && remainingMillis(deadline) > 0) {
+                pending.incrementAndGet();
+                hedgedRequests.increment();
+                send(uri, bodyHandler, deadline).whenComplete((body, error) -> complete(result, pending, body, error));
+            }
+        });
+
+        return result;
+    }
+
+    private static <B> void complete(CompletableFuture<B> result, AtomicInteger pending, B body, Throwable error) {
+        if (error == null) {
+            if (!result.complete(body)) {
+                closeQuietly(body);
+            }
+        } else if (pending.decrementAndGet() == 0) {
+            result.completeExceptionally(error);
+        }
+    }
+
+    private <B> CompletableFuture<B> send(URI uri, HttpResponse.BodyHandler<B> bodyHandler, long deadline) {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofMillis(Math.max(1, Math.min(attemptTimeoutMillis, remainingMillis(deadline)))))
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+        LatencyHistogram histogram = latencyByHost.computeIfAbsent(uri.getHost() + ":" + uri.getPort(),
+                host -> new LatencyHistogram());
+        long start = System.nanoTime();
+
+        return httpClient.sendAsync(request, bodyHandler)
+                .thenApply(response -> {
+                    histogram.record(System.nanoTime() - start);
+
+                    if (response.statusCode() >= 400) {
+                        closeQuietly(response.body());
+                        throw new PunkApiException(uri.toString(), response.statusCode());
+                    }
+
+                    return response.body();
+                });
+    }
+
+    private static void closeQuietly(Object body) {
+        if (body instanceof InputStream) {
+            try {
+                ((InputStream) body).close();
+            } catch (IOException ignored) {
+                // nothing left to do with a failed response
+            }
+        }
+    }
+
+    private static boolean isRetryable(Throwable error) {
+        if (error instanceof PunkApiException) {
+            return ((PunkApiException) error).isRetryable();
+        }
+
+        return error instanceof IOException;
+    }
+
+    private static long remainingMillis(long deadline) {
+        return TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+    }
+}
@@ -0,0 +1,192 @@
+package restapi.beerorder.services.catalog;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.stereotype.Component;
+import restapi.beerorder.auxiliary.catalog.BeerFingerprint;
+import restapi.beerorder.auxiliary.catalog.CatalogChangedEvent;
+import restapi.beerorder.auxiliary.catalog.IngredientTotals;
+import restapi.beerorder.pojos.beer.Beer;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * This class brings the fields we maintain on every beer - the ingredient totals, the content hash and the
+ * fingerprint - up to date once at startup. The writers keep them for the beers they write, but beers stored
+ * before a field existed, e.g. created through the beers API rather than synced from PunkAPI, would never get
+ * it and would silently drop out of the queries that use it.
+ * Only beers whose stored fields differ are written, so after the first run this is a read of the collection.
+ * It runs before {@link restapi.beerorder.repositories.MongoIndexInitializer}, so the unique content hash index is
+ * built over hashes that are already unique.
+ */
+@Component
+public class BeerBackfill {
+    private static final Logger logger = LoggerFactory.getLogger(BeerBackfill.class);
+    private static final int BATCH = 1000;
+    private static final int DUPLICATE_KEY = 11000;
+    static final List<String> MAINTAINED = List.of(IngredientTotals.TOTAL_MALT, IngredientTotals.TOTAL_HOPS,
+            BeerFingerprint.CONTENT_HASH_FIELD, BeerFingerprint.FIELD);
+
+    private final MongoTemplate mongoTemplate;
+    private final BeerBulkWriter beerBulkWriter;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public BeerBackfill(MongoTemplate mongoTemplate, BeerBulkWriter beerBulkWriter,
+                        ApplicationEventPublisher eventPublisher) {
+        this.mongoTemplate = mongoTemplate;
+        this.beerBulkWriter = beerBulkWriter;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)//before the indexes.
+    public void onApplicationReady() {
+        try {
+            backfill();
+        } catch (RuntimeException ex) {
+            logger.warn("Couldn't backfill the maintained beer fields", ex);
+        }
+    }
+
+    /**
+     * This method recomputes the maintained fields of every beer and writes the ones that changed.
+     * The content hash has a unique index, so a beer whose content duplicates a beer that already holds its hash,
+     * or one with a lower id, is left without one: it's logged instead of failing the index.
+     * @return the number of beers updated.
+     */
+    public int backfill() {
+        String collection = mongoTemplate.getCollectionName(Beer.class);
+        Map<String, Object> holders = contentHashHolders(collection);
+        BulkOperations bulkOperations = null;
+        int pending = 0;
+        int updated = 0;
+        int duplicates = 0;
+
+        try (CloseableIterator<Document> beers = mongoTemplate.stream(new Query().with(Sort.by("_id")),
+                Document.class, collection)) {
+            while (beers.hasNext()) {
+                Document stored = beers.next();
+                Document prepared = beerBulkWriter.prepare(new Document(stored));
+                Object holder = holders.putIfAbsent(prepared.getString(BeerFingerprint.CONTENT_HASH_FIELD),
+                        stored.get("_id"));
+
+                if (holder != null && !holder.equals(stored.get("_id"))) {
+                    prepared.remove(BeerFingerprint.CONTENT_HASH_FIELD);
+                    duplicates++;
+                    logger.warn("Beer {} has the same content as beer {}", stored.get("_id"), holder);
+                }
+
+                Update update = update(stored, prepared);
+
+                if (update == null) {
+                    continue;
+                }
+
+                if (bulkOperations == null) {
+                    bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, collection);
+                }
+
+                bulkOperations.updateOne(Query.query(Criteria.where("_id").is(stored.get("_id"))), update);
+
+                if (++pending == BATCH) {
+                    updated += execute(bulkOperations);
+                    bulkOperations = null;
+                    pending = 0;
+                }
+            }
+        }
+
+        if (pending > 0) {
+            updated += execute(bulkOperations);
+        }
+
+        if (updated > 0) {
+            eventPublisher.publishEvent(CatalogChangedEvent.wholeCatalog());
+            logger.info("Backfilled the maintained fields of {} beers", updated);
+        }
+
+        if (duplicates > 0) {
+            logger.warn("{} beers duplicate the content of another beer and have no content hash", duplicates);
+        }
+
+        return updated;
+    }
+
+    /**
+     * @return the id of the first beer storing each content hash, in id order.
+     */
+    private Map<String, Object> contentHashHolders(String collection) {
+        Query query = new Query().with(Sort.by("_id"));
+        query.fields().include(BeerFingerprint.CONTENT_HASH_FIELD);
+        Map<String, Object> holders = new HashMap<>();
+
+        try (CloseableIterator<Document> beers = mongoTemplate.stream(query, Document.class, collection)) {
+            beers.forEachRemaining(beer -> {
+                if (beer.get(BeerFingerprint.CONTENT_HASH_FIELD) instanceof String) {
+                    holders.putIfAbsent(beer.getString(BeerFingerprint.CONTENT_HASH_FIELD), beer.get("_id"));
+                }
+            });
+        }
+
+        return holders;
+    }
+
+    /**
+     * A beer can still collide with a stale hash stored on another beer, it's retried at the next startup.
+     */
+    private static int execute(BulkOperations bulkOperations) {
+        try {
+            return bulkOperations.execute().getModifiedCount();
+        } catch (BulkOperationException ex) {
+            if (ex.getErrors().stream().anyMatch(error -> error.getCode() != DUPLICATE_KEY)) {
+                throw ex;
+            }
+
+            logger.warn("{} beers collided with a stale content hash", ex.getErrors().size());
+
+            return ex.getResult().getModifiedCount();
+        }
+    }
+
+    /**
+     * @return the update that sets the maintained fields of stored to their prepared values, null if they match.
+     */
+    static Update update(Document stored, Document prepared) {
+        Update update = null;
+
+        for (String field : MAINTAINED) {
+            Object value = prepared.get(field);
+
+            if (Objects.equals(stored.get(field), value)) {
+                continue;
+            }
+
+            update = update == null ? new Update() : update;
+
+            if (value == null) {
+                update.unset(field);
+            } else {
+                update.set(field, value);
+            }
+        }
+
+        return update;
+    }
+}
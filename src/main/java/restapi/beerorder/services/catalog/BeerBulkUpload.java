@@ -0,0 +1,304 @@
+package restapi.beerorder.services.catalog;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.WriteModel;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import restapi.beerorder.auxiliary.catalog.BeerFingerprint;
+import restapi.beerorder.auxiliary.catalog.BeerJsonStream;
+import restapi.beerorder.auxiliary.catalog.CatalogChangedEvent;
+import restapi.beerorder.pojos.beer.Beer;
+import restapi.beerorder.services.catalog.BulkUploadReport.Item;
+import restapi.beerorder.services.catalog.BulkUploadReport.Status;
+import restapi.beerorder.services.likes.BeerLikes;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * This class creates or upserts a stream of client supplied beers.
+ * Beers are parsed one at a time and validated in batches: duplicates within the request are caught in memory,
+ * taken ids and content owned by another beer are found with one lookup per batch, and what's left is written
+ * with a single unordered bulk write per batch. Every item gets a status in the returned report.
+ * An upserted beer replaces the stored one whole, only its like counter is kept.
+ */
+@Service
+public class BeerBulkUpload {
+    private static final int DUPLICATE_KEY = 11000;
+    private static final BulkWriteOptions UNORDERED = new BulkWriteOptions().ordered(false);
+    private static final UpdateOptions UPSERT = new UpdateOptions().upsert(true);
+
+    public enum Mode {
+        CREATE, UPSERT
+    }
+
+    private final MongoTemplate mongoTemplate;
+    private final BeerBulkWriter beerBulkWriter;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int batchSize;
+    private final int maxItems;
+
+    public BeerBulkUpload(MongoTemplate mongoTemplate, BeerBulkWriter beerBulkWriter,
+                          ApplicationEventPublisher eventPublisher,
+                          @Value("${bulk.batch-size:1000}") int batchSize,
+                          @Value("${bulk.max-items:100000}") int maxItems) {
+        this.mongoTemplate = mongoTemplate;
+        this.beerBulkWriter = beerBulkWriter;
+        this.eventPublisher = eventPublisher;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxItems = maxItems;
+    }
+
+    /**
+     * This method uploads the beers of a request body.
+     * Items parsed before a malformed part of the body, or before the max-items limit, are still written and
+     * reported, the report's error says why the rest of the body was skipped.
+     * @param body - a JSON array of beers, or one beer object per line.
+     * @param ndjson - whether the body is a sequence of objects rather than an array.
+     * @param mode - CREATE rejects ids that are already taken, UPSERT overwrites them.
+     * @return the status of every item, in request order.
+     * @throws JsonProcessingException if the body is malformed before its first beer.
+     */
+    public BulkUploadReport upload(InputStream body, boolean ndjson, Mode mode) throws IOException {
+        long start = System.nanoTime();
+        Upload upload = new Upload(mode);
+        String error = null;
+
+        try {
+            if (ndjson) {
+                BeerJsonStream.parseSequence(body, upload::accept);
+            } else {
+                BeerJsonStream.parse(body, upload::accept);
+            }
+        } catch (JsonProcessingException ex) {
+            if (upload.items.isEmpty()) {
+                throw ex;
+            }
+
+            error = "Malformed beers body after item " + upload.items.size() + ": " + ex.getOriginalMessage();
+        } catch (TooManyItems ex) {
+            error = "A bulk upload takes at most " + maxItems + " beers, the rest of the body was skipped";
+        }
+
+        upload.flush();
+
+        return upload.report((System.nanoTime() - start) / 1_000_000, error);
+    }
+
+    /**
+     * Stops the parsing of a body with more than max-items beers.
+     */
+    private static class TooManyItems extends RuntimeException {
+        TooManyItems() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * The state of a single upload, items are addressed by their position in the request.
+     */
+    private class Upload {
+        private final Mode mode;
+        private final List<Item> items = new ArrayList<>();
+        private final Set<Long> seenIds = new HashSet<>();
+        private final Set<String> seenHashes = new HashSet<>();
+        private final List<Integer> batch = new ArrayList<>(batchSize);
+        private final List<Document> batchDocuments = new ArrayList<>(batchSize);
+
+        Upload(Mode mode) {
+            this.mode = mode;
+        }
+
+        void accept(Document document) {
+            int index = items.size();
+
+            if (index >= maxItems) {
+                throw new TooManyItems();
+            }
+
+            Object id = document.get("_id");
+            Long beerId = id instanceof Long ? (Long) id : null;
+            items.add(null);
+
+            if (beerId == null || beerId < 1) {
+                items.set(index, new Item(null, Status.INVALID, "id must be a positive number"));
+                return;
+            }
+
+            if (!(document.get("name") instanceof String) || document.getString("name").isBlank()) {
+                items.set(index, new Item(beerId, Status.INVALID, "name is required"));
+                return;
+            }
+
+            if (!seenIds.add(beerId)) {
+                items.set(index, new Item(beerId, Status.DUPLICATE, "id appears earlier in the request"));
+                return;
+            }
+
+            beerBulkWriter.prepare(document);
+
+            if (!seenHashes.add(document.getString(BeerFingerprint.CONTENT_HASH_FIELD))) {
+                items.set(index, new Item(beerId, Status.DUPLICATE, "same content as an earlier beer in the request"));
+                return;
+            }
+
+            batch.add(index);
+            batchDocuments.add(document);
+
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            Set<Long> takenIds = mode == Mode.CREATE ? existingIds() : Set.of();
+            Map<String, Object> hashOwners = hashOwners();
+
+            List<WriteModel<Document>> writes = new ArrayList<>(batch.size());
+            List<Integer> written = new ArrayList<>(batch.size());
+
+            for (int i = 0; i < batch.size(); i++) {
+                int index = batch.get(i);
+                Document document = batchDocuments.get(i);
+                Long id = document.getLong("_id");
+                Object owner = hashOwners.get(document.getString(BeerFingerprint.CONTENT_HASH_FIELD));
+
+                if (takenIds.contains(id)) {
+                    items.set(index, new Item(id, Status.EXISTS, "id is already taken"));
+                } else if (owner != null && !owner.equals(id)) {
+                    items.set(index, new Item(id, Status.DUPLICATE, "same content as beer " + owner));
+                } else {
+                    writes.add(mode == Mode.CREATE ? new InsertOneModel<>(document)
+                            : new UpdateOneModel<>(Filters.eq("_id", id), replacement(document), UPSERT));
+
+                    written.add(i);
+                }
+            }
+
+            if (!written.isEmpty()) {
+                execute(writes, written);
+            }
+
+            batch.clear();
+            batchDocuments.clear();
+        }
+
+        /**
+         * Writes the batch and maps the write errors and upserts back to the items, by their bulk index.
+         * @param written - the batch positions of the queued writes, in queue order.
+         */
+        private void execute(List<WriteModel<Document>> writes, List<Integer> written) {
+            BulkWriteResult result;
+            Map<Integer, BulkWriteError> errors = new HashMap<>();
+
+            try {
+                result = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Beer.class))
+                        .bulkWrite(writes, UNORDERED);
+            } catch (MongoBulkWriteException ex) {
+                result = ex.getWriteResult();
+                ex.getWriteErrors().forEach(error -> errors.put(error.getIndex(), error));
+            }
+
+            Set<Integer> upserted = result.getUpserts().stream().map(BulkWriteUpsert::getIndex)
+                    .collect(Collectors.toSet());
+            List<Long> ids = new ArrayList<>(written.size());
+            List<String> names = new ArrayList<>(written.size());
+
+            for (int i = 0; i < written.size(); i++) {
+                int index = batch.get(written.get(i));
+                Document document = batchDocuments.get(written.get(i));
+                Long id = document.getLong("_id");
+                BulkWriteError error = errors.get(i);
+
+                if (error != null) {
+                    items.set(index, error.getCode() == DUPLICATE_KEY
+                            ? new Item(id, Status.DUPLICATE, "id or content is already taken")
+                            : new Item(id, Status.FAILED, error.getMessage()));
+                    continue;
+                }
+
+                items.set(index, new Item(id, mode == Mode.CREATE || upserted.contains(i) ? Status.CREATED
+                        : Status.UPDATED, null));
+                ids.add(id);
+                names.add(document.getString("name"));
+            }
+
+            if (!ids.isEmpty()) {
+                eventPublisher.publishEvent(CatalogChangedEvent.beers(ids, names));
+            }
+        }
+
+        private Set<Long> existingIds() {
+            Query query = Query.query(Criteria.where("_id").in(batchDocuments.stream()
+                    .map(document -> document.get("_id")).collect(Collectors.toList())));
+            query.fields().include("_id");
+
+            return mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(Beer.class)).stream()
+                    .map(document -> document.getLong("_id")).collect(Collectors.toSet());
+        }
+
+        /**
+         * Finds the stored beers having the content of a beer in the batch.
+         * @return owning beer id by content hash.
+         */
+        private Map<String, Object> hashOwners() {
+            Query query = Query.query(Criteria.where(BeerFingerprint.CONTENT_HASH_FIELD).in(batchDocuments.stream()
+                    .map(document -> document.get(BeerFingerprint.CONTENT_HASH_FIELD)).collect(Collectors.toList())));
+            query.fields().include(BeerFingerprint.CONTENT_HASH_FIELD);
+
+            Map<String, Object> owners = new HashMap<>();
+
+            for (Document document : mongoTemplate.find(query, Document.class,
+                    mongoTemplate.getCollectionName(Beer.class))) {
+                owners.put(document.getString(BeerFingerprint.CONTENT_HASH_FIELD), document.get("_id"));
+            }
+
+            return owners;
+        }
+
+        BulkUploadReport report(long elapsedMillis, String error) {
+            Map<Status, Integer> counts = new EnumMap<>(Status.class);
+            items.forEach(item -> counts.merge(item.getStatus(), 1, Integer::sum));
+
+            return new BulkUploadReport(items.size(), counts, items, elapsedMillis, error);
+        }
+    }
+
+    /**
+     * The upsert of a beer as a single pipeline update: the stored beer is replaced by the uploaded one, so no
+     * field the client left out survives and the content hash describes the whole stored beer, and the like
+     * counter is carried over. The beer is a literal so none of its values is read as an expression.
+     */
+    private static List<Bson> replacement(Document document) {
+        return List.of(new Document("$replaceWith", new Document("$mergeObjects", List.of(
+                new Document("$literal", document),
+                new Document(BeerLikes.LIKE_COUNT, "$" + BeerLikes.LIKE_COUNT)))));
+    }
+}
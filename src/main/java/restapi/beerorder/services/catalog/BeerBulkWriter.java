@@ -0,0 +1,148 @@
+package restapi.beerorder.services.catalog;
+
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import restapi.beerorder.auxiliary.catalog.BeerFingerprint;
+import restapi.beerorder.auxiliary.catalog.CatalogChangedEvent;
+import restapi.beerorder.auxiliary.catalog.IngredientTotals;
+import restapi.beerorder.pojos.beer.Beer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * This class writes batches of beers to the beers collection with a single unordered bulk write.
+ * Beers are upserted by id and the like counter is left untouched, so re-importing a beer doesn't reset it.
+ * Every write is announced as a {@link CatalogChangedEvent}.
+ */
+@Component
+public class BeerBulkWriter {
+    private static final Logger logger = LoggerFactory.getLogger(BeerBulkWriter.class);
+    private static final int DUPLICATE_KEY = 11000;
+
+    private final MongoTemplate mongoTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public BeerBulkWriter(MongoTemplate mongoTemplate, ApplicationEventPublisher eventPublisher) {
+        this.mongoTemplate = mongoTemplate;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Converts a beer to the document we store, fingerprint included and likes excluded.
+     * @param beer - the beer to convert.
+     * @return the beer's document.
+     */
+    public Document toDocument(Beer beer) {
+        Document document = new Document();
+        mongoTemplate.getConverter().write(beer, document);
+        document.remove("likeCount");
+
+        return prepare(document);
+    }
+
+    /**
+     * Adds the fields we maintain to a beer document, the ingredient totals, the content hash and then
+     * the fingerprint.
+     * @param document - a beer document without likes.
+     * @return the same document.
+     */
+    public Document prepare(Document document) {
+        IngredientTotals.apply(document);
+        document.put(BeerFingerprint.CONTENT_HASH_FIELD, BeerFingerprint.contentHash(document));
+        document.put(BeerFingerprint.FIELD, BeerFingerprint.of(document));
+
+        return document;
+    }
+
+    /**
+     * Upserts the given beers in one round trip.
+     * @param beers - beers to write.
+     * @return the number of inserted or modified documents.
+     */
+    public int upsert(Collection<Beer> beers) {
+        return upsertDocuments(beers.stream().map(this::toDocument).collect(Collectors.toList()));
+    }
+
+    /**
+     * Upserts documents made by {@link #toDocument(Beer)} in one round trip.
+     * @param documents - beer documents to write.
+     * @return the number of inserted or modified documents.
+     */
+    public int upsertDocuments(List<Document> documents) {
+        if (documents.isEmpty()) {
+            return 0;
+        }
+
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Beer.class);
+        List<Long> ids = new ArrayList<>(documents.size());
+        List<String> names = new ArrayList<>(documents.size());
+
+        for (Document document : documents) {
+            Document fields = new Document(document);
+            Object id = fields.remove("_id");
+
+            if (id instanceof Long) {
+                ids.add((Long) id);
+            }
+
+            if (fields.get("name") instanceof String) {
+                names.add(fields.getString("name"));
+            }
+
+            bulkOperations.upsert(Query.query(Criteria.where("_id").is(id)),
+                    Update.fromDocument(new Document("$set", fields)));
+        }
+
+        BulkWriteResult result;
+
+        try {
+            result = bulkOperations.execute();
+        } catch (BulkOperationException ex) {
+            // PunkAPI beers sharing their content with another beer are skipped, anything else is a failure.
+            if (ex.getErrors().stream().anyMatch(error -> error.getCode() != DUPLICATE_KEY)) {
+                throw ex;
+            }
+
+            logger.warn("Skipped {} beers whose content duplicates another beer", ex.getErrors().size());
+            result = ex.getResult();
+        }
+
+        eventPublisher.publishEvent(ids.size() == documents.size()
+                ? CatalogChangedEvent.beers(ids, names)
+                : CatalogChangedEvent.wholeCatalog());
+
+        return result.getUpserts().size() + result.getModifiedCount();
+    }
+
+    /**
+     * Reads only the id and fingerprint of every stored beer.
+     * @return fingerprint by beer id.
+     */
+    public Map<Object, String> storedFingerprints() {
+        Query query = new Query();
+        query.fields().include(BeerFingerprint.FIELD);
+
+        Map<Object, String> fingerprints = new HashMap<>();
+
+        for (Document document : mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(Beer.class))) {
+            fingerprints.put(document.get("_id"), document.getString(BeerFingerprint.FIELD));
+        }
+
+        return fingerprints;
+    }
+}
@@ -0,0 +1,118 @@
+package restapi.beerorder.services.catalog;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import restapi.beerorder.auxiliary.cache.CacheStats;
+import restapi.beerorder.auxiliary.cache.LruCache;
+import restapi.beerorder.auxiliary.catalog.CatalogChangedEvent;
+import restapi.beerorder.pojos.beer.Beer;
+import restapi.beerorder.repositories.beer.BeerRepo;
+import restapi.beerorder.services.paging.KeysetPage;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * This class is a read-through cache of the beers catalog, by id, by name and by listing page.
+ * Entries are evicted by size and age, and dropped precisely when a {@link CatalogChangedEvent} names
+ * their beer, so a write is visible to the very next read.
+ * Cached beers are shared between requests and must not be modified.
+ */
+@Component
+public class BeerCatalogCache {
+    private static final int MAX_PAGES = 64;
+
+    private final BeerRepo beerRepo;
+    private final LruCache<Long, Beer> byId;
+    private final LruCache<String, List<Beer>> byName;
+    private final LruCache<String, KeysetPage<Beer>> pages;
+    private final int maxPreciseInvalidations;
+
+    public BeerCatalogCache(BeerRepo beerRepo,
+                            @Value("${catalog.cache.max-size:10000}") int maxSize,
+                            @Value("${catalog.cache.ttl-seconds:600}") long ttlSeconds,
+                            @Value("${catalog.cache.max-precise-invalidations:256}") int maxPreciseInvalidations) {
+        this.beerRepo = beerRepo;
+        this.byId = new LruCache<>(maxSize, ttlSeconds);
+        this.byName = new LruCache<>(maxSize, ttlSeconds);
+        this.pages = new LruCache<>(MAX_PAGES, ttlSeconds);
+        this.maxPreciseInvalidations = maxPreciseInvalidations;
+    }
+
+    public Optional<Beer> findById(Long id) {
+        return Optional.ofNullable(byId.get(id, key -> beerRepo.findById(key).orElse(null)));
+    }
+
+    /**
+     * @return the beers with exactly this name, an empty list if there's none (which isn't cached).
+     */
+    public List<Beer> findByName(String name) {
+        List<Beer> beers = byName.get(name, key -> {
+            List<Beer> found = beerRepo.findBeersByName(key);
+
+            return found.isEmpty() ? null : Collections.unmodifiableList(found);
+        });
+
+        return beers == null ? List.of() : beers;
+    }
+
+    /**
+     * @return true if beers with this name are cached, never touches the DB or the cache stats.
+     */
+    public boolean isCachedName(String name) {
+        return byName.peek(name) != null;
+    }
+
+    /**
+     * Returns a cached page of the catalog listing, or loads and caches it. Any change drops every page.
+     * @param after - the id the page starts after, null for the first page.
+     * @param limit - the page size.
+     * @param loader - reads the page from the DB.
+     */
+    public KeysetPage<Beer> findPage(Long after, int limit, Supplier<KeysetPage<Beer>> loader) {
+        return pages.get(after + ":" + limit, key -> loader.get());
+    }
+
+    /**
+     * This method drops the entries of the changed beers, including name entries that hold a changed id
+     * so renaming a beer drops its old name too. Large changes clear the cache instead.
+     * @param event - the beers that changed.
+     */
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        pages.invalidateAll();
+
+        if (event.isWholeCatalog() || event.getBeerIds().size() > maxPreciseInvalidations) {
+            byId.invalidateAll();
+            byName.invalidateAll();
+            return;
+        }
+
+        event.getBeerIds().forEach(byId::invalidate);
+        event.getNames().forEach(byName::invalidate);
+
+        if (!event.getBeerIds().isEmpty()) {
+            byName.invalidateIf((name, beers) ->
+                    beers.stream().anyMatch(beer -> event.getBeerIds().contains(beer.getId())));
+        }
+    }
+
+    /**
+     * This method drops the cached entries that hold a beer whose likes changed. The likes aren't part of
+     * the catalog, so the indexes are left alone and only the pages holding the beer are dropped.
+     * @param beerId - the beer whose like counter changed.
+     */
+    public void evictLikes(Long beerId) {
+        byId.invalidate(beerId);
+        byName.invalidateIf((name, beers) -> beers.stream().anyMatch(beer -> beerId.equals(beer.getId())));
+        pages.invalidateIf((key, page) -> page.getContent().stream().anyMatch(beer -> beerId.equals(beer.getId())));
+    }
+
+    public Map<String, CacheStats> stats() {
+        return Map.of("byId", byId.stats(), "byName", byName.stats(), "pages", pages.stats());
+    }
+}
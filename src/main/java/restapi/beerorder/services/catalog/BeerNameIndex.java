@@ -0,0 +1,101 @@
+package restapi.beerorder.services.catalog;
+
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import restapi.beerorder.auxiliary.catalog.CatalogChangedEvent;
+import restapi.beerorder.auxiliary.catalog.IngredientTotals;
+import restapi.beerorder.auxiliary.catalog.NamePrefixIndex;
+import restapi.beerorder.pojos.beer.Beer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class keeps a {@link NamePrefixIndex} of every beer in sync with the DB.
+ * It's loaded on first use with a single projected query, and every {@link CatalogChangedEvent} re-reads only
+ * the changed beers, the whole catalog is re-read when it's cheaper.
+ */
+@Component
+public class BeerNameIndex {
+    private final MongoTemplate mongoTemplate;
+    private final int maxPreciseUpdates;
+    private volatile NamePrefixIndex index;
+
+    public BeerNameIndex(MongoTemplate mongoTemplate,
+                         @Value("${catalog.name-index.max-precise-updates:1000}") int maxPreciseUpdates) {
+        this.mongoTemplate = mongoTemplate;
+        this.maxPreciseUpdates = maxPreciseUpdates;
+    }
+
+    /**
+     * @param prefix - the name prefix, case-insensitive.
+     * @param limit - the maximum number of beers, 0 for all of them.
+     * @return the beers whose name starts with the prefix, ordered by name.
+     */
+    public List<NamePrefixIndex.Entry> startingWith(String prefix, int limit) {
+        NamePrefixIndex current = index;
+
+        if (current == null) {
+            current = load();
+        }
+
+        return current.startingWith(prefix, limit);
+    }
+
+    @EventListener
+    public synchronized void onCatalogChanged(CatalogChangedEvent event) {
+        if (index == null) {
+            return; // not loaded yet, the first lookup reads everything.
+        }
+
+        if (event.isWholeCatalog() || event.getBeerIds().size() > maxPreciseUpdates) {
+            reload();
+        } else if (!event.getBeerIds().isEmpty()) {
+            update(event);
+        }
+    }
+
+    private synchronized NamePrefixIndex load() {
+        if (index == null) {
+            reload();
+        }
+
+        return index;
+    }
+
+    private synchronized void reload() {
+        index = NamePrefixIndex.of(read(new Query()));
+    }
+
+    private synchronized void update(CatalogChangedEvent event) {
+        Map<Long, NamePrefixIndex.Entry> upserts = new HashMap<>();
+
+        for (NamePrefixIndex.Entry entry : read(Query.query(Criteria.where("_id").in(event.getBeerIds())))) {
+            upserts.put(entry.getId(), entry);
+        }
+
+        index = index.with(event.getBeerIds(), upserts);
+    }
+
+    private List<NamePrefixIndex.Entry> read(Query query) {
+        query.fields().include("name", IngredientTotals.TOTAL_MALT);
+        List<NamePrefixIndex.Entry> entries = new ArrayList<>();
+
+        for (Document beer : mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(Beer.class))) {
+            if (beer.get("_id") instanceof Long && beer.get("name") instanceof String) {
+                entries.add(new NamePrefixIndex.Entry(beer.getLong("_id"), beer.getString("name"),
+                        beer.get(IngredientTotals.TOTAL_MALT) instanceof Number
+                                ? ((Number) beer.get(IngredientTotals.TOTAL_MALT)).doubleValue() : null));
+            }
+        }
+
+        return entries;
+    }
+}
@@ -0,0 +1,118 @@
+package restapi.beerorder.services.catalog;
+
+import org.bson.Document;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * This class writes beer documents in batches on a thread of the given executor, through a bounded queue.
+ * A producer that is faster than the DB blocks on the full queue, so no more than capacity documents
+ * are ever waiting in memory.
+ */
+public class BoundedBatchWriter implements Consumer<Document>, AutoCloseable {
+    private static final Document END = new Document();
+
+    private final BeerBulkWriter beerBulkWriter;
+    private final BlockingQueue<Document> queue;
+    private final int batchSize;
+    private final CompletableFuture<Void> writer;
+
+    private volatile RuntimeException failure;
+    private int written;
+
+    /**
+     * @param executor - runs the writer for the whole import, it must not run it on the calling thread.
+     */
+    public BoundedBatchWriter(BeerBulkWriter beerBulkWriter, int capacity, int batchSize, Executor executor) {
+        this.beerBulkWriter = beerBulkWriter;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        this.batchSize = Math.max(1, batchSize);
+        this.writer = CompletableFuture.runAsync(this::drain, executor);
+    }
+
+    /**
+     * Queues a document, blocking while the queue is full.
+     */
+    @Override
+    public void accept(Document document) {
+        if (failure != null) {
+            throw failure;
+        }
+
+        put(document);
+    }
+
+    /**
+     * Writes what's left and waits for the writer.
+     * @throws RuntimeException the first write failure, if any.
+     */
+    @Override
+    public void close() {
+        put(END);
+
+        try {
+            writer.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the batch writer", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("The batch writer failed", ex.getCause());
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * @return the number of inserted or modified documents, valid after {@link #close()}.
+     */
+    public int getWritten() {
+        return written;
+    }
+
+    private void put(Document document) {
+        try {
+            queue.put(document);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing a beer", ex);
+        }
+    }
+
+    private void drain() {
+        List<Document> batch = new ArrayList<>(batchSize);
+        boolean done = false;
+
+        while (!done) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                failure = new IllegalStateException("The batch writer was interrupted", ex);
+                return;
+            }
+
+            queue.drainTo(batch, batchSize - 1);
+            done = batch.remove(END);
+
+            // After a failure keep draining, so a blocked producer can get to close().
+            if (failure == null) {
+                try {
+                    written += beerBulkWriter.upsertDocuments(batch);
+                } catch (RuntimeException ex) {
+                    failure = ex;
+                }
+            }
+
+            batch.clear();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package restapi.beerorder.services.catalog;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Value;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class summarizes a bulk beers upload, the items are in request order.
+ */
+@Value
+public class BulkUploadReport {
+    int received;
+    Map<Status, Integer> counts;
+    List<Item> items;
+    long elapsedMillis;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    String error;//why the end of the body was skipped, null if it was read whole.
+
+    public enum Status {
+        CREATED, UPDATED, EXISTS, DUPLICATE, INVALID, FAILED
+    }
+
+    @Value
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Item {
+        Long id;//null when the item had no usable id.
+        Status status;
+        String message;
+    }
+}
@@ -0,0 +1,315 @@
+package restapi.beerorder.services.catalog;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
+import restapi.beerorder.auxiliary.catalog.BeerJsonStream;
+import restapi.beerorder.auxiliary.metrics.AllocationMeter;
+import restapi.beerorder.auxiliary.ratelimit.TokenBucket;
+import restapi.beerorder.pojos.beer.Beer;
+import restapi.beerorder.services.BeerService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+/**
+ * This class imports the whole PunkAPI catalog into our Mongo DB.
+ * Pages of the beers listing are fetched concurrently under a token-bucket rate limit,
+ * failed pages are retried with exponential backoff and the beers are written in batches with a bulk write.
+ * In the streaming mode (the default) pages are never materialized as Beer arrays - every array element is
+ * parsed straight into a Mongo document and pushed to a {@link BoundedBatchWriter}, so the heap stays flat.
+ */
+@Service
+public class CatalogImporter {
+    private static final Logger logger = LoggerFactory.getLogger(CatalogImporter.class);
+
+    private final BeerService beerService;
+    private final BeerBulkWriter beerBulkWriter;
+    private final Executor ingestExecutor;
+    private final Executor batchWriterExecutor;
+    private final TokenBucket rateLimiter;
+
+    private final int pageSize;
+    private final int concurrency;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final boolean streaming;
+    private final int queueCapacity;
+
+    private volatile ImportReport lastReport;
+
+    public CatalogImporter(BeerService beerService, BeerBulkWriter beerBulkWriter,
+                           @Qualifier("ingestExecutor") Executor ingestExecutor,
+                           @Qualifier("batchWriterExecutor") Executor batchWriterExecutor,
+                           @Value("${catalog.import.page-size:80}") int pageSize,
+                           @Value("${catalog.import.concurrency:3}") int concurrency,
+                           @Value("${catalog.import.batch-size:500}") int batchSize,
+                           @Value("${catalog.import.rate-per-second:4}") double ratePerSecond,
+                           @Value("${catalog.import.burst:4}") int burst,
+                           @Value("${catalog.import.max-attempts:4}") int maxAttempts,
+                           @Value("${catalog.import.initial-backoff-ms:500}") long initialBackoffMillis,
+                           @Value("${catalog.import.streaming:true}") boolean streaming,
+                           @Value("${catalog.import.queue-capacity:1000}") int queueCapacity) {
+        this.beerService = beerService;
+        this.beerBulkWriter = beerBulkWriter;
+        this.ingestExecutor = ingestExecutor;
+        this.batchWriterExecutor = batchWriterExecutor;
+        this.rateLimiter = new TokenBucket(burst, ratePerSecond);
+        this.pageSize = pageSize;
+        this.concurrency = Math.max(1, concurrency);
+        this.batchSize = Math.max(1, batchSize);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.streaming = streaming;
+        this.queueCapacity = queueCapacity;
+    }
+
+    public boolean isStreaming() {
+        return streaming;
+    }
+
+    /**
+     * @return a writer of beer documents with the configured batch size and queue capacity, to close when done.
+     */
+    public BoundedBatchWriter newBatchWriter() {
+        return new BoundedBatchWriter(beerBulkWriter, queueCapacity, batchSize, batchWriterExecutor);
+    }
+
+    /**
+     * This method crawls the paged beers listing until the first short page and writes every beer to the DB.
+     * @return a report of the run, including the throughput in beers per second and the allocation per beer.
+     */
+    public ImportReport importCatalog() {
+        long start = System.nanoTime();
+        AllocationMeter allocationMeter = AllocationMeter.start();
+        int pages;
+        int beers;
+        int written;
+        int skipped = 0;
+
+        if (streaming) {
+            int[] counts = new int[2];//beers, skipped
+            BoundedBatchWriter writer = newBatchWriter();
+
+            try {
+                pages = crawlDocuments(document -> {
+                    counts[0]++;
+
+                    if (!(document.get("_id") instanceof Long)) {
+                        counts[1]++;
+                        return;//no usable id to store it under.
+                    }
+
+                    writer.accept(beerBulkWriter.prepare(document));
+                });
+            } finally {
+                writer.close();
+            }
+
+            beers = counts[0];
+            skipped = counts[1];
+            written = writer.getWritten();
+        } else {
+            List<Beer> batch = new ArrayList<>(batchSize);
+            int[] counts = new int[2];
+
+            pages = crawl(page -> {
+                counts[0] += page.length;
+                batch.addAll(Arrays.asList(page));
+
+                if (batch.size() >= batchSize) {
+                    counts[1] += beerBulkWriter.upsert(batch);
+                    batch.clear();
+                }
+            });
+
+            beers = counts[0];
+            written = counts[1] + beerBulkWriter.upsert(batch);
+        }
+
+        ImportReport report = new ImportReport(pages, beers, written, skipped,
+                (System.nanoTime() - start) / 1_000_000, allocationMeter.allocatedBytes());
+        record(report);
+
+        return report;
+    }
+
+    /**
+     * This method logs the report of a finished run and keeps it as the last one.
+     * Runs that crawl the catalog through this importer, like the catalog sync, report here as well.
+     * @param report - the report of the run.
+     */
+    public void record(ImportReport report) {
+        logger.info("Imported {} beers from {} pages in {} ms ({} skipped, {} beers/sec, {} bytes allocated per beer)",
+                report.getBeers(), report.getPages(), report.getElapsedMillis(), report.getSkipped(),
+                String.format("%.1f", report.getBeersPerSecond()), report.getAllocatedBytesPerBeer());
+
+        lastReport = report;
+    }
+
+    /**
+     * This method fetches every page of the beers listing and hands the non empty pages to the consumer
+     * in page order, on the calling thread.
+     * @param pageConsumer - receives the beers of each page.
+     * @return the number of non empty pages.
+     */
+    public int crawl(Consumer<Beer[]> pageConsumer) {
+        int pages = 0;
+        boolean exhausted = false;
+
+        for (int firstPage = 1; !exhausted; firstPage += concurrency) {
+
+            // Fetch a wave of consecutive pages in parallel, the rate limiter keeps us polite.
+            List<CompletableFuture<Beer[]>> wave = new ArrayList<>(concurrency);
+
+            for (int page = firstPage; page < firstPage + concurrency; page++) {
+                int pageNumber = page;
+                wave.add(CompletableFuture.supplyAsync(() -> fetchPage(pageNumber), ingestExecutor));
+            }
+
+            for (CompletableFuture<Beer[]> future : wave) {
+                Beer[] page = future.join();
+
+                if (page.length > 0) {
+                    pages++;
+                    pageConsumer.accept(page);
+                }
+
+                if (page.length < pageSize) {
+                    exhausted = true;
+                }
+            }
+        }
+
+        return pages;
+    }
+
+    /**
+     * This method streams every page of the beers listing and hands each beer to the consumer as a document,
+     * in page order, on the calling thread. The pages of a wave are requested concurrently but only the
+     * page being parsed is read, the others wait in the HTTP client's bounded buffers.
+     * @param documentConsumer - receives the beer documents.
+     * @return the number of non empty pages.
+     */
+    public int crawlDocuments(Consumer<Document> documentConsumer) {
+        int pages = 0;
+        boolean exhausted = false;
+
+        for (int firstPage = 1; !exhausted; firstPage += concurrency) {
+            List<CompletableFuture<InputStream>> wave = new ArrayList<>(concurrency);
+
+            for (int page = firstPage; page < firstPage + concurrency; page++) {
+                acquirePermit();
+                wave.add(beerService.beerPageStream(page, pageSize));
+            }
+
+            for (CompletableFuture<InputStream> future : wave) {
+                if (exhausted) {
+                    future.thenAccept(CatalogImporter::closeQuietly);
+                    continue;
+                }
+
+                int beers;
+
+                try (InputStream body = future.join()) {
+                    beers = BeerJsonStream.parse(body, documentConsumer);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+
+                if (beers > 0) {
+                    pages++;
+                }
+
+                if (beers < pageSize) {
+                    exhausted = true;
+                }
+            }
+        }
+
+        return pages;
+    }
+
+    public ImportReport getLastReport() {
+        return lastReport;
+    }
+
+    /**
+     * Fetches a single page, retrying transient failures with exponential backoff and jitter.
+     * @param page - page number.
+     * @return the beers in the page.
+     */
+    private Beer[] fetchPage(int page) {
+        long backoff = initialBackoffMillis;
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                rateLimiter.acquire();
+
+                return beerService.beerPage(page, pageSize);
+            } catch (RestClientException ex) {
+                if (attempt >= maxAttempts || !isRetryable(ex)) {
+                    throw ex;
+                }
+
+                logger.warn("Fetching page {} failed (attempt {}/{}), retrying in {} ms", page, attempt,
+                        maxAttempts, backoff);
+                sleep(backoff + ThreadLocalRandom.current().nextLong(backoff / 2 + 1));
+                backoff *= 2;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(ex);
+            }
+        }
+    }
+
+    private void acquirePermit() {
+        try {
+            rateLimiter.acquire();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(ex);
+        }
+    }
+
+    private static void closeQuietly(InputStream body) {
+        try {
+            body.close();
+        } catch (IOException ignored) {
+            // the page isn't needed anyway
+        }
+    }
+
+    /**
+     * Client errors won't go away by retrying, except for being throttled.
+     */
+    private boolean isRetryable(RestClientException ex) {
+        return !(ex instanceof HttpClientErrorException)
+                || ((HttpClientErrorException) ex).getStatusCode() == HttpStatus.TOO_MANY_REQUESTS;
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(ex);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package restapi.beerorder.services.catalog;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.Projections;
+import org.bson.RawBsonDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+import restapi.beerorder.auxiliary.catalog.CatalogChangedEvent;
+import restapi.beerorder.auxiliary.catalog.CatalogSnapshotFile;
+import restapi.beerorder.pojos.beer.Beer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class keeps an offline snapshot of the beers collection on disk, so a cold start
+ * has a full catalog without waiting for the PunkAPI crawl.
+ * The snapshot is only loaded into an empty collection, inserted as raw BSON.
+ */
+@Service
+public class CatalogSnapshot {
+    private static final Logger logger = LoggerFactory.getLogger(CatalogSnapshot.class);
+    private static final int INSERT_BATCH = 1000;
+
+    private final MongoTemplate mongoTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Path path;
+    private final boolean compress;
+    private final boolean enabled;
+
+    public CatalogSnapshot(MongoTemplate mongoTemplate, ApplicationEventPublisher eventPublisher,
+                           @Value("${catalog.snapshot.path:beers.snapshot}") String path,
+                           @Value("${catalog.snapshot.compress:true}") boolean compress,
+                           @Value("${catalog.snapshot.enabled:true}") boolean enabled) {
+        this.mongoTemplate = mongoTemplate;
+        this.eventPublisher = eventPublisher;
+        this.path = Paths.get(path);
+        this.compress = compress;
+        this.enabled = enabled;
+    }
+
+    public boolean exists() {
+        return enabled && Files.isRegularFile(path);
+    }
+
+    /**
+     * This method writes every beer in the DB to the snapshot file, likes excluded.
+     * @return the number of beers written.
+     */
+    public int write() throws IOException {
+        long start = System.nanoTime();
+        int count = CatalogSnapshotFile.write(path, beers().find()
+                .projection(Projections.exclude("usersThatLikeThisBeer", "likeCount")), compress);
+
+        logger.info("Wrote {} beers to the catalog snapshot {} in {} ms", count, path,
+                (System.nanoTime() - start) / 1_000_000);
+
+        return count;
+    }
+
+    /**
+     * Writes the snapshot if it's enabled, a failure is only logged since the DB stays the source of truth.
+     */
+    public void writeQuietly() {
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            write();
+        } catch (IOException | RuntimeException ex) {
+            logger.warn("Couldn't write the catalog snapshot " + path, ex);
+        }
+    }
+
+    /**
+     * This method loads the snapshot file into an empty beers collection in a single pass.
+     * A collection that has beers is left alone, it's the source of truth: the snapshot may predate beers
+     * that were deleted or edited since, and the PunkAPI sync brings the synced beers up to date.
+     * @return the number of beers inserted, 0 if there's no snapshot or the collection has beers.
+     */
+    public int load() throws IOException {
+        if (!exists()) {
+            return 0;
+        }
+
+        MongoCollection<RawBsonDocument> beers = beers();
+
+        if (beers.estimatedDocumentCount() > 0) {
+            logger.info("The beers collection isn't empty, the catalog snapshot isn't loaded");
+            return 0;
+        }
+
+        long start = System.nanoTime();
+        List<RawBsonDocument> inserts = new ArrayList<>(INSERT_BATCH);
+        InsertManyOptions unordered = new InsertManyOptions().ordered(false);
+
+        int read = CatalogSnapshotFile.read(path, raw -> {
+            inserts.add(raw);
+
+            if (inserts.size() == INSERT_BATCH) {
+                beers.insertMany(inserts, unordered);
+                inserts.clear();
+            }
+        });
+
+        if (!inserts.isEmpty()) {
+            beers.insertMany(inserts, unordered);
+        }
+
+        eventPublisher.publishEvent(CatalogChangedEvent.wholeCatalog());
+        logger.info("Catalog ready from snapshot: loaded {} beers in {} ms", read,
+                (System.nanoTime() - start) / 1_000_000);
+
+        return read;
+    }
+
+    private MongoCollection<RawBsonDocument> beers() {
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(Beer.class))
+                .withDocumentClass(RawBsonDocument.class);
+    }
+}
@@ -0,0 +1,15 @@
+package restapi.beerorder.services.catalog;
+
+import lombok.Value;
+import restapi.beerorder.auxiliary.catalog.CatalogState;
+
+/**
+ * This class represents the catalog warmup status reported by the health endpoints.
+ */
+@Value
+public class CatalogStatus {
+    CatalogState state;
+    long loadedBeers;
+    Long readyAfterMillis;//null until the catalog is ready.
+    String lastError;
+}
@@ -0,0 +1,138 @@
+package restapi.beerorder.services.catalog;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import restapi.beerorder.auxiliary.catalog.BeerFingerprint;
+import restapi.beerorder.auxiliary.metrics.AllocationMeter;
+import restapi.beerorder.pojos.beer.Beer;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * This class keeps our beers collection in sync with PunkAPI.
+ * Every cycle crawls the remote catalog, compares each beer's fingerprint with the stored one
+ * and upserts only the new or changed beers - with a single bulk write, or in bounded batches
+ * as they stream in when the importer is in the streaming mode.
+ * The offline snapshot is rewritten whenever something changed, and the first successful cycle makes the
+ * catalog ready. Every cycle is also recorded as the importer's last {@link ImportReport}.
+ */
+@Service
+public class CatalogSync {
+    private static final Logger logger = LoggerFactory.getLogger(CatalogSync.class);
+
+    private final CatalogImporter catalogImporter;
+    private final BeerBulkWriter beerBulkWriter;
+    private final CatalogSnapshot catalogSnapshot;
+    private final CatalogWarmup catalogWarmup;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private volatile SyncStats lastStats;
+
+    public CatalogSync(CatalogImporter catalogImporter, BeerBulkWriter beerBulkWriter,
+                       CatalogSnapshot catalogSnapshot, CatalogWarmup catalogWarmup) {
+        this.catalogImporter = catalogImporter;
+        this.beerBulkWriter = beerBulkWriter;
+        this.catalogSnapshot = catalogSnapshot;
+        this.catalogWarmup = catalogWarmup;
+    }
+
+    /**
+     * Runs a sync cycle on a fixed delay, the startup sync is run by AsyncBeerRunner.
+     */
+    @Scheduled(fixedDelayString = "${catalog.sync.interval-ms:21600000}",
+               initialDelayString = "${catalog.sync.interval-ms:21600000}")
+    public void scheduledSync() {
+        sync();
+    }
+
+    /**
+     * This method runs a single sync cycle, unless one is already running.
+     * @return the stats of this cycle, or of the last one if a cycle was already running.
+     */
+    public SyncStats sync() {
+        if (!running.compareAndSet(false, true)) {
+            logger.info("A catalog sync is already running, skipping.");
+            return lastStats;
+        }
+
+        try {
+            long start = System.nanoTime();
+            AllocationMeter allocationMeter = AllocationMeter.start();
+            Map<Object, String> storedFingerprints = beerBulkWriter.storedFingerprints();
+            int[] counts = new int[3];//scanned, changed, without an id
+            int pages;
+
+            if (catalogImporter.isStreaming()) {
+                BoundedBatchWriter writer = catalogImporter.newBatchWriter();
+
+                try {
+                    pages = catalogImporter.crawlDocuments(document -> {
+                        counts[0]++;
+
+                        if (!(document.get("_id") instanceof Long)) {
+                            counts[2]++;
+                            return;//no usable id to store it under.
+                        }
+
+                        if (isChanged(storedFingerprints, beerBulkWriter.prepare(document))) {
+                            counts[1]++;
+                            writer.accept(document);
+                        }
+                    });
+                } finally {
+                    writer.close();
+                }
+            } else {
+                List<Document> changed = new ArrayList<>();
+
+                pages = catalogImporter.crawl(page -> {
+                    for (Beer beer : page) {
+                        counts[0]++;
+                        Document document = beerBulkWriter.toDocument(beer);
+
+                        if (isChanged(storedFingerprints, document)) {
+                            changed.add(document);
+                        }
+                    }
+                });
+
+                counts[1] = changed.size();
+                beerBulkWriter.upsertDocuments(changed);
+            }
+
+            // Keep the offline snapshot as fresh as the DB, so the next cold start begins from here.
+            if (counts[1] > 0 || !catalogSnapshot.exists()) {
+                catalogSnapshot.writeQuietly();
+            }
+
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+            SyncStats stats = new SyncStats(counts[0], counts[1], counts[0] - counts[1], elapsedMillis, new Date());
+            logger.info("Catalog sync finished: " + stats);
+            catalogImporter.record(new ImportReport(pages, counts[0], counts[1], counts[2], elapsedMillis,
+                    allocationMeter.allocatedBytes()));
+
+            lastStats = stats;
+            catalogWarmup.markReady();//the startup sync may have failed.
+
+            return stats;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public SyncStats getLastStats() {
+        return lastStats;
+    }
+
+    private static boolean isChanged(Map<Object, String> storedFingerprints, Document document) {
+        return !Objects.equals(storedFingerprints.get(document.get("_id")), document.getString(BeerFingerprint.FIELD));
+    }
+}
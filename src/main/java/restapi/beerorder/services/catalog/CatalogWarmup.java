@@ -0,0 +1,114 @@
+package restapi.beerorder.services.catalog;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+import restapi.beerorder.auxiliary.catalog.CatalogState;
+import restapi.beerorder.pojos.beer.Beer;
+
+import java.util.function.LongSupplier;
+
+/**
+ * This class tracks the background warmup of the beers catalog: starting, partially loaded and ready.
+ * The number of loaded beers is read from the DB at most once a second while the catalog is warming up.
+ */
+@Component
+public class CatalogWarmup {
+    private static final Logger logger = LoggerFactory.getLogger(CatalogWarmup.class);
+    private static final long COUNT_REFRESH_NANOS = 1_000_000_000L;
+
+    private final LongSupplier beerCounter;
+    private final long startedAt = System.nanoTime();
+
+    private volatile CatalogState state = CatalogState.STARTING;
+    private volatile Long readyAfterMillis;
+    private volatile String lastError;
+    private volatile long loadedBeers;
+    private volatile long countedAt;
+
+    @Autowired
+    public CatalogWarmup(MongoTemplate mongoTemplate) {
+        this(() -> mongoTemplate.estimatedCount(Beer.class));
+    }
+
+    public CatalogWarmup(LongSupplier beerCounter) {
+        this.beerCounter = beerCounter;
+        this.countedAt = System.nanoTime() - COUNT_REFRESH_NANOS;
+    }
+
+    public CatalogState getState() {
+        return state;
+    }
+
+    public boolean isReady() {
+        return state == CatalogState.READY;
+    }
+
+    /**
+     * Some beers can be served, for example after loading the offline snapshot.
+     * Only a starting catalog moves on, so a late call never takes a ready catalog back.
+     */
+    public synchronized void markPartiallyLoaded() {
+        if (state == CatalogState.STARTING) {
+            state = CatalogState.PARTIALLY_LOADED;
+            logger.info("Catalog partially loaded after {} ms", millisSinceStart());
+        }
+    }
+
+    /**
+     * A catalog sync succeeded, later calls do nothing.
+     */
+    public synchronized void markReady() {
+        if (state == CatalogState.READY) {
+            return;
+        }
+
+        refreshCount();
+        readyAfterMillis = millisSinceStart();
+        state = CatalogState.READY;
+        logger.info("Catalog ready with {} beers after {} ms", loadedBeers, readyAfterMillis);
+    }
+
+    /**
+     * The warmup failed, the catalog keeps serving whatever was loaded.
+     */
+    public void markFailed(Throwable error) {
+        lastError = String.valueOf(error);
+
+        if (getLoadedBeers() > 0) {
+            markPartiallyLoaded();
+        }
+    }
+
+    public long getLoadedBeers() {
+        if (state != CatalogState.READY && System.nanoTime() - countedAt >= COUNT_REFRESH_NANOS) {
+            refreshCount();
+        }
+
+        return loadedBeers;
+    }
+
+    public CatalogStatus status() {
+        return new CatalogStatus(state, getLoadedBeers(), readyAfterMillis, lastError);
+    }
+
+    private void refreshCount() {
+        countedAt = System.nanoTime();
+
+        try {
+            loadedBeers = beerCounter.getAsLong();
+        } catch (RuntimeException ex) {
+            logger.warn("Couldn't count the loaded beers", ex);
+        }
+
+        if (loadedBeers > 0) {
+            markPartiallyLoaded();
+        }
+    }
+
+    private long millisSinceStart() {
+        return (System.nanoTime() - startedAt) / 1_000_000;
+    }
+}
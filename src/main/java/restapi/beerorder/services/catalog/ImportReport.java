@@ -0,0 +1,24 @@
+package restapi.beerorder.services.catalog;
+
+import lombok.Value;
+
+/**
+ * This class summarizes a single catalog import run.
+ */
+@Value
+public class ImportReport {
+    int pages;
+    int beers;
+    int written;
+    int skipped;//beers without a usable id.
+    long elapsedMillis;
+    long allocatedBytes;//-1 when the JVM can't tell.
+
+    public double getBeersPerSecond() {
+        return elapsedMillis == 0 ? beers : beers * 1000.0 / elapsedMillis;
+    }
+
+    public long getAllocatedBytesPerBeer() {
+        return allocatedBytes < 0 || beers == 0 ? -1 : allocatedBytes / beers;
+    }
+}
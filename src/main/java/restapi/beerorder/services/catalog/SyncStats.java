@@ -0,0 +1,17 @@
+package restapi.beerorder.services.catalog;
+
+import lombok.Value;
+
+import java.util.Date;
+
+/**
+ * This class summarizes a single catalog sync cycle.
+ */
+@Value
+public class SyncStats {
+    int scanned;
+    int changed;
+    int skipped;
+    long elapsedMillis;
+    Date finishedAt;
+}
@@ -0,0 +1,136 @@
+package restapi.beerorder.services.likes;
+
+import com.mongodb.client.result.DeleteResult;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import restapi.beerorder.pojos.beer.Beer;
+import restapi.beerorder.pojos.like.BeerLike;
+import restapi.beerorder.services.catalog.BeerCatalogCache;
+import restapi.beerorder.services.paging.KeysetPage;
+import restapi.beerorder.services.paging.KeysetPager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * This class stores likes as (user, beer) edges in their own collection and keeps a like counter on each beer.
+ * Liking and unliking are a single-document insert or delete followed by an atomic {@code $inc}, whatever
+ * the number of likes, and the counter only moves when the edge really changed.
+ * A like isn't a catalog change, it only drops the cached copies of its beer.
+ */
+@Service
+public class BeerLikes {
+    public static final String LIKE_COUNT = "likeCount";
+
+    private final MongoTemplate mongoTemplate;
+    private final KeysetPager keysetPager;
+    private final BeerCatalogCache beerCatalogCache;
+
+    public BeerLikes(MongoTemplate mongoTemplate, KeysetPager keysetPager, BeerCatalogCache beerCatalogCache) {
+        this.mongoTemplate = mongoTemplate;
+        this.keysetPager = keysetPager;
+        this.beerCatalogCache = beerCatalogCache;
+    }
+
+    /**
+     * @return false if the user already likes the beer.
+     */
+    public boolean like(String userId, Long beerId) {
+        try {
+            mongoTemplate.insert(new BeerLike(userId, beerId));
+        } catch (DuplicateKeyException ex) {
+            return false;
+        }
+
+        changeLikeCount(beerId, 1);
+
+        return true;
+    }
+
+    /**
+     * @return false if the user didn't like the beer.
+     */
+    public boolean unlike(String userId, Long beerId) {
+        DeleteResult result = mongoTemplate.remove(Query.query(Criteria.where("_id").is(BeerLike.idOf(userId, beerId))),
+                BeerLike.class);
+
+        if (result.getDeletedCount() == 0) {
+            return false;
+        }
+
+        changeLikeCount(beerId, -1);
+
+        return true;
+    }
+
+    public long countLikes(Long beerId) {
+        return mongoTemplate.count(Query.query(Criteria.where("beerId").is(beerId)), BeerLike.class);
+    }
+
+    /**
+     * This method returns a page of the likes of a beer, oldest edge id first.
+     */
+    public KeysetPage<BeerLike> likesOfBeer(Long beerId, String after, int limit) {
+        return keysetPager.page(Criteria.where("beerId").is(beerId), BeerLike.class, after, limit, BeerLike::getId);
+    }
+
+    /**
+     * This method returns a page of the likes of a user.
+     */
+    public KeysetPage<BeerLike> likesOfUser(String userId, String after, int limit) {
+        return keysetPager.page(Criteria.where("userId").is(userId), BeerLike.class, after, limit, BeerLike::getId);
+    }
+
+    /**
+     * Removes every like of a deleted user, and takes them off the beers' counters.
+     */
+    public void removeUser(String userId) {
+        List<BeerLike> likes = mongoTemplate.findAllAndRemove(Query.query(Criteria.where("userId").is(userId)),
+                BeerLike.class);
+        Map<Long, Long> removedByBeer = likes.stream()
+                .collect(Collectors.groupingBy(BeerLike::getBeerId, Collectors.counting()));
+
+        removedByBeer.forEach((beerId, removed) -> changeLikeCount(beerId, -removed));
+    }
+
+    /**
+     * Removes every like of a deleted beer.
+     */
+    public void removeBeer(Long beerId) {
+        mongoTemplate.remove(Query.query(Criteria.where("beerId").is(beerId)), BeerLike.class);
+    }
+
+    /**
+     * Looks up the ends of a page of likes with one query, keeping the page order.
+     * @param ids - ids of one end of the likes.
+     * @param type - the end's class.
+     * @param fields - the document fields to read, all of them if empty.
+     * @param idOf - returns the id of an end.
+     * @return the ends that still exist.
+     */
+    public <T, ID> List<T> resolve(List<ID> ids, Class<T> type, Collection<String> fields, Function<T, ID> idOf) {
+        Query query = Query.query(Criteria.where("_id").in(ids));
+        fields.forEach(query.fields()::include);
+
+        Map<ID, T> found = mongoTemplate.find(query, type)
+                .stream()
+                .collect(Collectors.toMap(idOf, Function.identity()));
+
+        return ids.stream().map(found::get).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    private void changeLikeCount(Long beerId, long delta) {
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(beerId)), new Update().inc(LIKE_COUNT, delta),
+                Beer.class);
+        // Only the counter changed, the catalog indexes don't hold it.
+        beerCatalogCache.evictLikes(beerId);
+    }
+}
@@ -0,0 +1,228 @@
+package restapi.beerorder.services.likes;
+
+import com.mongodb.DBRef;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import restapi.beerorder.auxiliary.catalog.CatalogChangedEvent;
+import restapi.beerorder.pojos.beer.Beer;
+import restapi.beerorder.pojos.like.BeerLike;
+import restapi.beerorder.pojos.user.User;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * This class moves likes stored the old way - as id sets embedded in both the user and the beer - into
+ * the likes collection, recounts the affected beers and drops the embedded sets. It runs at startup, after
+ * the indexes exist, and does nothing once no document carries the old fields. The edge ids make it safe to
+ * run again after a crash. A set with a reference it can't read is kept, so no like is lost.
+ */
+@Component
+public class LegacyLikesMigration {
+    private static final Logger logger = LoggerFactory.getLogger(LegacyLikesMigration.class);
+    private static final String USER_LIKES = "favoriteBeers";
+    private static final String BEER_LIKES = "usersThatLikeThisBeer";
+    private static final int DUPLICATE_KEY = 11000;
+    private static final int BATCH_SIZE = 1000;
+
+    private final MongoTemplate mongoTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public LegacyLikesMigration(MongoTemplate mongoTemplate, ApplicationEventPublisher eventPublisher) {
+        this.mongoTemplate = mongoTemplate;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @org.springframework.core.annotation.Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    public void migrate() {
+        try {
+            LegacyLikes legacy = LegacyLikes.read(
+                    mongoTemplate.getCollection(mongoTemplate.getCollectionName(User.class))
+                            .find(Filters.exists(USER_LIKES)).projection(Projections.include(USER_LIKES)),
+                    mongoTemplate.getCollection(mongoTemplate.getCollectionName(Beer.class))
+                            .find(Filters.exists(BEER_LIKES)).projection(Projections.include(BEER_LIKES)));
+
+            if (!legacy.likes.isEmpty()) {
+                insert(legacy.likes.values());
+                recount(legacy.likes.values());
+            }
+
+            // Only the sets that were read in full are dropped, the others are kept for a later run.
+            unset(legacy.migratedUsers, USER_LIKES, User.class);
+            unset(legacy.migratedBeers, BEER_LIKES, Beer.class);
+
+            if (!legacy.likes.isEmpty()) {
+                eventPublisher.publishEvent(CatalogChangedEvent.wholeCatalog());
+                logger.info("Moved {} embedded likes to the likes collection", legacy.likes.size());
+            }
+
+            if (legacy.skipped > 0) {
+                logger.warn("Kept the embedded likes of {} documents with references we couldn't read",
+                        legacy.skipped);
+            }
+        } catch (RuntimeException ex) {
+            logger.warn("Couldn't migrate the embedded likes", ex);
+        }
+    }
+
+    /**
+     * The likes read from both embedded sides, a like kept by only one of them is still a like.
+     */
+    static class LegacyLikes {
+        final Map<String, BeerLike> likes = new LinkedHashMap<>();
+        final List<Object> migratedUsers = new ArrayList<>();
+        final List<Object> migratedBeers = new ArrayList<>();
+        int skipped;
+
+        /**
+         * @param users - the users with embedded likes, each set holds beer references or beer ids.
+         * @param beers - the beers with embedded likes, each set holds user references or user ids.
+         */
+        static LegacyLikes read(Iterable<Document> users, Iterable<Document> beers) {
+            LegacyLikes legacy = new LegacyLikes();
+
+            for (Document user : users) {
+                String userId = idOf(user.get("_id"));
+                List<Long> beerIds = new ArrayList<>();
+                boolean complete = true;
+
+                for (Object beerRef : user.getList(USER_LIKES, Object.class, List.of())) {
+                    Object beerId = referencedId(beerRef);
+
+                    if (beerId instanceof Number) {
+                        beerIds.add(((Number) beerId).longValue());
+                    } else {
+                        complete = false;
+                    }
+                }
+
+                beerIds.forEach(beerId -> legacy.add(new BeerLike(userId, beerId)));
+                legacy.migrated(complete, legacy.migratedUsers, user.get("_id"));
+            }
+
+            for (Document beer : beers) {
+                if (!(beer.get("_id") instanceof Number)) {
+                    legacy.skipped++;
+                    continue;
+                }
+
+                long beerId = ((Number) beer.get("_id")).longValue();
+                boolean complete = true;
+
+                for (Object userRef : beer.getList(BEER_LIKES, Object.class, List.of())) {
+                    Object userId = referencedId(userRef);
+
+                    if (userId instanceof ObjectId || userId instanceof String) {
+                        legacy.add(new BeerLike(idOf(userId), beerId));
+                    } else {
+                        complete = false;
+                    }
+                }
+
+                legacy.migrated(complete, legacy.migratedBeers, beer.get("_id"));
+            }
+
+            return legacy;
+        }
+
+        private void add(BeerLike like) {
+            likes.putIfAbsent(like.getId(), like);
+        }
+
+        private void migrated(boolean complete, List<Object> migrated, Object id) {
+            if (complete) {
+                migrated.add(id);
+            } else {
+                skipped++;
+            }
+        }
+    }
+
+    /**
+     * The baseline stored the sets as {@code @DBRef}s, a set written by hand may hold the ids themselves.
+     */
+    private static Object referencedId(Object reference) {
+        return reference instanceof DBRef ? ((DBRef) reference).getId() : reference;
+    }
+
+    private void unset(List<Object> ids, String field, Class<?> type) {
+        for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+            mongoTemplate.updateMulti(
+                    Query.query(Criteria.where("_id").in(ids.subList(from, Math.min(ids.size(), from + BATCH_SIZE)))),
+                    new Update().unset(field), type);
+        }
+    }
+
+    private void insert(Collection<BeerLike> likes) {
+        List<BeerLike> batch = new ArrayList<>(BATCH_SIZE);
+
+        for (BeerLike like : likes) {
+            batch.add(like);
+
+            if (batch.size() == BATCH_SIZE) {
+                insertBatch(batch);
+                batch.clear();
+            }
+        }
+
+        insertBatch(batch);
+    }
+
+    private void insertBatch(List<BeerLike> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, BeerLike.class).insert(batch).execute();
+        } catch (BulkOperationException ex) {
+            // Edges left by an earlier, interrupted run.
+            if (ex.getErrors().stream().anyMatch(error -> error.getCode() != DUPLICATE_KEY)) {
+                throw ex;
+            }
+        }
+    }
+
+    /**
+     * Sets the like counter of every beer that had embedded likes from its edges.
+     */
+    private void recount(Collection<BeerLike> likes) {
+        List<Long> beerIds = likes.stream().map(BeerLike::getBeerId).distinct().collect(Collectors.toList());
+        Aggregation countByBeer = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("beerId").in(beerIds)),
+                Aggregation.group("beerId").count().as("count"));
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Beer.class);
+
+        for (Document count : mongoTemplate.aggregate(countByBeer, BeerLike.class, Document.class)) {
+            bulkOperations.updateOne(Query.query(Criteria.where("_id").is(count.get("_id"))),
+                    new Update().set(BeerLikes.LIKE_COUNT, ((Number) count.get("count")).longValue()));
+        }
+
+        bulkOperations.execute();
+    }
+
+    private static String idOf(Object id) {
+        return id instanceof ObjectId ? ((ObjectId) id).toHexString() : String.valueOf(id);
+    }
+}
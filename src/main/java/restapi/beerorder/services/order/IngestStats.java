@@ -0,0 +1,24 @@
+package restapi.beerorder.services.order;
+
+import lombok.Value;
+import restapi.beerorder.auxiliary.metrics.LatencyHistogram;
+
+/**
+ * This class is a point in time view of the write-behind order ingestion.
+ */
+@Value
+public class IngestStats {
+    boolean running;
+    int queueDepth;
+    int queueCapacity;
+    long accepted;
+    long rejected;
+    long committed;
+    long failed;
+    long recovered;
+    long batches;
+    int lastBatchSize;
+    double averageBatchSize;
+    long journalBytes;
+    LatencyHistogram.Snapshot commitLatency;//from acceptance to the DB.
+}
@@ -0,0 +1,19 @@
+package restapi.beerorder.services.order;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Value;
+
+/**
+ * This class tells where an order accepted by {@link OrderIngestion} is.
+ */
+@Value
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class IngestStatus {
+    String orderId;
+    State state;
+    String message;
+
+    public enum State {
+        QUEUED, COMMITTED, FAILED
+    }
+}
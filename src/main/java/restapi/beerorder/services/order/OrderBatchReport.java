@@ -0,0 +1,30 @@
+package restapi.beerorder.services.order;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Value;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class summarizes a batch of submitted orders, the results are in request order.
+ */
+@Value
+public class OrderBatchReport {
+    int received;
+    Map<Status, Integer> counts;
+    List<Result> results;
+
+    public enum Status {
+        CREATED, INVALID, USER_NOT_FOUND, BEER_NOT_FOUND, BELOW_MINIMUM, FAILED
+    }
+
+    @Value
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Result {
+        Status status;
+        String orderId;//only for created orders.
+        Double orderSum;
+        String message;
+    }
+}
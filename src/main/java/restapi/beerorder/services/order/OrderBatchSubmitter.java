@@ -0,0 +1,178 @@
+package restapi.beerorder.services.order;
+
+import com.mongodb.bulk.BulkWriteError;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import restapi.beerorder.auxiliary.pricing.PriceTable;
+import restapi.beerorder.exceptions.InvalidRequestParamException;
+import restapi.beerorder.pojos.order.Order;
+import restapi.beerorder.pojos.user.User;
+import restapi.beerorder.services.order.OrderBatchReport.Result;
+import restapi.beerorder.services.order.OrderBatchReport.Status;
+import restapi.beerorder.services.pricing.PricingEngine;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * This class places many orders at once with the same rules as a single new order.
+ * The users and the beers of the whole batch are resolved with one query each, the orders are priced in memory
+ * and the valid ones are inserted with a single unordered bulk write, so the DB cost doesn't grow with the
+ * number of orders.
+ */
+@Service
+public class OrderBatchSubmitter {
+    private final MongoTemplate mongoTemplate;
+    private final OrderBeerValidator orderBeerValidator;
+    private final PricingEngine pricingEngine;
+    private final int minimumOrderAmount;
+    private final int maxOrders;
+
+    public OrderBatchSubmitter(MongoTemplate mongoTemplate, OrderBeerValidator orderBeerValidator,
+                               PricingEngine pricingEngine,
+                               @Value("${min.order.amount}") int minimumOrderAmount,
+                               @Value("${orders.batch.max-orders:1000}") int maxOrders) {
+        this.mongoTemplate = mongoTemplate;
+        this.orderBeerValidator = orderBeerValidator;
+        this.pricingEngine = pricingEngine;
+        this.minimumOrderAmount = minimumOrderAmount;
+        this.maxOrders = maxOrders;
+    }
+
+    /**
+     * This method validates, prices and inserts a batch of new orders.
+     * @param orders - the new orders, their ids are assigned here.
+     * @return a result per order, in request order.
+     */
+    public OrderBatchReport submit(List<Order> orders) {
+        if (orders.size() > maxOrders) {
+            throw new InvalidRequestParamException("A batch takes at most " + maxOrders + " orders");
+        }
+
+        List<Result> results = new ArrayList<>(orders.size());
+        Set<String> userNames = new HashSet<>();
+        Set<String> beerNames = new HashSet<>();
+
+        for (Order order : orders) {
+            String invalid = invalidReason(order);
+            results.add(invalid == null ? null : new Result(Status.INVALID, null, null, invalid));
+
+            if (invalid == null) {
+                userNames.add(order.getUserName());
+                beerNames.addAll(order.getBeersOrdered().keySet());
+            }
+        }
+
+        Set<String> knownUsers = userNames.isEmpty() ? Set.of() : new HashSet<>(mongoTemplate.findDistinct(
+                Query.query(Criteria.where("userName").in(userNames)), "userName", User.class, String.class));
+        Set<String> missingBeers = beerNames.isEmpty() ? Set.of() : orderBeerValidator.missingBeers(beerNames);
+
+        List<Integer> valid = new ArrayList<>();
+        PriceTable table = pricingEngine.current();//the whole batch is priced with one price list.
+        long now = System.currentTimeMillis();
+
+        for (int i = 0; i < orders.size(); i++) {
+            if (results.get(i) != null) {
+                continue;
+            }
+
+            Order order = orders.get(i);
+            Set<String> missing = new TreeSet<>(order.getBeersOrdered().keySet());
+            missing.retainAll(missingBeers);
+
+            if (!knownUsers.contains(order.getUserName())) {
+                results.set(i, new Result(Status.USER_NOT_FOUND, null, null,
+                        "Could not find user " + order.getUserName()));
+                continue;
+            }
+
+            if (!missing.isEmpty()) {
+                results.set(i, new Result(Status.BEER_NOT_FOUND, null, null,
+                        "The beers: " + String.join(", ", missing) + " don't exist"));
+                continue;
+            }
+
+            order.setOrderSum(table.quote(order.getBeersOrdered(), now).getTotal());
+
+            if (order.getOrderSum() < minimumOrderAmount) {
+                results.set(i, new Result(Status.BELOW_MINIMUM, null, order.getOrderSum(),
+                        "Minimum order amount is " + minimumOrderAmount + "! please add a few more items."));
+                continue;
+            }
+
+            order.setId(new ObjectId().toHexString());
+            valid.add(i);
+        }
+
+        if (!valid.isEmpty()) {
+            insert(orders, valid, results);
+        }
+
+        Map<Status, Integer> counts = new EnumMap<>(Status.class);
+        results.forEach(result -> counts.merge(result.getStatus(), 1, Integer::sum));
+
+        return new OrderBatchReport(orders.size(), counts, results);
+    }
+
+    /**
+     * Inserts the valid orders and maps the write errors back to them, by their bulk index.
+     */
+    private void insert(List<Order> orders, List<Integer> valid, List<Result> results) {
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class);
+        valid.forEach(i -> bulkOperations.insert(orders.get(i)));
+
+        List<BulkWriteError> errors = List.of();
+
+        try {
+            bulkOperations.execute();
+        } catch (BulkOperationException ex) {
+            errors = ex.getErrors();
+        }
+
+        for (int i : valid) {
+            Order order = orders.get(i);
+            results.set(i, new Result(Status.CREATED, order.getId(), order.getOrderSum(), null));
+        }
+
+        for (BulkWriteError error : errors) {
+            int i = valid.get(error.getIndex());
+            results.set(i, new Result(Status.FAILED, null, orders.get(i).getOrderSum(), error.getMessage()));
+        }
+    }
+
+    /**
+     * The checks a single order gets from deserialization and its own fields.
+     * @return why the order is invalid, or null if it isn't.
+     */
+    private static String invalidReason(Order order) {
+        if (order == null) {
+            return "The order is empty";
+        }
+
+        if (order.getUserName() == null || order.getUserName().isBlank()) {
+            return "userName is required";
+        }
+
+        if (order.getBeersOrdered() == null || order.getBeersOrdered().isEmpty()) {
+            return "beersOrdered is required";
+        }
+
+        if (order.getBeersOrdered().values().stream().anyMatch(amount -> Objects.isNull(amount) || amount < 1)) {
+            return "Every beer amount must be positive";
+        }
+
+        return null;
+    }
+}
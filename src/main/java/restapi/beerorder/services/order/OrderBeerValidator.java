@@ -0,0 +1,74 @@
+package restapi.beerorder.services.order;
+
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import restapi.beerorder.exceptions.beer.BeerNotFoundException;
+import restapi.beerorder.exceptions.beer.BeersNotFoundException;
+import restapi.beerorder.pojos.beer.Beer;
+import restapi.beerorder.pojos.order.Order;
+import restapi.beerorder.services.catalog.BeerCatalogCache;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * This class checks that every beer in an order exists, in a single round trip.
+ * Names already in the beers cache are resolved in memory, the rest with one {@code $in} query on the
+ * indexed name field.
+ */
+@Component
+public class OrderBeerValidator {
+    private final MongoTemplate mongoTemplate;
+    private final BeerCatalogCache beerCatalogCache;
+
+    public OrderBeerValidator(MongoTemplate mongoTemplate, BeerCatalogCache beerCatalogCache) {
+        this.mongoTemplate = mongoTemplate;
+        this.beerCatalogCache = beerCatalogCache;
+    }
+
+    /**
+     * This method validates the beers of an order.
+     * @param order - the order to validate.
+     * @throws BeerNotFoundException if a single beer is missing.
+     * @throws BeersNotFoundException naming every missing beer, if several are missing.
+     */
+    public void validate(Order order) {
+        Set<String> missing = missingBeers(order.getBeersOrdered().keySet());
+
+        if (missing.size() == 1) {
+            throw new BeerNotFoundException(missing.iterator().next());
+        }
+
+        if (!missing.isEmpty()) {
+            throw new BeersNotFoundException(missing);
+        }
+    }
+
+    /**
+     * @param names - beer names.
+     * @return the names without a beer, sorted.
+     */
+    public Set<String> missingBeers(Set<String> names) {
+        List<String> unresolved = new ArrayList<>(names.size());
+
+        for (String name : names) {
+            if (!beerCatalogCache.isCachedName(name)) {
+                unresolved.add(name);
+            }
+        }
+
+        Set<String> missing = new TreeSet<>(unresolved);
+
+        if (!unresolved.isEmpty()) {
+            missing.removeAll(new HashSet<>(mongoTemplate.findDistinct(
+                    Query.query(Criteria.where("name").in(unresolved)), "name", Beer.class, String.class)));
+        }
+
+        return missing;
+    }
+}
@@ -0,0 +1,233 @@
+package restapi.beerorder.services.order;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import restapi.beerorder.auxiliary.cache.CacheStats;
+import restapi.beerorder.auxiliary.cache.LruCache;
+import restapi.beerorder.exceptions.order.IdempotencyKeyInUseException;
+import restapi.beerorder.exceptions.order.IdempotencyKeyMismatchException;
+import restapi.beerorder.pojos.order.IdempotencyKey;
+import restapi.beerorder.pojos.order.Order;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * This class makes new order requests with an Idempotency-Key header safe to retry.
+ * The first request with a key claims it in the idempotencyKeys collection, whose id is the key, so only one
+ * request across all instances can run. Its response is kept in a bounded in-memory cache with a time to live
+ * and its outcome in the claim. Retries are answered from the cache, so checking a key costs a map lookup;
+ * retries arriving while the first request runs wait for its response, and a retry reaching another instance
+ * is answered from the stored outcome. A request that fails with an exception releases the key, it had no effect.
+ * A claim that isn't completed within the lease, e.g. because its instance died, is taken over by the next
+ * request with the key.
+ */
+@Service
+public class OrderIdempotency {
+    private final MongoTemplate mongoTemplate;
+    private final long leaseMillis;
+    private final LruCache<String, Outcome> outcomes;
+    private final ConcurrentHashMap<String, CompletableFuture<Outcome>> running = new ConcurrentHashMap<>();
+
+    public OrderIdempotency(MongoTemplate mongoTemplate,
+                            @Value("${orders.idempotency.cache-size:100000}") int cacheSize,
+                            @Value("${orders.idempotency.cache-ttl-seconds:86400}") long cacheTtlSeconds,
+                            @Value("${orders.idempotency.lease-seconds:30}") long leaseSeconds) {
+        this.mongoTemplate = mongoTemplate;
+        this.leaseMillis = TimeUnit.SECONDS.toMillis(leaseSeconds);
+        this.outcomes = new LruCache<>(cacheSize, cacheTtlSeconds);
+    }
+
+    /**
+     * This method runs a new order request once per key.
+     * @param key - the Idempotency-Key header.
+     * @param newOrder - the requested order, a retry must request the same order.
+     * @param create - places the order and returns the response.
+     * @param replay - rebuilds the response of a stored outcome, for retries the cache can't answer.
+     * @return the response of the first request with this key.
+     * @throws IdempotencyKeyMismatchException if the key was used for a different order.
+     * @throws IdempotencyKeyInUseException if the first request with the key runs on another instance.
+     */
+    public ResponseEntity<?> execute(String key, Order newOrder, Supplier<ResponseEntity<?>> create,
+                                     Function<IdempotencyKey, ResponseEntity<?>> replay) {
+        String requestHash = requestHash(newOrder);
+        Outcome outcome = outcomes.get(key);
+
+        if (outcome == null) {
+            CompletableFuture<Outcome> mine = new CompletableFuture<>();
+            CompletableFuture<Outcome> first = running.putIfAbsent(key, mine);
+
+            outcome = first == null ? run(key, newOrder, requestHash, create, replay, mine) : await(first);
+        }
+
+        if (!outcome.requestHash.equals(requestHash)) {
+            throw new IdempotencyKeyMismatchException(key);
+        }
+
+        return outcome.response;
+    }
+
+    public CacheStats cacheStats() {
+        return outcomes.stats();
+    }
+
+    private Outcome run(String key, Order newOrder, String requestHash, Supplier<ResponseEntity<?>> create,
+                        Function<IdempotencyKey, ResponseEntity<?>> replay, CompletableFuture<Outcome> mine) {
+        try {
+            Outcome outcome = outcomes.get(key);//a request that just finished.
+
+            if (outcome == null) {
+                outcome = claimAndCreate(key, newOrder, requestHash, create, replay);
+
+                if (outcome.requestHash.equals(requestHash)) {
+                    outcomes.put(key, outcome);//a different order sent with the key isn't what the key answers.
+                }
+            }
+
+            mine.complete(outcome);
+
+            return outcome;
+        } catch (RuntimeException ex) {
+            mine.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            running.remove(key, mine);
+        }
+    }
+
+    private Outcome claimAndCreate(String key, Order newOrder, String requestHash, Supplier<ResponseEntity<?>> create,
+                                   Function<IdempotencyKey, ResponseEntity<?>> replay) {
+        IdempotencyKey claim = new IdempotencyKey(key, requestHash);
+
+        try {
+            mongoTemplate.insert(claim);
+        } catch (DuplicateKeyException ex) {
+            IdempotencyKey stored = mongoTemplate.findById(key, IdempotencyKey.class);
+
+            if (stored == null || !stored.isCompleted() && !takeOver(stored, claim)) {
+                throw new IdempotencyKeyInUseException(key);
+            }
+
+            if (stored.isCompleted()) {
+                // Rebuilt even for a different order, requests waiting on this one may be retries.
+                return new Outcome(stored.getRequestHash(), replay.apply(stored));
+            }
+        }
+
+        ResponseEntity<?> response;
+
+        try {
+            response = create.get();
+        } catch (RuntimeException ex) {
+            mongoTemplate.remove(Query.query(Criteria.where("_id").is(key).and("completed").is(false)),
+                    IdempotencyKey.class);
+            throw ex;
+        }
+
+        claim.setCompleted(true);
+        claim.setStatus(response.getStatusCodeValue());
+        claim.setLocation(response.getHeaders().getLocation() == null ? null
+                : response.getHeaders().getLocation().toString());
+        claim.setMessage(response.getBody() instanceof String ? (String) response.getBody() : null);
+        claim.setOrderId(response.getStatusCode().is2xxSuccessful() ? newOrder.getId() : null);//set when placed.
+        mongoTemplate.save(claim);
+
+        return new Outcome(requestHash, response);
+    }
+
+    /**
+     * Takes over a claim whose lease ran out, only one request can since the claim must be unchanged.
+     * @return true if the claim is ours now.
+     */
+    private boolean takeOver(IdempotencyKey stored, IdempotencyKey claim) {
+        if (stored.getCreatedAt() != null && claim.getCreatedAt().getTime() - stored.getCreatedAt().getTime()
+                < leaseMillis) {
+            return false;
+        }
+
+        Query unchanged = Query.query(Criteria.where("_id").is(stored.getKey()).and("completed").is(false)
+                .and("createdAt").is(stored.getCreatedAt()));
+        Update reclaim = new Update().set("requestHash", claim.getRequestHash()).set("createdAt", claim.getCreatedAt());
+
+        return mongoTemplate.updateFirst(unchanged, reclaim, IdempotencyKey.class).getModifiedCount() == 1;
+    }
+
+    private static Outcome await(CompletableFuture<Outcome> first) {
+        try {
+            return first.join();
+        } catch (CompletionException ex) {
+            throw ex.getCause() instanceof RuntimeException ? (RuntimeException) ex.getCause() : ex;
+        }
+    }
+
+    /**
+     * What makes a retry the same order, the order id and sum are ours so they're left out.
+     * The fields are written in a fixed order, each one prefixed by its length and the beers sorted by name,
+     * so every instance computes the same SHA-256 and two different orders can't share it.
+     */
+    static String requestHash(Order order) {
+        StringBuilder canonical = new StringBuilder();
+        appendField(canonical, order.getUserName());
+        appendField(canonical, order.getPhoneNumber());
+        appendField(canonical, order.getDateOfOrder() == null ? null : order.getDateOfOrder().getTime());
+        appendField(canonical, order.getDestinationAddress());
+        appendField(canonical, order.getOrderMethod() == null ? null : order.getOrderMethod().name());
+
+        Map<String, Integer> beers = order.getBeersOrdered() == null ? Map.of()
+                : new TreeMap<>(order.getBeersOrdered());
+        appendField(canonical, beers.size());
+        beers.forEach((beer, amount) -> {
+            appendField(canonical, beer);
+            appendField(canonical, amount);
+        });
+
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(canonical.toString().getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+
+            return hex.toString();
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+
+    private static void appendField(StringBuilder canonical, Object value) {
+        if (value == null) {
+            canonical.append("-;");//no field has a negative length.
+            return;
+        }
+
+        String text = value.toString();
+        canonical.append(text.length()).append(':').append(text).append(';');
+    }
+
+    private static final class Outcome {
+        final String requestHash;
+        final ResponseEntity<?> response;
+
+        Outcome(String requestHash, ResponseEntity<?> response) {
+            this.requestHash = requestHash;
+            this.response = response;
+        }
+    }
+}
@@ -0,0 +1,381 @@
+package restapi.beerorder.services.order;
+
+import com.mongodb.bulk.BulkWriteError;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import restapi.beerorder.auxiliary.metrics.LatencyHistogram;
+import restapi.beerorder.auxiliary.order.OrderJournal;
+import restapi.beerorder.exceptions.order.OrderQueueFullException;
+import restapi.beerorder.pojos.order.Order;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class takes validated orders off the request thread: an order is appended to a local journal, queued in
+ * memory and acknowledged once the journal is on the disk - concurrent requests share one fsync - and a
+ * background writer inserts the queue into the DB in unordered bulk batches.
+ * The queue is bounded, a full queue rejects new orders instead of growing. Every written batch is recorded as
+ * a commit in the journal and the journal is emptied whenever nothing is in flight, so after a crash only the
+ * orders that never got their commit are replayed on the next start. Replayed orders that did reach the DB
+ * fail as duplicate keys and are skipped.
+ * The mode is off unless orders.ingest.enabled is set.
+ */
+@Service
+public class OrderIngestion {
+    private static final Logger logger = LoggerFactory.getLogger(OrderIngestion.class);
+    private static final int DUPLICATE_KEY = 11000;
+    private static final int MAX_FAILURES_KEPT = 1000;
+    private static final long MAX_BACKOFF_MILLIS = 5000;
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean enabled;
+    private final int capacity;
+    private final int batchSize;
+    private final Path journalPath;
+    private final boolean fsync;
+    private final long retryBackoffMillis;
+
+    private final Semaphore permits;
+    private final BlockingQueue<Accepted> queue = new LinkedBlockingQueue<>();
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();//ids accepted but not committed.
+    private final Map<String, String> failures = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, false) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                    return size() > MAX_FAILURES_KEPT;
+                }
+            });
+    private final Object journalLock = new Object();
+
+    private final LatencyHistogram commitLatency = new LatencyHistogram();
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder committed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder recovered = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchedOrders = new LongAdder();
+    private volatile int lastBatchSize;
+
+    private volatile OrderJournal journal;
+    private volatile boolean running;
+    private Thread writer;
+
+    public OrderIngestion(MongoTemplate mongoTemplate,
+                          @Value("${orders.ingest.enabled:false}") boolean enabled,
+                          @Value("${orders.ingest.queue-capacity:10000}") int capacity,
+                          @Value("${orders.ingest.batch-size:500}") int batchSize,
+                          @Value("${orders.ingest.journal.path:orders.journal}") String journalPath,
+                          @Value("${orders.ingest.journal.fsync:true}") boolean fsync,
+                          @Value("${orders.ingest.retry-backoff-ms:100}") long retryBackoffMillis) {
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = enabled;
+        this.capacity = Math.max(1, capacity);
+        this.batchSize = Math.max(1, batchSize);
+        this.journalPath = Paths.get(journalPath);
+        this.fsync = fsync;
+        this.retryBackoffMillis = Math.max(1, retryBackoffMillis);
+        this.permits = new Semaphore(this.capacity);
+    }
+
+    /**
+     * Replays the journal left by the previous run and starts the writer.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() throws IOException {
+        if (enabled) {
+            start();
+        }
+    }
+
+    /**
+     * This method writes the orders left in the journal to the DB, then starts taking new orders.
+     * If the DB can't be reached the journal is kept and the mode stays off.
+     * @return the number of replayed orders.
+     */
+    public synchronized int start() throws IOException {
+        if (running) {
+            return 0;
+        }
+
+        List<Document> orders = OrderJournal.replay(journalPath);
+
+        try {
+            for (int from = 0; from < orders.size(); from += batchSize) {
+                List<Document> batch = orders.subList(from, Math.min(orders.size(), from + batchSize));
+                insert(batch).values().stream()
+                        .filter(error -> error.getCode() != DUPLICATE_KEY)
+                        .forEach(error -> logger.error("Could not replay an order: {}", error.getMessage()));
+            }
+        } catch (DataAccessException ex) {
+            logger.warn("Could not replay the order journal, order ingestion stays off", ex);
+            return 0;
+        }
+
+        if (!orders.isEmpty()) {
+            recovered.add(orders.size());
+            logger.info("Replayed {} orders from the order journal", orders.size());
+        }
+
+        journal = OrderJournal.open(journalPath, fsync);
+        running = true;
+        writer = new Thread(this::drain, "OrderIngestWriter");
+        writer.start();
+
+        return orders.size();
+    }
+
+    /**
+     * Writes what's queued and closes the journal.
+     */
+    @PreDestroy
+    public synchronized void stop() throws IOException, InterruptedException {
+        if (!running) {
+            return;
+        }
+
+        running = false;
+        writer.join();
+        journal.close();
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * This method accepts an order for a later write, the order must already be validated and priced.
+     * @param order - the order, its id is assigned here.
+     * @return the order id.
+     * @throws OrderQueueFullException if capacity orders are already waiting.
+     */
+    public String submit(Order order) {
+        if (!permits.tryAcquire()) {
+            rejected.increment();
+            throw new OrderQueueFullException(capacity);
+        }
+
+        order.setId(new ObjectId().toHexString());
+        Document document = new Document();
+        mongoTemplate.getConverter().write(order, document);
+        long now = System.nanoTime();
+
+        try {
+            long sequence;
+
+            synchronized (journalLock) {
+                sequence = journal.appendOrder(document);
+                inFlight.add(order.getId());//keeps the journal from being emptied under the order.
+            }
+
+            journal.sync(sequence);//one fsync for every order appended meanwhile.
+        } catch (IOException ex) {
+            inFlight.remove(order.getId());
+            permits.release();
+            throw new UncheckedIOException(ex);
+        }
+
+        queue.add(new Accepted(order.getId(), document, now));
+
+        accepted.increment();
+
+        return order.getId();
+    }
+
+    /**
+     * @param id - an order id.
+     * @return where the order is, or null for an order we know nothing about.
+     */
+    public IngestStatus status(String id) {
+        if (inFlight.contains(id)) {
+            return new IngestStatus(id, IngestStatus.State.QUEUED, null);
+        }
+
+        String failure = failures.get(id);
+
+        if (failure != null) {
+            return new IngestStatus(id, IngestStatus.State.FAILED, failure);
+        }
+
+        return mongoTemplate.exists(Query.query(Criteria.where("_id").is(id)), Order.class)
+                ? new IngestStatus(id, IngestStatus.State.COMMITTED, null)
+                : null;
+    }
+
+    public IngestStats stats() {
+        long batchCount = batches.sum();
+        long journalBytes;
+
+        try {
+            journalBytes = running ? journal.size() : -1;
+        } catch (IOException ex) {
+            journalBytes = -1;
+        }
+
+        return new IngestStats(running, queue.size(), capacity, accepted.sum(), rejected.sum(), committed.sum(),
+                failed.sum(), recovered.sum(), batchCount, lastBatchSize,
+                batchCount == 0 ? 0 : batchedOrders.sum() / (double) batchCount, journalBytes,
+                commitLatency.snapshot());
+    }
+
+    private void drain() {
+        List<Accepted> batch = new ArrayList<>(batchSize);
+
+        while (running || !queue.isEmpty()) {
+            try {
+                Accepted first = queue.poll(100, TimeUnit.MILLISECONDS);
+
+                if (first == null) {
+                    continue;
+                }
+
+                batch.add(first);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            queue.drainTo(batch, batchSize - 1);
+
+            if (!write(batch)) {
+                return;//stopped while the DB is unreachable, the journal keeps the orders.
+            }
+
+            batch.clear();
+        }
+    }
+
+    /**
+     * Inserts a batch, retrying while the DB is unreachable, then commits it in the journal.
+     * @return false if we were stopped before the batch could be written.
+     */
+    private boolean write(List<Accepted> batch) {
+        List<Document> documents = new ArrayList<>(batch.size());
+        batch.forEach(order -> documents.add(order.document));
+
+        Map<Integer, BulkWriteError> errors = null;
+        long backoff = retryBackoffMillis;
+
+        while (errors == null) {
+            try {
+                errors = insert(documents);
+            } catch (DataAccessException ex) {
+                if (!running) {
+                    return false;
+                }
+
+                logger.warn("Writing {} orders failed, retrying in {} ms", batch.size(), backoff, ex);
+                sleep(backoff);
+                backoff = Math.min(MAX_BACKOFF_MILLIS, backoff * 2);
+            }
+        }
+
+        long now = System.nanoTime();
+        List<Object> ids = new ArrayList<>(batch.size());
+        batch.forEach(order -> ids.add(order.document.get("_id")));//the journaled ids, as the replay reads them.
+
+        try {
+            synchronized (journalLock) {
+                journal.appendCommit(ids);
+                batch.forEach(order -> inFlight.remove(order.id));
+
+                if (inFlight.isEmpty()) {
+                    journal.reset();
+                }
+            }
+        } catch (IOException ex) {
+            // The orders are in the DB, a replay would only hit duplicate keys.
+            logger.warn("Could not commit {} orders in the order journal", ids.size(), ex);
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            Accepted order = batch.get(i);
+            BulkWriteError error = errors.get(i);
+
+            if (error == null || error.getCode() == DUPLICATE_KEY) {
+                committed.increment();
+                commitLatency.record(now - order.acceptedNanos);
+            } else {
+                failed.increment();
+                failures.put(order.id, error.getMessage());
+                logger.error("Could not write order {}: {}", order.id, error.getMessage());
+            }
+        }
+
+        batches.increment();
+        batchedOrders.add(batch.size());
+        lastBatchSize = batch.size();
+        permits.release(batch.size());
+
+        return true;
+    }
+
+    /**
+     * One unordered bulk insert.
+     * @return the write errors by position in the batch.
+     */
+    private Map<Integer, BulkWriteError> insert(List<Document> documents) {
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED,
+                mongoTemplate.getCollectionName(Order.class));
+        bulkOperations.insert(documents);
+
+        Map<Integer, BulkWriteError> errors = new HashMap<>();
+
+        try {
+            bulkOperations.execute();
+        } catch (BulkOperationException ex) {
+            ex.getErrors().forEach(error -> errors.put(error.getIndex(), error));
+        }
+
+        return errors;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class Accepted {
+        final String id;
+        final Document document;
+        final long acceptedNanos;
+
+        Accepted(String id, Document document, long acceptedNanos) {
+            this.id = id;
+            this.document = document;
+            this.acceptedNanos = acceptedNanos;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package restapi.beerorder.services.paging;
+
+import lombok.Value;
+
+/**
+ * This class is the position of a document when paging in (sort field, id) order: the value of the sort field
+ * and the id, which breaks ties between documents with the same value.
+ */
+@Value
+public class KeysetKey {
+    Object value;
+    Object id;
+}
@@ -0,0 +1,19 @@
+package restapi.beerorder.services.paging;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * This class is one page of a keyset paginated collection.
+ * The next page is everything after {@link #getNextAfter()}, which is null on the last page.
+ */
+@Value
+public class KeysetPage<T> {
+    List<T> content;
+    Object nextAfter;
+
+    public boolean hasNext() {
+        return nextAfter != null;
+    }
+}
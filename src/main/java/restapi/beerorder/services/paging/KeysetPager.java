@@ -0,0 +1,199 @@
+package restapi.beerorder.services.paging;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import restapi.beerorder.exceptions.InvalidRequestParamException;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * This class pages through a collection by id instead of by offset: a page is the first {@code limit}
+ * documents with an id greater than the last id of the previous page, so every page is one indexed range scan
+ * no matter how deep it is. Pages can also be ordered by another field, with the id breaking ties. It can also
+ * stream a whole collection as NDJSON straight from a Mongo cursor, so the memory used doesn't grow with the
+ * collection.
+ */
+@Component
+public class KeysetPager {
+    private static final int FLUSH_EVERY = 100;
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+    private final int defaultLimit;
+    private final int maxLimit;
+
+    public KeysetPager(MongoTemplate mongoTemplate, ObjectMapper objectMapper,
+                       @Value("${paging.default-limit:100}") int defaultLimit,
+                       @Value("${paging.max-limit:1000}") int maxLimit) {
+        this.mongoTemplate = mongoTemplate;
+        this.objectMapper = objectMapper;
+        this.defaultLimit = defaultLimit;
+        this.maxLimit = maxLimit;
+    }
+
+    /**
+     * @param requested - the limit the client asked for, or null.
+     * @return the page size to use.
+     */
+    public int limit(Integer requested) {
+        if (requested == null) {
+            return defaultLimit;
+        }
+
+        if (requested < 1 || requested > maxLimit) {
+            throw new InvalidRequestParamException("limit should be between 1 and " + maxLimit);
+        }
+
+        return requested;
+    }
+
+    /**
+     * This method reads one page of the documents matching the filter, in id order.
+     * @param filter - the documents to page through, it mustn't use the id.
+     * @param type - the document class.
+     * @param after - the id the page starts after, null for the first page.
+     * @param limit - the page size.
+     * @param idOf - returns the id of a document.
+     * @return the page, with the id to start the next page after.
+     */
+    public <T> KeysetPage<T> page(Criteria filter, Class<T> type, Object after, int limit, Function<T, Object> idOf) {
+        return page(filter, type, List.of(), after, limit, idOf);
+    }
+
+    /**
+     * This method reads one page of the documents matching the filter, in id order, with only the given fields.
+     * @param fields - the document fields to read, all of them if empty.
+     */
+    public <T> KeysetPage<T> page(Criteria filter, Class<T> type, Collection<String> fields, Object after, int limit,
+                                  Function<T, Object> idOf) {
+        List<T> content = mongoTemplate.find(query(filter, fields, after).limit(limit + 1), type);
+
+        if (content.size() <= limit) {
+            return new KeysetPage<>(content, null);
+        }
+
+        content = content.subList(0, limit);
+
+        return new KeysetPage<>(content, idOf.apply(content.get(limit - 1)));
+    }
+
+    /**
+     * This method reads one page of the documents matching the filter, in (sortField, id) order.
+     * A page starts after the key of the last document of the previous page, so an index on (sortField, _id)
+     * serves every page as one range scan.
+     * @param filter - the documents to page through, it mustn't use the id or $or.
+     * @param sortField - the field to order by, every matching document must have it.
+     * @param after - the key the page starts after, null for the first page.
+     * @param keyOf - returns the key of a document.
+     * @return the page, with the key to start the next page after.
+     */
+    public <T> KeysetPage<T> page(Criteria filter, Class<T> type, Collection<String> fields, String sortField,
+                                  KeysetKey after, int limit, Function<T, KeysetKey> keyOf) {
+        List<T> content = mongoTemplate.find(query(filter, fields, sortField, after).limit(limit + 1), type);
+
+        if (content.size() <= limit) {
+            return new KeysetPage<>(content, null);
+        }
+
+        content = content.subList(0, limit);
+
+        return new KeysetPage<>(content, keyOf.apply(content.get(limit - 1)));
+    }
+
+    /**
+     * This method streams the documents matching the filter as NDJSON, one JSON object per line, in id order.
+     * @param filter - the documents to stream, it mustn't use the id.
+     * @param type - the document class.
+     * @param after - the id to start after, null for all of them.
+     * @param toBody - maps a document to what's written for it.
+     * @return a response that's written while the cursor is read.
+     */
+    public <T> ResponseEntity<StreamingResponseBody> stream(Criteria filter, Class<T> type, Object after,
+                                                            Function<T, ?> toBody) {
+        return stream(filter, type, List.of(), after, toBody);
+    }
+
+    /**
+     * This method streams the documents matching the filter as NDJSON, reading only the given fields.
+     * @param fields - the document fields to read, all of them if empty.
+     */
+    public <T> ResponseEntity<StreamingResponseBody> stream(Criteria filter, Class<T> type, Collection<String> fields,
+                                                            Object after, Function<T, ?> toBody) {
+        return stream(query(filter, fields, after), type, toBody);
+    }
+
+    /**
+     * This method streams the documents matching the filter as NDJSON, in (sortField, id) order.
+     * @param after - the key to start after, null for all of them.
+     */
+    public <T> ResponseEntity<StreamingResponseBody> stream(Criteria filter, Class<T> type, Collection<String> fields,
+                                                            String sortField, KeysetKey after,
+                                                            Function<T, ?> toBody) {
+        return stream(query(filter, fields, sortField, after), type, toBody);
+    }
+
+    private <T> ResponseEntity<StreamingResponseBody> stream(Query query, Class<T> type, Function<T, ?> toBody) {
+        // Flushing is up to us, after every value would mean a network write per document.
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingResponseBody body = out -> {
+            try (CloseableIterator<T> documents = mongoTemplate.stream(query, type);
+                 JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                int written = 0;
+                generator.setRootValueSeparator(null);
+
+                while (documents.hasNext()) {
+                    writer.writeValue(generator, toBody.apply(documents.next()));
+                    generator.writeRaw('\n');
+
+                    if (++written % FLUSH_EVERY == 0) {
+                        generator.flush();
+                    }
+                }
+            }
+        };
+
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    private static Query query(Criteria filter, Collection<String> fields, Object after) {
+        Query query = new Query(filter);
+        fields.forEach(query.fields()::include);
+
+        if (after != null) {
+            query.addCriteria(Criteria.where("_id").gt(after));
+        }
+
+        return query.with(Sort.by("_id"));
+    }
+
+    private static Query query(Criteria filter, Collection<String> fields, String sortField, KeysetKey after) {
+        Query query = new Query(filter);
+        fields.forEach(query.fields()::include);
+
+        if (!fields.isEmpty()) {
+            query.fields().include(sortField);//needed for the next key.
+        }
+
+        if (after != null) {
+            query.addCriteria(new Criteria().orOperator(
+                    Criteria.where(sortField).gt(after.getValue()),
+                    Criteria.where(sortField).is(after.getValue()).and("_id").gt(after.getId())));
+        }
+
+        return query.with(Sort.by(sortField, "_id"));
+    }
+}
@@ -0,0 +1,126 @@
+package restapi.beerorder.services.pricing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import restapi.beerorder.auxiliary.pricing.PriceTable;
+import restapi.beerorder.auxiliary.pricing.Quote;
+import restapi.beerorder.exceptions.pricing.PriceListConflictException;
+import restapi.beerorder.pojos.pricing.PriceList;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * This class prices orders from the current {@link PriceTable}, held in memory and swapped atomically.
+ * A saved price list becomes the next version and is swapped in right away, other instances pick it up on
+ * their next refresh, which only reads the latest version number unless it changed.
+ * Until a price list is saved every beer costs the default beer price.
+ */
+@Component
+public class PricingEngine {
+    private static final Logger logger = LoggerFactory.getLogger(PricingEngine.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final double defaultPrice;
+    private final AtomicReference<PriceTable> table;
+
+    public PricingEngine(MongoTemplate mongoTemplate, @Value("${beer.price}") double defaultPrice) {
+        this.mongoTemplate = mongoTemplate;
+        this.defaultPrice = defaultPrice;
+        this.table = new AtomicReference<>(PriceTable.flat(defaultPrice));
+    }
+
+    /**
+     * This method prices a basket now, it never touches the DB.
+     * @param basket - amount by beer name.
+     * @return the priced basket.
+     */
+    public Quote quote(Map<String, Integer> basket) {
+        return table.get().quote(basket, System.currentTimeMillis());
+    }
+
+    public PriceTable current() {
+        return table.get();
+    }
+
+    /**
+     * This method returns the current price list.
+     * @return the current price list, an empty version 0 one if none was saved yet.
+     */
+    public PriceList currentPriceList() {
+        long version = table.get().getVersion();
+        PriceList priceList = version == 0 ? null : mongoTemplate.findById(version, PriceList.class);
+
+        if (priceList == null) {
+            priceList = new PriceList();
+            priceList.setVersion(version);
+        }
+
+        return priceList;
+    }
+
+    /**
+     * This method saves a price list as the next version and swaps it in.
+     * @param priceList - the new prices, its version and creation date are set here.
+     * @return the compiled table.
+     * @throws PriceListConflictException if another change took the next version first.
+     */
+    public PriceTable publish(PriceList priceList) {
+        long version = latestStoredVersion() + 1;
+        priceList.setVersion(version);
+        priceList.setCreatedAt(new Date());
+
+        PriceTable compiled = PriceTable.of(priceList, defaultPrice);
+
+        try {
+            mongoTemplate.insert(priceList);
+        } catch (DuplicateKeyException ex) {
+            throw new PriceListConflictException(version);
+        }
+
+        swap(compiled);
+        logger.info("Price list version {} is now current", version);
+
+        return compiled;
+    }
+
+    /**
+     * Loads the latest price list if it's newer than ours, also on startup.
+     */
+    @Scheduled(fixedDelayString = "${pricing.refresh-interval-ms:30000}")
+    public void refresh() {
+        long latest = latestStoredVersion();
+
+        if (latest > table.get().getVersion()) {
+            PriceList priceList = mongoTemplate.findById(latest, PriceList.class);
+
+            if (priceList != null) {
+                swap(PriceTable.of(priceList, defaultPrice));
+                logger.info("Loaded price list version {}", latest);
+            }
+        }
+    }
+
+    /**
+     * Swaps the table in unless a newer one already is, so a slow refresh can't undo a publish.
+     */
+    private void swap(PriceTable compiled) {
+        table.accumulateAndGet(compiled, (current, next) -> next.getVersion() > current.getVersion() ? next : current);
+    }
+
+    private long latestStoredVersion() {
+        Query query = new Query().with(Sort.by(Sort.Direction.DESC, "_id")).limit(1);
+        query.fields().include("_id");
+        PriceList latest = mongoTemplate.findOne(query, PriceList.class);
+
+        return latest == null ? 0 : latest.getVersion();
+    }
+}
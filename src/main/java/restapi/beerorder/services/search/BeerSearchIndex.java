@@ -0,0 +1,212 @@
+package restapi.beerorder.services.search;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import restapi.beerorder.auxiliary.catalog.BeerFingerprint;
+import restapi.beerorder.auxiliary.catalog.CatalogChangedEvent;
+import restapi.beerorder.auxiliary.search.InvertedIndex;
+import restapi.beerorder.auxiliary.search.SearchHits;
+import restapi.beerorder.auxiliary.search.TextAnalyzer;
+import restapi.beerorder.pojos.beer.Beer;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * This class keeps a full-text {@link InvertedIndex} of the beers' name, description, brewers tips and
+ * food pairings.
+ * It's built on first use - from the disk snapshot when there is one, re-indexing only the beers whose
+ * fingerprint changed since, otherwise from the DB - and every {@link CatalogChangedEvent} re-indexes the
+ * changed beers. The snapshot is rewritten in the background when the index changed, and on shutdown.
+ */
+@Component
+public class BeerSearchIndex {
+    private static final Logger logger = LoggerFactory.getLogger(BeerSearchIndex.class);
+    private static final String[] FIELDS = {"name", "description", "brewers_tips", "food_pairing"};
+
+    private final MongoTemplate mongoTemplate;
+    private final Path snapshotPath;
+    private final boolean snapshotEnabled;
+    private final int maxPreciseUpdates;
+    private volatile InvertedIndex index;
+    private volatile boolean dirty;
+
+    public BeerSearchIndex(MongoTemplate mongoTemplate,
+                           @Value("${search.snapshot.path:beers.search-index}") String snapshotPath,
+                           @Value("${search.snapshot.enabled:true}") boolean snapshotEnabled,
+                           @Value("${search.max-precise-updates:1000}") int maxPreciseUpdates) {
+        this.mongoTemplate = mongoTemplate;
+        this.snapshotPath = Paths.get(snapshotPath);
+        this.snapshotEnabled = snapshotEnabled;
+        this.maxPreciseUpdates = maxPreciseUpdates;
+    }
+
+    /**
+     * @param query - free text, such as "citrus IPA for spicy food".
+     * @param offset - the number of top hits to skip.
+     * @param limit - the page size.
+     * @return the best matching beer ids with their scores.
+     */
+    public SearchHits search(String query, int offset, int limit) {
+        InvertedIndex current = index;
+
+        if (current == null) {
+            current = load();
+        }
+
+        return current.search(TextAnalyzer.terms(query), offset, limit);
+    }
+
+    @EventListener
+    public synchronized void onCatalogChanged(CatalogChangedEvent event) {
+        if (index == null) {
+            return; // not loaded yet, the first search reads everything.
+        }
+
+        if (event.isWholeCatalog() || event.getBeerIds().size() > maxPreciseUpdates) {
+            // Searches keep using the old index until the new one is complete.
+            InvertedIndex rebuilt = new InvertedIndex();
+            reindex(rebuilt, new Query(), Set.of());
+            index = rebuilt;
+        } else if (!event.getBeerIds().isEmpty()) {
+            reindex(index, Query.query(Criteria.where("_id").in(event.getBeerIds())), event.getBeerIds());
+        }
+    }
+
+    /**
+     * Writes the snapshot if the index changed since the last one.
+     */
+    @Scheduled(fixedDelayString = "${search.snapshot.interval-ms:600000}",
+            initialDelayString = "${search.snapshot.interval-ms:600000}")
+    @PreDestroy
+    public void writeSnapshot() {
+        InvertedIndex current = index;
+
+        if (!snapshotEnabled || current == null || !dirty) {
+            return;
+        }
+
+        dirty = false;
+
+        try {
+            current.writeTo(snapshotPath);
+            logger.info("Wrote {} beers to the search index snapshot {}", current.size(), snapshotPath);
+        } catch (IOException | RuntimeException ex) {
+            dirty = true;
+            logger.warn("Couldn't write the search index snapshot " + snapshotPath, ex);
+        }
+    }
+
+    private synchronized InvertedIndex load() {
+        if (index != null) {
+            return index;
+        }
+
+        long start = System.nanoTime();
+
+        if (snapshotEnabled && Files.isRegularFile(snapshotPath)) {
+            try {
+                InvertedIndex snapshot = InvertedIndex.readFrom(snapshotPath);
+                reconcile(snapshot);
+                index = snapshot;
+            } catch (IOException | RuntimeException ex) {
+                logger.warn("Couldn't read the search index snapshot " + snapshotPath + ", rebuilding it", ex);
+            }
+        }
+
+        if (index == null) {
+            InvertedIndex built = new InvertedIndex();
+            reindex(built, new Query(), Set.of());
+            index = built;
+        }
+
+        logger.info("Search index ready with {} beers in {} ms", index.size(), (System.nanoTime() - start) / 1_000_000);
+
+        return index;
+    }
+
+    /**
+     * Brings a snapshot up to date: beers that changed or are new are re-indexed, deleted beers are removed.
+     */
+    private void reconcile(InvertedIndex snapshot) {
+        Query query = new Query();
+        query.fields().include(BeerFingerprint.FIELD);
+        Map<Long, String> indexed = snapshot.fingerprints();
+        Set<Long> stale = new HashSet<>();
+        Set<Long> present = new HashSet<>();
+
+        for (Document beer : mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(Beer.class))) {
+            if (beer.get("_id") instanceof Long) {
+                Long id = beer.getLong("_id");
+                present.add(id);
+
+                if (!indexed.containsKey(id) || !Objects.equals(indexed.get(id), beer.getString(BeerFingerprint.FIELD))) {
+                    stale.add(id);
+                }
+            }
+        }
+
+        indexed.keySet().stream().filter(id -> !present.contains(id)).forEach(snapshot::remove);
+
+        if (!stale.isEmpty()) {
+            reindex(snapshot, Query.query(Criteria.where("_id").in(stale)), stale);
+        }
+
+        dirty = dirty || !stale.isEmpty() || present.size() != indexed.size();
+    }
+
+    /**
+     * Indexes the beers matching the query and removes the expected ones that weren't found.
+     */
+    private void reindex(InvertedIndex target, Query query, Collection<Long> expected) {
+        query.fields().include(FIELDS).include(BeerFingerprint.FIELD);
+        Set<Long> missing = new HashSet<>(expected);
+
+        for (Document beer : mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(Beer.class))) {
+            if (!(beer.get("_id") instanceof Long)) {
+                continue;
+            }
+
+            Long id = beer.getLong("_id");
+            missing.remove(id);
+            target.put(id, beer.getString(BeerFingerprint.FIELD), TextAnalyzer.terms(text(beer)));
+        }
+
+        missing.forEach(target::remove);
+        dirty = true;
+    }
+
+    private static String text(Document beer) {
+        List<String> parts = new ArrayList<>();
+
+        for (String field : FIELDS) {
+            Object value = beer.get(field);
+
+            if (value instanceof Collection) {
+                ((Collection<?>) value).forEach(item -> parts.add(String.valueOf(item)));
+            } else if (value != null) {
+                parts.add(value.toString());
+            }
+        }
+
+        return String.join(" ", parts);
+    }
+}
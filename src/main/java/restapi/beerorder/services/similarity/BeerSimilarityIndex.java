@@ -0,0 +1,110 @@
+package restapi.beerorder.services.similarity;
+
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import restapi.beerorder.auxiliary.catalog.CatalogChangedEvent;
+import restapi.beerorder.auxiliary.similarity.BeerFeatures;
+import restapi.beerorder.auxiliary.similarity.VectorIndex;
+import restapi.beerorder.pojos.beer.Beer;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * This class keeps a feature vector of every beer in a {@link VectorIndex}, in sync with the DB, to find
+ * the beers most like a given one.
+ * It's loaded on first use with a single projected query. Every {@link CatalogChangedEvent} re-reads only
+ * the changed beers and replaces their vectors in place, the whole catalog is re-read when it's cheaper.
+ */
+@Component
+public class BeerSimilarityIndex {
+    private final MongoTemplate mongoTemplate;
+    private final int maxPreciseUpdates;
+    private final int parallelThreshold;
+    private volatile VectorIndex index;
+
+    public BeerSimilarityIndex(MongoTemplate mongoTemplate,
+                               @Value("${similarity.max-precise-updates:1000}") int maxPreciseUpdates,
+                               @Value("${similarity.parallel-threshold:50000}") int parallelThreshold) {
+        this.mongoTemplate = mongoTemplate;
+        this.maxPreciseUpdates = maxPreciseUpdates;
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * @param beerId - the beer to find neighbours of.
+     * @param k - the number of beers.
+     * @return the ids and cosine similarities of the k most similar beers, most similar first.
+     * Null if the beer isn't indexed.
+     */
+    public List<VectorIndex.Neighbor> similarTo(long beerId, int k) {
+        VectorIndex current = index;
+
+        if (current == null) {
+            current = load();
+        }
+
+        return current.nearest(beerId, k, current.size() >= parallelThreshold);
+    }
+
+    @EventListener
+    public synchronized void onCatalogChanged(CatalogChangedEvent event) {
+        if (index == null) {
+            return; // not loaded yet, the first query reads everything.
+        }
+
+        if (event.isWholeCatalog() || event.getBeerIds().size() > maxPreciseUpdates) {
+            reload();
+        } else if (!event.getBeerIds().isEmpty()) {
+            update(event.getBeerIds());
+        }
+    }
+
+    private synchronized VectorIndex load() {
+        if (index == null) {
+            reload();
+        }
+
+        return index;
+    }
+
+    private synchronized void reload() {
+        Query query = projected(new Query());
+        List<Document> beers = mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(Beer.class));
+        VectorIndex fresh = new VectorIndex(BeerFeatures.DIMENSIONS, beers.size());
+
+        for (Document beer : beers) {
+            if (beer.get("_id") instanceof Long) {
+                fresh.put(beer.getLong("_id"), BeerFeatures.vector(beer));
+            }
+        }
+
+        index = fresh;
+    }
+
+    private synchronized void update(Set<Long> beerIds) {
+        Set<Long> deleted = new HashSet<>(beerIds);
+        Query query = projected(Query.query(Criteria.where("_id").in(beerIds)));
+
+        for (Document beer : mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(Beer.class))) {
+            if (beer.get("_id") instanceof Long) {
+                index.put(beer.getLong("_id"), BeerFeatures.vector(beer));
+                deleted.remove(beer.getLong("_id"));
+            }
+        }
+
+        deleted.forEach(index::remove);
+    }
+
+    private static Query projected(Query query) {
+        BeerFeatures.DOCUMENT_FIELDS.forEach(query.fields()::include);
+
+        return query;
+    }
+}
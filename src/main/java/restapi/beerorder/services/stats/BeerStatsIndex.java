@@ -0,0 +1,121 @@
+package restapi.beerorder.services.stats;
+
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import restapi.beerorder.auxiliary.catalog.CatalogChangedEvent;
+import restapi.beerorder.auxiliary.stats.BeerAttribute;
+import restapi.beerorder.auxiliary.stats.BeerColumns;
+import restapi.beerorder.auxiliary.stats.ColumnStats;
+import restapi.beerorder.pojos.beer.Beer;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class keeps the numeric beer attributes of the whole catalog in a {@link BeerColumns} store, in sync
+ * with the DB, and answers range filters, percentiles and histograms from memory.
+ * It's loaded on first use with a single projected query, and every {@link CatalogChangedEvent} re-reads only
+ * the changed beers, the whole catalog is re-read when it's cheaper.
+ */
+@Component
+public class BeerStatsIndex {
+    private static final BeerAttribute[] ATTRIBUTES = BeerAttribute.values();
+
+    private final MongoTemplate mongoTemplate;
+    private final int maxPreciseUpdates;
+    private final int parallelThreshold;
+    private volatile BeerColumns columns;
+
+    public BeerStatsIndex(MongoTemplate mongoTemplate,
+                          @Value("${stats.max-precise-updates:1000}") int maxPreciseUpdates,
+                          @Value("${stats.parallel-threshold:65536}") int parallelThreshold) {
+        this.mongoTemplate = mongoTemplate;
+        this.maxPreciseUpdates = maxPreciseUpdates;
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * @param attribute - the attribute to describe.
+     * @param filters - the range each filtered attribute must fall in.
+     * @param percentiles - the percentiles to report.
+     * @param bins - the number of histogram buckets, 0 for none.
+     * @return the stats of the attribute over the matching beers.
+     */
+    public ColumnStats stats(BeerAttribute attribute, Map<BeerAttribute, BeerColumns.Bounds> filters,
+                             double[] percentiles, int bins) {
+        BeerColumns current = columns;
+
+        if (current == null) {
+            current = load();
+        }
+
+        boolean parallel = current.size() >= parallelThreshold;
+
+        return current.stats(attribute, current.matching(filters, parallel), percentiles, bins, parallel);
+    }
+
+    @EventListener
+    public synchronized void onCatalogChanged(CatalogChangedEvent event) {
+        if (columns == null) {
+            return; // not loaded yet, the first query reads everything.
+        }
+
+        if (event.isWholeCatalog() || event.getBeerIds().size() > maxPreciseUpdates) {
+            reload();
+        } else if (!event.getBeerIds().isEmpty()) {
+            columns = columns.with(event.getBeerIds(),
+                    read(Query.query(Criteria.where("_id").in(event.getBeerIds()))));
+        }
+    }
+
+    private synchronized BeerColumns load() {
+        if (columns == null) {
+            reload();
+        }
+
+        return columns;
+    }
+
+    private synchronized void reload() {
+        columns = read(new Query());
+    }
+
+    private BeerColumns read(Query query) {
+        BeerColumns.Builder builder = BeerColumns.builder(0);
+
+        for (BeerAttribute attribute : ATTRIBUTES) {
+            query.fields().include(attribute.getDocumentField());
+        }
+
+        for (Document beer : mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(Beer.class))) {
+            if (!(beer.get("_id") instanceof Long)) {
+                continue;
+            }
+
+            double[] values = new double[ATTRIBUTES.length];
+
+            for (BeerAttribute attribute : ATTRIBUTES) {
+                values[attribute.ordinal()] = value(beer, attribute.getDocumentField());
+            }
+
+            builder.add(beer.getLong("_id"), values);
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * @param path - a dotted field path, such as "volume.value".
+     * @return the number at the path, or NaN.
+     */
+    private static double value(Document document, String path) {
+        Object value = document.getEmbedded(List.of(path.split("\\.")), Object.class);
+
+        return value instanceof Number ? ((Number) value).doubleValue() : Double.NaN;
+    }
+}
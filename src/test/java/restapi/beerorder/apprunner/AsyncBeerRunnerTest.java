@@ -0,0 +1,180 @@
+package restapi.beerorder.apprunner;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import restapi.beerorder.BeerOrderApplication;
+import restapi.beerorder.auxiliary.catalog.CatalogState;
+import restapi.beerorder.controllers.catalog.CatalogCompletenessInterceptor;
+import restapi.beerorder.controllers.health.HealthController;
+import restapi.beerorder.services.StubPunkApi;
+import restapi.beerorder.services.catalog.CatalogSnapshot;
+import restapi.beerorder.services.catalog.CatalogSync;
+import restapi.beerorder.services.catalog.CatalogWarmup;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class AsyncBeerRunnerTest {
+    private final CountDownLatch syncMayFinish = new CountDownLatch(1);
+    private final AtomicLong beersInDb = new AtomicLong();
+    private ExecutorService executor;
+    private CatalogWarmup catalogWarmup;
+    private CatalogSync catalogSync;
+    private AsyncBeerRunner runner;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        executor = Executors.newSingleThreadExecutor();
+        catalogWarmup = new CatalogWarmup(beersInDb::get);
+
+        CatalogSnapshot catalogSnapshot = mock(CatalogSnapshot.class);
+        when(catalogSnapshot.load()).thenAnswer(invocation -> {
+            beersInDb.set(120);
+            return 120;
+        });
+
+        catalogSync = mock(CatalogSync.class);
+        when(catalogSync.sync()).thenAnswer(invocation -> {
+            syncMayFinish.await();
+            beersInDb.set(325);
+            return null;
+        });
+
+        runner = new AsyncBeerRunner(catalogSnapshot, catalogSync, catalogWarmup, executor, 1, 10);
+        mockMvc = MockMvcBuilders.standaloneSetup(new HealthController(catalogWarmup))
+                .addInterceptors(new CatalogCompletenessInterceptor(catalogWarmup))
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        syncMayFinish.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void servesRequestsWhileTheCatalogWarmsUp() throws Exception {
+        runner.onApplicationReady();
+
+        // The sync can't finish yet, so this is served while the catalog warms up.
+        mockMvc.perform(get("/health/liveness")).andExpect(status().isOk());
+        assertNotEquals(CatalogState.READY, catalogWarmup.getState());
+
+        waitFor(CatalogState.PARTIALLY_LOADED);
+        mockMvc.perform(get("/health/readiness"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.state").value("PARTIALLY_LOADED"))
+                .andExpect(header().string(CatalogCompletenessInterceptor.HEADER, "PARTIALLY_LOADED;loaded=120"));
+
+        syncMayFinish.countDown();
+        waitFor(CatalogState.READY);
+
+        mockMvc.perform(get("/health/readiness"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.loadedBeers").value(325))
+                .andExpect(header().string(CatalogCompletenessInterceptor.HEADER, "READY;loaded=325"));
+    }
+
+    @Test
+    void retriesAFailedSyncUntilTheCatalogIsReady() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        doAnswer(invocation -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new IllegalStateException("PunkAPI is down");
+            }
+
+            beersInDb.set(325);
+            return null;
+        }).when(catalogSync).sync();
+
+        runner.onApplicationReady();
+        waitFor(CatalogState.READY);
+
+        assertEquals(3, attempts.get());
+        mockMvc.perform(get("/health/readiness")).andExpect(status().isOk());
+    }
+
+    /**
+     * Boots the whole application against a slow PunkAPI and an empty DB, then times the first served
+     * /beers request against the catalog becoming ready - when the old startup runner let the first request in.
+     * Needs a disposable Mongo DB, e.g. -Dbenchmark.mongo.uri=mongodb://localhost/beer-benchmark
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark.mongo.uri", matches = ".+")
+    void startupToFirstRequestBenchmark() throws Exception {
+        String mongoUri = System.getProperty("benchmark.mongo.uri");
+
+        try (MongoClient mongoClient = MongoClients.create(mongoUri);
+             StubPunkApi punkApi = new StubPunkApi(325)) {
+            mongoClient.getDatabase(new ConnectionString(mongoUri).getDatabase()).drop();
+            punkApi.delayNext(-1, 500);
+
+            long start = System.nanoTime();
+            ConfigurableApplicationContext context = new SpringApplicationBuilder(BeerOrderApplication.class)
+                    .run("--server.port=0", "--spring.data.mongodb.uri=" + mongoUri,
+                            "--punk.api.url=" + punkApi.getUrl(), "--catalog.snapshot.enabled=false");
+
+            try {
+                int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+                HttpResponse<String> response = HttpClient.newHttpClient().send(
+                        HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/beers")).build(),
+                        HttpResponse.BodyHandlers.ofString());
+                long firstRequestMillis = (System.nanoTime() - start) / 1_000_000;
+
+                catalogWarmup = context.getBean(CatalogWarmup.class);
+                waitFor(CatalogState.READY, 60);
+                long readyMillis = (System.nanoTime() - start) / 1_000_000;
+
+                System.out.printf("first /beers served after %d ms, catalog ready after %d ms%n",
+                        firstRequestMillis, readyMillis);
+                assertEquals(200, response.statusCode());
+                assertTrue(firstRequestMillis < readyMillis);
+            } finally {
+                context.close();
+            }
+        }
+    }
+
+    private void waitFor(CatalogState state) throws InterruptedException {
+        waitFor(state, 5);
+    }
+
+    private void waitFor(CatalogState state, long seconds) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+
+        while (catalogWarmup.getState() != state && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+
+        assertTrue(catalogWarmup.getState() == state, "still " + catalogWarmup.getState());
+    }
+}
@@ -0,0 +1,36 @@
+package restapi.beerorder.auxiliary.catalog;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class BeerFingerprintTest {
+
+    private static Document beer(long id, Object abv) {
+        return new Document("_id", id).append("name", "Buzz").append("abv", abv)
+                .append("ingredients", new Document("malt", List.of(new Document("name", "Extra Pale"))))
+                .append("usersThatLikeThisBeer", List.of("someone"));
+    }
+
+    @Test
+    void contentHashIgnoresTheIdAndLikes() {
+        Document buzz = beer(1, 4.5);
+        Document copy = beer(2, 4.5).append("usersThatLikeThisBeer", List.of());
+
+        assertEquals(BeerFingerprint.contentHash(buzz), BeerFingerprint.contentHash(copy));
+        assertNotEquals(BeerFingerprint.of(buzz), BeerFingerprint.of(copy));
+        assertNotEquals(BeerFingerprint.contentHash(buzz), BeerFingerprint.contentHash(beer(1, 5.0)));
+    }
+
+    @Test
+    void numbersAndKeyOrderDontMatter() {
+        Document reordered = new Document("abv", 4).append("name", "Buzz").append("_id", 1L)
+                .append("ingredients", new Document("malt", List.of(new Document("name", "Extra Pale"))));
+
+        assertEquals(BeerFingerprint.of(beer(1, 4.0)), BeerFingerprint.of(reordered));
+    }
+}
@@ -0,0 +1,114 @@
+package restapi.beerorder.auxiliary.catalog;
+
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import restapi.beerorder.services.StubPunkApi;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CatalogSnapshotFileTest {
+    private static final int BEERS = 10_000;
+    private static final int PAGE_SIZE = 80;
+
+    @TempDir
+    Path directory;
+
+    private static List<RawBsonDocument> catalog() {
+        DocumentCodec codec = new DocumentCodec();
+        List<RawBsonDocument> beers = new ArrayList<>(BEERS);
+
+        for (long id = 1; id <= BEERS; id++) {
+            Document beer = new Document("_id", id)
+                    .append("name", "Beer " + id)
+                    .append("description", "A crisp, citrus IPA brewed with Simcoe and Maris Otter, batch " + id)
+                    .append("abv", 4.5 + id % 7)
+                    .append("ibu", 20.0 + id % 40)
+                    .append("ingredients", new Document("malt", List.of(new Document("name", "Maris Otter")
+                            .append("amount", new Document("value", 3.3).append("unit", "kilograms"))))
+                            .append("yeast", "Wyeast 1056"))
+                    .append("food_pairing", List.of("Spicy chicken", "Carrot cake"));
+            beers.add(new RawBsonDocument(beer, codec));
+        }
+
+        return beers;
+    }
+
+    @Test
+    void roundTripsCompressedAndPlainSnapshots() throws Exception {
+        List<RawBsonDocument> beers = catalog();
+
+        for (boolean compress : new boolean[] {true, false}) {
+            Path path = directory.resolve("beers-" + compress + ".snapshot");
+            assertEquals(BEERS, CatalogSnapshotFile.write(path, beers, compress));
+
+            List<RawBsonDocument> read = new ArrayList<>();
+            CatalogSnapshotFile.read(path, read::add);
+
+            assertEquals(beers, read);
+        }
+    }
+
+    /**
+     * Cold start load time: reading the snapshot against crawling the same catalog page by page from a local
+     * stub PunkAPI, the path taken without a snapshot. The stub answers at once, so the crawl is a lower bound.
+     * Run with -Dbenchmark=true.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void snapshotAgainstPunkApiCrawl() throws Exception {
+        DocumentCodec codec = new DocumentCodec();
+        HttpClient client = HttpClient.newHttpClient();
+
+        try (StubPunkApi punkApi = new StubPunkApi(BEERS)) {
+            List<Document> crawled = new ArrayList<>(BEERS);
+            long start = System.nanoTime();
+
+            for (int page = 1; ; page++) {
+                HttpRequest request = HttpRequest.newBuilder(
+                        URI.create(punkApi.getUrl() + "/beers?page=" + page + "&per_page=" + PAGE_SIZE)).build();
+                int beers;
+
+                try (InputStream body = client.send(request, HttpResponse.BodyHandlers.ofInputStream()).body()) {
+                    beers = BeerJsonStream.parse(body, crawled::add);
+                }
+
+                if (beers < PAGE_SIZE) {
+                    break;
+                }
+            }
+
+            double crawlMillis = (System.nanoTime() - start) / 1e6;
+
+            for (boolean compress : new boolean[] {true, false}) {
+                Path path = directory.resolve("crawled-" + compress + ".snapshot");
+                CatalogSnapshotFile.write(path, crawled.stream().map(beer -> new RawBsonDocument(beer, codec))
+                        .collect(Collectors.toList()), compress);
+
+                List<RawBsonDocument> read = new ArrayList<>(BEERS);
+                start = System.nanoTime();
+                CatalogSnapshotFile.read(path, read::add);
+                double snapshotMillis = (System.nanoTime() - start) / 1e6;
+
+                assertEquals(crawled.size(), read.size());
+                System.out.printf("%d beers, compress=%s: %d bytes, %.1f ms from the snapshot, "
+                        + "%.1f ms crawling PunkAPI pages%n", crawled.size(), compress, Files.size(path),
+                        snapshotMillis, crawlMillis);
+            }
+        }
+    }
+}
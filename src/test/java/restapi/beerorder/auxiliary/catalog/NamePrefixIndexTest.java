@@ -0,0 +1,99 @@
+package restapi.beerorder.auxiliary.catalog;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class NamePrefixIndexTest {
+    private static final String[] WORDS = {"Punk", "Hazy", "Jack", "Elvis", "Dead", "Pony", "Black", "Trashy"};
+
+    @Test
+    void findsNamesByPrefixIgnoringCase() {
+        NamePrefixIndex index = NamePrefixIndex.of(List.of(
+                new NamePrefixIndex.Entry(1L, "Punk IPA", 3.3),
+                new NamePrefixIndex.Entry(2L, "Pale Ale", 4.0),
+                new NamePrefixIndex.Entry(3L, "punk AF", 2.0),
+                new NamePrefixIndex.Entry(4L, "Elvis Juice", 5.0)));
+
+        assertEquals(List.of(3L, 1L), ids(index.startingWith("PUNK", 0)));
+        assertEquals(List.of(2L), ids(index.startingWith("pa", 1)));
+        assertEquals(List.of(), ids(index.startingWith("Z", 0)));
+
+        NamePrefixIndex changed = index.with(Set.of(1L, 4L), Map.of(1L, new NamePrefixIndex.Entry(1L, "Zombie", 1.0)));
+        assertEquals(List.of(3L), ids(changed.startingWith("punk", 0)));
+        assertEquals(List.of(1L), ids(changed.startingWith("z", 0)));
+        assertEquals(3, changed.size());
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    void matchesACaseInsensitiveRegexScan() {
+        List<NamePrefixIndex.Entry> entries = entries(2_000);
+        NamePrefixIndex index = NamePrefixIndex.of(entries);
+
+        for (String prefix : List.of("elvis d", "punk punk 1", "trashy black 99", "zzz")) {
+            assertEquals(scan(entries, prefix), index.startingWith(prefix, 0).size(), prefix);
+        }
+    }
+
+    /**
+     * Prefix lookups on 100k names against a case-insensitive regex over every name, like an unindexed query.
+     * Run with -Dbenchmark=true.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void lookupLatencyAgainstRegexScan() {
+        List<NamePrefixIndex.Entry> entries = entries(100_000);
+        NamePrefixIndex index = NamePrefixIndex.of(entries);
+
+        for (String prefix : List.of("elvis d", "punk punk 1", "trashy black 99")) {
+            int indexed = 0;
+            long indexNanos = Long.MAX_VALUE;
+            long scanNanos = Long.MAX_VALUE;
+
+            for (int round = 0; round < 20; round++) {
+                long start = System.nanoTime();
+                indexed = index.startingWith(prefix, 0).size();
+                indexNanos = Math.min(indexNanos, System.nanoTime() - start);
+
+                start = System.nanoTime();
+                scan(entries, prefix);
+                scanNanos = Math.min(scanNanos, System.nanoTime() - start);
+            }
+
+            System.out.printf("%-16s %5d matches: index %6.1f us, regex scan %8.1f us%n", prefix, indexed,
+                    indexNanos / 1e3, scanNanos / 1e3);
+        }
+    }
+
+    private static List<NamePrefixIndex.Entry> entries(int count) {
+        Random random = new Random(7);
+        List<NamePrefixIndex.Entry> entries = new ArrayList<>();
+
+        for (long id = 0; id < count; id++) {
+            entries.add(new NamePrefixIndex.Entry(id, WORDS[random.nextInt(WORDS.length)] + " "
+                    + WORDS[random.nextInt(WORDS.length)] + " " + id, 1.0));
+        }
+
+        return entries;
+    }
+
+    private static int scan(List<NamePrefixIndex.Entry> entries, String prefix) {
+        Pattern pattern = Pattern.compile("^" + Pattern.quote(prefix), Pattern.CASE_INSENSITIVE);
+
+        return (int) entries.stream().filter(entry -> pattern.matcher(entry.getName()).find()).count();
+    }
+
+    private static List<Long> ids(List<NamePrefixIndex.Entry> entries) {
+        return entries.stream().map(NamePrefixIndex.Entry::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,94 @@
+package restapi.beerorder.auxiliary.executor;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InstrumentedExecutorTest {
+    private static final int TASKS = 400;
+    private static final long IO_MILLIS = 10;
+
+    @Test
+    void countsRejectionsAndQueueDepth() throws Exception {
+        InstrumentedExecutor executor = InstrumentedExecutor.threadPool("test", 1, 1, 1, "array", 1, "abort");
+        CountDownLatch release = new CountDownLatch(1);
+
+        executor.execute(() -> await(release));
+        executor.execute(() -> { });
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> { }));
+
+        ExecutorStats busy = executor.stats();
+        assertEquals(1, busy.getQueueDepth());
+        assertEquals(1, busy.getRejected());
+
+        release.countDown();
+        executor.shutdown();
+        while (executor.stats().getRunTime().getCount() < 2) {
+            Thread.sleep(5);
+        }
+
+        assertEquals(2, executor.stats().getCompleted());
+    }
+
+    /**
+     * Throughput of blocking I/O-like tasks in each mode, virtual threads only run on JDK 21+.
+     * Run with -Dbenchmark=true.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void blockingIoThroughput() throws Exception {
+        report(InstrumentedExecutor.threadPool("platform-8", 8, 8, 1, "linked", TASKS, "abort"));
+        report(InstrumentedExecutor.threadPool("platform-64", 64, 64, 1, "linked", TASKS, "abort"));
+        report(InstrumentedExecutor.threadPool("caller-runs-8", 8, 8, 1, "array", 16, "caller-runs"));
+        InstrumentedExecutor.virtualThreads("virtual").ifPresent(InstrumentedExecutorTest::report);
+    }
+
+    private static void report(InstrumentedExecutor executor) {
+        CountDownLatch done = new CountDownLatch(TASKS);
+        long start = System.nanoTime();
+
+        for (int i = 0; i < TASKS; i++) {
+            executor.execute(() -> {
+                sleep(IO_MILLIS);
+                done.countDown();
+            });
+        }
+
+        await(done);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        executor.shutdown();
+
+        // The latch is released inside the task, a moment before the executor counts it as completed.
+        while (executor.stats().getRunTime().getCount() < TASKS) {
+            sleep(1);
+        }
+
+        ExecutorStats stats = executor.stats();
+        System.out.printf("%-14s %7.0f tasks/sec, queue wait p99 %.1f ms%n", executor.getName(),
+                TASKS / seconds, stats.getQueueWait().getP99Millis());
+        assertEquals(TASKS, stats.getCompleted());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(30, TimeUnit.SECONDS));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package restapi.beerorder.auxiliary.fields;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.hateoas.EntityModel;
+import restapi.beerorder.dtos.BeerDTO;
+import restapi.beerorder.exceptions.InvalidRequestParamException;
+import restapi.beerorder.pojos.beer.Beer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SparseFieldsTest {
+    private final ObjectMapper objectMapper = new ObjectMapper().setFilterProvider(SparseFieldsFilter.provider());
+
+    @Test
+    void selectionReadsOnlyTheDocumentFieldsAskedFor() {
+        FieldSelection selection = BeerDTO.FIELDS.select("id, name,alcoholPercentage,note");
+
+        assertFalse(selection.isAll());
+        assertTrue(selection.includes("abv"));
+        assertFalse(selection.includes("ingredients"));
+        assertEquals(List.of("_id", "name", "abv"), selection.getDocumentFields());
+
+        assertTrue(BeerDTO.FIELDS.select(null).isAll());
+        assertTrue(BeerDTO.FIELDS.select(" , ").isAll());
+        assertTrue(BeerDTO.FIELDS.all().getDocumentFields().contains("food_pairing"));
+        assertThrows(InvalidRequestParamException.class, () -> BeerDTO.FIELDS.select("name,usersThatLikeThisBeer"));
+    }
+
+    @Test
+    void trimmedBeersLeaveTheOtherFieldsOut() throws Exception {
+        Beer beer = beer();
+
+        JsonNode sparse = objectMapper.readTree(objectMapper.writeValueAsString(
+                new BeerDTO(beer, BeerDTO.FIELDS.select("id,name,abv"))));
+
+        assertEquals(List.of("id", "name", "alcoholPercentage"), fieldNames(sparse));
+        assertEquals(4.7, sparse.get("alcoholPercentage").asDouble());
+
+        // A selected field without a value is still there.
+        beer.setDescription(null);
+        JsonNode named = objectMapper.readTree(objectMapper.writeValueAsString(
+                EntityModel.of(new BeerDTO(beer, BeerDTO.FIELDS.select("description")))));
+
+        assertEquals(List.of("id", "description", "links"), fieldNames(named));
+        assertTrue(named.get("description").isNull());
+    }
+
+    @Test
+    void beersWithoutFieldsKeepTheirShape() throws Exception {
+        Beer beer = beer();
+        beer.setBrewers_tips(null);
+
+        JsonNode full = objectMapper.readTree(objectMapper.writeValueAsString(new BeerDTO(beer)));
+
+        assertEquals(Set.of("id", "name", "description", "firstlyBrewed", "alcoholPercentage", "bitterness",
+                "ingredients", "matchingFood", "brewersTips", "note", "likeCount"), Set.copyOf(fieldNames(full)));
+        assertTrue(full.get("brewersTips").isNull());
+        assertEquals(0, full.get("likeCount").asLong());
+    }
+
+    private static List<String> fieldNames(JsonNode node) {
+        List<String> names = new ArrayList<>();
+        node.fieldNames().forEachRemaining(names::add);
+
+        return names;
+    }
+
+    private static Beer beer() {
+        Beer beer = new Beer();
+        beer.setId(1L);
+        beer.setName("Buzz");
+        beer.setDescription("A light, crisp and bitter IPA brewed with English and American hops.");
+        beer.setFirst_brewed("09/2007");
+        beer.setAbv(4.7);
+        beer.setIbu(60.0);
+        beer.setIngredients(new Beer.Ingredients(new ArrayList<>(), new ArrayList<>(), "Wyeast 1056"));
+        beer.setFood_pairing(List.of("Spicy chicken tikka masala", "Grilled chicken quesadilla"));
+        beer.setBrewers_tips("The earthy and floral aromas from the hops can be overpowering.");
+
+        return beer;
+    }
+}
@@ -0,0 +1,112 @@
+package restapi.beerorder.auxiliary.pricing;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import restapi.beerorder.auxiliary.order.BeerQuantity;
+import restapi.beerorder.exceptions.InvalidRequestParamException;
+import restapi.beerorder.pojos.order.Order;
+import restapi.beerorder.pojos.pricing.PriceList;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PriceTableTest {
+    private static final long NOW = 1_700_000_000_000L;
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+
+    private static PriceList priceList() {
+        PriceList priceList = new PriceList();
+        priceList.setVersion(3L);
+        priceList.setBeerPrices(List.of(new PriceList.BeerPrice("Buzz", 12), new PriceList.BeerPrice("Punk IPA", 15)));
+        priceList.setVolumeTiers(List.of(new PriceList.VolumeTier(24, 10), new PriceList.VolumeTier(12, 5)));
+        priceList.setPromotions(List.of(
+                new PriceList.Promotion("Buzz", 50, new Date(NOW - DAY), new Date(NOW + DAY)),
+                new PriceList.Promotion("Punk IPA", 50, new Date(NOW + DAY), new Date(NOW + 2 * DAY)),
+                new PriceList.Promotion(null, 20, new Date(NOW - DAY), new Date(NOW + DAY))));
+
+        return priceList;
+    }
+
+    @Test
+    void flatTableMatchesTheOldFormula() {
+        Quote quote = PriceTable.flat(10).quote(Map.of("Buzz", 3, "Punk IPA", 2), NOW);
+
+        assertEquals(0, quote.getPriceListVersion());
+        assertEquals(5, quote.getBottles());
+        assertEquals(50.0, quote.getTotal());
+    }
+
+    @Test
+    void bestPromotionPerLineThenVolumeTier() {
+        Map<String, Integer> basket = new LinkedHashMap<>();
+        basket.put("Buzz", 2);//12 at 50% off, the all-beers 20% doesn't stack.
+        basket.put("Punk IPA", 10);//15, its promotion hasn't started, 20% off all beers.
+        basket.put("Trashy Blonde", 1);//the default 10, 20% off all beers.
+
+        Quote quote = PriceTable.of(priceList(), 10).quote(basket, NOW);
+
+        assertEquals(3, quote.getPriceListVersion());
+        assertEquals(List.of(12.0, 120.0, 8.0), quote.getLines().stream().map(Quote.Line::getLineTotal)
+                .collect(Collectors.toList()));
+        assertEquals(140.0, quote.getSubtotal());
+        assertEquals(5.0, quote.getVolumePercentOff());
+        assertEquals(133.0, quote.getTotal());
+    }
+
+    @Test
+    void rejectsNonsense() {
+        PriceList priceList = priceList();
+        priceList.setVolumeTiers(List.of(new PriceList.VolumeTier(12, 120)));
+
+        assertThrows(InvalidRequestParamException.class, () -> PriceTable.of(priceList, 10));
+    }
+
+    /**
+     * Pricing latency of a 50-line basket against the flat bottles * beer.price multiply it replaced,
+     * both after a warmup. Run with -Dbenchmark=true.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void fiftyLineBasketLatency() {
+        PriceList priceList = priceList();
+        Order order = new Order();
+
+        for (int i = 0; i < 50; i++) {
+            order.getBeersOrdered().put("Beer " + i, 1 + i % 4);
+        }
+
+        Map<String, Integer> basket = order.getBeersOrdered();
+        PriceTable table = PriceTable.of(priceList, 10);
+        double sink = 0;
+
+        for (int i = 0; i < 200_000; i++) {
+            sink += table.quote(basket, NOW).getTotal();
+            sink += BeerQuantity.getBottleQuantity(order) * 10.0;
+        }
+
+        int rounds = 1_000_000;
+        long start = System.nanoTime();
+
+        for (int i = 0; i < rounds; i++) {
+            sink += table.quote(basket, NOW).getTotal();
+        }
+
+        double tableNanos = (System.nanoTime() - start) / (double) rounds;
+        start = System.nanoTime();
+
+        for (int i = 0; i < rounds; i++) {
+            sink += BeerQuantity.getBottleQuantity(order) * 10.0;
+        }
+
+        double flatNanos = (System.nanoTime() - start) / (double) rounds;
+
+        System.out.printf("50-line basket: %.0f ns per quote, %.0f ns with the flat price (%.0f)%n", tableNanos,
+                flatNanos, sink);
+    }
+}
@@ -0,0 +1,69 @@
+package restapi.beerorder.auxiliary.search;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class InvertedIndexTest {
+
+    private static InvertedIndex catalog() {
+        InvertedIndex index = new InvertedIndex();
+        index.put(1, "a", TextAnalyzer.terms("Punk IPA. Tropical fruits and citrus, pairs with spicy chicken"));
+        index.put(2, "b", TextAnalyzer.terms("Dead Pony Club. Citrus session ale"));
+        index.put(3, "c", TextAnalyzer.terms("Black stout, roasted coffee and chocolate, with a chocolate cake"));
+
+        return index;
+    }
+
+    private static List<Long> ids(SearchHits hits) {
+        return hits.getHits().stream().map(SearchHits.Hit::getId).collect(Collectors.toList());
+    }
+
+    @Test
+    void analyzesAndStems() {
+        assertEquals(List.of("hop", "hop", "hop", "cherry", "ipa"),
+                TextAnalyzer.terms("Hops, hopped and HOPPING cherries in an IPA"));
+    }
+
+    @Test
+    void ranksTheBestMatchFirst() {
+        InvertedIndex index = catalog();
+
+        SearchHits hits = index.search(TextAnalyzer.terms("citrus IPA for spicy food"), 0, 10);
+        assertEquals(2, hits.getTotal());
+        assertEquals(List.of(1L, 2L), ids(hits));
+
+        assertEquals(List.of(2L), ids(index.search(TextAnalyzer.terms("citrus ipa spicy"), 1, 1)));
+        assertEquals(List.of(3L), ids(index.search(TextAnalyzer.terms("chocolates"), 0, 10)));
+    }
+
+    @Test
+    void updatesIncrementally() {
+        InvertedIndex index = catalog();
+
+        index.put(3, "d", TextAnalyzer.terms("Citrus stout"));
+        index.remove(1);
+
+        assertEquals(List.of(), ids(index.search(TextAnalyzer.terms("chocolate spicy"), 0, 10)));
+        assertEquals(2, index.search(TextAnalyzer.terms("citrus"), 0, 10).getTotal());
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void snapshotRoundTrip(@TempDir Path dir) throws Exception {
+        InvertedIndex index = catalog();
+        Path snapshot = dir.resolve("search-index");
+
+        index.writeTo(snapshot);
+        InvertedIndex read = InvertedIndex.readFrom(snapshot);
+
+        assertEquals(index.fingerprints(), read.fingerprints());
+        List<String> query = TextAnalyzer.terms("citrus IPA for spicy food");
+        assertEquals(index.search(query, 0, 10), read.search(query, 0, 10));
+    }
+}
@@ -0,0 +1,106 @@
+package restapi.beerorder.auxiliary.similarity;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VectorIndexTest {
+
+    @Test
+    void similarRecipesAreNearest() {
+        VectorIndex index = new VectorIndex(BeerFeatures.DIMENSIONS, 4);
+        index.put(1, BeerFeatures.vector(beer(4.7, 60, "Maris Otter", 3.3, "Cascade", 25, "Wyeast 1056")));
+        index.put(2, BeerFeatures.vector(beer(5.0, 55, "Maris Otter", 3.5, "Cascade", 30, "Wyeast 1056")));
+        index.put(3, BeerFeatures.vector(beer(12.0, 10, "Wheat", 6.0, "Saaz", 5, "Wyeast 3711")));
+        index.put(4, BeerFeatures.vector(beer(6.5, 70, "Maris Otter", 4.0, "Simcoe", 40, "Wyeast 1056")));
+
+        assertEquals(List.of(2L, 4L), ids(index.nearest(1, 2, false)));
+        assertNull(index.nearest(5, 2, false));
+
+        // Beer 2 is rebrewed as a wheat beer, beer 4 is gone.
+        index.put(2, BeerFeatures.vector(beer(11.0, 12, "Wheat", 6.5, "Saaz", 6, "Wyeast 3711")));
+        index.remove(4);
+
+        assertEquals(3, index.size());
+        assertEquals(List.of(2L, 1L), ids(index.nearest(3, 5, false)));
+    }
+
+    @Test
+    void parallelScansMatchTheSequentialOnes() {
+        // A few scan chunks, so the parallel scan really splits.
+        VectorIndex index = randomIndex(30_000);
+
+        for (long id : new long[]{0, 42, 29_999}) {
+            List<VectorIndex.Neighbor> sequential = index.nearest(id, 10, false);
+
+            assertEquals(sequential, index.nearest(id, 10, true));
+            assertEquals(10, sequential.size());
+            assertTrue(sequential.stream().noneMatch(neighbor -> neighbor.getId() == id));
+        }
+    }
+
+    /**
+     * Top 10 of 100k vectors, sequential against parallel. Run with -Dbenchmark=true.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void sequentialAgainstParallelScan() {
+        VectorIndex index = randomIndex(100_000);
+
+        for (int warmup = 0; warmup < 20; warmup++) {
+            index.nearest(warmup, 10, false);
+            index.nearest(warmup, 10, true);
+        }
+
+        long start = System.nanoTime();
+        index.nearest(42, 10, false);
+        long sequentialNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        index.nearest(42, 10, true);
+        long parallelNanos = System.nanoTime() - start;
+
+        System.out.printf("100000 x %d vectors: top 10 in %d us sequential, %d us parallel%n",
+                BeerFeatures.DIMENSIONS, sequentialNanos / 1000, parallelNanos / 1000);
+    }
+
+    private static VectorIndex randomIndex(int vectors) {
+        Random random = new Random(11);
+        VectorIndex index = new VectorIndex(BeerFeatures.DIMENSIONS, vectors);
+
+        for (int id = 0; id < vectors; id++) {
+            float[] vector = new float[BeerFeatures.DIMENSIONS];
+
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] = random.nextFloat();
+            }
+
+            index.put(id, vector);
+        }
+
+        return index;
+    }
+
+    private static List<Long> ids(List<VectorIndex.Neighbor> neighbors) {
+        return neighbors.stream().map(VectorIndex.Neighbor::getId).collect(Collectors.toList());
+    }
+
+    private static Document beer(double abv, double ibu, String malt, double maltKg, String hop, double hopGrams,
+                                 String yeast) {
+        return new Document("abv", abv).append("ibu", ibu)
+                .append("ingredients", new Document()
+                        .append("malt", List.of(new Document("name", malt)
+                                .append("amount", new Document("value", maltKg).append("unit", "kilograms"))))
+                        .append("hops", List.of(new Document("name", hop)
+                                .append("amount", new Document("value", hopGrams).append("unit", "grams"))))
+                        .append("yeast", yeast));
+    }
+}
@@ -0,0 +1,117 @@
+package restapi.beerorder.auxiliary.stats;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class BeerColumnsTest {
+    private static final double NONE = Double.NaN;
+    private static final Map<BeerAttribute, BeerColumns.Bounds> FILTERS = Map.of(
+            BeerAttribute.ABV, BeerColumns.Bounds.of(4.0, 8.0),
+            BeerAttribute.IBU, BeerColumns.Bounds.of(null, 60.0));
+    private static final double[] PERCENTILES = {50, 90, 99};
+
+    @Test
+    void filtersAndDescribesAnAttribute() {
+        BeerColumns columns = BeerColumns.builder(4)
+                .add(3, new double[]{8.0, 70, 4.4, 20})
+                .add(1, new double[]{4.5, 60, 4.2, 20})
+                .add(2, new double[]{6.0, 40, NONE, 20})
+                .add(4, new double[]{12.0, NONE, 4.1, 20})
+                .build();
+
+        boolean[] all = columns.matching(Map.of(), false);
+        ColumnStats abv = columns.stats(BeerAttribute.ABV, all, new double[]{50, 100}, 2, false);
+
+        assertEquals(4, abv.getCount());
+        assertEquals(4.5, abv.getMin());
+        assertEquals(12.0, abv.getMax());
+        assertEquals(7.625, abv.getMean());
+        assertEquals(Map.of("p50", 6.0, "p100", 12.0), abv.getPercentiles());
+        assertEquals(List.of(new ColumnStats.Bucket(4.5, 8.25, 3), new ColumnStats.Bucket(8.25, 12.0, 1)),
+                abv.getHistogram());
+
+        // The beer without an ibu doesn't match an ibu filter, the one without a ph is matched but not counted.
+        boolean[] bitter = columns.matching(Map.of(BeerAttribute.IBU, BeerColumns.Bounds.of(50.0, null)), false);
+        ColumnStats ph = columns.stats(BeerAttribute.PH, bitter, new double[0], 0, false);
+
+        assertEquals(2, ph.getMatched());
+        assertEquals(2, ph.getCount());
+        assertEquals(4.2, ph.getMin());
+
+        ColumnStats none = columns.stats(BeerAttribute.ABV,
+                columns.matching(Map.of(BeerAttribute.ABV, BeerColumns.Bounds.of(20.0, 30.0)), false),
+                new double[]{50}, 10, false);
+        assertEquals(0, none.getMatched());
+        assertNull(none.getMean());
+    }
+
+    @Test
+    void patchesChangedRows() {
+        BeerColumns columns = BeerColumns.builder(2)
+                .add(1, new double[]{4.5, 60, 4.2, 20})
+                .add(2, new double[]{6.0, 40, 4.4, 20})
+                .build();
+
+        BeerColumns patched = columns.with(Set.of(1L, 2L), BeerColumns.builder(1)
+                .add(2, new double[]{9.0, 40, 4.4, 20})
+                .build());
+
+        assertEquals(1, patched.size());
+        assertEquals(9.0, patched.stats(BeerAttribute.ABV, patched.matching(Map.of(), false), new double[0], 0, false)
+                .getMax());
+    }
+
+    @Test
+    void parallelScansMatchTheSequentialOnes() {
+        // A few scan chunks, so the parallel scan really splits.
+        BeerColumns columns = randomColumns(50_000);
+
+        boolean[] sequentialMask = columns.matching(FILTERS, false);
+        boolean[] parallelMask = columns.matching(FILTERS, true);
+
+        assertArrayEquals(sequentialMask, parallelMask);
+        assertEquals(columns.stats(BeerAttribute.PH, sequentialMask, PERCENTILES, 20, false),
+                columns.stats(BeerAttribute.PH, parallelMask, PERCENTILES, 20, true));
+    }
+
+    /**
+     * Filter and stats over 200k beers, sequential against parallel. Run with -Dbenchmark=true.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void sequentialAgainstParallelScan() {
+        BeerColumns columns = randomColumns(200_000);
+
+        long start = System.nanoTime();
+        columns.stats(BeerAttribute.PH, columns.matching(FILTERS, false), PERCENTILES, 20, false);
+        long sequentialNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        columns.stats(BeerAttribute.PH, columns.matching(FILTERS, true), PERCENTILES, 20, true);
+        long parallelNanos = System.nanoTime() - start;
+
+        System.out.printf("200000 beers: filter + stats %d us sequential, %d us parallel%n",
+                sequentialNanos / 1000, parallelNanos / 1000);
+    }
+
+    private static BeerColumns randomColumns(int beers) {
+        Random random = new Random(7);
+        BeerColumns.Builder builder = BeerColumns.builder(beers);
+
+        for (int id = 0; id < beers; id++) {
+            builder.add(id, new double[]{random.nextDouble() * 12, random.nextDouble() * 120,
+                    random.nextInt(10) == 0 ? NONE : 3 + random.nextDouble() * 2, 20});
+        }
+
+        return builder.build();
+    }
+}
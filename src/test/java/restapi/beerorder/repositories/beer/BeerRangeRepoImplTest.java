@@ -0,0 +1,85 @@
+package restapi.beerorder.repositories.beer;
+
+import com.mongodb.client.MongoClients;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.data.domain.Range;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import restapi.beerorder.pojos.beer.Beer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BeerRangeRepoImplTest {
+    private static final int BEERS = 100_000;
+
+    @Test
+    void boundsBecomeOneCriteria() {
+        Query query = BeerRangeRepoImpl.toQuery(new BeerRangeQuery()
+                .range("abv", Range.of(Range.Bound.exclusive(3.0), Range.Bound.inclusive(8.0)))
+                .range("ibu", Range.of(Range.Bound.inclusive(30.0), Range.Bound.unbounded()))
+                .range("ph", Range.unbounded()));
+
+        assertEquals(Document.parse("{abv: {$gt: 3.0, $lte: 8.0}, ibu: {$gte: 30.0}}"), query.getQueryObject());
+        assertEquals(new Document(), BeerRangeRepoImpl.toQuery(new BeerRangeQuery()).getQueryObject());
+    }
+
+    /**
+     * Compares the old fetch-and-filter approach with the indexed range query on 100k synthetic beers.
+     * Needs a disposable Mongo DB, e.g. -Dbenchmark.mongo.uri=mongodb://localhost/beer-benchmark
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark.mongo.uri", matches = ".+")
+    void rangeQueryBenchmark() {
+        MongoTemplate mongoTemplate = new MongoTemplate(MongoClients.create(System.getProperty("benchmark.mongo.uri")),
+                "beer-benchmark");
+        mongoTemplate.dropCollection(Beer.class);
+        IndexResolver resolver = new MongoPersistentEntityIndexResolver(
+                (MongoMappingContext) mongoTemplate.getConverter().getMappingContext());
+        resolver.resolveIndexFor(Beer.class).forEach(mongoTemplate.indexOps(Beer.class)::ensureIndex);
+
+        Random random = new Random(42);
+        List<Document> beers = new ArrayList<>(BEERS);
+
+        for (long id = 1; id <= BEERS; id++) {
+            beers.add(new Document("_id", id).append("name", "Beer " + id)
+                    .append("abv", random.nextDouble() * 15).append("ibu", random.nextDouble() * 120)
+                    .append("ph", 3.5 + random.nextDouble() * 1.5).append("description", "x".repeat(300)));
+        }
+
+        mongoTemplate.getCollection(mongoTemplate.getCollectionName(Beer.class)).insertMany(beers);
+        BeerRangeRepoImpl repo = new BeerRangeRepoImpl(mongoTemplate);
+
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            List<Beer> filtered = mongoTemplate.find(Query.query(Criteria.where("ibu").gt(30.0)), Beer.class)
+                    .stream().filter(beer -> beer.getAbv() > 12 && beer.getAbv() <= 13).collect(Collectors.toList());
+            long fetchAndFilter = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            List<Beer> ranged = repo.findInRanges(new BeerRangeQuery()
+                    .range("abv", Range.of(Range.Bound.exclusive(12.0), Range.Bound.inclusive(13.0)))
+                    .range("ibu", Range.of(Range.Bound.exclusive(30.0), Range.Bound.unbounded()))
+                    .sort(Sort.by("abv"))
+                    .include("name", "abv", "ibu"));
+            long rangeQuery = System.nanoTime() - start;
+
+            assertEquals(filtered.size(), ranged.size());
+            System.out.printf("%d matches: fetch and filter %d ms, range query %d ms%n", ranged.size(),
+                    fetchAndFilter / 1_000_000, rangeQuery / 1_000_000);
+        }
+
+        mongoTemplate.dropCollection(Beer.class);
+    }
+}
@@ -0,0 +1,118 @@
+package restapi.beerorder.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import restapi.beerorder.auxiliary.metrics.LatencyHistogram;
+import restapi.beerorder.exceptions.PunkApiException;
+import restapi.beerorder.pojos.beer.Beer;
+
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PunkApiClientTest {
+    private StubPunkApi punkApi;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        punkApi = new StubPunkApi(100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        punkApi.close();
+    }
+
+    private PunkApiClient client(long deadlineMillis, int maxAttempts, long hedgeAfterMillis) {
+        return new PunkApiClient(1000, deadlineMillis, 2000, maxAttempts, 10, hedgeAfterMillis);
+    }
+
+    private static Beer[] read(CompletableFuture<InputStream> future) throws Exception {
+        try (InputStream body = future.get()) {
+            return StubPunkApi.objectMapper().readValue(body, Beer[].class);
+        }
+    }
+
+    @Test
+    void returnsBeforeTheResponseArrives() throws Exception {
+        punkApi.delayNext(1, 300);
+        PunkApiClient client = client(5000, 1, 0);
+
+        CompletableFuture<InputStream> future = client.getStream(punkApi.getUrl() + "/beers/7");
+
+        assertFalse(future.isDone());
+        Beer[] beers = read(future);
+        assertEquals(1, beers.length);
+        assertEquals(7L, beers[0].getId());
+        assertEquals(3.3, beers[0].getIngredients().getMalt().get(0).getAmount().getValue());
+    }
+
+    @Test
+    void retriesServerErrors() throws Exception {
+        punkApi.failNext(2);
+        PunkApiClient client = client(5000, 3, 0);
+
+        Beer[] beers = read(client.getStream(punkApi.getUrl() + "/beers/1"));
+
+        assertEquals(1L, beers[0].getId());
+        assertEquals(3, punkApi.getRequests());
+    }
+
+    @Test
+    void givesUpAfterMaxAttempts() {
+        punkApi.failNext(5);
+        PunkApiClient client = client(5000, 2, 0);
+
+        ExecutionException ex = assertThrows(ExecutionException.class,
+                () -> read(client.getStream(punkApi.getUrl() + "/beers/1")));
+
+        assertInstanceOf(PunkApiException.class, ex.getCause());
+        assertEquals(2, punkApi.getRequests());
+    }
+
+    @Test
+    void failsPastTheDeadline() {
+        punkApi.delayNext(-1, 1000);
+        PunkApiClient client = client(200, 3, 0);
+
+        ExecutionException ex = assertThrows(ExecutionException.class,
+                () -> read(client.getStream(punkApi.getUrl() + "/beers/1")));
+
+        assertInstanceOf(TimeoutException.class, ex.getCause());
+    }
+
+    @Test
+    void hedgesSlowRequests() throws Exception {
+        punkApi.delayNext(1, 1500);
+        PunkApiClient client = client(5000, 1, 50);
+        long start = System.nanoTime();
+
+        Beer[] beers = read(client.getStream(punkApi.getUrl() + "/beers/3"));
+
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        assertEquals(3L, beers[0].getId());
+        assertTrue(elapsedMillis < 1000, "took " + elapsedMillis + " ms");
+        assertEquals(1, client.getHedgedRequests());
+    }
+
+    @Test
+    void recordsLatencyPerHost() throws Exception {
+        PunkApiClient client = client(5000, 1, 0);
+
+        for (int id = 1; id <= 10; id++) {
+            read(client.getStream(punkApi.getUrl() + "/beers/" + id));
+        }
+
+        LatencyHistogram.Snapshot snapshot = client.latencySnapshots().values().iterator().next();
+        assertEquals(10, snapshot.getCount());
+        assertTrue(snapshot.getP99Millis() >= snapshot.getP50Millis());
+    }
+}
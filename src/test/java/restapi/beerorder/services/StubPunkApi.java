@@ -0,0 +1,163 @@
+package restapi.beerorder.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A local stand-in for PunkAPI serving a synthetic catalog of beers, used by the catalog tests.
+ */
+public class StubPunkApi implements AutoCloseable {
+    private final HttpServer server;
+    private final int totalBeers;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger failuresLeft = new AtomicInteger();
+    private final AtomicInteger slowLeft = new AtomicInteger();
+    private final Set<Long> withoutIds = ConcurrentHashMap.newKeySet();
+    private volatile long delayMillis;
+
+    public StubPunkApi(int totalBeers) throws IOException {
+        this.totalBeers = totalBeers;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.server.createContext("/v2/beers", this::handle);
+        this.server.setExecutor(Executors.newFixedThreadPool(8));
+        this.server.start();
+    }
+
+    /**
+     * The same Jackson setup Spring Boot auto-configures, beers can only be read with the parameter names module.
+     */
+    public static ObjectMapper objectMapper() {
+        return Jackson2ObjectMapperBuilder.json().modulesToInstall(new ParameterNamesModule()).build();
+    }
+
+    public static RestTemplateBuilder restTemplateBuilder() {
+        return new RestTemplateBuilder().messageConverters(new MappingJackson2HttpMessageConverter(objectMapper()));
+    }
+
+    public String getUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/v2";
+    }
+
+    public int getRequests() {
+        return requests.get();
+    }
+
+    /**
+     * The next n requests are answered with 503.
+     */
+    public void failNext(int n) {
+        failuresLeft.set(n);
+    }
+
+    /**
+     * The next n requests are answered after delayMillis, all of them if n is negative.
+     */
+    public void delayNext(int n, long delayMillis) {
+        this.delayMillis = delayMillis;
+        this.slowLeft.set(n < 0 ? Integer.MAX_VALUE : n);
+    }
+
+    /**
+     * The beer is served with a null id.
+     */
+    public void dropId(long id) {
+        withoutIds.add(id);
+    }
+
+    public static String beerJson(long id) {
+        return "{\"id\":" + id + ",\"name\":\"Beer " + id + "\",\"first_brewed\":\"09/2007\"," +
+                "\"description\":\"A citrus IPA number " + id + "\",\"brewers_tips\":\"Serve cold\"," +
+                "\"abv\":" + (4 + id % 7) + ".5,\"ibu\":" + (20 + id % 40) + ",\"ph\":4.4," +
+                "\"volume\":{\"value\":20,\"unit\":\"litres\"}," +
+                "\"ingredients\":{\"malt\":[{\"name\":\"Maris Otter\",\"amount\":{\"value\":3.3,\"unit\":\"kilograms\"}}]," +
+                "\"hops\":[{\"name\":\"Simcoe\",\"amount\":{\"value\":25,\"unit\":\"grams\"},\"add\":\"start\"," +
+                "\"attribute\":\"bitter\"}],\"yeast\":\"Wyeast 1056\"}," +
+                "\"food_pairing\":[\"Spicy chicken\"],\"unknown_field\":[1,2,3]}";
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+
+        try {
+            if (slowLeft.getAndUpdate(left -> Math.max(0, left - 1)) > 0) {
+                Thread.sleep(delayMillis);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (failuresLeft.getAndUpdate(left -> Math.max(0, left - 1)) > 0) {
+            respond(exchange, 503, "{\"message\":\"try again\"}");
+            return;
+        }
+
+        String path = exchange.getRequestURI().getPath();
+        Map<String, String> params = queryParams(exchange.getRequestURI().getRawQuery());
+        StringBuilder body = new StringBuilder("[");
+
+        if (path.matches(".*/beers/\\d+")) {
+            long id = Long.parseLong(path.substring(path.lastIndexOf('/') + 1));
+            if (id <= totalBeers) {
+                body.append(beerJson(id));
+            }
+        } else {
+            int page = Integer.parseInt(params.getOrDefault("page", "1"));
+            int perPage = Integer.parseInt(params.getOrDefault("per_page", "25"));
+
+            for (long id = (long) (page - 1) * perPage + 1; id <= Math.min(totalBeers, (long) page * perPage); id++) {
+                if (body.length() > 1) {
+                    body.append(',');
+                }
+                body.append(withoutIds.contains(id) ? beerJson(id).replace("\"id\":" + id + ",", "\"id\":null,")
+                        : beerJson(id));
+            }
+        }
+
+        respond(exchange, 200, body.append(']').toString());
+    }
+
+    private static Map<String, String> queryParams(String query) {
+        Map<String, String> params = new HashMap<>();
+
+        if (query != null) {
+            for (String pair : query.split("&")) {
+                String[] keyValue = pair.split("=", 2);
+                params.put(keyValue[0], keyValue.length > 1 ? keyValue[1] : "");
+            }
+        }
+
+        return params;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,113 @@
+package restapi.beerorder.services.catalog;
+
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.CloseableIterator;
+import restapi.beerorder.pojos.beer.Beer;
+import restapi.beerorder.auxiliary.catalog.BeerFingerprint;
+import restapi.beerorder.auxiliary.catalog.IngredientTotals;
+
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BeerBackfillTest {
+    private final BeerBulkWriter beerBulkWriter = new BeerBulkWriter(mock(MongoTemplate.class),
+            mock(ApplicationEventPublisher.class));
+
+    private static Document userCreatedBeer() {
+        // Created through the beers API before the maintained fields existed.
+        return new Document("_id", 900L).append("name", "Home Brew").append("likeCount", 3L)
+                .append("ingredients", new Document("malt", List.of(
+                        new Document("name", "Maris Otter").append("amount", new Document("value", 3.3)),
+                        new Document("name", "Caramalt").append("amount", new Document("value", 0.2)))));
+    }
+
+    @Test
+    void fillsTheMissingFieldsOfOldBeers() {
+        Document stored = userCreatedBeer();
+        Document prepared = beerBulkWriter.prepare(new Document(stored));
+
+        Document set = (Document) BeerBackfill.update(stored, prepared).getUpdateObject().get("$set");
+
+        assertEquals(3.5, set.getDouble(IngredientTotals.TOTAL_MALT), 1e-9);
+        assertEquals(prepared.get(BeerFingerprint.CONTENT_HASH_FIELD), set.get(BeerFingerprint.CONTENT_HASH_FIELD));
+        assertEquals(prepared.get(BeerFingerprint.FIELD), set.get(BeerFingerprint.FIELD));
+        assertNull(set.get(IngredientTotals.TOTAL_HOPS));
+    }
+
+    @Test
+    void leavesUpToDateBeersAlone() {
+        Document stored = beerBulkWriter.prepare(userCreatedBeer());
+
+        assertNull(BeerBackfill.update(stored, beerBulkWriter.prepare(new Document(stored))));
+
+        // A stale total is set right and one without ingredients is dropped.
+        stored.put(IngredientTotals.TOTAL_HOPS, 7.0);
+        Update update = BeerBackfill.update(stored, beerBulkWriter.prepare(new Document(stored)));
+        assertEquals(new Document(IngredientTotals.TOTAL_HOPS, 1), update.getUpdateObject().get("$unset"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void leavesTheContentHashToTheFirstOfDuplicateBeers() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        BulkOperations bulkOperations = mock(BulkOperations.class);
+        List<Document> beers = List.of(userCreatedBeer().append("_id", 1L), userCreatedBeer().append("_id", 2L));
+
+        when(mongoTemplate.getCollectionName(Beer.class)).thenReturn("beers");
+        when(mongoTemplate.stream(any(Query.class), eq(Document.class), eq("beers")))
+                .thenReturn(cursor(List.of()), cursor(beers));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, "beers")).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenReturn(BulkWriteResult.acknowledged(0, 0, 0, 2, List.of(), List.of()));
+
+        assertEquals(2, new BeerBackfill(mongoTemplate, beerBulkWriter, mock(ApplicationEventPublisher.class))
+                .backfill());
+
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(bulkOperations, times(2)).updateOne(any(Query.class), updates.capture());
+        Document first = (Document) updates.getAllValues().get(0).getUpdateObject().get("$set");
+        Document second = (Document) updates.getAllValues().get(1).getUpdateObject().get("$set");
+
+        assertEquals(beerBulkWriter.prepare(userCreatedBeer()).get(BeerFingerprint.CONTENT_HASH_FIELD),
+                first.get(BeerFingerprint.CONTENT_HASH_FIELD));
+        assertNull(second.get(BeerFingerprint.CONTENT_HASH_FIELD));
+        assertNotNull(second.get(BeerFingerprint.FIELD));
+    }
+
+    private static CloseableIterator<Document> cursor(List<Document> documents) {
+        Iterator<Document> iterator = documents.iterator();
+
+        return new CloseableIterator<>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public Document next() {
+                return iterator.next();
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+}
@@ -0,0 +1,198 @@
+package restapi.beerorder.services.catalog;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.WriteModel;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import restapi.beerorder.auxiliary.catalog.BeerJsonStream;
+import restapi.beerorder.auxiliary.catalog.CatalogChangedEvent;
+import restapi.beerorder.pojos.beer.Beer;
+import restapi.beerorder.services.catalog.BulkUploadReport.Status;
+import restapi.beerorder.services.likes.BeerLikes;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BeerBulkUploadTest {
+    private MongoTemplate mongoTemplate;
+    private MongoCollection<Document> beers;
+    private final List<Object> events = new ArrayList<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        beers = mock(MongoCollection.class);
+
+        when(mongoTemplate.getCollectionName(Beer.class)).thenReturn("beers");
+        when(mongoTemplate.getCollection("beers")).thenReturn(beers);
+        when(beers.bulkWrite(anyList(), any(BulkWriteOptions.class)))
+                .thenAnswer(invocation -> BulkWriteResult.acknowledged(invocation.<List<?>>getArgument(0).size(),
+                        0, 0, 0, List.of(), List.of()));
+        when(mongoTemplate.find(argThat((Query query) -> query.getQueryObject().containsKey("_id")),
+                eq(Document.class), anyString())).thenReturn(List.of(new Document("_id", 3L)));
+    }
+
+    private BulkUploadReport upload(String body, BeerBulkUpload.Mode mode, int maxItems) throws Exception {
+        BeerBulkUpload upload = new BeerBulkUpload(mongoTemplate, new BeerBulkWriter(mongoTemplate, events::add),
+                events::add, 2, maxItems);
+
+        return upload.upload(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), true, mode);
+    }
+
+    private static List<Status> statuses(BulkUploadReport report) {
+        return report.getItems().stream().map(BulkUploadReport.Item::getStatus).collect(Collectors.toList());
+    }
+
+    @Test
+    void everyItemGetsAStatus() throws Exception {
+        String body = "{\"id\": 1, \"name\": \"Buzz\"}\n"
+                + "{\"id\": 2}\n"
+                + "{\"id\": 1, \"name\": \"Trashy Blonde\"}\n"
+                + "{\"id\": 3, \"name\": \"Berliner Weisse\"}\n"
+                + "{\"id\": 4, \"name\": \"Buzz\"}\n"
+                + "{\"name\": \"Pilsen Lager\"}\n"
+                + "{\"id\": \"five\", \"name\": \"Avery Brown Dredge\"}\n";
+
+        BulkUploadReport report = upload(body, BeerBulkUpload.Mode.CREATE, 100);
+
+        assertEquals(7, report.getReceived());
+        assertEquals(List.of(Status.CREATED, Status.INVALID, Status.DUPLICATE, Status.EXISTS, Status.DUPLICATE,
+                Status.INVALID, Status.INVALID), statuses(report));
+        assertEquals(3, report.getCounts().get(Status.INVALID));
+        assertNull(report.getError());
+        verify(beers, times(1)).bulkWrite(argThat(writes -> writes.size() == 1
+                && writes.get(0) instanceof InsertOneModel), any(BulkWriteOptions.class));
+        assertEquals(List.of(CatalogChangedEvent.beers(List.of(1L), List.of("Buzz"))), events);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void anUpsertReplacesTheBeerButItsLikes() throws Exception {
+        upload("{\"id\": 3, \"name\": \"Berliner Weisse\"}\n", BeerBulkUpload.Mode.UPSERT, 100);
+
+        ArgumentCaptor<List<WriteModel<Document>>> writes = ArgumentCaptor.forClass(List.class);
+        verify(beers).bulkWrite(writes.capture(), any(BulkWriteOptions.class));
+        UpdateOneModel<Document> upsert = (UpdateOneModel<Document>) writes.getValue().get(0);
+        Document replaceWith = (Document) ((Document) upsert.getUpdatePipeline().get(0)).get("$replaceWith");
+        List<Document> merged = replaceWith.getList("$mergeObjects", Document.class);
+
+        assertTrue(upsert.getOptions().isUpsert());
+        assertEquals("Berliner Weisse", merged.get(0).get("$literal", Document.class).getString("name"));
+        assertEquals(new Document(BeerLikes.LIKE_COUNT, "$" + BeerLikes.LIKE_COUNT), merged.get(1));
+    }
+
+    @Test
+    void aBrokenBodyKeepsTheBeersWrittenBeforeIt() throws Exception {
+        String body = "{\"id\": 1, \"name\": \"Buzz\"}\n"
+                + "{\"id\": 2, \"name\": \"Trashy Blonde\"}\n"
+                + "{\"id\": 4, \"name\": \"Pilsen\n";
+
+        BulkUploadReport report = upload(body, BeerBulkUpload.Mode.CREATE, 100);
+
+        assertEquals(List.of(Status.CREATED, Status.CREATED), statuses(report));
+        assertTrue(report.getError().startsWith("Malformed beers body after item 2"));
+        assertThrows(JsonProcessingException.class, () -> upload("{\"id\": ", BeerBulkUpload.Mode.CREATE, 100));
+    }
+
+    @Test
+    void beersPastTheLimitAreSkipped() throws Exception {
+        String body = "{\"id\": 1, \"name\": \"Buzz\"}\n"
+                + "{\"id\": 2, \"name\": \"Trashy Blonde\"}\n"
+                + "{\"id\": 4, \"name\": \"Pilsen Lager\"}\n";
+
+        BulkUploadReport report = upload(body, BeerBulkUpload.Mode.CREATE, 2);
+
+        assertEquals(List.of(Status.CREATED, Status.CREATED), statuses(report));
+        assertEquals("A bulk upload takes at most 2 beers, the rest of the body was skipped", report.getError());
+    }
+
+    /**
+     * Measures the throughput of bulk uploads of 1k, 10k and 100k synthetic beers against inserting them one by one.
+     * Needs a disposable Mongo DB, e.g. -Dbenchmark.mongo.uri=mongodb://localhost/beer-benchmark
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark.mongo.uri", matches = ".+")
+    void bulkUploadBenchmark() throws Exception {
+        MongoTemplate mongoTemplate = new MongoTemplate(MongoClients.create(System.getProperty("benchmark.mongo.uri")),
+                "beer-benchmark");
+        BeerBulkWriter beerBulkWriter = new BeerBulkWriter(mongoTemplate, event -> { });
+        BeerBulkUpload upload = new BeerBulkUpload(mongoTemplate, beerBulkWriter, event -> { }, 1000, 100_000);
+
+        for (int beers : new int[]{1_000, 10_000, 100_000}) {
+            StringBuilder body = new StringBuilder();
+
+            for (long id = 1; id <= beers; id++) {
+                body.append("{\"id\": ").append(id).append(", \"name\": \"Beer ").append(id)
+                        .append("\", \"abv\": ").append(id % 15).append(", \"ibu\": ").append(id % 120)
+                        .append(", \"description\": \"").append("x".repeat(300)).append("\"}\n");
+            }
+
+            byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+
+            resetBeers(mongoTemplate);
+            long start = System.nanoTime();
+            insertOneByOne(bytes, beerBulkWriter, mongoTemplate);
+            long oneByOne = System.nanoTime() - start;
+
+            resetBeers(mongoTemplate);
+            start = System.nanoTime();
+            BulkUploadReport report = upload.upload(new ByteArrayInputStream(bytes), true, BeerBulkUpload.Mode.CREATE);
+            long bulk = System.nanoTime() - start;
+
+            assertEquals(beers, report.getCounts().get(Status.CREATED));
+            System.out.printf("%d beers: one by one %.0f beers/sec, bulk %.0f beers/sec%n", beers,
+                    beers * 1e9 / oneByOne, beers * 1e9 / bulk);
+        }
+
+        mongoTemplate.dropCollection(Beer.class);
+    }
+
+    private static void resetBeers(MongoTemplate mongoTemplate) {
+        mongoTemplate.dropCollection(Beer.class);
+        IndexResolver resolver = new MongoPersistentEntityIndexResolver(
+                (MongoMappingContext) mongoTemplate.getConverter().getMappingContext());
+        resolver.resolveIndexFor(Beer.class).forEach(mongoTemplate.indexOps(Beer.class)::ensureIndex);
+    }
+
+    /**
+     * The baseline, what a client gets by posting every beer on its own.
+     */
+    private static void insertOneByOne(byte[] body, BeerBulkWriter beerBulkWriter, MongoTemplate mongoTemplate)
+            throws Exception {
+        String collection = mongoTemplate.getCollectionName(Beer.class);
+        BeerJsonStream.parseSequence(new ByteArrayInputStream(body),
+                document -> mongoTemplate.insert(beerBulkWriter.prepare(document), collection));
+    }
+}
@@ -0,0 +1,121 @@
+package restapi.beerorder.services.catalog;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import restapi.beerorder.auxiliary.catalog.CatalogChangedEvent;
+import restapi.beerorder.pojos.beer.Beer;
+import restapi.beerorder.repositories.beer.BeerRepo;
+import restapi.beerorder.services.paging.KeysetPage;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BeerCatalogCacheTest {
+    private BeerRepo beerRepo;
+    private BeerCatalogCache cache;
+
+    private static Beer beer(long id, String name) {
+        Beer beer = new Beer();
+        beer.setId(id);
+        beer.setName(name);
+
+        return beer;
+    }
+
+    @BeforeEach
+    void setUp() {
+        beerRepo = mock(BeerRepo.class);
+        cache = new BeerCatalogCache(beerRepo, 2, 600, 256);
+    }
+
+    @Test
+    void warmReadsDontHitTheRepository() {
+        when(beerRepo.findById(1L)).thenReturn(Optional.of(beer(1, "Buzz")));
+
+        cache.findById(1L);
+        cache.findById(1L);
+        cache.findById(1L);
+
+        verify(beerRepo, times(1)).findById(1L);
+        assertEquals(2, cache.stats().get("byId").getHits());
+        assertEquals(1, cache.stats().get("byId").getMisses());
+    }
+
+    @Test
+    void checkingANameDoesntCountAsAHitOrMiss() {
+        when(beerRepo.findBeersByName("Buzz")).thenReturn(List.of(beer(1, "Buzz")));
+        cache.findByName("Buzz");
+
+        assertTrue(cache.isCachedName("Buzz"));
+        assertFalse(cache.isCachedName("Punk IPA"));
+        assertEquals(0, cache.stats().get("byName").getHits());
+        assertEquals(1, cache.stats().get("byName").getMisses());
+    }
+
+    @Test
+    void changedBeersAreReadAgain() {
+        when(beerRepo.findById(1L)).thenReturn(Optional.of(beer(1, "Buzz")));
+        when(beerRepo.findBeersByName("Buzz")).thenReturn(List.of(beer(1, "Buzz")));
+
+        cache.findById(1L);
+        cache.findByName("Buzz");
+
+        // A rename only names the new name, the old name entry is found by id.
+        when(beerRepo.findById(1L)).thenReturn(Optional.of(beer(1, "Fizz")));
+        when(beerRepo.findBeersByName("Buzz")).thenReturn(List.of());
+        cache.onCatalogChanged(CatalogChangedEvent.beers(List.of(1L), List.of("Fizz")));
+
+        assertEquals("Fizz", cache.findById(1L).orElseThrow().getName());
+        assertTrue(cache.findByName("Buzz").isEmpty());
+    }
+
+    @Test
+    void leastRecentlyUsedBeerIsEvicted() {
+        for (long id = 1; id <= 3; id++) {
+            when(beerRepo.findById(id)).thenReturn(Optional.of(beer(id, "Beer " + id)));
+        }
+
+        cache.findById(1L);
+        cache.findById(2L);
+        cache.findById(1L);
+        cache.findById(3L);
+        cache.findById(1L);
+        cache.findById(2L);
+
+        verify(beerRepo, times(1)).findById(1L);
+        verify(beerRepo, times(2)).findById(2L);
+        assertEquals(2, cache.stats().get("byId").getEvictions());
+    }
+
+    @Test
+    void aLikeOnlyDropsItsBeer() {
+        when(beerRepo.findById(1L)).thenReturn(Optional.of(beer(1, "Buzz")));
+        when(beerRepo.findById(2L)).thenReturn(Optional.of(beer(2, "Fizz")));
+        KeysetPage<Beer> withBuzz = new KeysetPage<>(List.of(beer(1, "Buzz")), null);
+        KeysetPage<Beer> withFizz = new KeysetPage<>(List.of(beer(2, "Fizz")), null);
+
+        cache.findById(1L);
+        cache.findById(2L);
+        cache.findPage(null, 1, () -> withBuzz);
+        cache.findPage(1L, 1, () -> withFizz);
+
+        cache.evictLikes(1L);
+
+        cache.findById(1L);
+        cache.findById(2L);
+        assertSame(withFizz, cache.findPage(1L, 1, () -> null));
+        assertNull(cache.findPage(null, 1, () -> null));
+        verify(beerRepo, times(2)).findById(1L);
+        verify(beerRepo, times(1)).findById(2L);
+    }
+}
@@ -0,0 +1,193 @@
+package restapi.beerorder.services.catalog;
+
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import restapi.beerorder.auxiliary.catalog.BeerFingerprint;
+import restapi.beerorder.auxiliary.catalog.IngredientTotals;
+import restapi.beerorder.services.BeerService;
+import restapi.beerorder.services.PunkApiClient;
+import restapi.beerorder.services.StubPunkApi;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CatalogImporterTest {
+    private StubPunkApi punkApi;
+    private ExecutorService executor;
+    private ExecutorService writerExecutor;
+    private RecordingBulkWriter bulkWriter;
+
+    /**
+     * Converts beers like the real writer, but keeps the documents instead of writing them.
+     */
+    static class RecordingBulkWriter extends BeerBulkWriter {
+        final List<Document> written = Collections.synchronizedList(new ArrayList<>());
+
+        RecordingBulkWriter(MongoTemplate mongoTemplate) {
+            super(mongoTemplate, event -> { });
+        }
+
+        @Override
+        public int upsertDocuments(List<Document> documents) {
+            written.addAll(documents);
+            return documents.size();
+        }
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        punkApi = new StubPunkApi(325);
+        executor = Executors.newFixedThreadPool(3);
+        writerExecutor = Executors.newSingleThreadExecutor();
+
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE,
+                new MongoMappingContext());
+        converter.afterPropertiesSet();
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.getConverter()).thenReturn(converter);
+        bulkWriter = new RecordingBulkWriter(mongoTemplate);
+    }
+
+    @AfterEach
+    void tearDown() {
+        punkApi.close();
+        executor.shutdownNow();
+        writerExecutor.shutdownNow();
+    }
+
+    private CatalogImporter importer(double ratePerSecond, boolean streaming) {
+        PunkApiClient punkApiClient = new PunkApiClient(1000, 5000, 2000, 3, 10, 0);
+        BeerService beerService = new BeerService(StubPunkApi.restTemplateBuilder(), punkApiClient,
+                punkApi.getUrl(), 1000, 2000);
+
+        return new CatalogImporter(beerService, bulkWriter, executor, writerExecutor,
+                80, 3, 100, ratePerSecond, 3, 4, 10, streaming, 50);
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void importsEveryBeerInBatches(boolean streaming) {
+        ImportReport report = importer(0, streaming).importCatalog();
+
+        assertEquals(325, report.getBeers());
+        assertEquals(5, report.getPages());
+        assertEquals(325, report.getWritten());
+        assertEquals(325, bulkWriter.written.stream().map(document -> document.get("_id")).distinct().count());
+        assertTrue(report.getBeersPerSecond() > 0);
+        assertNotEquals(0, report.getAllocatedBytesPerBeer());
+    }
+
+    /**
+     * Allocation per imported beer, streaming documents against converting whole pages of beers.
+     * Run with -Dbenchmark=true.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void allocationPerBeer() {
+        importer(0, false).importCatalog();//warm up both paths.
+        importer(0, true).importCatalog();
+
+        long converted = importer(0, false).importCatalog().getAllocatedBytesPerBeer();
+        long streamed = importer(0, true).importCatalog().getAllocatedBytesPerBeer();
+
+        System.out.printf("%d bytes allocated per beer streaming, %d converting pages%n", streamed, converted);
+        assertTrue(streamed < converted, "streaming allocates less per beer");
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void retriesTransientFailures(boolean streaming) {
+        punkApi.failNext(2);
+
+        ImportReport report = importer(0, streaming).importCatalog();
+
+        assertEquals(325, report.getBeers());
+        assertEquals(325, bulkWriter.written.stream().map(document -> document.get("_id")).distinct().count());
+    }
+
+    @Test
+    void skipsStreamedBeersWithoutAnId() {
+        punkApi.dropId(7);
+
+        ImportReport report = importer(0, true).importCatalog();
+
+        assertEquals(325, report.getBeers());
+        assertEquals(1, report.getSkipped());
+        assertEquals(324, report.getWritten());
+        assertTrue(bulkWriter.written.stream().allMatch(document -> document.get("_id") instanceof Long));
+    }
+
+    @Test
+    void respectsTheRateLimit() {
+        long start = System.nanoTime();
+
+        importer(20, false).importCatalog();
+
+        // 6 requests with a burst of 3 at 20/sec need at least 150ms.
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        assertTrue(elapsedMillis >= 140, "took only " + elapsedMillis + " ms");
+        assertEquals(6, punkApi.getRequests());
+    }
+
+    @Test
+    void streamedDocumentsMatchConvertedBeers() {
+        importer(0, false).importCatalog();
+        Map<Object, String> converted = fingerprints();
+        bulkWriter.written.clear();
+
+        importer(0, true).importCatalog();
+        Map<Object, String> streamed = fingerprints();
+
+        assertEquals(converted, streamed);
+
+        Document beer = bulkWriter.written.get(0);
+        assertEquals(Long.class, beer.get("_id").getClass());
+        assertEquals(Double.class, beer.get("ibu").getClass());
+        assertFalse(beer.containsKey("unknown_field"));
+        assertEquals(3.3, beer.get(IngredientTotals.TOTAL_MALT));
+        assertEquals(25.0, beer.get(IngredientTotals.TOTAL_HOPS));
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void syncRecordsAnImportReport(boolean streaming) {
+        CatalogImporter importer = importer(0, streaming);
+        CatalogSync sync = new CatalogSync(importer, bulkWriter, mock(CatalogSnapshot.class),
+                new CatalogWarmup(() -> 0L));
+
+        sync.sync();
+
+        ImportReport report = importer.getLastReport();
+        assertEquals(5, report.getPages());
+        assertEquals(325, report.getBeers());
+        assertEquals(325, report.getWritten());
+        assertTrue(report.getBeersPerSecond() > 0);
+    }
+
+    private Map<Object, String> fingerprints() {
+        return bulkWriter.written.stream()
+                .collect(Collectors.toMap(document -> document.get("_id"),
+                        document -> document.getString(BeerFingerprint.FIELD)));
+    }
+}
@@ -0,0 +1,79 @@
+package restapi.beerorder.services.catalog;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.InsertManyOptions;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import restapi.beerorder.auxiliary.catalog.CatalogSnapshotFile;
+import restapi.beerorder.pojos.beer.Beer;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CatalogSnapshotTest {
+    @TempDir
+    Path directory;
+
+    private MongoCollection<RawBsonDocument> beers;
+    private ApplicationEventPublisher eventPublisher;
+    private CatalogSnapshot snapshot;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws Exception {
+        Path path = directory.resolve("beers.snapshot");
+        DocumentCodec codec = new DocumentCodec();
+        List<RawBsonDocument> catalog = new ArrayList<>();
+
+        for (long id = 1; id <= 3; id++) {
+            catalog.add(new RawBsonDocument(new Document("_id", id).append("name", "Beer " + id), codec));
+        }
+
+        CatalogSnapshotFile.write(path, catalog, true);
+
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        MongoCollection<Document> collection = mock(MongoCollection.class);
+        beers = mock(MongoCollection.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+
+        when(mongoTemplate.getCollectionName(Beer.class)).thenReturn("beers");
+        when(mongoTemplate.getCollection("beers")).thenReturn(collection);
+        when(collection.withDocumentClass(RawBsonDocument.class)).thenReturn(beers);
+
+        snapshot = new CatalogSnapshot(mongoTemplate, eventPublisher, path.toString(), true, true);
+    }
+
+    @Test
+    void loadsIntoAnEmptyCollection() throws Exception {
+        when(beers.estimatedDocumentCount()).thenReturn(0L);
+
+        assertEquals(3, snapshot.load());
+        verify(beers).insertMany(anyList(), any(InsertManyOptions.class));
+        verify(eventPublisher).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void leavesABeerCollectionAlone() throws Exception {
+        // Beers deleted or edited since the snapshot was written must stay that way.
+        when(beers.estimatedDocumentCount()).thenReturn(2L);
+
+        assertEquals(0, snapshot.load());
+        verify(beers, never()).insertMany(anyList(), any(InsertManyOptions.class));
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+}
@@ -0,0 +1,81 @@
+package restapi.beerorder.services.likes;
+
+import com.mongodb.client.result.DeleteResult;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import restapi.beerorder.pojos.beer.Beer;
+import restapi.beerorder.pojos.like.BeerLike;
+import restapi.beerorder.services.catalog.BeerCatalogCache;
+import restapi.beerorder.services.paging.KeysetPager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BeerLikesTest {
+    private MongoTemplate mongoTemplate;
+    private BeerCatalogCache beerCatalogCache;
+    private BeerLikes beerLikes;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        beerCatalogCache = mock(BeerCatalogCache.class);
+        beerLikes = new BeerLikes(mongoTemplate, mock(KeysetPager.class), beerCatalogCache);
+    }
+
+    @Test
+    void likingIncrementsTheCounterOnce() {
+        assertTrue(beerLikes.like("u1", 7L));
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(any(Query.class), update.capture(), eq(Beer.class));
+        assertEquals(new Document("$inc", new Document(BeerLikes.LIKE_COUNT, 1L)), update.getValue().getUpdateObject());
+        verify(beerCatalogCache).evictLikes(7L);
+
+        when(mongoTemplate.insert(any(BeerLike.class))).thenThrow(new DuplicateKeyException("likes _id"));
+        assertFalse(beerLikes.like("u1", 7L));
+        verify(mongoTemplate, times(1)).updateFirst(any(Query.class), any(Update.class), eq(Beer.class));
+    }
+
+    @Test
+    void unlikingOnlyDecrementsWhenAnEdgeWasRemoved() {
+        when(mongoTemplate.remove(any(Query.class), eq(BeerLike.class))).thenReturn(DeleteResult.acknowledged(0));
+        assertFalse(beerLikes.unlike("u1", 7L));
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), any(Update.class), eq(Beer.class));
+
+        when(mongoTemplate.remove(any(Query.class), eq(BeerLike.class))).thenReturn(DeleteResult.acknowledged(1));
+        assertTrue(beerLikes.unlike("u1", 7L));
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(query.capture(), update.capture(), eq(Beer.class));
+        assertEquals(new Document("_id", 7L), query.getValue().getQueryObject());
+        assertEquals(new Document("$inc", new Document(BeerLikes.LIKE_COUNT, -1L)), update.getValue().getUpdateObject());
+    }
+
+    @Test
+    void removingAUserTakesItsLikesOffEveryBeer() {
+        when(mongoTemplate.findAllAndRemove(any(Query.class), eq(BeerLike.class)))
+                .thenReturn(List.of(new BeerLike("u1", 1L), new BeerLike("u1", 2L)));
+
+        beerLikes.removeUser("u1");
+
+        verify(mongoTemplate, times(2)).updateFirst(any(Query.class), any(Update.class), eq(Beer.class));
+    }
+}
@@ -0,0 +1,52 @@
+package restapi.beerorder.services.likes;
+
+import com.mongodb.DBRef;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import restapi.beerorder.pojos.like.BeerLike;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LegacyLikesMigrationTest {
+    private static final ObjectId ALICE = new ObjectId("62b1f0c2a1b2c3d4e5f60001");
+    private static final ObjectId BOB = new ObjectId("62b1f0c2a1b2c3d4e5f60002");
+
+    @Test
+    void readsTheDbRefsOfBothSides() {
+        // As the baseline stored them, @DBRef sets on both the user and the beer.
+        List<Document> users = List.of(
+                new Document("_id", ALICE).append("favoriteBeers",
+                        List.of(new DBRef("beers", 1L), new DBRef("beers", 2L))),
+                new Document("_id", BOB).append("favoriteBeers", List.of()));
+        List<Document> beers = List.of(
+                new Document("_id", 1L).append("usersThatLikeThisBeer", List.of(new DBRef("users", ALICE))),
+                new Document("_id", 3L).append("usersThatLikeThisBeer", List.of(new DBRef("users", BOB))));
+
+        LegacyLikesMigration.LegacyLikes legacy = LegacyLikesMigration.LegacyLikes.read(users, beers);
+
+        assertEquals(List.of(BeerLike.idOf(ALICE.toHexString(), 1L), BeerLike.idOf(ALICE.toHexString(), 2L),
+                BeerLike.idOf(BOB.toHexString(), 3L)), List.copyOf(legacy.likes.keySet()));
+        assertEquals(List.of(ALICE, BOB), legacy.migratedUsers);
+        assertEquals(List.of(1L, 3L), legacy.migratedBeers);
+        assertEquals(0, legacy.skipped);
+    }
+
+    @Test
+    void keepsTheSetsItCantRead() {
+        List<Document> users = List.of(new Document("_id", ALICE).append("favoriteBeers",
+                List.of(new DBRef("beers", 1L), new DBRef("beers", "not-a-beer-id"))));
+        List<Document> beers = List.of(new Document("_id", 1L).append("usersThatLikeThisBeer",
+                List.of(new DBRef("users", ALICE), new DBRef("users", 42.5))));
+
+        LegacyLikesMigration.LegacyLikes legacy = LegacyLikesMigration.LegacyLikes.read(users, beers);
+
+        // The readable likes move, but both sets stay until every reference in them is understood.
+        assertEquals(List.of(BeerLike.idOf(ALICE.toHexString(), 1L)), List.copyOf(legacy.likes.keySet()));
+        assertEquals(List.of(), legacy.migratedUsers);
+        assertEquals(List.of(), legacy.migratedBeers);
+        assertEquals(2, legacy.skipped);
+    }
+}
@@ -0,0 +1,198 @@
+package restapi.beerorder.services.order;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import restapi.beerorder.controllers.order.OrderController;
+import restapi.beerorder.factories.OrderDTOFactory;
+import restapi.beerorder.factories.OrderFactory;
+import restapi.beerorder.pojos.beer.Beer;
+import restapi.beerorder.pojos.order.Order;
+import restapi.beerorder.pojos.user.User;
+import restapi.beerorder.repositories.beer.BeerRepo;
+import restapi.beerorder.repositories.order.OrderRepo;
+import restapi.beerorder.repositories.user.UserRepo;
+import restapi.beerorder.services.catalog.BeerCatalogCache;
+import restapi.beerorder.services.order.OrderBatchReport.Status;
+import restapi.beerorder.services.paging.KeysetPager;
+import restapi.beerorder.services.pricing.PricingEngine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OrderBatchSubmitterTest {
+    private static final long ROUND_TRIP_MILLIS = 2;
+
+    private final AtomicInteger roundTrips = new AtomicInteger();
+    private BulkOperations bulkOperations;
+    private OrderBeerValidator orderBeerValidator;
+    private PricingEngine pricingEngine;
+    private OrderBatchSubmitter submitter;
+
+    @BeforeEach
+    void setUp() {
+        // Users named "user<n>" and beers named "Beer <n>" exist, each DB call costs a simulated round trip.
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        bulkOperations = mock(BulkOperations.class);
+
+        when(mongoTemplate.findDistinct(any(Query.class), eq("userName"), eq(User.class), eq(String.class)))
+                .thenAnswer(invocation -> existing(invocation.getArgument(0), "userName", "user"));
+        when(mongoTemplate.findDistinct(any(Query.class), eq("name"), eq(Beer.class), eq(String.class)))
+                .thenAnswer(invocation -> existing(invocation.getArgument(0), "name", "Beer "));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class)).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenAnswer(invocation -> {
+            roundTrips.incrementAndGet();
+            Thread.sleep(ROUND_TRIP_MILLIS);
+            return null;
+        });
+
+        orderBeerValidator = new OrderBeerValidator(mongoTemplate,
+                new BeerCatalogCache(mock(BeerRepo.class), 100, 600, 256));
+        pricingEngine = new PricingEngine(mongoTemplate, 10);
+        submitter = new OrderBatchSubmitter(mongoTemplate, orderBeerValidator, pricingEngine, 20, 1000);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> existing(Query query, String field, String prefix) throws InterruptedException {
+        roundTrips.incrementAndGet();
+        Thread.sleep(ROUND_TRIP_MILLIS);
+        Collection<String> values = (Collection<String>) query.getQueryObject().get(field, Document.class).get("$in");
+
+        return values.stream().filter(value -> value.startsWith(prefix)).collect(Collectors.toList());
+    }
+
+    private static Order order(String userName, int bottles, String... beers) {
+        Order order = new Order();
+        order.setUserName(userName);
+        Arrays.stream(beers).forEach(beer -> order.getBeersOrdered().put(beer, bottles));
+
+        return order;
+    }
+
+    @Test
+    void everyOrderGetsAResult() {
+        OrderBatchReport report = submitter.submit(Arrays.asList(
+                order("user1", 2, "Beer 1", "Beer 2"),
+                order("nobody", 2, "Beer 1"),
+                order("user2", 2, "Beer 1", "Nope"),
+                order("user3", 1, "Beer 3"),
+                order("user4", 0, "Beer 4"),
+                null));
+
+        assertEquals(List.of(Status.CREATED, Status.USER_NOT_FOUND, Status.BEER_NOT_FOUND, Status.BELOW_MINIMUM,
+                Status.INVALID, Status.INVALID), report.getResults().stream().map(OrderBatchReport.Result::getStatus)
+                .collect(Collectors.toList()));
+        assertNotNull(report.getResults().get(0).getOrderId());
+        assertEquals(40.0, report.getResults().get(0).getOrderSum());
+        assertEquals("The beers: Nope don't exist", report.getResults().get(2).getMessage());
+        assertEquals(3, roundTrips.get());
+        verify(bulkOperations, times(1)).insert(any(Order.class));
+    }
+
+    @Test
+    void theSingleOrderPathCostsThreeRoundTrips() {
+        roundTrips.set(0);
+
+        ResponseEntity<?> response = singleOrderController().createNewOrder(order("user1", 2, "Beer 1", "Beer 2"),
+                null);
+
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        assertNotNull(response.getHeaders().getLocation());
+        assertEquals(3, roundTrips.get());
+    }
+
+    /**
+     * Batch latency by order count, against placing the same orders one by one through POST /order/neworder.
+     * Both pay the same simulated round trip per DB call.
+     * Run with -Dbenchmark=true.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void latencyByBatchSize() {
+        OrderController controller = singleOrderController();
+        // Warm both paths up, the first link built is much slower than the rest.
+        submitter.submit(List.of(order("user0", 2, "Beer 0", "Beer 1")));
+        controller.createNewOrder(order("user0", 2, "Beer 0", "Beer 1"), null);
+
+        for (int size : List.of(1, 10, 100, 500)) {
+            List<Order> orders = new ArrayList<>(size);
+
+            for (int i = 0; i < size; i++) {
+                orders.add(order("user" + i, 2, "Beer " + i, "Beer " + (i + 1)));
+            }
+
+            roundTrips.set(0);
+            long start = System.nanoTime();
+            OrderBatchReport report = submitter.submit(orders);
+            double batchedMillis = (System.nanoTime() - start) / 1e6;
+            assertEquals(size, report.getCounts().get(Status.CREATED));
+            assertEquals(3, roundTrips.get());
+
+            roundTrips.set(0);
+            start = System.nanoTime();
+            for (int i = 0; i < size; i++) {
+                Order order = order("user" + i, 2, "Beer " + i, "Beer " + (i + 1));
+                ResponseEntity<?> response = controller.createNewOrder(order, null);
+                assertEquals(HttpStatus.CREATED, response.getStatusCode(), String.valueOf(response.getBody()));
+            }
+            double singleMillis = (System.nanoTime() - start) / 1e6;
+            assertEquals(3 * size, roundTrips.get());
+
+            System.out.printf("%3d orders: %6.1f ms batched, %6.1f ms through the single-order path%n", size,
+                    batchedMillis, singleMillis);
+        }
+    }
+
+    /**
+     * The single-order endpoint on the same simulated DB, the user lookup and the save cost a round trip each.
+     */
+    private OrderController singleOrderController() {
+        UserRepo userRepo = mock(UserRepo.class);
+        when(userRepo.findUserByUserName(any(String.class))).thenAnswer(invocation -> {
+            roundTrips.incrementAndGet();
+            Thread.sleep(ROUND_TRIP_MILLIS);
+            return Optional.of(new User());
+        });
+
+        OrderRepo orderRepo = mock(OrderRepo.class);
+        when(orderRepo.save(any(Order.class))).thenAnswer(invocation -> {
+            roundTrips.incrementAndGet();
+            Thread.sleep(ROUND_TRIP_MILLIS);
+            Order order = invocation.getArgument(0);
+            order.setId(new ObjectId().toHexString());
+            return order;
+        });
+
+        OrderIngestion orderIngestion = mock(OrderIngestion.class);
+        when(orderIngestion.isRunning()).thenReturn(false);
+
+        OrderController controller = new OrderController(orderRepo, new OrderFactory(), new OrderDTOFactory(),
+                userRepo, orderBeerValidator, mock(KeysetPager.class), submitter, pricingEngine, orderIngestion,
+                mock(OrderIdempotency.class));
+        ReflectionTestUtils.setField(controller, "minimumOrderAmount", 20);
+
+        return controller;
+    }
+}
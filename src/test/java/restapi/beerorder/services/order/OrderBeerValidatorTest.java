@@ -0,0 +1,124 @@
+package restapi.beerorder.services.order;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import restapi.beerorder.exceptions.beer.BeerNotFoundException;
+import restapi.beerorder.exceptions.beer.BeersNotFoundException;
+import restapi.beerorder.pojos.beer.Beer;
+import restapi.beerorder.pojos.order.Order;
+import restapi.beerorder.repositories.beer.BeerRepo;
+import restapi.beerorder.services.catalog.BeerCatalogCache;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OrderBeerValidatorTest {
+    private static final long ROUND_TRIP_MILLIS = 2;
+
+    private final AtomicInteger queries = new AtomicInteger();
+    private BeerRepo beerRepo;
+    private OrderBeerValidator validator;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        // Every beer named "Beer <n>" exists, each query costs a simulated round trip.
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.findDistinct(any(Query.class), eq("name"), eq(Beer.class), eq(String.class)))
+                .thenAnswer(invocation -> {
+                    queries.incrementAndGet();
+                    Thread.sleep(ROUND_TRIP_MILLIS);
+                    Collection<String> names = (Collection<String>) invocation.getArgument(0, Query.class)
+                            .getQueryObject().get("name", org.bson.Document.class).get("$in");
+
+                    return names.stream().filter(name -> name.startsWith("Beer ")).collect(Collectors.toList());
+                });
+
+        // The lookup of the old per-line validation, one query per name.
+        beerRepo = mock(BeerRepo.class);
+        when(beerRepo.findBeersByName(any(String.class))).thenAnswer(invocation -> {
+            queries.incrementAndGet();
+            Thread.sleep(ROUND_TRIP_MILLIS);
+            String name = invocation.getArgument(0);
+
+            return name.startsWith("Beer ") ? List.of(new Beer()) : List.of();
+        });
+
+        validator = new OrderBeerValidator(mongoTemplate, new BeerCatalogCache(beerRepo, 100, 600, 256));
+    }
+
+    private static Order order(int lines, String... extraBeers) {
+        Order order = new Order();
+
+        for (int i = 0; i < lines; i++) {
+            order.getBeersOrdered().put("Beer " + i, 1);
+        }
+
+        for (String beer : extraBeers) {
+            order.getBeersOrdered().put(beer, 1);
+        }
+
+        return order;
+    }
+
+    @Test
+    void reportsEveryMissingBeerFromOneQuery() {
+        BeersNotFoundException ex = assertThrows(BeersNotFoundException.class,
+                () -> validator.validate(order(20, "Nope", "Also nope")));
+
+        assertEquals("The beers: Also nope, Nope don't exist", ex.getMessage());
+        assertEquals(1, queries.get());
+    }
+
+    /**
+     * Order validation latency by line count, batched against the old lookup of every line through the cache.
+     * Both start from a cold cache and pay the same simulated round trip per query.
+     * Run with -Dbenchmark=true.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void latencyByLineCount() {
+        for (int lines : List.of(1, 5, 20, 50)) {
+            Order order = order(lines);
+
+            queries.set(0);
+            long start = System.nanoTime();
+            validator.validate(order);
+            double batchedMillis = (System.nanoTime() - start) / 1e6;
+            assertEquals(1, queries.get());
+
+            queries.set(0);
+            BeerCatalogCache coldCache = new BeerCatalogCache(beerRepo, 100, 600, 256);
+            start = System.nanoTime();
+            validatePerLine(order, coldCache);
+            double perLineMillis = (System.nanoTime() - start) / 1e6;
+            assertEquals(lines, queries.get());
+
+            System.out.printf("%3d lines: %5.1f ms batched, %5.1f ms with a query per line%n", lines,
+                    batchedMillis, perLineMillis);
+        }
+    }
+
+    /**
+     * The validation OrderController ran before the batched one.
+     */
+    private static void validatePerLine(Order order, BeerCatalogCache beerCatalogCache) {
+        for (String name : order.getBeersOrdered().keySet()) {
+            if (beerCatalogCache.findByName(name).isEmpty()) {
+                throw new BeerNotFoundException(name);
+            }
+        }
+    }
+}
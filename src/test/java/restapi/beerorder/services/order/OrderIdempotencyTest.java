@@ -0,0 +1,272 @@
+package restapi.beerorder.services.order;
+
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.ResponseEntity;
+import restapi.beerorder.auxiliary.metrics.LatencyHistogram;
+import restapi.beerorder.exceptions.order.IdempotencyKeyInUseException;
+import restapi.beerorder.exceptions.order.IdempotencyKeyMismatchException;
+import restapi.beerorder.pojos.order.IdempotencyKey;
+import restapi.beerorder.pojos.order.Order;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OrderIdempotencyTest {
+    private static final long ROUND_TRIP_MILLIS = 2;
+    private static final int KEYS = 20;
+    private static final int CLIENTS = 32;
+    private static final int RETRIES_PER_CLIENT = 500;
+
+    private final Map<String, IdempotencyKey> stored = new ConcurrentHashMap<>();
+    private final AtomicInteger claims = new AtomicInteger();
+    private final AtomicInteger placements = new AtomicInteger();
+    private OrderIdempotency idempotency;
+
+    @BeforeEach
+    void setUp() {
+        // The idempotencyKeys collection, every call costs a simulated round trip.
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+
+        when(mongoTemplate.insert(any(IdempotencyKey.class))).thenAnswer(invocation -> {
+            IdempotencyKey key = invocation.getArgument(0);
+            roundTrip();
+            claims.incrementAndGet();
+
+            if (stored.putIfAbsent(key.getKey(), key) != null) {
+                throw new DuplicateKeyException(key.getKey());
+            }
+
+            return key;
+        });
+        when(mongoTemplate.save(any(IdempotencyKey.class))).thenAnswer(invocation -> {
+            roundTrip();
+            return invocation.getArgument(0);
+        });
+        when(mongoTemplate.findById(anyString(), eq(IdempotencyKey.class)))
+                .thenAnswer(invocation -> stored.get(invocation.getArgument(0, String.class)));
+        when(mongoTemplate.remove(any(Query.class), eq(IdempotencyKey.class))).thenAnswer(invocation -> {
+            stored.remove(invocation.getArgument(0, Query.class).getQueryObject().getString("_id"));
+            return null;
+        });
+
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(IdempotencyKey.class)))
+                .thenAnswer(invocation -> {
+                    Document query = invocation.getArgument(0, Query.class).getQueryObject();
+                    Document set = (Document) invocation.getArgument(1, Update.class).getUpdateObject().get("$set");
+                    IdempotencyKey key = stored.get(query.getString("_id"));
+
+                    if (key == null || key.isCompleted() || !key.getCreatedAt().equals(query.get("createdAt"))) {
+                        return UpdateResult.acknowledged(0, 0L, null);
+                    }
+
+                    key.setRequestHash(set.getString("requestHash"));
+                    key.setCreatedAt(set.getDate("createdAt"));
+                    return UpdateResult.acknowledged(1, 1L, null);
+                });
+
+        idempotency = new OrderIdempotency(mongoTemplate, 1000, 600, 30);
+    }
+
+    private static void roundTrip() throws InterruptedException {
+        Thread.sleep(ROUND_TRIP_MILLIS);
+    }
+
+    private static Order order(int key) {
+        Order order = new Order();
+        order.setUserName("user" + key);
+        order.getBeersOrdered().put("Buzz", 4);
+
+        return order;
+    }
+
+    /**
+     * Places an order the slow way: validation, pricing and a save take a few round trips.
+     */
+    private Supplier<ResponseEntity<?>> placement(Order order) {
+        return () -> {
+            try {
+                Thread.sleep(3 * ROUND_TRIP_MILLIS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+
+            placements.incrementAndGet();
+            order.setId(new ObjectId().toHexString());
+
+            return ResponseEntity.created(URI.create("/orders/info/" + order.getId())).body(order.getId());
+        };
+    }
+
+    /**
+     * Many clients retry the same few orders at once: each order is placed once and every retry gets the first
+     * response.
+     */
+    @Test
+    void retryStormPlacesEveryOrderOnce() throws Exception {
+        retryStorm(new LatencyHistogram(), new LatencyHistogram());
+
+        assertEquals(KEYS, placements.get());
+        assertEquals(KEYS, claims.get());
+    }
+
+    /**
+     * Once placed, a retry is answered from memory, well under a single DB round trip, while a client's first
+     * send of a key places the order or waits for it. Run with -Dbenchmark=true.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void retryLatency() throws Exception {
+        LatencyHistogram firstSendLatency = new LatencyHistogram();
+        LatencyHistogram retryLatency = new LatencyHistogram();
+        retryStorm(firstSendLatency, retryLatency);
+        LatencyHistogram.Snapshot firstSends = firstSendLatency.snapshot();
+        LatencyHistogram.Snapshot latency = retryLatency.snapshot();
+
+        System.out.printf("%d retries of %d orders: p50 %.3f ms, p99 %.3f ms, max %.3f ms; "
+                        + "%d first sends: p50 %.3f ms, p99 %.3f ms%n", latency.getCount(), KEYS,
+                latency.getP50Millis(), latency.getP99Millis(), latency.getMaxMillis(), firstSends.getCount(),
+                firstSends.getP50Millis(), firstSends.getP99Millis());
+        assertTrue(latency.getP99Millis() <= ROUND_TRIP_MILLIS, "a retry costs less than a single DB round trip");
+    }
+
+    /**
+     * Runs the clients and checks they all saw the same response per key.
+     * @param firstSendLatency - records each client's first request per key.
+     * @param retryLatency - records the retries of keys the client already sent once.
+     */
+    private void retryStorm(LatencyHistogram firstSendLatency, LatencyHistogram retryLatency) throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Map<String, ResponseEntity<?>>>> results = new ArrayList<>();
+
+        for (int client = 0; client < CLIENTS; client++) {
+            results.add(clients.submit(() -> {
+                Map<String, ResponseEntity<?>> seen = new ConcurrentHashMap<>();
+                start.await();
+
+                for (int i = 0; i < RETRIES_PER_CLIENT; i++) {
+                    int key = i % KEYS;
+                    Order order = order(key);
+                    boolean warm = i >= KEYS;//every key was sent once by this client already.
+                    long begin = System.nanoTime();
+                    ResponseEntity<?> response = idempotency.execute("key-" + key, order, placement(order),
+                            outcome -> { throw new AssertionError("retries are answered from memory"); });
+
+                    (warm ? retryLatency : firstSendLatency).record(System.nanoTime() - begin);
+
+                    seen.putIfAbsent("key-" + key, response);
+                    assertSame(seen.get("key-" + key), response);
+                }
+
+                return seen;
+            }));
+        }
+
+        start.countDown();
+
+        try {
+            Map<String, ResponseEntity<?>> first = results.get(0).get();
+
+            for (Future<Map<String, ResponseEntity<?>>> result : results) {
+                result.get().forEach((key, response) -> assertSame(first.get(key), response));
+            }
+        } finally {
+            clients.shutdown();
+        }
+    }
+
+    @Test
+    void requestHashIsCanonical() {
+        Order order = order(1);
+        order.getBeersOrdered().put("Punk IPA", 2);
+        Order sameOrder = new Order();
+        sameOrder.setUserName("user1");
+        sameOrder.getBeersOrdered().put("Punk IPA", 2);
+        sameOrder.getBeersOrdered().put("Buzz", 4);
+        Order otherOrder = order(1);
+        otherOrder.getBeersOrdered().put("Punk IPA", 3);
+
+        String hash = OrderIdempotency.requestHash(order);
+
+        assertEquals(64, hash.length());
+        assertEquals(hash, OrderIdempotency.requestHash(sameOrder));
+        assertNotEquals(hash, OrderIdempotency.requestHash(otherOrder));
+    }
+
+    @Test
+    void aKeyCompletedElsewhereStillAnswersItsRetries() {
+        IdempotencyKey completed = new IdempotencyKey("key", OrderIdempotency.requestHash(order(1)));
+        completed.setCompleted(true);
+        completed.setStatus(201);
+        stored.put("key", completed);
+
+        assertThrows(IdempotencyKeyMismatchException.class,
+                () -> idempotency.execute("key", order(2), placement(order(2)), outcome -> null));
+        ResponseEntity<?> response = idempotency.execute("key", order(1), placement(order(1)),
+                outcome -> ResponseEntity.status(outcome.getStatus()).build());
+
+        assertEquals(201, response.getStatusCodeValue());
+        assertEquals(0, placements.get());
+    }
+
+    @Test
+    void aClaimPastItsLeaseIsTakenOver() {
+        IdempotencyKey abandoned = new IdempotencyKey("crashed", OrderIdempotency.requestHash(order(1)));
+        abandoned.setCreatedAt(new Date(System.currentTimeMillis() - 60_000));
+        stored.put("crashed", abandoned);
+        stored.put("running", new IdempotencyKey("running", OrderIdempotency.requestHash(order(2))));
+
+        assertEquals(201, idempotency.execute("crashed", order(1), placement(order(1)), outcome -> null)
+                .getStatusCodeValue());
+        assertThrows(IdempotencyKeyInUseException.class,
+                () -> idempotency.execute("running", order(2), placement(order(2)), outcome -> null));
+        assertEquals(1, placements.get());
+    }
+
+    @Test
+    void keyIsTiedToItsOrderAndReleasedOnFailure() {
+        Order order = order(1);
+        ResponseEntity<?> response = idempotency.execute("key", order, placement(order), outcome -> null);
+
+        assertThrows(IdempotencyKeyMismatchException.class,
+                () -> idempotency.execute("key", order(2), placement(order(2)), outcome -> null));
+        assertSame(response, idempotency.execute("key", order(1), placement(order(1)), outcome -> null));
+
+        assertThrows(IllegalStateException.class, () -> idempotency.execute("failing", order(3), () -> {
+            throw new IllegalStateException("user not found");
+        }, outcome -> null));
+        idempotency.execute("failing", order(3), placement(order(3)), outcome -> null);
+
+        assertEquals(2, placements.get());
+    }
+}
@@ -0,0 +1,215 @@
+package restapi.beerorder.services.order;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import restapi.beerorder.auxiliary.order.OrderJournal;
+import restapi.beerorder.pojos.order.Order;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OrderIngestionTest {
+    private static final long HEADER_SIZE = 12;
+
+    @TempDir
+    Path directory;
+
+    private final List<Document> written = Collections.synchronizedList(new ArrayList<>());
+    private MongoTemplate mongoTemplate;
+    private BulkOperations bulkOperations;
+    private OrderIngestion ingestion;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE,
+                new MongoMappingContext());
+        converter.afterPropertiesSet();
+        bulkOperations = mock(BulkOperations.class);
+        mongoTemplate = mock(MongoTemplate.class);
+
+        when(mongoTemplate.getConverter()).thenReturn(converter);
+        when(mongoTemplate.getCollectionName(Order.class)).thenReturn("orders");
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, "orders")).thenReturn(bulkOperations);
+        when(bulkOperations.insert(anyList())).thenAnswer(invocation -> {
+            written.addAll(invocation.getArgument(0, List.class));
+            return bulkOperations;
+        });
+        when(mongoTemplate.exists(any(Query.class), eq(Order.class))).thenReturn(true);
+
+        ingestion = new OrderIngestion(mongoTemplate, true, 100, 10, directory.resolve("orders.journal").toString(),
+                true, 10);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        ingestion.stop();
+    }
+
+    private static Document order(String userName) {
+        return new Document("_id", new ObjectId()).append("userName", userName).append("orderSum", 40.0);
+    }
+
+    @Test
+    void replaysUncommittedOrdersAfterACrash() throws Exception {
+        Path path = directory.resolve("orders.journal");
+        Document committed = order("user1");
+        Document pending1 = order("user2");
+        Document pending2 = order("user3");
+
+        // The previous run wrote one order before dying in the middle of an append.
+        OrderJournal journal = OrderJournal.open(path, false);
+        journal.appendOrder(committed);
+        journal.appendOrder(pending1);
+        journal.appendCommit(List.of(committed.get("_id")));
+        journal.appendOrder(pending2);
+        journal.close();
+        Files.write(path, new byte[]{0, 0, 1, 0, 1, 42}, StandardOpenOption.APPEND);
+
+        assertEquals(2, ingestion.start());
+        assertEquals(List.of(pending1.get("_id"), pending2.get("_id")),
+                written.stream().map(document -> document.get("_id")).collect(Collectors.toList()));
+        assertEquals(HEADER_SIZE, Files.size(path));
+        assertEquals(2, ingestion.stats().getRecovered());
+    }
+
+    @Test
+    void committedOrdersArentReplayed() throws Exception {
+        Path path = directory.resolve("orders.journal");
+        CountDownLatch secondSubmitted = new CountDownLatch(1);
+        AtomicInteger executions = new AtomicInteger();
+        ingestion = new OrderIngestion(mongoTemplate, true, 100, 1, path.toString(), true, 10);
+
+        // The first order is written while the second waits, then the DB goes away.
+        when(bulkOperations.execute()).thenAnswer(invocation -> {
+            if (executions.incrementAndGet() > 1) {
+                throw new DataAccessResourceFailureException("Mongo is down");
+            }
+
+            secondSubmitted.await();
+            return null;
+        });
+
+        ingestion.start();
+        String first = ingestion.submit(order());
+        String second = ingestion.submit(order());
+        secondSubmitted.countDown();
+
+        for (int i = 0; i < 200 && ingestion.stats().getCommitted() < 1; i++) {
+            Thread.sleep(10);
+        }
+
+        // What the next start would find after a crash now.
+        Path crashed = directory.resolve("crashed.journal");
+        Files.copy(path, crashed);
+
+        assertEquals(1, ingestion.stats().getCommitted());
+        assertEquals(first, written.get(0).get("_id").toString());
+        assertEquals(List.of(new ObjectId(second)), OrderJournal.replay(crashed).stream()
+                .map(document -> document.get("_id")).collect(Collectors.toList()));
+    }
+
+    @Test
+    void anUnreachableDbKeepsTheJournalAndTheModeOff() throws Exception {
+        Path path = directory.resolve("orders.journal");
+        OrderJournal journal = OrderJournal.open(path, false);
+        journal.appendOrder(order("user1"));
+        journal.close();
+        long size = Files.size(path);
+
+        when(bulkOperations.execute()).thenThrow(new DataAccessResourceFailureException("Mongo is down"));
+
+        assertEquals(0, ingestion.start());
+        assertFalse(ingestion.isRunning());
+        assertEquals(size, Files.size(path));
+    }
+
+    private static Order order() {
+        Order order = new Order();
+        order.setUserName("user");
+        order.getBeersOrdered().put("Buzz", 4);
+        order.setOrderSum(40.0);
+
+        return order;
+    }
+
+    @Test
+    void writesAcceptedOrdersBehind() throws Exception {
+        ingestion.start();
+        List<String> ids = new ArrayList<>();
+
+        for (int i = 0; i < 25; i++) {
+            ids.add(ingestion.submit(order()));
+        }
+
+        for (int i = 0; i < 200 && ingestion.stats().getCommitted() < ids.size(); i++) {
+            Thread.sleep(10);
+        }
+
+        IngestStats stats = ingestion.stats();
+
+        assertEquals(25, stats.getCommitted());
+        assertEquals(25, stats.getCommitLatency().getCount());
+        assertEquals(0, stats.getQueueDepth());
+        assertEquals(HEADER_SIZE, stats.getJournalBytes());
+        assertEquals(IngestStatus.State.COMMITTED, ingestion.status(ids.get(0)).getState());
+        assertEquals(ids, written.stream().map(document -> document.get("_id").toString())
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    void concurrentOrdersShareTheJournalSync() throws Exception {
+        ingestion.start();
+        ExecutorService clients = Executors.newFixedThreadPool(8);
+        List<Future<String>> ids = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < 80; i++) {
+                ids.add(clients.submit(() -> ingestion.submit(order())));
+            }
+
+            for (Future<String> id : ids) {
+                id.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            clients.shutdownNow();
+        }
+
+        for (int i = 0; i < 200 && ingestion.stats().getCommitted() < ids.size(); i++) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(80, ingestion.stats().getCommitted());
+        assertEquals(HEADER_SIZE, ingestion.stats().getJournalBytes());
+    }
+}
@@ -0,0 +1,112 @@
+package restapi.beerorder.services.paging;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import restapi.beerorder.exceptions.InvalidRequestParamException;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class KeysetPagerTest {
+    private MongoTemplate mongoTemplate;
+    private KeysetPager pager;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        pager = new KeysetPager(mongoTemplate, new ObjectMapper(), 2, 10);
+    }
+
+    @Test
+    void pagesStartAfterTheLastId() {
+        when(mongoTemplate.find(any(Query.class), eq(Long.class))).thenReturn(List.of(4L, 5L, 6L));
+
+        KeysetPage<Long> page = pager.page(new Criteria(), Long.class, 3L, pager.limit(null), id -> id);
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(Long.class));
+        assertEquals(new Document("_id", new Document("$gt", 3L)), query.getValue().getQueryObject());
+        assertEquals(3, query.getValue().getLimit());
+        assertEquals(List.of(4L, 5L), page.getContent());
+        assertEquals(5L, page.getNextAfter());
+
+        when(mongoTemplate.find(any(Query.class), eq(Long.class))).thenReturn(List.of(6L));
+        assertFalse(pager.page(new Criteria(), Long.class, 5L, 2, id -> id).hasNext());
+        assertThrows(InvalidRequestParamException.class, () -> pager.limit(11));
+    }
+
+    @Test
+    void pagesBySortFieldStartAfterTheLastKey() {
+        Date day = new Date(1_650_000_000_000L);
+        when(mongoTemplate.find(any(Query.class), eq(Document.class))).thenReturn(List.of(
+                new Document("_id", 4L).append("day", day), new Document("_id", 2L).append("day", new Date())));
+
+        KeysetPage<Document> page = pager.page(Criteria.where("day").lt(new Date()), Document.class, List.of("name"),
+                "day", new KeysetKey(day, 3L), 1, document -> new KeysetKey(document.get("day"), document.get("_id")));
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(Document.class));
+        assertEquals(List.of(new Document("day", new Document("$gt", day)),
+                        new Document("day", day).append("_id", new Document("$gt", 3L))),
+                query.getValue().getQueryObject().get("$or"));
+        assertEquals(new Document("day", 1).append("_id", 1), query.getValue().getSortObject());
+        assertEquals(new Document("name", 1).append("day", 1), query.getValue().getFieldsObject());
+        assertEquals(new KeysetKey(day, 4L), page.getNextAfter());
+    }
+
+    @Test
+    void streamsOneJsonObjectPerLine() throws Exception {
+        Iterator<Long> ids = LongStream.rangeClosed(1, 250).boxed().iterator();
+        when(mongoTemplate.stream(any(Query.class), eq(Long.class))).thenReturn(new CloseableIterator<>() {
+            @Override
+            public boolean hasNext() {
+                return ids.hasNext();
+            }
+
+            @Override
+            public Long next() {
+                return ids.next();
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+
+        ResponseEntity<StreamingResponseBody> response = pager.stream(new Criteria(), Long.class, null,
+                id -> Map.of("id", id));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().collect(Collectors.toList());
+        assertEquals("application/x-ndjson", response.getHeaders().getContentType().toString());
+        assertEquals(250, lines.size());
+        assertEquals("{\"id\":250}", lines.get(249));
+        assertNull(pager.page(new Criteria(), Long.class, null, 2, id -> id).getNextAfter());
+    }
+}